@@ -0,0 +1,19 @@
+package com.isfa.dsi.filmexplorer.DTOs;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+/**
+ * One page of a keyset-paginated list; pass {@code nextCursor} back as {@code cursor} for the next one
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class CursorPage<T> {
+    private List<T> items;
+    private String nextCursor;   // null on the last page
+    private boolean hasMore;
+}
@@ -0,0 +1,45 @@
+package com.isfa.dsi.filmexplorer.DTOs;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class ImportJobResponse {
+
+    private Long id;
+    private String fileName;
+    private String source;    // UPLOAD, SERVER
+    private String mode;      // INSERT, COPY, UPSERT
+    private String status;    // QUEUED, RUNNING, COMPLETED, FAILED
+    private String compression; // NONE, GZIP, ZSTD
+
+    // Progress; bytes are bytes of the stored file, compressed or not
+    private long totalBytes;
+    private long bytesProcessed;
+    private double percentComplete;
+    private long rowsRead;
+    private long rowsParsed;
+    private long rowsWritten;
+    private long rowsInserted;
+    private long rowsUpdated;
+    private long rowsUnchanged;
+    private long errorCount;
+    private List<String> errorSample;
+
+    // Throughput of the current (or last) run
+    private double rowsPerSecond;
+    private Long etaSeconds;
+
+    private String failureMessage;
+    private LocalDateTime createdAt;
+    private LocalDateTime startedAt;
+    private LocalDateTime finishedAt;
+}
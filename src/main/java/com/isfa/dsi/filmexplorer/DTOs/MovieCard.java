@@ -1,5 +1,6 @@
 package com.isfa.dsi.filmexplorer.DTOs;
 
+import com.fasterxml.jackson.annotation.JsonInclude;
 import lombok.Data;
 import lombok.Getter;
 import lombok.Setter;
@@ -28,6 +29,16 @@ public class MovieCard {
     private String overview;
     private String originalTitle;
     private Boolean isImdbRated;
+    // Weighted rank score, the key of sortBy=score and the highlyRated filter
+    private BigDecimal rankScore;
+
+    // User review summary, only filled on the movie detail response (not part of the binary codec)
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    private RatingStats reviewStats;
+
+    // Status in the caller's watchlist, only filled for signed-in callers (not part of the binary codec)
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    private String watchlistStatus;
 
 
     public String getPrimaryGenre() {
@@ -54,4 +65,31 @@ public class MovieCard {
         }
         return title;
     }
-}
\ No newline at end of file
+
+
+    /**
+     * Shallow copy, so per-request fields can be set on cards shared by the catalogue
+     */
+    public MovieCard copy() {
+        MovieCard copy = new MovieCard();
+        copy.id = id;
+        copy.title = title;
+        copy.releaseYear = releaseYear;
+        copy.rating = rating;
+        copy.voteCount = voteCount;
+        copy.posterPath = posterPath;
+        copy.genres = genres;
+        copy.director = director;
+        copy.mainStars = mainStars;
+        copy.runtime = runtime;
+        copy.imdbRating = imdbRating;
+        copy.popularity = popularity;
+        copy.overview = overview;
+        copy.originalTitle = originalTitle;
+        copy.isImdbRated = isImdbRated;
+        copy.rankScore = rankScore;
+        copy.reviewStats = reviewStats;
+        copy.watchlistStatus = watchlistStatus;
+        return copy;
+    }
+}
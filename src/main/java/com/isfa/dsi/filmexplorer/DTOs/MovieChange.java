@@ -0,0 +1,28 @@
+package com.isfa.dsi.filmexplorer.DTOs;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * One line of the movie change feed
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class MovieChange {
+
+    public enum Type {
+        UPSERT, DELETE,
+        // Last line of every response; its seq is the next "since"
+        CHECKPOINT
+    }
+
+    private long seq;
+    private Type type;
+    private Long id;
+    // Current state of the movie; null for deletions
+    private MovieCard movie;
+}
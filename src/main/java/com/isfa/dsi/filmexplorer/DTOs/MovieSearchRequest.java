@@ -10,7 +10,7 @@ public class MovieSearchRequest {
     private String query;
 
     // Quick filters (checkboxes)
-    private Boolean highlyRated;    // >7.0
+    private Boolean highlyRated;    // rank score >= 7.0
     private Boolean recentlyReleased; // Last 5 years
     private Boolean popular;        // >1k votes
     private Boolean shortRuntime;   // <90 min
@@ -21,6 +21,7 @@ public class MovieSearchRequest {
     private Integer maxYear;
     private Double minRating;
     private Double maxRating;
+    private Double minScore;        // weighted rank score, see MovieRankService
     private Integer minVoteCount;
     private String director;
     private List<String> actors;
@@ -0,0 +1,20 @@
+package com.isfa.dsi.filmexplorer.DTOs;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Rating summary of a movie's user reviews
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class RatingStats {
+    private long reviewCount;
+    private Double averageRating;     // null without reviews
+    private Double ratingStdDev;       // population standard deviation, null without reviews
+    private long[] histogram;          // histogram[i] = reviews rated i + 1
+}
@@ -0,0 +1,22 @@
+package com.isfa.dsi.filmexplorer.DTOs;
+
+import java.time.LocalDateTime;
+
+/**
+ * Review joined with its author, read in one statement for review listings
+ * (no lazy user or movie to load per row)
+ */
+public record ReviewListRow(
+        Long id,
+        Long userId,
+        String userEmail,
+        String userFirstName,
+        String userLastName,
+        Integer rating,
+        String title,
+        String content,
+        Long likesCount,
+        LocalDateTime createdAt,
+        LocalDateTime updatedAt
+) {
+}
@@ -1,5 +1,6 @@
 package com.isfa.dsi.filmexplorer.DTOs;
 
+import com.fasterxml.jackson.annotation.JsonInclude;
 import lombok.AllArgsConstructor;
 import lombok.Builder;
 import lombok.Data;
@@ -21,6 +22,10 @@ public class ReviewResponse {
     private LocalDateTime createdAt;
     private LocalDateTime updatedAt;
     private String userEmail;         // For display
+    private String userDisplayName;   // First and last name, or the email when both are blank
     private Boolean isAuthor;         // If current user is author
     private Boolean isLiked;          // If current user liked this
+
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    private Boolean pending;          // Accepted in write-behind mode, not yet stored (no id yet)
 }
\ No newline at end of file
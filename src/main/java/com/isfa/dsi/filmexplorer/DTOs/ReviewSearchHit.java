@@ -0,0 +1,24 @@
+package com.isfa.dsi.filmexplorer.DTOs;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class ReviewSearchHit {
+    private Long reviewId;
+    private Long movieId;
+    private Long userId;
+    private String userDisplayName;
+    private Integer rating;           // 1-10
+    private String title;
+    private String snippet;           // Best matching passage of the content
+    private List<int[]> highlights;   // [start, end) of matched words within the snippet
+    private Double score;             // BM25 relevance
+}
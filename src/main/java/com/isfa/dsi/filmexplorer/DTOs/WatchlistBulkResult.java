@@ -0,0 +1,32 @@
+package com.isfa.dsi.filmexplorer.DTOs;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Outcome of one item of a bulk watchlist request, in request order
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class WatchlistBulkResult {
+
+    public enum Outcome {
+        ADDED, UPDATED, REMOVED,
+        // Nothing to do: already in the watchlist, or not in it
+        UNCHANGED,
+        MOVIE_NOT_FOUND, INVALID
+    }
+
+    private int index;
+    private String op;
+    private Long movieId;
+    private Outcome outcome;
+
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    private String message;
+}
@@ -1,5 +1,6 @@
 package com.isfa.dsi.filmexplorer.DTOs;
 
+import com.fasterxml.jackson.annotation.JsonInclude;
 import lombok.AllArgsConstructor;
 import lombok.Builder;
 import lombok.Data;
@@ -20,6 +21,10 @@ public class WatchlistResponse {
     private Integer movieReleaseYear;
     private String moviePosterPath;
     private String status;  // WANT_TO_WATCH, WATCHING, WATCHED, NOT_INTERESTED
+    private Integer position;  // Custom order key, ascending
     private LocalDateTime addedAt;
     private LocalDateTime updatedAt;
+
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    private Boolean pending;  // Accepted in write-behind mode, not yet stored (no id yet)
 }
\ No newline at end of file
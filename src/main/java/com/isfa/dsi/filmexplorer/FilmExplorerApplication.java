@@ -2,8 +2,10 @@ package com.isfa.dsi.filmexplorer;
 
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
+import org.springframework.scheduling.annotation.EnableScheduling;
 
 @SpringBootApplication
+@EnableScheduling
 public class FilmExplorerApplication {
 
 	public static void main(String[] args) {
@@ -0,0 +1,423 @@
+package com.isfa.dsi.filmexplorer.codec;
+
+import com.isfa.dsi.filmexplorer.DTOs.MovieCard;
+import com.isfa.dsi.filmexplorer.DTOs.MovieSearchResponse;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Compact schema-based binary format for MovieCard and MovieSearchResponse.
+ *
+ * Layout (all integers are unsigned LEB128 varints unless stated otherwise):
+ * <pre>
+ *   header   : 'F' 'X' 'C' version(1 byte) kind(1 byte: 1 = search response, 2 = single card)
+ *   response : currentPage totalPages totalResults searchTimeMs flags(1 byte)
+ *              searchQuery appliedFilters sortedBy facets cards
+ *   card     : presence mask, then every present field in declaration order
+ *   string   : dictionary reference (0 = literal follows, n = n-th literal of this message)
+ *   literal  : length + UTF-8 bytes
+ *   decimal  : zigzag(scale) &lt;&lt; 1 | big, then zigzag(unscaled) or length + two's complement bytes
+ * </pre>
+ * Genres, directors and stars repeat a lot inside one page, so every string goes
+ * through a per-message dictionary and is only spelled out the first time.
+ */
+public final class MovieCardCodec {
+
+    public static final int VERSION = 2;
+
+    private static final byte[] MAGIC = {'F', 'X', 'C'};
+    private static final int KIND_SEARCH_RESPONSE = 1;
+    private static final int KIND_CARD = 2;
+
+    // Card presence bits, in encoding order
+    private static final int F_ID = 1;
+    private static final int F_TITLE = 1 << 1;
+    private static final int F_RELEASE_YEAR = 1 << 2;
+    private static final int F_RATING = 1 << 3;
+    private static final int F_VOTE_COUNT = 1 << 4;
+    private static final int F_POSTER_PATH = 1 << 5;
+    private static final int F_GENRES = 1 << 6;
+    private static final int F_DIRECTOR = 1 << 7;
+    private static final int F_MAIN_STARS = 1 << 8;
+    private static final int F_RUNTIME = 1 << 9;
+    private static final int F_IMDB_RATING = 1 << 10;
+    private static final int F_POPULARITY = 1 << 11;
+    private static final int F_OVERVIEW = 1 << 12;
+    private static final int F_ORIGINAL_TITLE = 1 << 13;
+    private static final int F_IS_IMDB_RATED = 1 << 14;
+    private static final int F_IMDB_RATED_VALUE = 1 << 15;
+    private static final int F_RANK_SCORE = 1 << 16;
+
+    private MovieCardCodec() {
+    }
+
+    public static byte[] encode(MovieSearchResponse response) {
+        Encoder encoder = new Encoder();
+        encoder.writeSearchResponse(response);
+        return encoder.toByteArray();
+    }
+
+    public static void encode(MovieSearchResponse response, OutputStream out) throws IOException {
+        Encoder encoder = new Encoder();
+        encoder.writeSearchResponse(response);
+        encoder.writeTo(out);
+    }
+
+    public static byte[] encode(MovieCard card) {
+        Encoder encoder = new Encoder();
+        encoder.writeHeader(KIND_CARD);
+        encoder.writeCard(card);
+        return encoder.toByteArray();
+    }
+
+    public static MovieSearchResponse decodeSearchResponse(byte[] bytes) {
+        Decoder decoder = new Decoder(ByteBuffer.wrap(bytes));
+        decoder.readHeader(KIND_SEARCH_RESPONSE);
+        return decoder.readSearchResponse();
+    }
+
+    public static MovieCard decodeCard(byte[] bytes) {
+        Decoder decoder = new Decoder(ByteBuffer.wrap(bytes));
+        decoder.readHeader(KIND_CARD);
+        return decoder.readCard();
+    }
+
+    /**
+     * Reusable encoder writing into a growable buffer.
+     * Call {@link #reset()} between messages to drop the buffer and the string dictionary.
+     */
+    public static final class Encoder {
+
+        private byte[] buf = new byte[4096];
+        private int pos;
+        private final Map<String, Integer> dictionary = new HashMap<>();
+
+        public void reset() {
+            pos = 0;
+            dictionary.clear();
+        }
+
+        public int size() {
+            return pos;
+        }
+
+        public byte[] toByteArray() {
+            return Arrays.copyOf(buf, pos);
+        }
+
+        public void writeTo(OutputStream out) throws IOException {
+            out.write(buf, 0, pos);
+        }
+
+        public void writeHeader(int kind) {
+            ensure(MAGIC.length + 2);
+            System.arraycopy(MAGIC, 0, buf, pos, MAGIC.length);
+            pos += MAGIC.length;
+            buf[pos++] = (byte) VERSION;
+            buf[pos++] = (byte) kind;
+        }
+
+        public void writeSearchResponse(MovieSearchResponse response) {
+            writeHeader(KIND_SEARCH_RESPONSE);
+            writeVarLong(response.getCurrentPage());
+            writeVarLong(response.getTotalPages());
+            writeVarLong(response.getTotalResults());
+            writeVarLong(response.getSearchTimeMs());
+
+            int flags = 0;
+            if (response.getHasMoreResults() != null) {
+                flags |= 1;
+                if (response.getHasMoreResults()) flags |= 2;
+            }
+            writeByte(flags);
+
+            writeNullableString(response.getSearchQuery());
+            writeNullableString(response.getAppliedFilters());
+            writeNullableString(response.getSortedBy());
+
+            Map<String, Long> facets = response.getFacetCounts();
+            writeVarLong(facets == null ? 0 : facets.size() + 1L);
+            if (facets != null) {
+                for (Map.Entry<String, Long> entry : facets.entrySet()) {
+                    writeString(entry.getKey());
+                    writeVarLong(entry.getValue() != null ? zigzag(entry.getValue()) : 0);
+                }
+            }
+
+            List<MovieCard> cards = response.getMovies();
+            writeVarLong(cards == null ? 0 : cards.size() + 1L);
+            if (cards != null) {
+                for (MovieCard card : cards) {
+                    writeCard(card);
+                }
+            }
+        }
+
+        public void writeCard(MovieCard card) {
+            int mask = 0;
+            if (card.getId() != null) mask |= F_ID;
+            if (card.getTitle() != null) mask |= F_TITLE;
+            if (card.getReleaseYear() != null) mask |= F_RELEASE_YEAR;
+            if (card.getRating() != null) mask |= F_RATING;
+            if (card.getVoteCount() != null) mask |= F_VOTE_COUNT;
+            if (card.getPosterPath() != null) mask |= F_POSTER_PATH;
+            if (card.getGenres() != null) mask |= F_GENRES;
+            if (card.getDirector() != null) mask |= F_DIRECTOR;
+            if (card.getMainStars() != null) mask |= F_MAIN_STARS;
+            if (card.getRuntime() != null) mask |= F_RUNTIME;
+            if (card.getImdbRating() != null) mask |= F_IMDB_RATING;
+            if (card.getPopularity() != null) mask |= F_POPULARITY;
+            if (card.getOverview() != null) mask |= F_OVERVIEW;
+            if (card.getOriginalTitle() != null) mask |= F_ORIGINAL_TITLE;
+            if (card.getIsImdbRated() != null) {
+                mask |= F_IS_IMDB_RATED;
+                if (card.getIsImdbRated()) mask |= F_IMDB_RATED_VALUE;
+            }
+            if (card.getRankScore() != null) mask |= F_RANK_SCORE;
+            writeVarLong(mask);
+
+            if ((mask & F_ID) != 0) writeVarLong(zigzag(card.getId()));
+            if ((mask & F_TITLE) != 0) writeString(card.getTitle());
+            if ((mask & F_RELEASE_YEAR) != 0) writeVarLong(zigzag(card.getReleaseYear()));
+            if ((mask & F_RATING) != 0) writeDecimal(card.getRating());
+            if ((mask & F_VOTE_COUNT) != 0) writeVarLong(zigzag(card.getVoteCount()));
+            if ((mask & F_POSTER_PATH) != 0) writeString(card.getPosterPath());
+            if ((mask & F_GENRES) != 0) {
+                writeVarLong(card.getGenres().size());
+                for (String genre : card.getGenres()) writeNullableString(genre);
+            }
+            if ((mask & F_DIRECTOR) != 0) writeString(card.getDirector());
+            if ((mask & F_MAIN_STARS) != 0) {
+                writeVarLong(card.getMainStars().length);
+                for (String star : card.getMainStars()) writeNullableString(star);
+            }
+            if ((mask & F_RUNTIME) != 0) writeVarLong(zigzag(card.getRuntime()));
+            if ((mask & F_IMDB_RATING) != 0) writeDecimal(card.getImdbRating());
+            if ((mask & F_POPULARITY) != 0) writeDecimal(card.getPopularity());
+            if ((mask & F_OVERVIEW) != 0) writeString(card.getOverview());
+            if ((mask & F_ORIGINAL_TITLE) != 0) writeString(card.getOriginalTitle());
+            if ((mask & F_RANK_SCORE) != 0) writeDecimal(card.getRankScore());
+        }
+
+        private void writeNullableString(String value) {
+            writeByte(value == null ? 0 : 1);
+            if (value != null) writeString(value);
+        }
+
+        private void writeString(String value) {
+            Integer ref = dictionary.get(value);
+            if (ref != null) {
+                writeVarLong(ref);
+                return;
+            }
+            writeVarLong(0);
+            dictionary.put(value, dictionary.size() + 1);
+            byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+            writeVarLong(bytes.length);
+            ensure(bytes.length);
+            System.arraycopy(bytes, 0, buf, pos, bytes.length);
+            pos += bytes.length;
+        }
+
+        private void writeDecimal(BigDecimal value) {
+            BigInteger unscaled = value.unscaledValue();
+            boolean big = unscaled.bitLength() > 63;
+            writeVarLong(zigzag(value.scale()) << 1 | (big ? 1 : 0));
+            if (big) {
+                byte[] bytes = unscaled.toByteArray();
+                writeVarLong(bytes.length);
+                ensure(bytes.length);
+                System.arraycopy(bytes, 0, buf, pos, bytes.length);
+                pos += bytes.length;
+            } else {
+                writeVarLong(zigzag(unscaled.longValue()));
+            }
+        }
+
+        private void writeByte(int value) {
+            ensure(1);
+            buf[pos++] = (byte) value;
+        }
+
+        private void writeVarLong(long value) {
+            ensure(10);
+            while ((value & ~0x7FL) != 0) {
+                buf[pos++] = (byte) ((value & 0x7F) | 0x80);
+                value >>>= 7;
+            }
+            buf[pos++] = (byte) value;
+        }
+
+        private void ensure(int extra) {
+            if (pos + extra > buf.length) {
+                buf = Arrays.copyOf(buf, Math.max(buf.length * 2, pos + extra));
+            }
+        }
+    }
+
+    /**
+     * Decoder reading from a ByteBuffer (heap or mapped).
+     */
+    public static final class Decoder {
+
+        private final ByteBuffer in;
+        private final List<String> dictionary = new ArrayList<>();
+
+        public Decoder(ByteBuffer in) {
+            this.in = in;
+        }
+
+        public void readHeader(int expectedKind) {
+            for (byte b : MAGIC) {
+                if (in.get() != b) {
+                    throw new IllegalArgumentException("Not a movie card payload");
+                }
+            }
+            int version = in.get() & 0xFF;
+            if (version != VERSION) {
+                throw new IllegalArgumentException("Unsupported movie card format version: " + version);
+            }
+            int kind = in.get() & 0xFF;
+            if (kind != expectedKind) {
+                throw new IllegalArgumentException("Unexpected payload kind: " + kind);
+            }
+        }
+
+        public MovieSearchResponse readSearchResponse() {
+            MovieSearchResponse response = new MovieSearchResponse();
+            response.setCurrentPage((int) readVarLong());
+            response.setTotalPages((int) readVarLong());
+            response.setTotalResults(readVarLong());
+            response.setSearchTimeMs(readVarLong());
+
+            int flags = in.get() & 0xFF;
+            if ((flags & 1) != 0) {
+                response.setHasMoreResults((flags & 2) != 0);
+            }
+
+            response.setSearchQuery(readNullableString());
+            response.setAppliedFilters(readNullableString());
+            response.setSortedBy(readNullableString());
+
+            long facetCount = readVarLong();
+            if (facetCount > 0) {
+                Map<String, Long> facets = new LinkedHashMap<>();
+                for (long i = 1; i < facetCount; i++) {
+                    facets.put(readString(), unzigzag(readVarLong()));
+                }
+                response.setFacetCounts(facets);
+            }
+
+            long cardCount = readVarLong();
+            if (cardCount > 0) {
+                List<MovieCard> cards = new ArrayList<>((int) cardCount - 1);
+                for (long i = 1; i < cardCount; i++) {
+                    cards.add(readCard());
+                }
+                response.setMovies(cards);
+            }
+            return response;
+        }
+
+        public MovieCard readCard() {
+            int mask = (int) readVarLong();
+            MovieCard card = new MovieCard();
+
+            if ((mask & F_ID) != 0) card.setId(unzigzag(readVarLong()));
+            if ((mask & F_TITLE) != 0) card.setTitle(readString());
+            if ((mask & F_RELEASE_YEAR) != 0) card.setReleaseYear((int) unzigzag(readVarLong()));
+            if ((mask & F_RATING) != 0) card.setRating(readDecimal());
+            if ((mask & F_VOTE_COUNT) != 0) card.setVoteCount(unzigzag(readVarLong()));
+            if ((mask & F_POSTER_PATH) != 0) card.setPosterPath(readString());
+            if ((mask & F_GENRES) != 0) {
+                int count = (int) readVarLong();
+                List<String> genres = new ArrayList<>(count);
+                for (int i = 0; i < count; i++) genres.add(readNullableString());
+                card.setGenres(genres);
+            }
+            if ((mask & F_DIRECTOR) != 0) card.setDirector(readString());
+            if ((mask & F_MAIN_STARS) != 0) {
+                String[] stars = new String[(int) readVarLong()];
+                for (int i = 0; i < stars.length; i++) stars[i] = readNullableString();
+                card.setMainStars(stars);
+            }
+            if ((mask & F_RUNTIME) != 0) card.setRuntime((int) unzigzag(readVarLong()));
+            if ((mask & F_IMDB_RATING) != 0) card.setImdbRating(readDecimal());
+            if ((mask & F_POPULARITY) != 0) card.setPopularity(readDecimal());
+            if ((mask & F_OVERVIEW) != 0) card.setOverview(readString());
+            if ((mask & F_ORIGINAL_TITLE) != 0) card.setOriginalTitle(readString());
+            if ((mask & F_IS_IMDB_RATED) != 0) card.setIsImdbRated((mask & F_IMDB_RATED_VALUE) != 0);
+            if ((mask & F_RANK_SCORE) != 0) card.setRankScore(readDecimal());
+            return card;
+        }
+
+        private String readNullableString() {
+            return in.get() == 0 ? null : readString();
+        }
+
+        private String readString() {
+            int ref = (int) readVarLong();
+            if (ref > 0) {
+                return dictionary.get(ref - 1);
+            }
+            int length = (int) readVarLong();
+            String value;
+            if (in.hasArray()) {
+                value = new String(in.array(), in.arrayOffset() + in.position(), length, StandardCharsets.UTF_8);
+                in.position(in.position() + length);
+            } else {
+                byte[] bytes = new byte[length];
+                in.get(bytes);
+                value = new String(bytes, StandardCharsets.UTF_8);
+            }
+            dictionary.add(value);
+            return value;
+        }
+
+        private BigDecimal readDecimal() {
+            long header = readVarLong();
+            int scale = (int) unzigzag(header >>> 1);
+            if ((header & 1) != 0) {
+                byte[] bytes = new byte[(int) readVarLong()];
+                in.get(bytes);
+                return new BigDecimal(new BigInteger(bytes), scale);
+            }
+            return BigDecimal.valueOf(unzigzag(readVarLong()), scale);
+        }
+
+        private long readVarLong() {
+            long result = 0;
+            int shift = 0;
+            while (true) {
+                byte b = in.get();
+                result |= (long) (b & 0x7F) << shift;
+                if ((b & 0x80) == 0) {
+                    return result;
+                }
+                shift += 7;
+                if (shift > 63) {
+                    throw new IllegalArgumentException("Malformed varint");
+                }
+            }
+        }
+    }
+
+    private static long zigzag(long value) {
+        return (value << 1) ^ (value >> 63);
+    }
+
+    private static long unzigzag(long value) {
+        return (value >>> 1) ^ -(value & 1);
+    }
+}
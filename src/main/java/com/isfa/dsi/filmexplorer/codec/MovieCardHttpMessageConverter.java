@@ -0,0 +1,52 @@
+package com.isfa.dsi.filmexplorer.codec;
+
+import com.isfa.dsi.filmexplorer.DTOs.MovieCard;
+import com.isfa.dsi.filmexplorer.DTOs.MovieSearchResponse;
+import org.springframework.http.HttpInputMessage;
+import org.springframework.http.HttpOutputMessage;
+import org.springframework.http.MediaType;
+import org.springframework.http.converter.AbstractHttpMessageConverter;
+import org.springframework.http.converter.HttpMessageNotReadableException;
+import org.springframework.http.converter.HttpMessageNotWritableException;
+
+import java.io.IOException;
+
+/**
+ * Serves MovieCard / MovieSearchResponse in the {@link MovieCardCodec} format
+ * when the client sends {@code Accept: application/x-movie-cards}.
+ */
+public class MovieCardHttpMessageConverter extends AbstractHttpMessageConverter<Object> {
+
+    public static final String MEDIA_TYPE_VALUE = "application/x-movie-cards";
+    public static final MediaType MEDIA_TYPE = MediaType.parseMediaType(MEDIA_TYPE_VALUE);
+
+    public MovieCardHttpMessageConverter() {
+        super(MEDIA_TYPE);
+    }
+
+    @Override
+    protected boolean supports(Class<?> clazz) {
+        return MovieSearchResponse.class.equals(clazz) || MovieCard.class.equals(clazz);
+    }
+
+    @Override
+    protected boolean canRead(MediaType mediaType) {
+        return false;
+    }
+
+    @Override
+    protected Object readInternal(Class<?> clazz, HttpInputMessage inputMessage)
+            throws IOException, HttpMessageNotReadableException {
+        throw new HttpMessageNotReadableException("Movie card format is write-only", inputMessage);
+    }
+
+    @Override
+    protected void writeInternal(Object value, HttpOutputMessage outputMessage)
+            throws IOException, HttpMessageNotWritableException {
+        byte[] bytes = value instanceof MovieSearchResponse response
+                ? MovieCardCodec.encode(response)
+                : MovieCardCodec.encode((MovieCard) value);
+        outputMessage.getHeaders().setContentLength(bytes.length);
+        outputMessage.getBody().write(bytes);
+    }
+}
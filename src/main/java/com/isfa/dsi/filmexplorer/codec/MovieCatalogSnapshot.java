@@ -0,0 +1,232 @@
+package com.isfa.dsi.filmexplorer.codec;
+
+import com.isfa.dsi.filmexplorer.DTOs.MovieCard;
+
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayInputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.IntStream;
+import java.util.zip.CRC32C;
+import java.util.zip.CheckedOutputStream;
+
+/**
+ * On-disk snapshot of the in-memory movie catalogue, used to warm it on boot.
+ *
+ * Layout (big-endian fixed-width integers):
+ * <pre>
+ *   header  : 'F' 'X' 'S' format(1 byte)
+ *             stamp.movieCount(8) stamp.maxId(8) stamp.version(8) createdAtMillis(8)
+ *             cardCount(4) blockCount(4)
+ *   block   : cards(4) length(4) then {@link MovieCardCodec} cards sharing one string dictionary
+ *   genres  : count(4), then per genre: length(2) UTF-8 name, movies(8)
+ *   trailer : CRC32C of everything before it (8)
+ * </pre>
+ * Cards are grouped in blocks so neither writing nor reading needs the whole catalogue
+ * encoded in one buffer, and blocks decode in parallel. Files are replaced atomically.
+ */
+public final class MovieCatalogSnapshot {
+
+    public static final int FORMAT_VERSION = 2;
+
+    private static final byte[] MAGIC = {'F', 'X', 'S'};
+    private static final int HEADER_BYTES = MAGIC.length + 1 + 4 * 8 + 2 * 4;
+    private static final int CARDS_PER_BLOCK = 4096;
+
+    private MovieCatalogSnapshot() {
+    }
+
+    /**
+     * Database state the snapshot was taken from
+     *
+     * @param version catalogue write counter, bumped by every write to movies made through the application
+     */
+    public record Stamp(long movieCount, long maxId, long version) {
+    }
+
+    public record Contents(Stamp stamp, long createdAtMillis, List<MovieCard> cards, Map<String, Long> genreCounts) {
+    }
+
+    /**
+     * Write a snapshot next to {@code path} and move it into place atomically
+     */
+    public static void write(Path path, Contents contents) throws IOException {
+        Path directory = path.toAbsolutePath().getParent();
+        Files.createDirectories(directory);
+        Path temp = Files.createTempFile(directory, path.getFileName().toString(), ".tmp");
+
+        try (FileChannel channel = FileChannel.open(temp, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+            CRC32C crc = new CRC32C();
+            OutputStream raw = new BufferedOutputStream(Channels.newOutputStream(channel), 1 << 16);
+            DataOutputStream out = new DataOutputStream(new CheckedOutputStream(raw, crc));
+
+            List<MovieCard> cards = contents.cards();
+            int blockCount = (cards.size() + CARDS_PER_BLOCK - 1) / CARDS_PER_BLOCK;
+
+            out.write(MAGIC);
+            out.writeByte(FORMAT_VERSION);
+            out.writeLong(contents.stamp().movieCount());
+            out.writeLong(contents.stamp().maxId());
+            out.writeLong(contents.stamp().version());
+            out.writeLong(contents.createdAtMillis());
+            out.writeInt(cards.size());
+            out.writeInt(blockCount);
+
+            MovieCardCodec.Encoder encoder = new MovieCardCodec.Encoder();
+            for (int from = 0; from < cards.size(); from += CARDS_PER_BLOCK) {
+                int to = Math.min(from + CARDS_PER_BLOCK, cards.size());
+                encoder.reset();
+                for (int i = from; i < to; i++) {
+                    encoder.writeCard(cards.get(i));
+                }
+                out.writeInt(to - from);
+                out.writeInt(encoder.size());
+                encoder.writeTo(out);
+            }
+
+            out.writeInt(contents.genreCounts().size());
+            for (Map.Entry<String, Long> genre : contents.genreCounts().entrySet()) {
+                out.writeUTF(genre.getKey());
+                out.writeLong(genre.getValue());
+            }
+            out.flush();
+
+            // The checksum itself is not part of the checked range
+            new DataOutputStream(raw).writeLong(crc.getValue());
+            raw.flush();
+            channel.force(true);
+        } catch (IOException | RuntimeException e) {
+            Files.deleteIfExists(temp);
+            throw e;
+        }
+
+        Files.move(temp, path, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+    }
+
+    /**
+     * Read only the stamp, without validating or decoding the rest of the file
+     */
+    public static Stamp readStamp(Path path) throws IOException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            ByteBuffer header = ByteBuffer.allocate(HEADER_BYTES);
+            while (header.hasRemaining() && channel.read(header) >= 0) {
+                // keep reading
+            }
+            header.flip();
+            return readHeader(header, channel.size()).stamp();
+        }
+    }
+
+    /**
+     * Memory-map and decode a snapshot
+     *
+     * @throws IOException if the file is truncated, corrupt or of another format version
+     */
+    public static Contents read(Path path) throws IOException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            long size = channel.size();
+            if (size > Integer.MAX_VALUE) {
+                throw new IOException("Catalogue snapshot too large to map: " + size + " bytes");
+            }
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, size);
+            Header header = readHeader(buffer, size);
+
+            CRC32C crc = new CRC32C();
+            crc.update(buffer.slice(0, (int) size - 8));
+            if (crc.getValue() != buffer.getLong((int) size - 8)) {
+                throw new IOException("Catalogue snapshot checksum mismatch");
+            }
+
+            try {
+                // Walk the block table first, then decode the blocks in parallel
+                List<ByteBuffer> blocks = new ArrayList<>(header.blockCount());
+                List<Integer> blockCards = new ArrayList<>(header.blockCount());
+                int pos = HEADER_BYTES;
+                for (int i = 0; i < header.blockCount(); i++) {
+                    int cards = buffer.getInt(pos);
+                    int length = buffer.getInt(pos + 4);
+                    blocks.add(buffer.slice(pos + 8, length));
+                    blockCards.add(cards);
+                    pos += 8 + length;
+                }
+
+                List<List<MovieCard>> decoded = IntStream.range(0, blocks.size())
+                        .parallel()
+                        .mapToObj(i -> decodeBlock(blocks.get(i), blockCards.get(i)))
+                        .toList();
+                List<MovieCard> cards = new ArrayList<>(header.cardCount());
+                decoded.forEach(cards::addAll);
+                if (cards.size() != header.cardCount()) {
+                    throw new IOException("Catalogue snapshot holds " + cards.size() + " cards, header says "
+                            + header.cardCount());
+                }
+
+                ByteBuffer tail = buffer.slice(pos, (int) size - 8 - pos);
+                int genreCount = tail.getInt();
+                Map<String, Long> genreCounts = new LinkedHashMap<>(genreCount * 2);
+                for (int i = 0; i < genreCount; i++) {
+                    byte[] name = new byte[Short.toUnsignedInt(tail.getShort())];
+                    tail.get(name);
+                    genreCounts.put(decodeModifiedUtf8(name), tail.getLong());
+                }
+
+                return new Contents(header.stamp(), header.createdAtMillis(), cards, genreCounts);
+            } catch (RuntimeException e) {
+                throw new IOException("Malformed catalogue snapshot: " + e.getMessage(), e);
+            }
+        }
+    }
+
+    private static List<MovieCard> decodeBlock(ByteBuffer block, int cards) {
+        MovieCardCodec.Decoder decoder = new MovieCardCodec.Decoder(block);
+        List<MovieCard> result = new ArrayList<>(cards);
+        for (int i = 0; i < cards; i++) {
+            result.add(decoder.readCard());
+        }
+        return result;
+    }
+
+    private static Header readHeader(ByteBuffer buffer, long size) throws IOException {
+        if (size < HEADER_BYTES + 8) {
+            throw new IOException("Catalogue snapshot truncated");
+        }
+        for (int i = 0; i < MAGIC.length; i++) {
+            if (buffer.get(i) != MAGIC[i]) {
+                throw new IOException("Not a catalogue snapshot");
+            }
+        }
+        int format = buffer.get(MAGIC.length) & 0xFF;
+        if (format != FORMAT_VERSION) {
+            throw new IOException("Unsupported catalogue snapshot format: " + format);
+        }
+        int pos = MAGIC.length + 1;
+        Stamp stamp = new Stamp(buffer.getLong(pos), buffer.getLong(pos + 8), buffer.getLong(pos + 16));
+        return new Header(stamp, buffer.getLong(pos + 24), buffer.getInt(pos + 32), buffer.getInt(pos + 36));
+    }
+
+    // writeUTF uses modified UTF-8; read it back the same way DataInputStream does
+    private static String decodeModifiedUtf8(byte[] bytes) throws IOException {
+        byte[] framed = new byte[bytes.length + 2];
+        framed[0] = (byte) (bytes.length >>> 8);
+        framed[1] = (byte) bytes.length;
+        System.arraycopy(bytes, 0, framed, 2, bytes.length);
+        return new DataInputStream(new ByteArrayInputStream(framed)).readUTF();
+    }
+
+    private record Header(Stamp stamp, long createdAtMillis, int cardCount, int blockCount) {
+    }
+}
@@ -0,0 +1,51 @@
+package com.isfa.dsi.filmexplorer.codec;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
+
+import java.io.IOException;
+import java.io.OutputStream;
+
+/**
+ * Writes one JSON document per line (application/x-ndjson).
+ *
+ * The first record is flushed immediately so the client sees data right away,
+ * afterwards the writer flushes every {@code flushEvery} records. Writes block
+ * while the client is not reading, which in turn pauses whoever feeds the writer.
+ */
+public class NdjsonWriter {
+
+    private final ObjectWriter objectWriter;
+    private final JsonGenerator generator;
+    private final int flushEvery;
+    private long written;
+
+    public NdjsonWriter(ObjectMapper objectMapper, OutputStream out, int flushEvery) throws IOException {
+        // Flushing is ours to batch; by default Jackson flushes after every value
+        this.objectWriter = objectMapper.writer().without(SerializationFeature.FLUSH_AFTER_WRITE_VALUE);
+        this.generator = objectMapper.getFactory().createGenerator(out);
+        this.generator.disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+        // Lines are separated by '\n' alone, not Jackson's space between root values
+        this.generator.setRootValueSeparator(null);
+        this.flushEvery = Math.max(1, flushEvery);
+    }
+
+    public void write(Object value) throws IOException {
+        objectWriter.writeValue(generator, value);
+        generator.writeRaw('\n');
+        written++;
+        if (written == 1 || written % flushEvery == 0) {
+            generator.flush();
+        }
+    }
+
+    public long getWritten() {
+        return written;
+    }
+
+    public void flush() throws IOException {
+        generator.flush();
+    }
+}
@@ -0,0 +1,93 @@
+package com.isfa.dsi.filmexplorer.config;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.cbor.CBORFactory;
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
+import com.isfa.dsi.filmexplorer.DTOs.MovieCard;
+import com.isfa.dsi.filmexplorer.DTOs.MovieSearchResponse;
+import com.isfa.dsi.filmexplorer.codec.MovieCardHttpMessageConverter;
+import lombok.RequiredArgsConstructor;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.http.MediaType;
+import org.springframework.http.converter.HttpMessageConverter;
+import org.springframework.http.converter.cbor.MappingJackson2CborHttpMessageConverter;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+import org.springframework.http.converter.smile.MappingJackson2SmileHttpMessageConverter;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+
+import java.lang.reflect.Type;
+import java.util.List;
+
+/**
+ * Content negotiation for compact movie payloads.
+ *
+ * Clients of /api/movies/** may send {@code Accept: application/cbor},
+ * {@code application/x-jackson-smile} or {@code application/x-movie-cards};
+ * JSON stays the default. The binary converters only handle the movie DTOs,
+ * every other endpoint keeps answering in JSON.
+ */
+@Configuration
+@RequiredArgsConstructor
+public class BinaryEncodingConfig implements WebMvcConfigurer {
+
+    private final Jackson2ObjectMapperBuilder objectMapperBuilder;
+
+    @Override
+    public void extendMessageConverters(List<HttpMessageConverter<?>> converters) {
+        // Spring registers unrestricted CBOR/Smile converters as soon as the jars are present
+        converters.removeIf(c -> c instanceof MappingJackson2CborHttpMessageConverter
+                || c instanceof MappingJackson2SmileHttpMessageConverter);
+
+        converters.add(new MovieCardHttpMessageConverter());
+        converters.add(new MovieCborConverter(objectMapperBuilder.factory(new CBORFactory()).build()));
+        converters.add(new MovieSmileConverter(objectMapperBuilder.factory(new SmileFactory()).build()));
+    }
+
+    private static boolean isMovieDto(Class<?> clazz) {
+        return MovieSearchResponse.class.equals(clazz) || MovieCard.class.equals(clazz);
+    }
+
+    private static class MovieCborConverter extends MappingJackson2CborHttpMessageConverter {
+
+        MovieCborConverter(ObjectMapper objectMapper) {
+            super(objectMapper);
+        }
+
+        @Override
+        public boolean canRead(Type type, Class<?> contextClass, MediaType mediaType) {
+            return false;
+        }
+
+        @Override
+        public boolean canRead(Class<?> clazz, MediaType mediaType) {
+            return false;
+        }
+
+        @Override
+        public boolean canWrite(Class<?> clazz, MediaType mediaType) {
+            return isMovieDto(clazz) && super.canWrite(clazz, mediaType);
+        }
+    }
+
+    private static class MovieSmileConverter extends MappingJackson2SmileHttpMessageConverter {
+
+        MovieSmileConverter(ObjectMapper objectMapper) {
+            super(objectMapper);
+        }
+
+        @Override
+        public boolean canRead(Type type, Class<?> contextClass, MediaType mediaType) {
+            return false;
+        }
+
+        @Override
+        public boolean canRead(Class<?> clazz, MediaType mediaType) {
+            return false;
+        }
+
+        @Override
+        public boolean canWrite(Class<?> clazz, MediaType mediaType) {
+            return isMovieDto(clazz) && super.canWrite(clazz, mediaType);
+        }
+    }
+}
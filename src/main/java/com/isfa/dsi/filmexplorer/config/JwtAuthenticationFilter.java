@@ -36,6 +36,11 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
 
         log.debug("🔍 Processing request: {} {}", requestMethod, requestPath);
 
+        if (isPublicMoviePath(request) && authenticateFromClaims(request)) {
+            filterChain.doFilter(request, response);
+            return;
+        }
+
         try {
 
             String jwt = getTokenFromCookie(request);
@@ -115,6 +120,42 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
     }
 
 
+    /**
+     * Movie GETs and searches authenticate from the token's claims alone, user id and
+     * authorities, so public pages can be personalized (watchlist badges) without loading
+     * the user, and admin GETs under the same prefix still pass @PreAuthorize. An unusable
+     * token leaves the caller anonymous.
+     *
+     * @return false for tokens issued without a user id, which need the full authentication
+     */
+    private boolean authenticateFromClaims(HttpServletRequest request) {
+        String jwt = getTokenFromCookie(request);
+        if (jwt == null) {
+            jwt = getTokenFromAuthHeader(request);
+        }
+        if (jwt == null || jwt.chars().filter(c -> c == '.').count() != 2) {
+            return true;
+        }
+
+        try {
+            Long userId = jwtService.extractUserId(jwt);
+            if (userId == null) {
+                return false;
+            }
+            if (SecurityContextHolder.getContext().getAuthentication() == null) {
+                UsernamePasswordAuthenticationToken authToken = new UsernamePasswordAuthenticationToken(
+                        new JwtPrincipal(userId, jwtService.extractUserName(jwt)), null,
+                        jwtService.extractAuthorities(jwt));
+                authToken.setDetails(new WebAuthenticationDetailsSource().buildDetails(request));
+                SecurityContextHolder.getContext().setAuthentication(authToken);
+            }
+        } catch (Exception e) {
+            log.debug("Ignoring unusable token on public endpoint: {}", e.getMessage());
+        }
+        return true;
+    }
+
+
     private String getTokenFromCookie(HttpServletRequest request) {
         Cookie[] cookies = request.getCookies();
 
@@ -177,10 +218,8 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
     protected boolean shouldNotFilter(HttpServletRequest request) throws ServletException {
         String path = request.getRequestURI();
 
-        // Don't filter public endpoints
-        boolean shouldSkip = path.startsWith("/api/auth/") ||
-                (path.startsWith("/api/movies/") && request.getMethod().equals("GET")) ||
-                (path.equals("/api/movies/search") && request.getMethod().equals("POST"));
+        // Don't filter public endpoints; public movie endpoints authenticate optionally
+        boolean shouldSkip = path.startsWith("/api/auth/");
 
         if (shouldSkip) {
             log.debug(" Skipping JWT filter for public endpoint: {} {}", request.getMethod(), path);
@@ -188,4 +227,13 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
 
         return shouldSkip;
     }
+
+
+    private boolean isPublicMoviePath(HttpServletRequest request) {
+        String path = request.getRequestURI();
+
+        return (path.startsWith("/api/movies/") && request.getMethod().equals("GET")) ||
+                ((path.equals("/api/movies/search") || path.equals("/api/movies/search/stream"))
+                        && request.getMethod().equals("POST"));
+    }
 }
\ No newline at end of file
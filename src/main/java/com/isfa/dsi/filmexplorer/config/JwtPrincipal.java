@@ -0,0 +1,15 @@
+package com.isfa.dsi.filmexplorer.config;
+
+import java.security.Principal;
+
+/**
+ * Caller identified from the claims of a valid token alone, without loading the user.
+ * Only set on movie GETs and searches; the authentication carries the token's authorities.
+ */
+public record JwtPrincipal(Long userId, String email) implements Principal {
+
+    @Override
+    public String getName() {
+        return email;
+    }
+}
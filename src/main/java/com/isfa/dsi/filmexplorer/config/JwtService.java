@@ -1,22 +1,28 @@
 package com.isfa.dsi.filmexplorer.config;
 
+import com.isfa.dsi.filmexplorer.user.User;
 import io.jsonwebtoken.Claims;
 import io.jsonwebtoken.Jwts;
 import io.jsonwebtoken.SignatureAlgorithm;
 import io.jsonwebtoken.security.Keys;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
 import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.stereotype.Service;
 import java.security.Key;
 import java.util.Date;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 import java.util.function.Function;
 import java.util.stream.Collectors;
 
 @Service
 public class JwtService {
+    private static final String USER_ID_CLAIM = "uid";
+    private static final String AUTHORITIES_CLAIM = "authorities";
+
     @Value("${spring.security.jwt.secret-key}")
     private String secretKey;
 
@@ -30,14 +36,41 @@ public class JwtService {
         return extractClaim(token, Claims::getSubject);
     }
 
+    /**
+     * User id of a token; null for tokens issued without one.
+     * Parsing rejects bad signatures and expired tokens.
+     */
+    public Long extractUserId(String token) {
+        Number userId = extractClaim(token, claims -> claims.get(USER_ID_CLAIM, Number.class));
+        return userId == null ? null : userId.longValue();
+    }
+
+    /**
+     * Authorities the token was issued with
+     */
+    public List<SimpleGrantedAuthority> extractAuthorities(String token) {
+        List<?> authorities = extractClaim(token, claims -> claims.get(AUTHORITIES_CLAIM, List.class));
+        if (authorities == null) {
+            return List.of();
+        }
+        return authorities.stream()
+                .map(authority -> new SimpleGrantedAuthority(String.valueOf(authority)))
+                .toList();
+    }
+
     public String generateToken(UserDetails userDetails) {
         Map<String, Object> extraClaims = new HashMap<>();
 
 
-        extraClaims.put("authorities", userDetails.getAuthorities().stream()
+        extraClaims.put(AUTHORITIES_CLAIM, userDetails.getAuthorities().stream()
                 .map(GrantedAuthority::getAuthority)
                 .collect(Collectors.toList()));
 
+        // Lets public endpoints identify the caller without loading the user
+        if (userDetails instanceof User user && user.getId() != null) {
+            extraClaims.put(USER_ID_CLAIM, user.getId());
+        }
+
         return generateToken(extraClaims, userDetails);
     }
 
@@ -49,6 +49,7 @@ public class SecurityConfig {
 
                         // Movie endpoints (public)
                         .requestMatchers(HttpMethod.POST, "/api/movies/search").permitAll()
+                        .requestMatchers(HttpMethod.POST, "/api/movies/search/stream").permitAll()
                         .requestMatchers(HttpMethod.GET, "/api/movies/**").permitAll()
 
                         // ✅ Test endpoints (optionnel - pour démonstration)
@@ -1,25 +1,45 @@
 package com.isfa.dsi.filmexplorer.controllers;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.isfa.dsi.filmexplorer.DTOs.ImportJobResponse;
 import com.isfa.dsi.filmexplorer.DTOs.MovieCard;
 import com.isfa.dsi.filmexplorer.DTOs.MovieSearchRequest;
 import com.isfa.dsi.filmexplorer.DTOs.MovieSearchResponse;
 import com.isfa.dsi.filmexplorer.models.Movies;
 import com.isfa.dsi.filmexplorer.repos.MoviesRepo;
+import com.isfa.dsi.filmexplorer.config.JwtPrincipal;
 import com.isfa.dsi.filmexplorer.services.CsvService;
+import com.isfa.dsi.filmexplorer.services.ImportJobService;
+import com.isfa.dsi.filmexplorer.services.MovieCatalogService;
+import com.isfa.dsi.filmexplorer.services.MovieChangeService;
+import com.isfa.dsi.filmexplorer.codec.NdjsonWriter;
+import com.isfa.dsi.filmexplorer.csv.Compression;
+import com.isfa.dsi.filmexplorer.csv.CsvWriter;
+import com.isfa.dsi.filmexplorer.services.MovieRatingStatsService;
 import com.isfa.dsi.filmexplorer.services.MovieService;
+import com.isfa.dsi.filmexplorer.services.MovieStreamingService;
+import com.isfa.dsi.filmexplorer.services.WatchlistService;
+import com.isfa.dsi.filmexplorer.user.User;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.data.domain.Page;
+import org.springframework.http.CacheControl;
 import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.web.bind.annotation.*;
 import org.springframework.web.multipart.MultipartFile;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 import java.io.IOException;
+import java.io.OutputStream;
+import java.net.URI;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 
 @RestController
@@ -31,6 +51,13 @@ public class MoviesController {
     private final MovieService movieService;
     private final MoviesRepo movieRepository;
     private final CsvService csvService;
+    private final MovieStreamingService movieStreamingService;
+    private final ImportJobService importJobService;
+    private final MovieCatalogService movieCatalogService;
+    private final MovieChangeService movieChangeService;
+    private final MovieRatingStatsService movieRatingStatsService;
+    private final WatchlistService watchlistService;
+    private final ObjectMapper objectMapper;
 
 
     @PostMapping("/search")
@@ -56,16 +83,79 @@ public class MoviesController {
         response.setSortedBy(searchRequest.getSortBy() != null ? searchRequest.getSortBy() : "popularity");
         response.setHasMoreResults(response.getCurrentPage() < response.getTotalPages() - 1);
 
+        // "In my watchlist" badges for the whole page at once
+        Long userId = currentUserIdOrNull();
+        if (userId != null) {
+            watchlistService.annotate(userId, response.getMovies());
+        }
+
         log.info("Search completed: {} results in {}ms", response.getTotalResults(), searchTime);
 
         return ResponseEntity.ok(response);
     }
 
 
+    @PostMapping(value = "/search/stream", produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public ResponseEntity<StreamingResponseBody> streamSearchResults(
+            @RequestBody MovieSearchRequest searchRequest,
+            @RequestParam(required = false) Integer limit) {
+        log.info("Streaming search request: query='{}', genres={}, limit={}",
+                searchRequest.getQuery(), searchRequest.getGenres(), limit);
+
+        StreamingResponseBody body = out -> {
+            NdjsonWriter writer = new NdjsonWriter(objectMapper, out, 100);
+            movieStreamingService.streamSearch(searchRequest, limit,
+                    movie -> writer.write(movieService.convertToMovieCard(movie)));
+            writer.flush();
+        };
+
+        return ResponseEntity.ok()
+                .contentType(MediaType.APPLICATION_NDJSON)
+                .cacheControl(CacheControl.noStore())
+                .body(body);
+    }
+
+
+    /**
+     * Movies inserted, updated or deleted after change sequence {@code since}, as NDJSON.
+     * The last line is a CHECKPOINT whose seq is the {@code since} of the next call.
+     */
+    @GetMapping(value = "/changes", produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public ResponseEntity<StreamingResponseBody> streamChanges(
+            @RequestParam(defaultValue = "0") long since,
+            @RequestParam(required = false) Integer limit) {
+        log.info("Streaming movie changes since {}, limit={}", since, limit);
+
+        if (since < 0) {
+            return ResponseEntity.badRequest().build();
+        }
+
+        StreamingResponseBody body = out -> {
+            NdjsonWriter writer = new NdjsonWriter(objectMapper, out, 100);
+            movieChangeService.streamChanges(since, limit, writer::write);
+            writer.flush();
+        };
+
+        return ResponseEntity.ok()
+                .contentType(MediaType.APPLICATION_NDJSON)
+                .cacheControl(CacheControl.noStore())
+                .body(body);
+    }
+
+
     @GetMapping("/{id}")
     public ResponseEntity<MovieCard> getMovieById(@PathVariable Long id) {
         log.info("Fetching movie details for id: {}", id);
 
+        Optional<MovieCard> cached = movieCatalogService.findCard(id);
+        if (cached.isPresent()) {
+            MovieCard movieCard = cached.get().copy();
+            movieCard.setOverview(movieRepository.findOverviewById(id));
+            movieCard.setReviewStats(movieRatingStatsService.getStats(id));
+            annotate(movieCard);
+            return ResponseEntity.ok(movieCard);
+        }
+
         Optional<Movies> movieOptional = movieRepository.findById(id);
 
         if (movieOptional.isEmpty()) {
@@ -74,13 +164,41 @@ public class MoviesController {
         }
 
         MovieCard movieCard = movieService.convertToMovieCard(movieOptional.get());
+        movieCard.setReviewStats(movieRatingStatsService.getStats(id));
+        annotate(movieCard);
         return ResponseEntity.ok(movieCard);
     }
 
 
+    private void annotate(MovieCard movieCard) {
+        Long userId = currentUserIdOrNull();
+        if (userId != null) {
+            watchlistService.annotate(userId, List.of(movieCard));
+        }
+    }
+
+
+    // Movie endpoints are public; signed-in callers get their watchlist status on cards.
+    // The id comes from the token (see JwtAuthenticationFilter), so this costs no query.
+    private Long currentUserIdOrNull() {
+        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+        if (authentication == null) {
+            return null;
+        }
+        if (authentication.getPrincipal() instanceof JwtPrincipal principal) {
+            return principal.userId();
+        }
+        if (authentication.getPrincipal() instanceof User user) {
+            return user.getId();
+        }
+        return null;
+    }
+
+
     @PostMapping(value = "/import", consumes = MediaType.MULTIPART_FORM_DATA_VALUE)
     @PreAuthorize("hasRole('ADMIN')")
-    public ResponseEntity<?> importMoviesFromCsv(@RequestParam("file") MultipartFile file) {
+    public ResponseEntity<?> importMoviesFromCsv(@RequestParam("file") MultipartFile file,
+                                                 @RequestParam(value = "mode", required = false) String mode) {
         log.info("Admin: Importing movies from CSV file: {}", file.getOriginalFilename());
 
 
@@ -88,19 +206,23 @@ public class MoviesController {
             return ResponseEntity.badRequest().body("File is empty");
         }
 
-        if (!file.getOriginalFilename().endsWith(".csv")) {
-            return ResponseEntity.badRequest().body("File must be a CSV");
+        if (!Compression.isCsvFileName(file.getOriginalFilename())) {
+            return ResponseEntity.badRequest().body("File must be a CSV (.csv, .csv.gz or .csv.zst)");
         }
 
         try {
 
-            CsvService.ImportResult result = csvService.importMoviesFromCsv(file);
+            CsvService.ImportResult result = mode != null
+                    ? csvService.importMoviesFromCsv(file, CsvService.ImportMode.from(mode))
+                    : csvService.importMoviesFromCsv(file);
 
             log.info("Import completed: {}", result.getSummary());
 
 
             return ResponseEntity.ok(result);
 
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(e.getMessage());
         } catch (IOException e) {
             log.error("Error reading CSV file: {}", e.getMessage());
             return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
@@ -113,65 +235,148 @@ public class MoviesController {
     }
 
 
-    @PostMapping("/export")
-    public ResponseEntity<String> exportMoviesToCsv(@RequestBody MovieSearchRequest searchRequest) {
-        log.info("Exporting movies to CSV with search criteria");
+    /**
+     * Queue a CSV import as a background job; poll GET /import/jobs/{id} for progress
+     */
+    @PostMapping(value = "/import/jobs", consumes = MediaType.MULTIPART_FORM_DATA_VALUE)
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<?> submitImportJob(@RequestParam("file") MultipartFile file,
+                                             @RequestParam(value = "mode", required = false) String mode) {
+        log.info("Admin: Queuing import job for CSV file: {}", file.getOriginalFilename());
+
+        if (file.isEmpty()) {
+            return ResponseEntity.badRequest().body("File is empty");
+        }
+
+        if (!Compression.isCsvFileName(file.getOriginalFilename())) {
+            return ResponseEntity.badRequest().body("File must be a CSV (.csv, .csv.gz or .csv.zst)");
+        }
 
         try {
+            ImportJobResponse job = importJobService.submit(file,
+                    mode != null ? CsvService.ImportMode.from(mode) : null);
+            return ResponseEntity.accepted()
+                    .location(URI.create("/api/movies/import/jobs/" + job.getId()))
+                    .body(job);
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(e.getMessage());
+        } catch (IOException e) {
+            log.error("Error storing CSV file: {}", e.getMessage());
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
+                    .body("Error storing file: " + e.getMessage());
+        }
+    }
 
-            searchRequest.setSize(searchRequest.getSize() > 0 ? searchRequest.getSize() : 10000);
 
-            Page<Movies> moviePage = movieService.searchMovies(searchRequest);
-            List<Movies> movies = moviePage.getContent();
+    /**
+     * Import a CSV already on the server's disk (below application.import.server-dir) as a background job
+     */
+    @PostMapping("/import/server")
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<?> importServerFile(@RequestParam("path") String path,
+                                              @RequestParam(value = "mode", required = false) String mode) {
+        log.info("Admin: Queuing server-side import of {}", path);
 
-            log.info("Exporting {} movies to CSV", movies.size());
+        try {
+            ImportJobResponse job = importJobService.submitServerFile(path,
+                    mode != null ? CsvService.ImportMode.from(mode) : null);
+            return ResponseEntity.accepted()
+                    .location(URI.create("/api/movies/import/jobs/" + job.getId()))
+                    .body(job);
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(e.getMessage());
+        } catch (IllegalStateException e) {
+            return ResponseEntity.status(HttpStatus.CONFLICT).body(e.getMessage());
+        } catch (IOException e) {
+            log.error("Error opening server-side CSV: {}", e.getMessage());
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
+                    .body("Error opening file: " + e.getMessage());
+        }
+    }
 
-            String csvContent = csvService.exportMoviesToCsv(movies);
 
-            HttpHeaders headers = new HttpHeaders();
-            headers.setContentType(MediaType.parseMediaType("text/csv"));
-            headers.setContentDispositionFormData("attachment", "movies_export.csv");
-            headers.setCacheControl("no-cache, no-store, must-revalidate");
+    @GetMapping("/import/jobs")
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<List<ImportJobResponse>> getImportJobs() {
+        return ResponseEntity.ok(importJobService.getRecentJobs());
+    }
+
 
+    @GetMapping("/import/jobs/{id}")
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<ImportJobResponse> getImportJob(@PathVariable Long id) {
+        try {
             return ResponseEntity.ok()
-                    .headers(headers)
-                    .body(csvContent);
-
-        } catch (Exception e) {
-            log.error("Error exporting movies: {}", e.getMessage());
-            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
-                    .body("Error exporting movies: " + e.getMessage());
+                    .cacheControl(CacheControl.noStore())
+                    .body(importJobService.getJob(id));
+        } catch (RuntimeException e) {
+            return ResponseEntity.notFound().build();
         }
     }
 
 
-    @GetMapping("/export/all")
+    @PostMapping("/import/jobs/{id}/resume")
     @PreAuthorize("hasRole('ADMIN')")
-    public ResponseEntity<String> exportAllMovies() {
-        log.info("Admin: Exporting all movies to CSV");
+    public ResponseEntity<?> resumeImportJob(@PathVariable Long id) {
+        log.info("Admin: Resuming import job {}", id);
 
         try {
-            List<Movies> movies = movieRepository.findAll();
-            log.info("Exporting {} movies to CSV", movies.size());
+            return ResponseEntity.accepted().body(importJobService.resume(id));
+        } catch (IllegalStateException e) {
+            return ResponseEntity.status(HttpStatus.CONFLICT).body(e.getMessage());
+        } catch (RuntimeException e) {
+            return ResponseEntity.notFound().build();
+        }
+    }
 
 
-            String csvContent = csvService.exportMoviesToCsv(movies);
+    @PostMapping("/export")
+    public ResponseEntity<StreamingResponseBody> exportMoviesToCsv(
+            @RequestBody MovieSearchRequest searchRequest,
+            @RequestHeader(value = HttpHeaders.ACCEPT_ENCODING, required = false) String acceptEncoding) {
+        log.info("Exporting movies to CSV with search criteria");
 
+        int limit = searchRequest.getSize() > 0 ? searchRequest.getSize() : 10000;
+        Compression compression = csvService.negotiateExportCompression(acceptEncoding);
+
+        StreamingResponseBody body = out -> {
+            try (OutputStream target = csvService.compressExport(out, compression)) {
+                CsvWriter csv = new CsvWriter(target);
+                csvService.writeCsvHeader(csv);
+                long exported = movieStreamingService.streamSearch(searchRequest, limit,
+                        movie -> csvService.writeCsvRow(csv, movie));
+                csv.flush();
+                log.info("Exported {} movies to CSV ({})", exported, compression);
+            }
+        };
+
+        return ResponseEntity.ok()
+                .headers(csvHeaders("movies_export.csv", compression))
+                .body(body);
+    }
 
-            HttpHeaders headers = new HttpHeaders();
-            headers.setContentType(MediaType.parseMediaType("text/csv"));
-            headers.setContentDispositionFormData("attachment", "all_movies_export.csv");
-            headers.setCacheControl("no-cache, no-store, must-revalidate");
 
-            return ResponseEntity.ok()
-                    .headers(headers)
-                    .body(csvContent);
+    @GetMapping("/export/all")
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<StreamingResponseBody> exportAllMovies(
+            @RequestHeader(value = HttpHeaders.ACCEPT_ENCODING, required = false) String acceptEncoding) {
+        log.info("Admin: Exporting all movies to CSV");
 
-        } catch (Exception e) {
-            log.error("Error exporting all movies: {}", e.getMessage());
-            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
-                    .body("Error exporting movies: " + e.getMessage());
-        }
+        Compression compression = csvService.negotiateExportCompression(acceptEncoding);
+
+        StreamingResponseBody body = out -> {
+            try (OutputStream target = csvService.compressExport(out, compression)) {
+                csvService.exportAllMoviesToCsv(target);
+            } catch (Exception e) {
+                // Headers are already sent, the client sees a truncated file
+                log.error("Error exporting all movies: {}", e.getMessage());
+                throw e;
+            }
+        };
+
+        return ResponseEntity.ok()
+                .headers(csvHeaders("all_movies_export.csv", compression))
+                .body(body);
     }
 
 
@@ -219,6 +424,7 @@ public class MoviesController {
 
             MovieStats stats = MovieStats.builder()
                     .totalMovies(totalMovies)
+                    .moviesByGenre(movieCatalogService.getGenreCounts().orElse(null))
                     .build();
 
             log.info("Movie stats fetched: totalMovies={}", totalMovies);
@@ -235,6 +441,21 @@ public class MoviesController {
     @lombok.Builder
     public static class MovieStats {
         private long totalMovies;
+        // From the in-memory catalogue; null while it is being rebuilt
+        private Map<String, Long> moviesByGenre;
+    }
+
+
+    private HttpHeaders csvHeaders(String filename, Compression compression) {
+        HttpHeaders headers = new HttpHeaders();
+        headers.setContentType(MediaType.parseMediaType("text/csv"));
+        headers.setContentDispositionFormData("attachment", filename);
+        headers.setCacheControl("no-cache, no-store, must-revalidate");
+        headers.add(HttpHeaders.VARY, HttpHeaders.ACCEPT_ENCODING);
+        if (compression.contentEncoding() != null) {
+            headers.set(HttpHeaders.CONTENT_ENCODING, compression.contentEncoding());
+        }
+        return headers;
     }
 
 
@@ -253,6 +474,9 @@ public class MoviesController {
         if (request.getMaxRating() != null) {
             filters.append("Rating ≤ ").append(request.getMaxRating()).append(", ");
         }
+        if (request.getMinScore() != null) {
+            filters.append("Score ≥ ").append(request.getMinScore()).append(", ");
+        }
         if (request.getMinImdbRating() != null) {
             filters.append("IMDB ≥ ").append(request.getMinImdbRating()).append(", ");
         }
@@ -2,8 +2,11 @@ package com.isfa.dsi.filmexplorer.controllers;
 
 import com.isfa.dsi.filmexplorer.DTOs.ReviewRequest;
 import com.isfa.dsi.filmexplorer.DTOs.ReviewResponse;
+import com.isfa.dsi.filmexplorer.DTOs.ReviewSearchHit;
+import com.isfa.dsi.filmexplorer.services.ReviewSearchService;
 import com.isfa.dsi.filmexplorer.services.ReviewService;
 import com.isfa.dsi.filmexplorer.services.TokenBlacklistService;
+import com.isfa.dsi.filmexplorer.services.WriteBehindService;
 import com.isfa.dsi.filmexplorer.user.User;
 import com.isfa.dsi.filmexplorer.user.UserRepo;
 import lombok.RequiredArgsConstructor;
@@ -18,6 +21,7 @@ import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.web.bind.annotation.*;
 
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 
 @RestController
@@ -28,6 +32,8 @@ import java.util.Map;
 public class ReviewController {
 
     private final ReviewService reviewService;
+    private final ReviewSearchService reviewSearchService;
+    private final WriteBehindService writeBehindService;
     private final UserRepo userRepository;
     private final TokenBlacklistService tokenBlacklistService;
 
@@ -35,7 +41,8 @@ public class ReviewController {
     public ResponseEntity<?> getMovieReviews(
             @PathVariable Long movieId,
             @RequestParam(defaultValue = "0") int page,
-            @RequestParam(defaultValue = "10") int size) {
+            @RequestParam(defaultValue = "10") int size,
+            @RequestParam(required = false) String cursor) {
 
         log.info("Fetching reviews for movie: {} (page: {}, size: {})", movieId, page, size);
 
@@ -48,6 +55,11 @@ public class ReviewController {
                 log.info("No authenticated user, fetching reviews as anonymous");
             }
 
+            if (cursor != null) {
+                // Keyset mode: an empty cursor asks for the first page
+                return ResponseEntity.ok(reviewService.getMovieReviewsAfter(movieId, userId, cursor, size));
+            }
+
             Pageable pageable = PageRequest.of(page, size);
             Page<ReviewResponse> reviewsPage = reviewService.getMovieReviews(movieId, userId, pageable);
 
@@ -65,6 +77,8 @@ public class ReviewController {
 
             return ResponseEntity.ok(response);
 
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(e.getMessage());
         } catch (Exception e) {
             log.error("Error fetching reviews for movie {}: {}", movieId, e.getMessage(), e);
 
@@ -78,6 +92,63 @@ public class ReviewController {
         }
     }
 
+    @GetMapping("/search")
+    public ResponseEntity<?> searchReviews(
+            @RequestParam String q,
+            @RequestParam(required = false) Long movieId,
+            @RequestParam(defaultValue = "20") int limit) {
+
+        log.info("Searching reviews for '{}' (movie: {})", q, movieId);
+
+        if (q.isBlank()) {
+            return ResponseEntity.badRequest().body("Query must not be empty");
+        }
+        if (!reviewSearchService.isReady()) {
+            return ResponseEntity.status(503).body("Review search index is still being built, try again shortly");
+        }
+
+        try {
+            List<ReviewSearchHit> hits = reviewSearchService.search(q, movieId, limit);
+
+            Map<String, Object> response = new HashMap<>();
+            response.put("results", hits);
+            response.put("totalResults", hits.size());
+
+            return ResponseEntity.ok(response);
+        } catch (Exception e) {
+            log.error("Error searching reviews for '{}': {}", q, e.getMessage(), e);
+            return ResponseEntity.status(400).body("Error searching reviews: " + e.getMessage());
+        }
+    }
+
+    @GetMapping("/movie/{movieId}/top")
+    public ResponseEntity<?> getTopReviews(
+            @PathVariable Long movieId,
+            @RequestParam(defaultValue = "5") int limit) {
+
+        log.info("Fetching top {} reviews for movie: {}", limit, movieId);
+
+        try {
+            Long userId = null;
+            try {
+                userId = getCurrentUserId();
+            } catch (Exception e) {
+                log.info("No authenticated user, fetching top reviews as anonymous");
+            }
+
+            List<ReviewResponse> reviews = reviewService.getTopReviews(movieId, userId, limit);
+
+            Map<String, Object> response = new HashMap<>();
+            response.put("reviews", reviews);
+            response.put("totalResults", reviews.size());
+
+            return ResponseEntity.ok(response);
+        } catch (Exception e) {
+            log.error("Error fetching top reviews for movie {}: {}", movieId, e.getMessage(), e);
+            return ResponseEntity.status(400).body("Error fetching top reviews: " + e.getMessage());
+        }
+    }
+
     @PostMapping
     public ResponseEntity<?> createReview(
             @RequestBody ReviewRequest reviewRequest,
@@ -104,7 +175,9 @@ public class ReviewController {
             Long userId = getCurrentUserId();
             log.info("Review created by user ID: {}", userId);
 
-            ReviewResponse review = reviewService.createReview(reviewRequest, userId);
+            ReviewResponse review = writeBehindService.isEnabled()
+                    ? reviewService.createReviewWriteBehind(reviewRequest, userId)
+                    : reviewService.createReview(reviewRequest, userId);
 
             log.info("Review created successfully with ID: {}", review.getId());
 
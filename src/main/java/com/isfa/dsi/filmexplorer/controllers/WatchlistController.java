@@ -1,8 +1,11 @@
 package com.isfa.dsi.filmexplorer.controllers;
 
+import com.isfa.dsi.filmexplorer.DTOs.WatchlistBulkRequest;
+import com.isfa.dsi.filmexplorer.DTOs.WatchlistBulkResult;
 import com.isfa.dsi.filmexplorer.DTOs.WatchlistResponse;
 import com.isfa.dsi.filmexplorer.models.Watchlist;
 import com.isfa.dsi.filmexplorer.services.WatchlistService;
+import com.isfa.dsi.filmexplorer.services.WriteBehindService;
 import com.isfa.dsi.filmexplorer.user.User;
 import com.isfa.dsi.filmexplorer.user.UserRepo;
 import lombok.RequiredArgsConstructor;
@@ -18,6 +21,7 @@ import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.web.bind.annotation.*;
 
 import java.util.List;
+import java.util.Map;
 
 @RestController
 @RequestMapping("/api/watchlist")
@@ -26,6 +30,7 @@ import java.util.List;
 public class WatchlistController {
 
     private final WatchlistService watchlistService;
+    private final WriteBehindService writeBehindService;
     private final UserRepo userRepository;
 
 
@@ -37,12 +42,31 @@ public class WatchlistController {
 
         Long userId = getCurrentUserId();
         Watchlist.WatchlistStatus watchStatus = Watchlist.WatchlistStatus.valueOf(status);
-        WatchlistResponse response = watchlistService.addToWatchlist(userId, movieId, watchStatus);
+        WatchlistResponse response = writeBehindService.isEnabled()
+                ? watchlistService.addToWatchlistWriteBehind(userId, movieId, watchStatus)
+                : watchlistService.addToWatchlist(userId, movieId, watchStatus);
 
         return ResponseEntity.status(HttpStatus.CREATED).body(response);
     }
 
 
+    /**
+     * Add, re-status or remove many movies at once; answers one result per item, in order
+     */
+    @PostMapping("/bulk")
+    public ResponseEntity<?> applyBulk(@RequestBody WatchlistBulkRequest request) {
+        log.info("Applying bulk watchlist request");
+
+        Long userId = getCurrentUserId();
+        try {
+            List<WatchlistBulkResult> results = watchlistService.applyBulk(userId, request.getItems());
+            return ResponseEntity.ok(results);
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(e.getMessage());
+        }
+    }
+
+
     @DeleteMapping("/{watchlistId}")
     public ResponseEntity<Void> removeFromWatchlist(@PathVariable Long watchlistId) {
         log.info("Removing watchlist entry {}", watchlistId);
@@ -67,13 +91,46 @@ public class WatchlistController {
         return ResponseEntity.ok(response);
     }
 
+
+    /**
+     * Drag and drop: place the entry right after {@code afterId}, or first when it is omitted
+     */
+    @PutMapping("/{watchlistId}/position")
+    public ResponseEntity<?> moveWatchlistEntry(
+            @PathVariable Long watchlistId,
+            @RequestParam(required = false) Long afterId) {
+        log.info("Moving watchlist entry {} after {}", watchlistId, afterId);
+
+        Long userId = getCurrentUserId();
+        try {
+            return ResponseEntity.ok(watchlistService.moveWatchlistEntry(watchlistId, afterId, userId));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(e.getMessage());
+        }
+    }
+
+    /**
+     * @param order "custom" for the user's drag and drop order; most recently added first otherwise
+     */
     @GetMapping
-    public ResponseEntity<Page<WatchlistResponse>> getWatchlist(
+    public ResponseEntity<?> getWatchlist(
             @RequestParam(defaultValue = "0") int page,
-            @RequestParam(defaultValue = "10") int size) {
+            @RequestParam(defaultValue = "10") int size,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(required = false) String order) {
         log.info("Fetching user's watchlist");
 
         Long userId = getCurrentUserId();
+        if ("custom".equalsIgnoreCase(order)) {
+            return ResponseEntity.ok(watchlistService.getUserWatchlistInCustomOrder(userId, PageRequest.of(page, size)));
+        }
+        if (cursor != null) {
+            try {
+                return ResponseEntity.ok(watchlistService.getUserWatchlistAfter(userId, cursor, size));
+            } catch (IllegalArgumentException e) {
+                return ResponseEntity.badRequest().body(e.getMessage());
+            }
+        }
         Pageable pageable = PageRequest.of(page, size);
         Page<WatchlistResponse> watchlist = watchlistService.getUserWatchlist(userId, pageable);
 
@@ -82,14 +139,22 @@ public class WatchlistController {
 
 
     @GetMapping("/status/{status}")
-    public ResponseEntity<Page<WatchlistResponse>> getWatchlistByStatus(
+    public ResponseEntity<?> getWatchlistByStatus(
             @PathVariable String status,
             @RequestParam(defaultValue = "0") int page,
-            @RequestParam(defaultValue = "10") int size) {
+            @RequestParam(defaultValue = "10") int size,
+            @RequestParam(required = false) String cursor) {
         log.info("Fetching watchlist for status: {}", status);
 
         Long userId = getCurrentUserId();
         Watchlist.WatchlistStatus watchStatus = Watchlist.WatchlistStatus.valueOf(status);
+        if (cursor != null) {
+            try {
+                return ResponseEntity.ok(watchlistService.getWatchlistByStatusAfter(userId, watchStatus, cursor, size));
+            } catch (IllegalArgumentException e) {
+                return ResponseEntity.badRequest().body(e.getMessage());
+            }
+        }
         Pageable pageable = PageRequest.of(page, size);
         Page<WatchlistResponse> watchlist = watchlistService.getWatchlistByStatus(userId, watchStatus, pageable);
 
@@ -108,6 +173,20 @@ public class WatchlistController {
     }
 
 
+    /**
+     * Watchlist status of each of the given movies that is in the user's watchlist, e.g. for badges on a page of cards
+     */
+    @GetMapping("/check")
+    public ResponseEntity<Map<Long, String>> getWatchlistStatuses(@RequestParam List<Long> movieIds) {
+        log.info("Checking {} movies against user's watchlist", movieIds.size());
+
+        Long userId = getCurrentUserId();
+        Map<Long, String> statuses = watchlistService.getStatusesOf(userId, movieIds);
+
+        return ResponseEntity.ok(statuses);
+    }
+
+
     @GetMapping("/movie/{movieId}")
     public ResponseEntity<WatchlistResponse> getWatchlistEntry(@PathVariable Long movieId) {
         log.info("Fetching watchlist entry for movie {}", movieId);
@@ -125,14 +204,14 @@ public class WatchlistController {
 
         Long userId = getCurrentUserId();
 
-        long totalCount = watchlistService.getWatchlistCount(userId);
-        long wantToWatch = watchlistService.getWatchlistCountByStatus(userId, Watchlist.WatchlistStatus.WANT_TO_WATCH);
-        long watching = watchlistService.getWatchlistCountByStatus(userId, Watchlist.WatchlistStatus.WATCHING);
-        long watched = watchlistService.getWatchlistCountByStatus(userId, Watchlist.WatchlistStatus.WATCHED);
-        long notInterested = watchlistService.getWatchlistCountByStatus(userId, Watchlist.WatchlistStatus.NOT_INTERESTED);
+        long[] counts = watchlistService.getStatusCounts(userId);
+        long wantToWatch = counts[Watchlist.WatchlistStatus.WANT_TO_WATCH.ordinal()];
+        long watching = counts[Watchlist.WatchlistStatus.WATCHING.ordinal()];
+        long watched = counts[Watchlist.WatchlistStatus.WATCHED.ordinal()];
+        long notInterested = counts[Watchlist.WatchlistStatus.NOT_INTERESTED.ordinal()];
 
         WatchlistStats stats = WatchlistStats.builder()
-                .totalCount(totalCount)
+                .totalCount(wantToWatch + watching + watched + notInterested)
                 .wantToWatchCount(wantToWatch)
                 .watchingCount(watching)
                 .watchedCount(watched)
@@ -144,13 +223,21 @@ public class WatchlistController {
 
 
     @GetMapping("/friend/{friendId}")
-    public ResponseEntity<Page<WatchlistResponse>> getFriendWatchlist(
+    public ResponseEntity<?> getFriendWatchlist(
             @PathVariable Long friendId,
             @RequestParam(defaultValue = "0") int page,
-            @RequestParam(defaultValue = "10") int size) {
+            @RequestParam(defaultValue = "10") int size,
+            @RequestParam(required = false) String cursor) {
         log.info("Fetching friend's watchlist: {}", friendId);
 
         Long userId = getCurrentUserId();
+        if (cursor != null) {
+            try {
+                return ResponseEntity.ok(watchlistService.getFriendWatchlistAfter(userId, friendId, cursor, size));
+            } catch (IllegalArgumentException e) {
+                return ResponseEntity.badRequest().body(e.getMessage());
+            }
+        }
         Pageable pageable = PageRequest.of(page, size);
         Page<WatchlistResponse> watchlist = watchlistService.getFriendWatchlist(userId, friendId, pageable);
 
@@ -0,0 +1,165 @@
+package com.isfa.dsi.filmexplorer.csv;
+
+import com.github.luben.zstd.ZstdInputStream;
+import com.github.luben.zstd.ZstdOutputStream;
+
+import java.io.BufferedInputStream;
+import java.io.FilterOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.Locale;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Stream compression for CSV imports and exports.
+ *
+ * Imports are recognised by their magic bytes, whatever the file is called, and
+ * decompressed on the fly. Exports are compressed as they are written; the returned
+ * stream finishes the compressed frame on close but leaves the target open.
+ */
+public enum Compression {
+
+    NONE("", null),
+    GZIP(".gz", "gzip"),
+    ZSTD(".zst", "zstd");
+
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    private final String fileSuffix;
+    private final String contentEncoding;
+
+    Compression(String fileSuffix, String contentEncoding) {
+        this.fileSuffix = fileSuffix;
+        this.contentEncoding = contentEncoding;
+    }
+
+    public String fileSuffix() {
+        return fileSuffix;
+    }
+
+    /**
+     * Value for the Content-Encoding header, null for {@link #NONE}
+     */
+    public String contentEncoding() {
+        return contentEncoding;
+    }
+
+    /**
+     * Identify the format from the first bytes of {@code in}, which must support mark/reset
+     */
+    public static Compression sniff(InputStream in) throws IOException {
+        in.mark(4);
+        byte[] magic = in.readNBytes(4);
+        in.reset();
+
+        if (magic.length >= 2 && (magic[0] & 0xFF) == 0x1F && (magic[1] & 0xFF) == 0x8B) {
+            return GZIP;
+        }
+        if (magic.length == 4 && (magic[0] & 0xFF) == 0x28 && (magic[1] & 0xFF) == 0xB5
+                && (magic[2] & 0xFF) == 0x2F && (magic[3] & 0xFF) == 0xFD) {
+            return ZSTD;
+        }
+        return NONE;
+    }
+
+    /**
+     * Wrap {@code in} so it yields plain CSV, whether it is compressed or not
+     */
+    public static InputStream decompressing(InputStream in) throws IOException {
+        InputStream buffered = in.markSupported() ? in : new BufferedInputStream(in, BUFFER_SIZE);
+        return sniff(buffered).decompress(buffered);
+    }
+
+    public InputStream decompress(InputStream in) throws IOException {
+        return switch (this) {
+            case NONE -> in;
+            case GZIP -> new GZIPInputStream(in, BUFFER_SIZE);
+            case ZSTD -> new BufferedInputStream(new ZstdInputStream(in), BUFFER_SIZE);
+        };
+    }
+
+    /**
+     * Compress everything written to the returned stream into {@code out}
+     *
+     * @param level gzip level 1-9 or zstd level 1-22; out of range values use the codec default
+     */
+    public OutputStream compress(OutputStream out, int level) throws IOException {
+        OutputStream target = new NonClosingOutputStream(out);
+        return switch (this) {
+            case NONE -> target;
+            case GZIP -> new GZIPOutputStream(target, BUFFER_SIZE) {
+                {
+                    if (level >= 1 && level <= 9) {
+                        def.setLevel(level);
+                    }
+                }
+            };
+            case ZSTD -> level >= 1 && level <= 22 ? new ZstdOutputStream(target, level) : new ZstdOutputStream(target);
+        };
+    }
+
+    /**
+     * Pick the encoding for a response from an Accept-Encoding header, zstd first.
+     * Codings with q=0 are refused.
+     */
+    public static Compression negotiate(String acceptEncoding) {
+        if (acceptEncoding == null || acceptEncoding.isBlank()) {
+            return NONE;
+        }
+        boolean gzip = false;
+        for (String part : acceptEncoding.toLowerCase(Locale.ROOT).split(",")) {
+            String[] tokens = part.split(";");
+            String coding = tokens[0].trim();
+            boolean refused = false;
+            for (int i = 1; i < tokens.length; i++) {
+                String param = tokens[i].trim();
+                if (param.startsWith("q=")) {
+                    try {
+                        refused = Double.parseDouble(param.substring(2)) <= 0;
+                    } catch (NumberFormatException e) {
+                        refused = true;
+                    }
+                }
+            }
+            if (refused) {
+                continue;
+            }
+            if (coding.equals("zstd")) {
+                return ZSTD;
+            }
+            gzip |= coding.equals("gzip") || coding.equals("x-gzip");
+        }
+        return gzip ? GZIP : NONE;
+    }
+
+    /**
+     * Whether a file name is a CSV, optionally compressed: .csv, .csv.gz or .csv.zst
+     */
+    public static boolean isCsvFileName(String name) {
+        if (name == null) {
+            return false;
+        }
+        String lower = name.toLowerCase(Locale.ROOT);
+        return lower.endsWith(".csv") || lower.endsWith(".csv.gz") || lower.endsWith(".csv.zst");
+    }
+
+    // The servlet container owns the response stream; finishing the frame must not close it
+    private static final class NonClosingOutputStream extends FilterOutputStream {
+
+        NonClosingOutputStream(OutputStream out) {
+            super(out);
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) throws IOException {
+            out.write(b, off, len);
+        }
+
+        @Override
+        public void close() throws IOException {
+            out.flush();
+        }
+    }
+}
@@ -0,0 +1,574 @@
+package com.isfa.dsi.filmexplorer.csv;
+
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Staged CSV import: one reader thread, N parse workers and a single writer.
+ *
+ * The reader cuts the byte stream into chunks of {@code batchSize} complete records
+ * ({@link CsvRecordScanner}) and hands them to the parse workers through a bounded queue;
+ * each worker tokenizes its chunk in place with its own {@link CsvTokenizer}. Parsed chunks come back through a second
+ * bounded queue and the writer (the calling thread) commits them strictly in file order,
+ * one batch per chunk. A semaphore caps the number of chunks in flight, so a slow writer
+ * throttles the reader instead of filling the heap.
+ *
+ * Every committed chunk reports the byte offset and line just past it, so a caller can
+ * store a checkpoint with the batch and later resume from it (see {@link Position}).
+ */
+@Slf4j
+public class CsvImportPipeline<T> {
+
+    private static final int INITIAL_CHUNK_BYTES = 256 * 1024;
+    private static final int DEFAULT_ERROR_SAMPLES = 100;
+    private static final int MAX_ERROR_TEXT = 200;
+    private static final long DEFAULT_MAP_WINDOW_BYTES = 256L * 1024 * 1024;
+
+    private final int parseWorkers;
+    private final int batchSize;
+    private final int queueCapacity;
+    private final int maxErrorSamples;
+    private long mapWindowBytes = DEFAULT_MAP_WINDOW_BYTES;
+
+    private final AtomicLong rowsRead = new AtomicLong();
+    private final AtomicLong rowsParsed = new AtomicLong();
+    private final AtomicLong rowsWritten = new AtomicLong();
+    private final AtomicLong errorCount = new AtomicLong();
+    private final AtomicLong batches = new AtomicLong();
+    private final AtomicLong bytesRead = new AtomicLong();
+
+    private volatile Throwable failure;
+    private volatile String header;
+    private volatile int totalLines;
+
+    public CsvImportPipeline(int parseWorkers, int batchSize, int queueCapacity) {
+        this(parseWorkers, batchSize, queueCapacity, DEFAULT_ERROR_SAMPLES);
+    }
+
+    /**
+     * @param maxErrorSamples how many error messages are kept; errors past that are only counted
+     */
+    public CsvImportPipeline(int parseWorkers, int batchSize, int queueCapacity, int maxErrorSamples) {
+        this.parseWorkers = Math.max(1, parseWorkers);
+        this.batchSize = Math.max(1, batchSize);
+        this.queueCapacity = Math.max(1, queueCapacity);
+        this.maxErrorSamples = Math.max(0, maxErrorSamples);
+    }
+
+    /**
+     * Run the pipeline until the input is exhausted.
+     * The first record is treated as the header and is not parsed.
+     */
+    public Stats run(InputStream in, RecordParser<T> parser, BatchSink<T> sink) throws IOException {
+        return run(in, null, parser, (records, chunk) -> {
+            if (!records.isEmpty()) {
+                sink.write(records);
+            }
+        });
+    }
+
+    /**
+     * Run the pipeline, handing every chunk to {@code sink} together with its position.
+     * The sink is called for every chunk, including those whose records all failed to parse.
+     *
+     * @param resumeFrom null to start at the header, otherwise the position {@code in} has
+     *                   already been advanced to; no header is expected then
+     */
+    public Stats run(InputStream in, Position resumeFrom, RecordParser<T> parser, ChunkSink<T> sink)
+            throws IOException {
+        return execute((rawQueue, inFlight) -> readStage(in, resumeFrom, rawQueue, inFlight), parser, sink);
+    }
+
+    /**
+     * Run the pipeline over a file mapped into memory window by window.
+     * Chunks are slices of the mapping, so records go from the page cache to the
+     * tokenizers without being copied onto the heap.
+     *
+     * @param resumeFrom null to start at the header, otherwise where to start in the file
+     */
+    public Stats run(FileChannel channel, Position resumeFrom, RecordParser<T> parser, ChunkSink<T> sink)
+            throws IOException {
+        return execute((rawQueue, inFlight) -> mapStage(channel, resumeFrom, rawQueue, inFlight), parser, sink);
+    }
+
+    private Stats execute(ReadTask readTask, RecordParser<T> parser, ChunkSink<T> sink) throws IOException {
+        long startTime = System.currentTimeMillis();
+
+        BlockingQueue<RawChunk> rawQueue = new ArrayBlockingQueue<>(queueCapacity);
+        BlockingQueue<ParsedChunk<T>> parsedQueue = new ArrayBlockingQueue<>(queueCapacity);
+        Semaphore inFlight = new Semaphore(queueCapacity + parseWorkers);
+
+        ExecutorService executor = Executors.newFixedThreadPool(parseWorkers + 1, threadFactory());
+        try {
+            executor.submit(() -> readTask.read(rawQueue, inFlight));
+            for (int i = 0; i < parseWorkers; i++) {
+                executor.submit(() -> parseStage(rawQueue, parsedQueue, parser));
+            }
+
+            List<String> errors = writeStage(parsedQueue, inFlight, sink);
+
+            long durationMs = System.currentTimeMillis() - startTime;
+            return new Stats(header, rowsRead.get(), rowsParsed.get(), rowsWritten.get(), errorCount.get(),
+                    batches.get(), totalLines, durationMs, errors);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("CSV import interrupted", e);
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    /**
+     * Size of each mapped window for {@link #run(FileChannel, Position, RecordParser, ChunkSink)}.
+     * Grown on demand when a single record does not fit.
+     */
+    public CsvImportPipeline<T> mapWindowBytes(long bytes) {
+        this.mapWindowBytes = Math.max(1, Math.min(bytes, Integer.MAX_VALUE));
+        return this;
+    }
+
+    public long getRowsRead() {
+        return rowsRead.get();
+    }
+
+    public long getRowsParsed() {
+        return rowsParsed.get();
+    }
+
+    public long getRowsWritten() {
+        return rowsWritten.get();
+    }
+
+    public long getErrorCount() {
+        return errorCount.get();
+    }
+
+    /**
+     * Bytes consumed from the input by this run (not counting a resume offset)
+     */
+    public long getBytesRead() {
+        return bytesRead.get();
+    }
+
+    private void readStage(InputStream in, Position resumeFrom, BlockingQueue<RawChunk> rawQueue,
+                           Semaphore inFlight) {
+        CsvRecordScanner scanner = new CsvRecordScanner();
+        byte[] buf = new byte[INITIAL_CHUNK_BYTES];
+        int length = 0;
+        int scanPos = 0;
+        int chunkStart = 0;
+        int chunkRecords = 0;
+        int chunkRows = 0;
+        boolean headerRead = resumeFrom != null;
+        // Absolute offset of buf[0] and line count before the first byte we read
+        long bufferBase = resumeFrom != null ? resumeFrom.offset() : 0;
+        int lineBase = resumeFrom != null ? resumeFrom.line() - 1 : 0;
+        int chunkFirstLine = lineBase + (headerRead ? 1 : 2);
+        long seq = 0;
+
+        try {
+            while (true) {
+                int end;
+                while ((end = scanner.nextRecordEnd(buf, scanPos, length)) >= 0) {
+                    scanPos = end;
+                    if (!headerRead) {
+                        header = new String(buf, 0, end, StandardCharsets.UTF_8).strip();
+                        headerRead = true;
+                        chunkStart = end;
+                        log.info("CSV Headers: {}", header);
+                        continue;
+                    }
+                    if (!scanner.lastRecordBlank()) {
+                        rowsRead.incrementAndGet();
+                        chunkRows++;
+                    }
+
+                    if (++chunkRecords >= batchSize) {
+                        inFlight.acquire();
+                        rawQueue.put(new RawChunk(seq++, chunkFirstLine,
+                                ByteBuffer.wrap(buf, chunkStart, end - chunkStart),
+                                new Position(bufferBase + end, lineBase + scanner.lines() + 1), chunkRows));
+
+                        // The chunk now owns the buffer, carry the unscanned tail over to a fresh one
+                        byte[] next = new byte[buf.length];
+                        System.arraycopy(buf, end, next, 0, length - end);
+                        buf = next;
+                        bufferBase += end;
+                        length -= end;
+                        scanPos -= end;
+                        chunkStart = 0;
+                        chunkRecords = 0;
+                        chunkRows = 0;
+                        chunkFirstLine = lineBase + scanner.lines() + 1;
+                    }
+                }
+                scanPos = length;
+
+                if (length == buf.length) {
+                    buf = Arrays.copyOf(buf, buf.length * 2);
+                }
+                int read = in.read(buf, length, buf.length - length);
+                if (read < 0) {
+                    break;
+                }
+                length += read;
+                bytesRead.addAndGet(read);
+            }
+
+            // Last record may lack a trailing newline
+            boolean trailing = scanner.hasPendingContent();
+            if (!headerRead && length > 0) {
+                header = new String(buf, 0, length, StandardCharsets.UTF_8).strip();
+            } else if (length > chunkStart) {
+                if (trailing) {
+                    rowsRead.incrementAndGet();
+                    chunkRows++;
+                }
+                inFlight.acquire();
+                rawQueue.put(new RawChunk(seq, chunkFirstLine,
+                        ByteBuffer.wrap(buf, chunkStart, length - chunkStart),
+                        new Position(bufferBase + length, lineBase + scanner.lines() + 1), chunkRows));
+            }
+            totalLines = lineBase + scanner.lines() + (length > 0 && buf[length - 1] != '\n' ? 1 : 0);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (Throwable e) {
+            fail(e);
+        } finally {
+            for (int i = 0; i < parseWorkers; i++) {
+                putQuietly(rawQueue, RawChunk.END);
+            }
+        }
+    }
+
+    private void mapStage(FileChannel channel, Position resumeFrom, BlockingQueue<RawChunk> rawQueue,
+                          Semaphore inFlight) {
+        CsvRecordScanner scanner = new CsvRecordScanner();
+        boolean headerRead = resumeFrom != null;
+        long windowStart = resumeFrom != null ? resumeFrom.offset() : 0;
+        int lineBase = resumeFrom != null ? resumeFrom.line() - 1 : 0;
+        long windowBytes = mapWindowBytes;
+        long seq = 0;
+
+        try {
+            long fileSize = channel.size();
+            // Newlines scanned up to windowStart, relative to lineBase
+            int linesAtWindowStart = 0;
+
+            while (windowStart < fileSize) {
+                int length = (int) Math.min(windowBytes, fileSize - windowStart);
+                boolean lastWindow = windowStart + length == fileSize;
+                MappedByteBuffer window = channel.map(FileChannel.MapMode.READ_ONLY, windowStart, length);
+                scanner.reset(linesAtWindowStart);
+
+                int chunkStart = 0;
+                int chunkRecords = 0;
+                int chunkRows = 0;
+                int chunkFirstLine = lineBase + linesAtWindowStart + (headerRead ? 1 : 2);
+                int lastRecordEnd = 0;
+                int linesAtLastRecordEnd = linesAtWindowStart;
+                int end;
+                while ((end = scanner.nextRecordEnd(window, lastRecordEnd, length)) >= 0) {
+                    lastRecordEnd = end;
+                    linesAtLastRecordEnd = scanner.lines();
+                    if (!headerRead) {
+                        byte[] bytes = new byte[end];
+                        window.get(0, bytes);
+                        header = new String(bytes, StandardCharsets.UTF_8).strip();
+                        headerRead = true;
+                        chunkStart = end;
+                        log.info("CSV Headers: {}", header);
+                        continue;
+                    }
+                    if (!scanner.lastRecordBlank()) {
+                        rowsRead.incrementAndGet();
+                        chunkRows++;
+                    }
+
+                    if (++chunkRecords >= batchSize) {
+                        inFlight.acquire();
+                        rawQueue.put(new RawChunk(seq++, chunkFirstLine, window.slice(chunkStart, end - chunkStart),
+                                new Position(windowStart + end, lineBase + scanner.lines() + 1), chunkRows));
+                        chunkStart = end;
+                        chunkRecords = 0;
+                        chunkRows = 0;
+                        chunkFirstLine = lineBase + scanner.lines() + 1;
+                    }
+                }
+
+                if (lastWindow) {
+                    // Last record may lack a trailing newline
+                    if (!headerRead && length > 0) {
+                        byte[] bytes = new byte[length];
+                        window.get(0, bytes);
+                        header = new String(bytes, StandardCharsets.UTF_8).strip();
+                    } else if (length > chunkStart) {
+                        if (scanner.hasPendingContent()) {
+                            rowsRead.incrementAndGet();
+                            chunkRows++;
+                        }
+                        inFlight.acquire();
+                        rawQueue.put(new RawChunk(seq, chunkFirstLine, window.slice(chunkStart, length - chunkStart),
+                                new Position(windowStart + length, lineBase + scanner.lines() + 1), chunkRows));
+                    }
+                    totalLines = lineBase + scanner.lines() + (window.get(length - 1) != '\n' ? 1 : 0);
+                    bytesRead.addAndGet(length);
+                    return;
+                }
+
+                if (lastRecordEnd == 0) {
+                    // Not a single complete record in the window: map a bigger one
+                    if (windowBytes >= Integer.MAX_VALUE) {
+                        throw new IOException("CSV record at byte " + windowStart + " exceeds 2GB");
+                    }
+                    windowBytes = Math.min(windowBytes * 2, Integer.MAX_VALUE);
+                    continue;
+                }
+
+                // Flush the records completed in this window; the next window starts at the boundary
+                if (lastRecordEnd > chunkStart) {
+                    inFlight.acquire();
+                    rawQueue.put(new RawChunk(seq++, chunkFirstLine,
+                            window.slice(chunkStart, lastRecordEnd - chunkStart),
+                            new Position(windowStart + lastRecordEnd, lineBase + linesAtLastRecordEnd + 1),
+                            chunkRows));
+                }
+                windowStart += lastRecordEnd;
+                linesAtWindowStart = linesAtLastRecordEnd;
+                bytesRead.addAndGet(lastRecordEnd);
+            }
+            totalLines = lineBase + linesAtWindowStart;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (Throwable e) {
+            fail(e);
+        } finally {
+            for (int i = 0; i < parseWorkers; i++) {
+                putQuietly(rawQueue, RawChunk.END);
+            }
+        }
+    }
+
+    private void parseStage(BlockingQueue<RawChunk> rawQueue, BlockingQueue<ParsedChunk<T>> parsedQueue,
+                            RecordParser<T> parser) {
+        CsvTokenizer tokenizer = new CsvTokenizer();
+        try {
+            while (true) {
+                RawChunk chunk = rawQueue.take();
+                if (chunk == RawChunk.END) {
+                    break;
+                }
+
+                List<T> records = new ArrayList<>(batchSize);
+                List<String> errors = new ArrayList<>();
+                int chunkErrors = 0;
+                tokenizer.reset(chunk.data(), chunk.firstLine());
+                while (tokenizer.nextRecord()) {
+                    // Skip empty lines
+                    if (tokenizer.isBlankRecord()) {
+                        continue;
+                    }
+                    try {
+                        records.add(parser.parse(tokenizer));
+                        rowsParsed.incrementAndGet();
+                    } catch (Exception e) {
+                        errorCount.incrementAndGet();
+                        chunkErrors++;
+                        // Keep the sample bounded, the count below stays exact
+                        if (errors.size() < maxErrorSamples) {
+                            errors.add(String.format("Line %d: %s - %s",
+                                    tokenizer.recordLine(), abbreviate(tokenizer.recordText()), e.getMessage()));
+                        }
+                        log.debug("Error parsing line {}: {}", tokenizer.recordLine(), e.getMessage());
+                    }
+                }
+                parsedQueue.put(new ParsedChunk<>(chunk.seq(), records,
+                        new Chunk(chunk.seq(), chunk.end(), chunk.rows(), chunkErrors, errors)));
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (Throwable e) {
+            fail(e);
+        } finally {
+            putQuietly(parsedQueue, ParsedChunk.end());
+        }
+    }
+
+    private List<String> writeStage(BlockingQueue<ParsedChunk<T>> parsedQueue, Semaphore inFlight,
+                                    ChunkSink<T> sink) throws InterruptedException, IOException {
+        List<String> errors = new ArrayList<>();
+        Map<Long, ParsedChunk<T>> pending = new HashMap<>();
+        long nextSeq = 0;
+        int finishedWorkers = 0;
+        long lastLog = System.currentTimeMillis();
+
+        while (finishedWorkers < parseWorkers) {
+            checkFailure();
+            ParsedChunk<T> chunk = parsedQueue.poll(100, TimeUnit.MILLISECONDS);
+            if (chunk == null) {
+                continue;
+            }
+            if (chunk.isEnd()) {
+                finishedWorkers++;
+                continue;
+            }
+
+            // Chunks can come back out of order, commit them in file order
+            pending.put(chunk.seq(), chunk);
+            ParsedChunk<T> next;
+            while ((next = pending.remove(nextSeq)) != null) {
+                sink.commit(next.records(), next.chunk());
+                rowsWritten.addAndGet(next.records().size());
+                batches.incrementAndGet();
+                for (String error : next.chunk().errors()) {
+                    if (errors.size() >= maxErrorSamples) {
+                        break;
+                    }
+                    errors.add(error);
+                }
+                inFlight.release();
+                nextSeq++;
+            }
+
+            if (System.currentTimeMillis() - lastLog > 5000) {
+                lastLog = System.currentTimeMillis();
+                log.info("Import progress: {} read, {} parsed, {} written, {} errors", rowsRead.get(),
+                        rowsParsed.get(), rowsWritten.get(), errorCount.get());
+            }
+        }
+        checkFailure();
+        return errors;
+    }
+
+    private void checkFailure() throws IOException {
+        Throwable cause = failure;
+        if (cause instanceof IOException io) {
+            throw io;
+        }
+        if (cause instanceof RuntimeException runtime) {
+            throw runtime;
+        }
+        if (cause != null) {
+            throw new IllegalStateException("CSV import failed", cause);
+        }
+    }
+
+    private void fail(Throwable e) {
+        log.error("CSV import stage failed: {}", e.getMessage());
+        if (failure == null) {
+            failure = e;
+        }
+    }
+
+    private static String abbreviate(String text) {
+        return text.length() <= MAX_ERROR_TEXT ? text : text.substring(0, MAX_ERROR_TEXT) + "...";
+    }
+
+    private static <E> void putQuietly(BlockingQueue<E> queue, E element) {
+        try {
+            queue.put(element);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private static ThreadFactory threadFactory() {
+        AtomicInteger counter = new AtomicInteger();
+        return runnable -> {
+            Thread thread = new Thread(runnable, "csv-import-" + counter.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        };
+    }
+
+    @FunctionalInterface
+    private interface ReadTask {
+        void read(BlockingQueue<RawChunk> rawQueue, Semaphore inFlight);
+    }
+
+    /**
+     * Turns the tokenizer's current record into a value, throwing on invalid input
+     */
+    @FunctionalInterface
+    public interface RecordParser<T> {
+        T parse(CsvTokenizer record);
+    }
+
+    /**
+     * Persists one batch of parsed records (called from the writer thread only)
+     */
+    @FunctionalInterface
+    public interface BatchSink<T> {
+        void write(List<T> records);
+    }
+
+    /**
+     * Persists one chunk's records and may record {@link Chunk#end()} as a checkpoint
+     * (called from the writer thread only, in file order)
+     */
+    @FunctionalInterface
+    public interface ChunkSink<T> {
+        void commit(List<T> records, Chunk chunk);
+    }
+
+    /**
+     * A point between two records: byte offset into the input and the line number
+     * the next record starts on
+     */
+    public record Position(long offset, int line) {
+    }
+
+    /**
+     * What a committed chunk covered
+     *
+     * @param end        position just past the chunk's last record
+     * @param rowsRead   non-blank records in the chunk
+     * @param errorCount records that failed to parse
+     * @param errors     sample of the parse errors
+     */
+    public record Chunk(long seq, Position end, int rowsRead, int errorCount, List<String> errors) {
+    }
+
+    public record Stats(String header, long rowsRead, long rowsParsed, long rowsWritten, long errorCount,
+                        long batches, int totalLines, long durationMs, List<String> errors) {
+
+        public double rowsPerSecond() {
+            return durationMs > 0 ? rowsWritten * 1000.0 / durationMs : rowsWritten;
+        }
+    }
+
+    private record RawChunk(long seq, int firstLine, ByteBuffer data, Position end, int rows) {
+        static final RawChunk END = new RawChunk(-1, -1, ByteBuffer.allocate(0), null, 0);
+    }
+
+    private record ParsedChunk<T>(long seq, List<T> records, Chunk chunk) {
+
+        static <T> ParsedChunk<T> end() {
+            return new ParsedChunk<>(-1, List.of(), null);
+        }
+
+        boolean isEnd() {
+            return seq < 0;
+        }
+    }
+}
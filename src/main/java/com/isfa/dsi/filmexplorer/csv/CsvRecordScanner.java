@@ -0,0 +1,99 @@
+package com.isfa.dsi.filmexplorer.csv;
+
+import java.nio.ByteBuffer;
+
+/**
+ * Finds record boundaries in a UTF-8 CSV byte stream without tokenizing it.
+ *
+ * A newline only ends a record when it is outside quotes. Doubled quotes inside a
+ * quoted field toggle the state twice, so tracking quote parity is enough. The state
+ * carries over between calls, which lets the caller feed the stream in windows.
+ */
+public final class CsvRecordScanner {
+
+    private boolean inQuotes;
+    private boolean content;
+    private boolean lastRecordBlank;
+    private int lines;
+
+    /**
+     * Scan {@code buf[from, to)} for the end of the current record
+     *
+     * @return the offset just past the record's newline, or -1 if the record continues past {@code to}
+     */
+    public int nextRecordEnd(byte[] buf, int from, int to) {
+        for (int i = from; i < to; i++) {
+            byte b = buf[i];
+            if (b == '"') {
+                inQuotes = !inQuotes;
+                content = true;
+            } else if (b == '\n') {
+                lines++;
+                if (!inQuotes) {
+                    lastRecordBlank = !content;
+                    content = false;
+                    return i + 1;
+                }
+            } else if (b != ' ' && b != '\t' && b != '\r') {
+                content = true;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Same as {@link #nextRecordEnd(byte[], int, int)} over absolute indexes of a buffer,
+     * which may be direct or memory-mapped
+     */
+    public int nextRecordEnd(ByteBuffer buf, int from, int to) {
+        for (int i = from; i < to; i++) {
+            byte b = buf.get(i);
+            if (b == '"') {
+                inQuotes = !inQuotes;
+                content = true;
+            } else if (b == '\n') {
+                lines++;
+                if (!inQuotes) {
+                    lastRecordBlank = !content;
+                    content = false;
+                    return i + 1;
+                }
+            } else if (b != ' ' && b != '\t' && b != '\r') {
+                content = true;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Restart scanning at a record boundary, discarding any partly scanned record
+     *
+     * @param lines newline count up to that boundary
+     */
+    public void reset(int lines) {
+        this.inQuotes = false;
+        this.content = false;
+        this.lines = lines;
+    }
+
+    /**
+     * Whether the record returned by the last {@link #nextRecordEnd} call was an empty line
+     */
+    public boolean lastRecordBlank() {
+        return lastRecordBlank;
+    }
+
+    /**
+     * Whether bytes of an unfinished record have been seen since the last record end
+     */
+    public boolean hasPendingContent() {
+        return content;
+    }
+
+    /**
+     * Number of newline bytes scanned so far, including those inside quoted fields
+     */
+    public int lines() {
+        return lines;
+    }
+}
@@ -0,0 +1,393 @@
+package com.isfa.dsi.filmexplorer.csv;
+
+import java.math.BigDecimal;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+/**
+ * RFC 4180 state-machine tokenizer over a UTF-8 {@link ByteBuffer} window.
+ *
+ * The window must hold complete records (see {@link CsvRecordScanner}); quoted fields
+ * may span several lines. Fields are exposed as reusable {@link Field} slices into the
+ * window: nothing is copied or decoded until a value is actually read, and numbers are
+ * parsed straight from the bytes. One tokenizer per thread, reset for every window.
+ */
+public final class CsvTokenizer {
+
+    private static final byte COMMA = ',';
+    private static final byte QUOTE = '"';
+    private static final byte LF = '\n';
+    private static final byte CR = '\r';
+
+    private ByteBuffer buf;
+    private int pos;
+    private int limit;
+    private int line;
+
+    private Field[] fields = new Field[32];
+    private int fieldCount;
+    private int recordStart;
+    private int recordEnd;
+    private int recordLine;
+
+    private byte[] scratch = new byte[256];
+
+    public CsvTokenizer() {
+        for (int i = 0; i < fields.length; i++) {
+            fields[i] = new Field();
+        }
+    }
+
+    /**
+     * Tokenize {@code window} from its position to its limit
+     *
+     * @param firstLine physical line number of the first byte, used for error messages
+     */
+    public CsvTokenizer reset(ByteBuffer window, int firstLine) {
+        this.buf = window;
+        this.pos = window.position();
+        this.limit = window.limit();
+        this.line = firstLine;
+        this.fieldCount = 0;
+        return this;
+    }
+
+    /**
+     * Advance to the next record
+     *
+     * @return false once the window is exhausted
+     */
+    public boolean nextRecord() {
+        fieldCount = 0;
+        if (pos >= limit) {
+            return false;
+        }
+        recordStart = pos;
+        recordLine = line;
+
+        while (true) {
+            Field field = nextField();
+
+            // Skip leading blanks
+            while (pos < limit && isBlank(buf.get(pos))) {
+                pos++;
+            }
+
+            if (pos < limit && buf.get(pos) == QUOTE) {
+                readQuoted(field);
+            } else {
+                readUnquoted(field);
+            }
+
+            if (pos >= limit) {
+                recordEnd = pos;
+                return true;
+            }
+
+            byte b = buf.get(pos);
+            if (b == COMMA) {
+                pos++;
+                continue;
+            }
+
+            // Record separator: \n, \r\n or a lone \r
+            recordEnd = pos;
+            pos++;
+            if (b == CR && pos < limit && buf.get(pos) == LF) {
+                pos++;
+            }
+            line++;
+            return true;
+        }
+    }
+
+    public int fieldCount() {
+        return fieldCount;
+    }
+
+    public Field field(int index) {
+        if (index >= fieldCount) {
+            throw new IndexOutOfBoundsException("Field " + index + " of " + fieldCount);
+        }
+        return fields[index];
+    }
+
+    /**
+     * True for empty lines (a single empty unquoted field)
+     */
+    public boolean isBlankRecord() {
+        return fieldCount == 1 && !fields[0].quoted && fields[0].start == fields[0].end;
+    }
+
+    /**
+     * Physical line number where the current record starts
+     */
+    public int recordLine() {
+        return recordLine;
+    }
+
+    /**
+     * Raw text of the current record, for error reporting
+     */
+    public String recordText() {
+        return decode(recordStart, recordEnd);
+    }
+
+    private Field nextField() {
+        if (fieldCount == fields.length) {
+            fields = Arrays.copyOf(fields, fields.length * 2);
+            for (int i = fieldCount; i < fields.length; i++) {
+                fields[i] = new Field();
+            }
+        }
+        Field field = fields[fieldCount++];
+        field.quoted = false;
+        field.escaped = false;
+        return field;
+    }
+
+    private void readQuoted(Field field) {
+        pos++;
+        field.quoted = true;
+        field.start = pos;
+        field.end = -1;
+
+        while (pos < limit) {
+            byte b = buf.get(pos);
+            if (b == QUOTE) {
+                if (pos + 1 < limit && buf.get(pos + 1) == QUOTE) {
+                    field.escaped = true;
+                    pos += 2;
+                    continue;
+                }
+                field.end = pos;
+                pos++;
+                break;
+            }
+            if (b == LF) {
+                line++;
+            }
+            pos++;
+        }
+        if (field.end < 0) {
+            // Unterminated quote: take everything up to the end of the window
+            field.end = pos;
+        }
+
+        // Be lenient with anything between the closing quote and the delimiter
+        while (pos < limit) {
+            byte b = buf.get(pos);
+            if (b == COMMA || b == LF || b == CR) {
+                break;
+            }
+            pos++;
+        }
+    }
+
+    private void readUnquoted(Field field) {
+        field.start = pos;
+        while (pos < limit) {
+            byte b = buf.get(pos);
+            if (b == COMMA || b == LF || b == CR) {
+                break;
+            }
+            pos++;
+        }
+        int end = pos;
+        while (end > field.start && isBlank(buf.get(end - 1))) {
+            end--;
+        }
+        field.end = end;
+    }
+
+    private String decode(int from, int to) {
+        int length = to - from;
+        if (buf.hasArray()) {
+            return new String(buf.array(), buf.arrayOffset() + from, length, StandardCharsets.UTF_8);
+        }
+        byte[] bytes = scratch(length);
+        buf.get(from, bytes, 0, length);
+        return new String(bytes, 0, length, StandardCharsets.UTF_8);
+    }
+
+    private byte[] scratch(int length) {
+        if (scratch.length < length) {
+            scratch = new byte[Math.max(length, scratch.length * 2)];
+        }
+        return scratch;
+    }
+
+    private static boolean isBlank(byte b) {
+        return b == ' ' || b == '\t';
+    }
+
+    /**
+     * Slice of the current record. Only valid until the next call to {@link #nextRecord()}.
+     */
+    public final class Field {
+
+        private int start;
+        private int end;
+        private boolean quoted;
+        private boolean escaped;
+
+        public int length() {
+            return end - start;
+        }
+
+        public boolean isEmpty() {
+            return end == start;
+        }
+
+        public byte byteAt(int index) {
+            return buf.get(start + index);
+        }
+
+        /**
+         * Decoded value with doubled quotes unescaped, or null when empty
+         */
+        public String asString() {
+            if (isEmpty()) {
+                return null;
+            }
+            if (!escaped) {
+                return decode(start, end);
+            }
+
+            byte[] bytes = scratch(length());
+            int n = 0;
+            for (int i = start; i < end; i++) {
+                byte b = buf.get(i);
+                bytes[n++] = b;
+                if (b == QUOTE && i + 1 < end && buf.get(i + 1) == QUOTE) {
+                    i++;
+                }
+            }
+            return new String(bytes, 0, n, StandardCharsets.UTF_8);
+        }
+
+        /**
+         * Parse an integral value, null when empty or not a valid long
+         */
+        public Long asLong() {
+            int i = trimmedStart();
+            int to = trimmedEnd();
+            if (i >= to) {
+                return null;
+            }
+
+            boolean negative = false;
+            byte first = buf.get(i);
+            if (first == '-' || first == '+') {
+                negative = first == '-';
+                if (++i == to) {
+                    return null;
+                }
+            }
+
+            long value = 0;
+            for (; i < to; i++) {
+                int digit = buf.get(i) - '0';
+                if (digit < 0 || digit > 9) {
+                    return null;
+                }
+                if (value > (Long.MAX_VALUE - digit) / 10) {
+                    return null;
+                }
+                value = value * 10 + digit;
+            }
+            return negative ? -value : value;
+        }
+
+        /**
+         * Parse an int value, null when empty, invalid or out of range
+         */
+        public Integer asInteger() {
+            Long value = asLong();
+            if (value == null || value < Integer.MIN_VALUE || value > Integer.MAX_VALUE) {
+                return null;
+            }
+            return value.intValue();
+        }
+
+        /**
+         * Parse a decimal value, null when empty or invalid.
+         * Plain "-123.45" forms are parsed from the bytes; anything else (exponents,
+         * more than 18 digits) falls back to {@link BigDecimal#BigDecimal(String)}.
+         */
+        public BigDecimal asDecimal() {
+            int i = trimmedStart();
+            int to = trimmedEnd();
+            if (i >= to) {
+                return null;
+            }
+
+            boolean negative = false;
+            byte first = buf.get(i);
+            if (first == '-' || first == '+') {
+                negative = first == '-';
+                i++;
+            }
+
+            long unscaled = 0;
+            int digits = 0;
+            int scale = -1;
+            for (; i < to; i++) {
+                byte b = buf.get(i);
+                if (b == '.' && scale < 0) {
+                    scale = 0;
+                    continue;
+                }
+                int digit = b - '0';
+                if (digit < 0 || digit > 9 || digits == 18) {
+                    return slowDecimal();
+                }
+                unscaled = unscaled * 10 + digit;
+                digits++;
+                if (scale >= 0) {
+                    scale++;
+                }
+            }
+            if (digits == 0) {
+                return null;
+            }
+            return BigDecimal.valueOf(negative ? -unscaled : unscaled, Math.max(scale, 0));
+        }
+
+        private BigDecimal slowDecimal() {
+            String value = asString();
+            if (value == null) {
+                return null;
+            }
+            try {
+                return new BigDecimal(value.trim());
+            } catch (NumberFormatException e) {
+                return null;
+            }
+        }
+
+        // Quoted numbers may carry blanks inside the quotes
+        private int trimmedStart() {
+            int i = start;
+            while (i < end && isBlank(buf.get(i))) {
+                i++;
+            }
+            return i;
+        }
+
+        private int trimmedEnd() {
+            int i = end;
+            while (i > start && isBlank(buf.get(i - 1))) {
+                i--;
+            }
+            return i;
+        }
+
+        @Override
+        public String toString() {
+            String value = asString();
+            return value != null ? value : "";
+        }
+    }
+}
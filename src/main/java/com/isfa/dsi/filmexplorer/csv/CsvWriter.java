@@ -0,0 +1,134 @@
+package com.isfa.dsi.filmexplorer.csv;
+
+import java.io.BufferedWriter;
+import java.io.Flushable;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Buffered CSV encoder writing fields straight to the underlying stream.
+ * One instance is reused for the whole export; no per-row strings are built.
+ */
+public class CsvWriter implements Flushable {
+
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    private final Writer out;
+    private final char[] digits = new char[20];
+    private boolean firstField = true;
+    private long records;
+
+    public CsvWriter(OutputStream out) {
+        this(new OutputStreamWriter(out, StandardCharsets.UTF_8));
+    }
+
+    public CsvWriter(Writer out) {
+        this.out = out instanceof BufferedWriter ? out : new BufferedWriter(out, BUFFER_SIZE);
+    }
+
+    public CsvWriter field(CharSequence value) throws IOException {
+        separator();
+        if (value == null) {
+            return this;
+        }
+
+        if (!needsQuoting(value)) {
+            out.append(value);
+            return this;
+        }
+
+        // Escape quotes by doubling them
+        out.write('"');
+        for (int i = 0, n = value.length(); i < n; i++) {
+            char c = value.charAt(i);
+            if (c == '"') {
+                out.write('"');
+            }
+            out.write(c);
+        }
+        out.write('"');
+        return this;
+    }
+
+    public CsvWriter field(Long value) throws IOException {
+        if (value == null) {
+            separator();
+            return this;
+        }
+        return field(value.longValue());
+    }
+
+    public CsvWriter field(long value) throws IOException {
+        separator();
+        int pos = digits.length;
+        boolean negative = value < 0;
+        if (value == 0) {
+            digits[--pos] = '0';
+        }
+        while (value != 0) {
+            digits[--pos] = (char) ('0' + Math.abs(value % 10));
+            value /= 10;
+        }
+        if (negative) {
+            digits[--pos] = '-';
+        }
+        out.write(digits, pos, digits.length - pos);
+        return this;
+    }
+
+    public CsvWriter field(Integer value) throws IOException {
+        if (value == null) {
+            separator();
+            return this;
+        }
+        return field(value.longValue());
+    }
+
+    public CsvWriter field(BigDecimal value) throws IOException {
+        return field(value != null ? value.toString() : null);
+    }
+
+    public CsvWriter fields(String... values) throws IOException {
+        for (String value : values) {
+            field(value);
+        }
+        return this;
+    }
+
+    public void endRecord() throws IOException {
+        out.write('\n');
+        firstField = true;
+        records++;
+    }
+
+    public long getRecords() {
+        return records;
+    }
+
+    @Override
+    public void flush() throws IOException {
+        out.flush();
+    }
+
+    private void separator() throws IOException {
+        if (!firstField) {
+            out.write(',');
+        }
+        firstField = false;
+    }
+
+    // If field contains comma, quote, or newline, wrap in quotes
+    private static boolean needsQuoting(CharSequence value) {
+        for (int i = 0, n = value.length(); i < n; i++) {
+            char c = value.charAt(i);
+            if (c == ',' || c == '"' || c == '\n' || c == '\r') {
+                return true;
+            }
+        }
+        return false;
+    }
+}
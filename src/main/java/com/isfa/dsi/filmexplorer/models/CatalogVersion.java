@@ -0,0 +1,35 @@
+package com.isfa.dsi.filmexplorer.models;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+/**
+ * Single-row write counter for the movies table. Every write made through the
+ * application bumps it in its own transaction, so a catalogue snapshot stamped with
+ * the counter can tell whether the database moved on since it was written.
+ *
+ * The new value is also the change sequence of the rows written (see {@link Movies#getChangeSeq()}).
+ * Bumping locks the row until commit, so writers take sequence numbers in commit order.
+ */
+@Entity
+@Table(name = "catalog_version")
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class CatalogVersion {
+
+    public static final int SINGLETON_ID = 1;
+
+    @Id
+    private Integer id;
+
+    @Column(nullable = false)
+    private long version;
+
+    @Column(name = "updated_at")
+    private LocalDateTime updatedAt;
+}
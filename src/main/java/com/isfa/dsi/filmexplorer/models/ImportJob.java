@@ -0,0 +1,115 @@
+package com.isfa.dsi.filmexplorer.models;
+
+import com.isfa.dsi.filmexplorer.csv.Compression;
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.springframework.data.annotation.CreatedDate;
+import org.springframework.data.jpa.domain.support.AuditingEntityListener;
+
+import java.time.LocalDateTime;
+
+/**
+ * A background CSV import. The checkpoint and counters are updated in the same
+ * transaction as each committed batch, so after a crash the job resumes right
+ * after the last batch that made it to the database.
+ */
+@Entity
+@Table(name = "import_jobs", indexes = @Index(name = "idx_import_jobs_status", columnList = "status"))
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+@EntityListeners(AuditingEntityListener.class)
+public class ImportJob {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "file_name", columnDefinition = "TEXT")
+    private String fileName;
+
+    // Server-side copy of the upload, kept until the job completes
+    @Column(name = "stored_path", columnDefinition = "TEXT", nullable = false)
+    private String storedPath;
+
+    // Server-side files belong to the admin and are never deleted
+    @Column(length = 10)
+    @Enumerated(EnumType.STRING)
+    @Builder.Default
+    private Source source = Source.UPLOAD;
+
+    @Column(nullable = false, length = 20)
+    private String mode;
+
+    @Column(nullable = false, length = 20)
+    @Enumerated(EnumType.STRING)
+    @Builder.Default
+    private Status status = Status.QUEUED;
+
+    // Format of the stored file; checkpoints of compressed files are offsets into the decompressed CSV
+    @Column(length = 10)
+    @Enumerated(EnumType.STRING)
+    @Builder.Default
+    private Compression compression = Compression.NONE;
+
+    @Column(name = "total_bytes")
+    private long totalBytes;
+
+    // Byte offset and line number just past the last committed batch; 0 = nothing committed yet
+    @Column(name = "checkpoint_offset")
+    private long checkpointOffset;
+
+    @Column(name = "checkpoint_line")
+    private int checkpointLine;
+
+    @Column(name = "rows_read")
+    private long rowsRead;
+
+    @Column(name = "rows_written")
+    private long rowsWritten;
+
+    @Column(name = "rows_updated")
+    private long rowsUpdated;
+
+    @Column(name = "rows_unchanged")
+    private long rowsUnchanged;
+
+    @Column(name = "error_count")
+    private long errorCount;
+
+    // First parse errors, one per line
+    @Column(name = "error_sample", columnDefinition = "TEXT")
+    private String errorSample;
+
+    @Column(name = "failure_message", columnDefinition = "TEXT")
+    private String failureMessage;
+
+    @CreatedDate
+    @Column(nullable = false, updatable = false, name = "created_at")
+    private LocalDateTime createdAt;
+
+    @Column(name = "started_at")
+    private LocalDateTime startedAt;
+
+    @Column(name = "finished_at")
+    private LocalDateTime finishedAt;
+
+    @Column(name = "updated_at")
+    private LocalDateTime updatedAt;
+
+    public enum Source {
+        UPLOAD,     // Multipart upload copied to the import storage directory
+        SERVER      // CSV already on the server's disk
+    }
+
+    public enum Status {
+        QUEUED,     // Waiting for a worker
+        RUNNING,    // Being imported (or interrupted by a restart, resumed at startup)
+        COMPLETED,
+        FAILED      // Stopped on an error, can be resumed
+    }
+}
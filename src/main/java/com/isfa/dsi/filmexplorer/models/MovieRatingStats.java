@@ -0,0 +1,64 @@
+package com.isfa.dsi.filmexplorer.models;
+
+import jakarta.persistence.*;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Running rating aggregate of a movie's reviews, kept in step by applying deltas in the
+ * transaction of every review write, so reads never scan the reviews.
+ * r1..r10 hold the number of reviews for each rating.
+ */
+@Entity
+@Table(name = "movie_rating_stats")
+@Data
+@NoArgsConstructor
+public class MovieRatingStats {
+
+    @Id
+    @Column(name = "movie_id")
+    private Long movieId;
+
+    @Column(name = "review_count", nullable = false)
+    private long reviewCount;
+
+    @Column(name = "rating_sum", nullable = false)
+    private long ratingSum;
+
+    @Column(name = "rating_sum_sq", nullable = false)
+    private long ratingSumSq;
+
+    @Column(name = "r1", nullable = false)
+    private long r1;
+
+    @Column(name = "r2", nullable = false)
+    private long r2;
+
+    @Column(name = "r3", nullable = false)
+    private long r3;
+
+    @Column(name = "r4", nullable = false)
+    private long r4;
+
+    @Column(name = "r5", nullable = false)
+    private long r5;
+
+    @Column(name = "r6", nullable = false)
+    private long r6;
+
+    @Column(name = "r7", nullable = false)
+    private long r7;
+
+    @Column(name = "r8", nullable = false)
+    private long r8;
+
+    @Column(name = "r9", nullable = false)
+    private long r9;
+
+    @Column(name = "r10", nullable = false)
+    private long r10;
+
+    public long[] histogram() {
+        return new long[]{r1, r2, r3, r4, r5, r6, r7, r8, r9, r10};
+    }
+}
@@ -0,0 +1,30 @@
+package com.isfa.dsi.filmexplorer.models;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+/**
+ * Marks a deleted movie so change feeds can report the deletion.
+ * Movie ids are never reused, so one row per id is enough.
+ */
+@Entity
+@Table(name = "movie_tombstones", indexes = @Index(name = "idx_movie_tombstones_change_seq", columnList = "change_seq"))
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class MovieTombstone {
+
+    @Id
+    @Column(name = "movie_id")
+    private Long movieId;
+
+    @Column(name = "change_seq", nullable = false)
+    private Long changeSeq;
+
+    @Column(name = "deleted_at", nullable = false)
+    private LocalDateTime deletedAt;
+}
@@ -1,12 +1,18 @@
 package com.isfa.dsi.filmexplorer.models;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import jakarta.persistence.*;
 import lombok.Data;
 import java.math.BigDecimal;
 import java.time.LocalDate;
 
 @Entity
-@Table(name = "movies")
+@Table(name = "movies", uniqueConstraints = {
+        @UniqueConstraint(name = "uk_movies_natural_key", columnNames = "natural_key")
+}, indexes = {
+        @Index(name = "idx_movies_change_seq", columnList = "change_seq"),
+        @Index(name = "idx_movies_rank_score", columnList = "rank_score")
+})
 @Data
 public class Movies {
 
@@ -137,4 +143,23 @@ public class Movies {
 
     @Column(name = "all_combined_keywords", columnDefinition = "TEXT")
     private String allCombinedKeywords;
-}
\ No newline at end of file
+
+    // Upsert import bookkeeping: imdb id (or title + year) and a hash of the imported columns
+    @JsonIgnore
+    @Column(name = "natural_key", columnDefinition = "TEXT")
+    private String naturalKey;
+
+    @JsonIgnore
+    @Column(name = "content_hash")
+    private Long contentHash;
+
+    // Catalogue version of the last write to this row, see GET /api/movies/changes
+    @JsonIgnore
+    @Column(name = "change_seq")
+    private Long changeSeq;
+
+    // Weighted rating maintained in SQL by MovieRankService, never written through the entity
+    @JsonIgnore
+    @Column(name = "rank_score", insertable = false, updatable = false)
+    private Double rankScore;
+}
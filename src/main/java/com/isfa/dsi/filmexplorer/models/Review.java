@@ -13,7 +13,10 @@ import com.isfa.dsi.filmexplorer.user.User;
 import java.time.LocalDateTime;
 
 @Entity
-@Table(name = "reviews")
+@Table(name = "reviews", indexes = {
+        @Index(name = "idx_reviews_movie_likes", columnList = "movie_id, likes_count DESC, created_at DESC, id DESC"),
+        @Index(name = "idx_reviews_movie_created", columnList = "movie_id, created_at DESC, id DESC")
+})
 @Data
 @NoArgsConstructor
 @AllArgsConstructor
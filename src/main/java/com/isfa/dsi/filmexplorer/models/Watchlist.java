@@ -13,7 +13,11 @@ import com.isfa.dsi.filmexplorer.user.User;
 import java.time.LocalDateTime;
 
 @Entity
-@Table(name = "watchlist", uniqueConstraints = @UniqueConstraint(columnNames = {"user_id", "movie_id"}))
+@Table(name = "watchlist", uniqueConstraints = @UniqueConstraint(columnNames = {"user_id", "movie_id"}), indexes = {
+        @Index(name = "idx_watchlist_user_added", columnList = "user_id, added_at DESC, id DESC"),
+        @Index(name = "idx_watchlist_user_status_added", columnList = "user_id, status, added_at DESC, id DESC"),
+        @Index(name = "idx_watchlist_user_position", columnList = "user_id, position, id DESC")
+})
 @Data
 @NoArgsConstructor
 @AllArgsConstructor
@@ -47,8 +51,9 @@ public class Watchlist {
     @Column(columnDefinition = "TEXT")
     private String notes;  // Personal notes about the movie
 
+    @Builder.Default
     @Column(name = "position")
-    private Integer position = 0;  // For custom ordering (drag & drop)
+    private Integer position = 0;  // For custom ordering (drag & drop), see WatchlistOrdering
 
     // ============================================
     // EXISTING FIELDS
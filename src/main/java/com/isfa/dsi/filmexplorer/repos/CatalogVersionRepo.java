@@ -0,0 +1,24 @@
+package com.isfa.dsi.filmexplorer.repos;
+
+import com.isfa.dsi.filmexplorer.models.CatalogVersion;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.stereotype.Repository;
+
+@Repository
+public interface CatalogVersionRepo extends JpaRepository<CatalogVersion, Integer> {
+
+    /**
+     * Bump the catalogue version, seeding the row on first use; must run in the transaction
+     * of the write it covers
+     *
+     * @return the new version, which is the change sequence of that write
+     */
+    @Query(value = "INSERT INTO catalog_version (id, version, updated_at) VALUES (" + CatalogVersion.SINGLETON_ID
+            + ", 1, CURRENT_TIMESTAMP) ON CONFLICT (id) DO UPDATE SET version = catalog_version.version + 1, "
+            + "updated_at = CURRENT_TIMESTAMP RETURNING version", nativeQuery = true)
+    long nextChangeSeq();
+
+    @Query("SELECT c.version FROM CatalogVersion c WHERE c.id = " + CatalogVersion.SINGLETON_ID)
+    Long currentVersion();
+}
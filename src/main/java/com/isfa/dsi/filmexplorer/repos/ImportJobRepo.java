@@ -0,0 +1,47 @@
+package com.isfa.dsi.filmexplorer.repos;
+
+import com.isfa.dsi.filmexplorer.models.ImportJob;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+
+@Repository
+public interface ImportJobRepo extends JpaRepository<ImportJob, Long> {
+
+    /**
+     * Jobs left unfinished, e.g. by a restart
+     */
+    List<ImportJob> findByStatusInOrderByIdAsc(Collection<ImportJob.Status> statuses);
+
+    /**
+     * Most recent jobs first
+     */
+    List<ImportJob> findTop20ByOrderByIdDesc();
+
+    /**
+     * Advance the checkpoint and counters; runs in the transaction of the batch it describes
+     */
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("UPDATE ImportJob j SET j.checkpointOffset = :offset, j.checkpointLine = :line, " +
+            "j.rowsRead = j.rowsRead + :rowsRead, j.rowsWritten = j.rowsWritten + :rowsWritten, " +
+            "j.rowsUpdated = j.rowsUpdated + :rowsUpdated, j.rowsUnchanged = j.rowsUnchanged + :rowsUnchanged, " +
+            "j.errorCount = j.errorCount + :errorCount, " +
+            "j.errorSample = CONCAT(COALESCE(j.errorSample, ''), :errorSample), " +
+            "j.updatedAt = :now WHERE j.id = :id")
+    int recordCheckpoint(@Param("id") Long id,
+                         @Param("offset") long offset,
+                         @Param("line") int line,
+                         @Param("rowsRead") long rowsRead,
+                         @Param("rowsWritten") long rowsWritten,
+                         @Param("rowsUpdated") long rowsUpdated,
+                         @Param("rowsUnchanged") long rowsUnchanged,
+                         @Param("errorCount") long errorCount,
+                         @Param("errorSample") String errorSample,
+                         @Param("now") LocalDateTime now);
+}
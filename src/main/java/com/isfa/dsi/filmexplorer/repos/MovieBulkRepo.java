@@ -0,0 +1,537 @@
+package com.isfa.dsi.filmexplorer.repos;
+
+import com.isfa.dsi.filmexplorer.models.Movies;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.postgresql.PGConnection;
+import org.postgresql.copy.CopyManager;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.nio.charset.StandardCharsets;
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.sql.Types;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Set-based JDBC writes for bulk movie loads.
+ * IDENTITY ids disable Hibernate insert batching, so imports bypass JPA entirely.
+ */
+@Repository
+@RequiredArgsConstructor
+@Slf4j
+public class MovieBulkRepo {
+
+    /**
+     * Columns written by the CSV import, in bind order
+     */
+    public static final String[] IMPORT_COLUMNS = {
+            "title", "release_year", "vote_average", "vote_count", "runtime", "director",
+            "genres_list", "overview", "poster_path", "imdb_rating",
+            "star1", "star2", "star3", "star4", "adult", "popularity", "status", "imdb_id"
+    };
+
+    private static final int[] IMPORT_COLUMN_TYPES = {
+            Types.VARCHAR, Types.NUMERIC, Types.NUMERIC, Types.BIGINT, Types.INTEGER, Types.VARCHAR,
+            Types.VARCHAR, Types.VARCHAR, Types.VARCHAR, Types.NUMERIC,
+            Types.VARCHAR, Types.VARCHAR, Types.VARCHAR, Types.VARCHAR, Types.BOOLEAN, Types.NUMERIC, Types.VARCHAR,
+            Types.VARCHAR
+    };
+
+    /**
+     * Import columns plus the change sequence, which is not part of the content hash
+     */
+    private static final String[] INSERT_COLUMNS = concat(IMPORT_COLUMNS, "change_seq");
+
+    private static final int[] INSERT_COLUMN_TYPES = concat(IMPORT_COLUMN_TYPES, Types.BIGINT);
+
+    /**
+     * Insert columns plus the upsert bookkeeping columns
+     */
+    private static final String[] KEYED_COLUMNS = concat(INSERT_COLUMNS, "natural_key", "content_hash");
+
+    private static final int[] KEYED_COLUMN_TYPES = concat(INSERT_COLUMN_TYPES, Types.VARCHAR, Types.BIGINT);
+
+    /**
+     * PostgreSQL rejects statements with more bind parameters than this; multi-row
+     * statements are split to stay under it whatever the import batch size
+     */
+    static final int MAX_BIND_PARAMETERS = 32767;
+
+    private static final int[] UPDATE_BY_KEY_TYPES = concat(INSERT_COLUMN_TYPES, Types.BIGINT, Types.VARCHAR, Types.VARCHAR);
+
+    /**
+     * Keyed columns plus the title + year key of rows keyed by imdb id (see {@link #fallbackKey})
+     */
+    private static final String[] STAGE_COLUMNS = concat(KEYED_COLUMNS, "fallback_key");
+
+    /**
+     * Session-local staging table for COPY loads, emptied by every commit. Created once per
+     * connection rather than per batch, which would churn the system catalogs.
+     */
+    private static final String COPY_STAGE_TABLE = "movies_import_stage";
+
+    private static final String CREATE_STAGE_SQL = "CREATE TEMP TABLE IF NOT EXISTS " + COPY_STAGE_TABLE
+            + " ON COMMIT DELETE ROWS AS SELECT " + String.join(", ", KEYED_COLUMNS)
+            + ", natural_key AS fallback_key FROM movies WITH NO DATA";
+
+    private static final String COPY_SQL = "COPY " + COPY_STAGE_TABLE
+            + " (" + String.join(", ", STAGE_COLUMNS) + ") FROM STDIN";
+
+    private static final String MERGE_STAGE_SQL = "INSERT INTO movies (" + String.join(", ", INSERT_COLUMNS)
+            + ") SELECT " + String.join(", ", INSERT_COLUMNS) + " FROM " + COPY_STAGE_TABLE;
+
+    /**
+     * Rows keyed by title + year before their imdb id was known: rewrite them under the imdb
+     * key, unless that key already exists or another staged row claims the title key.
+     * Runs before the upsert, which then finds them unchanged.
+     */
+    private static final String REKEY_STAGE_SQL = "UPDATE movies SET "
+            + String.join(", ", Arrays.stream(INSERT_COLUMNS).map(c -> c + " = s." + c).toList())
+            + ", natural_key = s.natural_key, content_hash = s.content_hash"
+            + " FROM " + COPY_STAGE_TABLE + " s"
+            + " WHERE movies.natural_key = s.fallback_key"
+            + " AND NOT EXISTS (SELECT 1 FROM movies e WHERE e.natural_key = s.natural_key)"
+            + " AND NOT EXISTS (SELECT 1 FROM " + COPY_STAGE_TABLE + " o WHERE o.natural_key = s.fallback_key)";
+
+    /**
+     * Insert new keys, rewrite rows whose hash changed, leave identical rows untouched.
+     * xmax is 0 only for freshly inserted tuples, which splits the RETURNING rows into inserts and updates.
+     */
+    private static final String UPSERT_STAGE_SQL = "INSERT INTO movies (" + String.join(", ", KEYED_COLUMNS)
+            + ") SELECT " + String.join(", ", KEYED_COLUMNS) + " FROM " + COPY_STAGE_TABLE
+            + " ON CONFLICT (natural_key) DO UPDATE SET "
+            + String.join(", ", Arrays.stream(INSERT_COLUMNS).map(c -> c + " = EXCLUDED." + c).toList())
+            + ", content_hash = EXCLUDED.content_hash"
+            + " WHERE movies.content_hash IS DISTINCT FROM EXCLUDED.content_hash"
+            + " RETURNING (xmax = 0) AS inserted";
+
+    private static final String UPDATE_BY_KEY_SQL = "UPDATE movies SET "
+            + String.join(", ", Arrays.stream(INSERT_COLUMNS).map(c -> c + " = ?").toList())
+            + ", content_hash = ?, natural_key = ? WHERE natural_key = ?";
+
+    private static final String BACKFILL_KEYS_SQL = "UPDATE movies m SET natural_key = " + naturalKeySql("m")
+            + " WHERE m.natural_key IS NULL"
+            + " AND m.id IN (SELECT MIN(s.id) FROM movies s WHERE s.natural_key IS NULL AND "
+            + naturalKeySql("s") + " IS NOT NULL GROUP BY " + naturalKeySql("s") + ")"
+            + " AND NOT EXISTS (SELECT 1 FROM movies e WHERE e.natural_key = " + naturalKeySql("m") + ")";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final Map<Integer, String> insertSqlCache = new ConcurrentHashMap<>();
+    private final Map<Integer, String> keyedInsertSqlCache = new ConcurrentHashMap<>();
+
+    private volatile Boolean copySupported;
+
+    // Physical connections whose session holds the staging table; forgotten when their pool drops them
+    private final Set<PGConnection> stagedConnections = Collections.synchronizedSet(
+            Collections.newSetFromMap(new WeakHashMap<>()));
+
+    /**
+     * Insert all movies with multi-row INSERT statements, as few as the bind parameter limit allows.
+     * Every write method stores {@link Movies#getChangeSeq()} along with the imported columns.
+     */
+    public int insertBatch(List<Movies> movies) {
+        return insertRows(movies, INSERT_COLUMNS, INSERT_COLUMN_TYPES, insertSqlCache, MovieBulkRepo::bindInsertColumns);
+    }
+
+    /**
+     * Whether the datasource is PostgreSQL and can take {@link #copyBatch} loads
+     */
+    public boolean isCopySupported() {
+        Boolean supported = copySupported;
+        if (supported == null) {
+            supported = jdbcTemplate.execute((ConnectionCallback<Boolean>) con -> con.isWrapperFor(PGConnection.class));
+            copySupported = supported;
+            log.info("COPY bulk load {}", Boolean.TRUE.equals(supported) ? "available" : "not available, using INSERT");
+        }
+        return supported;
+    }
+
+    /**
+     * Stream the batch into the staging table with {@code COPY FROM STDIN} (text format),
+     * then move it into movies with one INSERT ... SELECT.
+     * Must run inside a transaction so both statements share the connection; the
+     * staging rows are dropped at commit.
+     */
+    public int copyBatch(List<Movies> movies) {
+        if (movies.isEmpty()) {
+            return 0;
+        }
+
+        byte[] payload = encodeCopyText(movies);
+        return jdbcTemplate.execute((ConnectionCallback<Integer>) con -> {
+            stage(con, payload);
+            try (Statement statement = con.createStatement()) {
+                return statement.executeUpdate(MERGE_STAGE_SQL);
+            }
+        });
+    }
+
+    /**
+     * Insert or update the batch by natural key, skipping rows whose content hash is unchanged.
+     * Movies must carry their key and hash (see {@link #assignImportKeys}); when a key repeats
+     * inside the batch the last row wins. A movie keyed by imdb id whose key is unknown takes
+     * over the row keyed by its title and year, if any, so rows imported before the imdb id
+     * column was filled are updated rather than duplicated. On PostgreSQL the batch goes through the COPY staging
+     * table and one {@code INSERT ... ON CONFLICT}; other datasources look the keys up and
+     * split the batch into a multi-row INSERT and a batched UPDATE.
+     * Must run inside a transaction.
+     */
+    public UpsertCounts upsertBatch(List<Movies> movies) {
+        if (movies.isEmpty()) {
+            return new UpsertCounts(0, 0, 0);
+        }
+
+        Map<String, Movies> byKey = new LinkedHashMap<>(movies.size() * 2);
+        for (Movies movie : movies) {
+            if (movie.getNaturalKey() == null) {
+                throw new IllegalArgumentException("Movie has no natural key: " + movie.getTitle());
+            }
+            byKey.put(movie.getNaturalKey(), movie);
+        }
+        List<Movies> unique = new ArrayList<>(byKey.values());
+        int duplicates = movies.size() - unique.size();
+
+        UpsertCounts counts = isCopySupported() ? upsertThroughStage(unique) : upsertPortable(byKey);
+        return new UpsertCounts(counts.inserted(), counts.updated(), counts.unchanged() + duplicates);
+    }
+
+    /**
+     * Give keys to rows loaded before upserts existed, so the next upsert matches them
+     * instead of inserting duplicates. Rows sharing a key keep it only on the lowest id.
+     *
+     * @return number of rows keyed
+     */
+    public int backfillNaturalKeys() {
+        return jdbcTemplate.update(BACKFILL_KEYS_SQL);
+    }
+
+    private UpsertCounts upsertThroughStage(List<Movies> movies) {
+        byte[] payload = encodeCopyText(movies);
+        return jdbcTemplate.execute((ConnectionCallback<UpsertCounts>) con -> {
+            stage(con, payload);
+            int inserted = 0;
+            int updated;
+            try (Statement statement = con.createStatement()) {
+                updated = statement.executeUpdate(REKEY_STAGE_SQL);
+                try (ResultSet rs = statement.executeQuery(UPSERT_STAGE_SQL)) {
+                    while (rs.next()) {
+                        if (rs.getBoolean(1)) {
+                            inserted++;
+                        } else {
+                            updated++;
+                        }
+                    }
+                }
+            }
+            return new UpsertCounts(inserted, updated, movies.size() - inserted - updated);
+        });
+    }
+
+    private UpsertCounts upsertPortable(Map<String, Movies> byKey) {
+        Map<String, Long> existing = new HashMap<>(byKey.size() * 2);
+        Set<String> lookup = new LinkedHashSet<>(byKey.keySet());
+        for (Movies movie : byKey.values()) {
+            String fallback = fallbackKey(movie);
+            if (fallback != null) {
+                lookup.add(fallback);
+            }
+        }
+        List<String> keys = new ArrayList<>(lookup);
+        for (int from = 0; from < keys.size(); from += MAX_BIND_PARAMETERS) {
+            List<String> chunk = keys.subList(from, Math.min(from + MAX_BIND_PARAMETERS, keys.size()));
+            String placeholders = String.join(",", Collections.nCopies(chunk.size(), "?"));
+            jdbcTemplate.query("SELECT natural_key, content_hash FROM movies WHERE natural_key IN (" + placeholders + ")",
+                    rs -> {
+                        long hash = rs.getLong(2);
+                        existing.put(rs.getString(1), rs.wasNull() ? null : hash);
+                    },
+                    chunk.toArray());
+        }
+
+        List<Movies> fresh = new ArrayList<>();
+        List<Object[]> changed = new ArrayList<>();
+        Set<String> rekeyed = new HashSet<>();
+        for (Movies movie : byKey.values()) {
+            String key = movie.getNaturalKey();
+            String fallback = fallbackKey(movie);
+            if (existing.containsKey(key)) {
+                if (!Objects.equals(existing.get(key), movie.getContentHash())) {
+                    changed.add(updateByKeyArgs(movie, key));
+                }
+            } else if (fallback != null && existing.containsKey(fallback) && !byKey.containsKey(fallback)
+                    && rekeyed.add(fallback)) {
+                changed.add(updateByKeyArgs(movie, fallback));
+            } else {
+                fresh.add(movie);
+            }
+        }
+
+        insertRows(fresh, KEYED_COLUMNS, KEYED_COLUMN_TYPES, keyedInsertSqlCache, MovieBulkRepo::bindKeyedColumns);
+        if (!changed.isEmpty()) {
+            jdbcTemplate.batchUpdate(UPDATE_BY_KEY_SQL, changed, UPDATE_BY_KEY_TYPES);
+        }
+
+        return new UpsertCounts(fresh.size(), changed.size(), byKey.size() - fresh.size() - changed.size());
+    }
+
+    // Arguments of UPDATE_BY_KEY_SQL rewriting the row keyed currentKey
+    private static Object[] updateByKeyArgs(Movies movie, String currentKey) {
+        Object[] args = new Object[UPDATE_BY_KEY_TYPES.length];
+        int i = bindInsertColumns(movie, args, 0);
+        args[i++] = movie.getContentHash();
+        args[i++] = movie.getNaturalKey();
+        args[i] = currentKey;
+        return args;
+    }
+
+    private void stage(Connection con, byte[] payload) throws SQLException {
+        PGConnection session = con.unwrap(PGConnection.class);
+        if (!stagedConnections.contains(session)) {
+            try (Statement statement = con.createStatement()) {
+                statement.execute(CREATE_STAGE_SQL);
+            }
+            // The CREATE only survives if its transaction commits
+            if (TransactionSynchronizationManager.isSynchronizationActive()) {
+                stagedConnections.add(session);
+                TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                    @Override
+                    public void afterCompletion(int status) {
+                        if (status != STATUS_COMMITTED) {
+                            stagedConnections.remove(session);
+                        }
+                    }
+                });
+            }
+        }
+        try {
+            copyManager(con).copyIn(COPY_SQL, new ByteArrayInputStream(payload));
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private static CopyManager copyManager(Connection con) throws SQLException {
+        return con.unwrap(PGConnection.class).getCopyAPI();
+    }
+
+    /**
+     * Encode the staged columns in COPY text format: tab separated, {@code \N} for null,
+     * backslash escapes for the separators.
+     */
+    private static byte[] encodeCopyText(List<Movies> movies) {
+        Object[] row = new Object[STAGE_COLUMNS.length];
+        StringBuilder sb = new StringBuilder(movies.size() * 256);
+        for (Movies movie : movies) {
+            row[bindKeyedColumns(movie, row, 0)] = fallbackKey(movie);
+            for (int i = 0; i < row.length; i++) {
+                if (i > 0) {
+                    sb.append('\t');
+                }
+                appendCopyValue(sb, row[i]);
+            }
+            sb.append('\n');
+        }
+        return sb.toString().getBytes(StandardCharsets.UTF_8);
+    }
+
+    private static void appendCopyValue(StringBuilder sb, Object value) {
+        if (value == null) {
+            sb.append("\\N");
+            return;
+        }
+        if (!(value instanceof String text)) {
+            // Numbers and booleans: toPlainString keeps BigDecimal out of exponent notation
+            sb.append(value instanceof BigDecimal decimal ? decimal.toPlainString() : value.toString());
+            return;
+        }
+        for (int i = 0; i < text.length(); i++) {
+            char c = text.charAt(i);
+            switch (c) {
+                case '\\' -> sb.append("\\\\");
+                case '\t' -> sb.append("\\t");
+                case '\n' -> sb.append("\\n");
+                case '\r' -> sb.append("\\r");
+                default -> sb.append(c);
+            }
+        }
+    }
+
+    /**
+     * Copy the import columns of a movie into {@code args} starting at {@code offset}
+     *
+     * @return the next free offset
+     */
+    public static int bindImportColumns(Movies movie, Object[] args, int offset) {
+        args[offset++] = movie.getTitle();
+        args[offset++] = movie.getReleaseYear();
+        args[offset++] = movie.getVoteAverage();
+        args[offset++] = movie.getVoteCount();
+        args[offset++] = movie.getRuntime();
+        args[offset++] = movie.getDirector();
+        args[offset++] = movie.getGenresList();
+        args[offset++] = movie.getOverview();
+        args[offset++] = movie.getPosterPath();
+        args[offset++] = movie.getImdbRating();
+        args[offset++] = movie.getStar1();
+        args[offset++] = movie.getStar2();
+        args[offset++] = movie.getStar3();
+        args[offset++] = movie.getStar4();
+        args[offset++] = movie.getAdult();
+        args[offset++] = movie.getPopularity();
+        args[offset++] = movie.getStatus();
+        args[offset++] = movie.getImdbId();
+        return offset;
+    }
+
+    private static int bindInsertColumns(Movies movie, Object[] args, int offset) {
+        offset = bindImportColumns(movie, args, offset);
+        args[offset++] = movie.getChangeSeq();
+        return offset;
+    }
+
+    private static int bindKeyedColumns(Movies movie, Object[] args, int offset) {
+        offset = bindInsertColumns(movie, args, offset);
+        args[offset++] = movie.getNaturalKey();
+        args[offset++] = movie.getContentHash();
+        return offset;
+    }
+
+    /**
+     * Fill in the natural key and content hash used by {@link #upsertBatch}
+     */
+    public static void assignImportKeys(Movies movie) {
+        movie.setNaturalKey(naturalKey(movie));
+        movie.setContentHash(contentHash(movie));
+    }
+
+    /**
+     * The imdb id when present, otherwise "t:" + lower-cased title + "|" + year.
+     * Must stay in step with {@link #naturalKeySql} used by the backfill.
+     *
+     * @return null when the movie has neither an imdb id nor a title
+     */
+    public static String naturalKey(Movies movie) {
+        String imdbId = movie.getImdbId() != null ? movie.getImdbId().trim() : "";
+        return !imdbId.isEmpty() ? imdbId : titleKey(movie);
+    }
+
+    /**
+     * The title + year key of a movie keyed by imdb id, which rows imported without the
+     * imdb id carry; null for movies keyed by title already
+     */
+    static String fallbackKey(Movies movie) {
+        boolean hasImdbId = movie.getImdbId() != null && !movie.getImdbId().trim().isEmpty();
+        return hasImdbId ? titleKey(movie) : null;
+    }
+
+    private static String titleKey(Movies movie) {
+        if (movie.getTitle() == null) {
+            return null;
+        }
+        // release_year is NUMERIC(4,0): round the same way the column does
+        String year = movie.getReleaseYear() != null
+                ? movie.getReleaseYear().setScale(0, RoundingMode.HALF_UP).toPlainString()
+                : "";
+        return "t:" + movie.getTitle().trim().toLowerCase(Locale.ROOT) + "|" + year;
+    }
+
+    private static String naturalKeySql(String alias) {
+        return "COALESCE(NULLIF(TRIM(" + alias + ".imdb_id), ''), 't:' || LOWER(TRIM(" + alias + ".title)) || '|' || "
+                + "COALESCE(CAST(" + alias + ".release_year AS VARCHAR), ''))";
+    }
+
+    /**
+     * 64-bit FNV-1a over the import columns. Decimals are normalized so "7.0" and "7.00" hash alike.
+     */
+    public static long contentHash(Movies movie) {
+        Object[] values = new Object[IMPORT_COLUMNS.length];
+        bindImportColumns(movie, values, 0);
+
+        long hash = 0xcbf29ce484222325L;
+        for (Object value : values) {
+            String text = value == null ? null
+                    : value instanceof BigDecimal decimal ? decimal.stripTrailingZeros().toPlainString()
+                    : value.toString();
+            if (text == null) {
+                hash = (hash ^ 0xFF) * 0x100000001b3L;
+            } else {
+                for (int i = 0; i < text.length(); i++) {
+                    hash = (hash ^ text.charAt(i)) * 0x100000001b3L;
+                }
+            }
+            // Field separator, so ("ab", "c") and ("a", "bc") differ
+            hash = (hash ^ 0x1F) * 0x100000001b3L;
+        }
+        return hash;
+    }
+
+    // Multi-row INSERTs of at most MAX_BIND_PARAMETERS parameters each
+    private int insertRows(List<Movies> movies, String[] columns, int[] columnTypes, Map<Integer, String> sqlCache,
+                           ColumnBinder binder) {
+        int maxRows = MAX_BIND_PARAMETERS / columns.length;
+        int written = 0;
+        for (int from = 0; from < movies.size(); from += maxRows) {
+            List<Movies> chunk = movies.subList(from, Math.min(from + maxRows, movies.size()));
+            Object[] args = new Object[chunk.size() * columns.length];
+            int[] types = new int[args.length];
+            int i = 0;
+            for (Movies movie : chunk) {
+                System.arraycopy(columnTypes, 0, types, i, columns.length);
+                i = binder.bind(movie, args, i);
+            }
+            String sql = sqlCache.computeIfAbsent(chunk.size(), rows -> buildInsertSql(columns, rows));
+            written += jdbcTemplate.update(sql, args, types);
+        }
+        return written;
+    }
+
+    @FunctionalInterface
+    private interface ColumnBinder {
+        int bind(Movies movie, Object[] args, int offset);
+    }
+
+    private static String buildInsertSql(String[] columns, int rows) {
+        String placeholders = "(" + "?,".repeat(columns.length - 1) + "?)";
+        StringBuilder sql = new StringBuilder("INSERT INTO movies (")
+                .append(String.join(", ", columns))
+                .append(") VALUES ");
+        for (int row = 0; row < rows; row++) {
+            if (row > 0) {
+                sql.append(',');
+            }
+            sql.append(placeholders);
+        }
+        return sql.toString();
+    }
+
+    private static String[] concat(String[] head, String... tail) {
+        String[] all = Arrays.copyOf(head, head.length + tail.length);
+        System.arraycopy(tail, 0, all, head.length, tail.length);
+        return all;
+    }
+
+    private static int[] concat(int[] head, int... tail) {
+        int[] all = Arrays.copyOf(head, head.length + tail.length);
+        System.arraycopy(tail, 0, all, head.length, tail.length);
+        return all;
+    }
+
+    /**
+     * Outcome of an upsert batch. Unchanged rows include keys repeated within the batch.
+     */
+    public record UpsertCounts(int inserted, int updated, int unchanged) {
+    }
+}
@@ -0,0 +1,9 @@
+package com.isfa.dsi.filmexplorer.repos;
+
+import com.isfa.dsi.filmexplorer.models.MovieRatingStats;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+@Repository
+public interface MovieRatingStatsRepo extends JpaRepository<MovieRatingStats, Long> {
+}
@@ -0,0 +1,13 @@
+package com.isfa.dsi.filmexplorer.repos;
+
+import com.isfa.dsi.filmexplorer.models.MovieTombstone;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+
+@Repository
+public interface MovieTombstoneRepo extends JpaRepository<MovieTombstone, Long> {
+
+    List<MovieTombstone> findByChangeSeqGreaterThanOrderByChangeSeqAscMovieIdAsc(long since);
+}
@@ -3,14 +3,29 @@ package com.isfa.dsi.filmexplorer.repos;
 import com.isfa.dsi.filmexplorer.models.Movies;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.JpaSpecificationExecutor;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 import org.springframework.web.bind.annotation.CrossOrigin;
 
+import java.util.Collection;
+import java.util.List;
 import java.util.Optional;
 
 @Repository
 public interface MoviesRepo  extends JpaRepository<Movies, Long> , JpaSpecificationExecutor<Movies> {
 
+    /**
+     * Which of the given ids belong to a movie
+     */
+    @Query("SELECT m.id FROM Movies m WHERE m.id IN :ids")
+    List<Long> findExistingIds(@Param("ids") Collection<Long> ids);
+
+    /**
+     * Overview of a movie, which catalogue cards don't keep
+     */
+    @Query("SELECT m.overview FROM Movies m WHERE m.id = :id")
+    String findOverviewById(@Param("id") Long id);
 
 
 }
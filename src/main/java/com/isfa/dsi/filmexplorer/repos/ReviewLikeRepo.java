@@ -2,8 +2,13 @@ package com.isfa.dsi.filmexplorer.repos;
 
 import com.isfa.dsi.filmexplorer.models.ReviewLike;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
+import java.util.List;
 import java.util.Optional;
 
 @Repository
@@ -33,4 +38,42 @@ public interface ReviewLikeRepo extends JpaRepository<ReviewLike, Long> {
      * Delete all likes for a review
      */
     void deleteByReviewId(Long reviewId);
-}
\ No newline at end of file
+
+    /**
+     * Record a like unless it exists already
+     *
+     * @return 1 if the like was recorded, 0 if the user had already liked the review
+     */
+    @Modifying
+    @Query(value = "INSERT INTO review_likes (user_id, review_id, created_at) VALUES (:userId, :reviewId, CURRENT_TIMESTAMP) "
+            + "ON CONFLICT (user_id, review_id) DO NOTHING", nativeQuery = true)
+    int insertIfAbsent(@Param("userId") Long userId, @Param("reviewId") Long reviewId);
+
+    /**
+     * Remove a like
+     *
+     * @return 1 if the like existed, 0 otherwise
+     */
+    @Modifying
+    @Query("DELETE FROM ReviewLike l WHERE l.user.id = :userId AND l.review.id = :reviewId")
+    int deleteLike(@Param("userId") Long userId, @Param("reviewId") Long reviewId);
+
+    /**
+     * Remove every like of a review in one statement
+     */
+    @Modifying
+    @Query("DELETE FROM ReviewLike l WHERE l.review.id = :reviewId")
+    int deleteAllForReview(@Param("reviewId") Long reviewId);
+
+    /**
+     * Which of the given reviews the user liked
+     */
+    @Query("SELECT l.review.id FROM ReviewLike l WHERE l.user.id = :userId AND l.review.id IN :reviewIds")
+    List<Long> findLikedReviewIds(@Param("userId") Long userId, @Param("reviewIds") Collection<Long> reviewIds);
+
+    /**
+     * Every review the user liked, capped at {@code limit} rows
+     */
+    @Query(value = "SELECT review_id FROM review_likes WHERE user_id = :userId LIMIT :limit", nativeQuery = true)
+    List<Long> findAllLikedReviewIds(@Param("userId") Long userId, @Param("limit") int limit);
+}
@@ -1,5 +1,6 @@
 package com.isfa.dsi.filmexplorer.repos;
 
+import com.isfa.dsi.filmexplorer.DTOs.ReviewListRow;
 import com.isfa.dsi.filmexplorer.models.Review;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
@@ -8,6 +9,8 @@ import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
@@ -19,6 +22,40 @@ public interface ReviewRepo extends JpaRepository<Review, Long> {
      */
     Page<Review> findByMovieId(Long movieId, Pageable pageable);
 
+    /**
+     * Reviews of a movie with their author, newest first, as flat rows: one select for
+     * the page plus one for the count, whatever the page size
+     */
+    @Query(value = "SELECT new com.isfa.dsi.filmexplorer.DTOs.ReviewListRow("
+            + "r.id, u.id, u.email, u.firstName, u.lastName, r.rating, r.title, r.content, "
+            + "r.likesCount, r.createdAt, r.updatedAt) "
+            + "FROM Review r JOIN r.user u WHERE r.movie.id = :movieId "
+            + "ORDER BY r.createdAt DESC, r.id DESC",
+            countQuery = "SELECT COUNT(r) FROM Review r WHERE r.movie.id = :movieId")
+    Page<ReviewListRow> findRowsByMovieId(@Param("movieId") Long movieId, Pageable pageable);
+
+    /**
+     * Keyset page of a movie's reviews with their author: those after (at, id) in
+     * (createdAt DESC, id DESC) order. Pass a Pageable of size + 1 to learn whether more follow.
+     */
+    @Query("SELECT new com.isfa.dsi.filmexplorer.DTOs.ReviewListRow("
+            + "r.id, u.id, u.email, u.firstName, u.lastName, r.rating, r.title, r.content, "
+            + "r.likesCount, r.createdAt, r.updatedAt) "
+            + "FROM Review r JOIN r.user u WHERE r.movie.id = :movieId "
+            + "AND r.createdAt <= :at AND (r.createdAt < :at OR r.id < :id) "
+            + "ORDER BY r.createdAt DESC, r.id DESC")
+    List<ReviewListRow> findRowsByMovieIdAfter(@Param("movieId") Long movieId, @Param("at") LocalDateTime at,
+                                               @Param("id") Long id, Pageable pageable);
+
+    /**
+     * Reviews with their author by id, in no particular order
+     */
+    @Query("SELECT new com.isfa.dsi.filmexplorer.DTOs.ReviewListRow("
+            + "r.id, u.id, u.email, u.firstName, u.lastName, r.rating, r.title, r.content, "
+            + "r.likesCount, r.createdAt, r.updatedAt) "
+            + "FROM Review r JOIN r.user u WHERE r.id IN :ids")
+    List<ReviewListRow> findRowsByIdIn(@Param("ids") Collection<Long> ids);
+
     /**
      * Find all reviews by a specific user
      */
@@ -46,10 +83,14 @@ public interface ReviewRepo extends JpaRepository<Review, Long> {
     Double getAverageRatingForMovie(@Param("movieId") Long movieId);
 
     /**
-     * Find reviews sorted by likes count (most liked first)
+     * Find reviews sorted by likes count (most liked first), with their author
      */
-    @Query("SELECT r FROM Review r WHERE r.movie.id = :movieId ORDER BY r.likesCount DESC, r.createdAt DESC")
-    List<Review> findTopReviewsForMovie(@Param("movieId") Long movieId, Pageable pageable);
+    @Query("SELECT new com.isfa.dsi.filmexplorer.DTOs.ReviewListRow("
+            + "r.id, u.id, u.email, u.firstName, u.lastName, r.rating, r.title, r.content, "
+            + "r.likesCount, r.createdAt, r.updatedAt) "
+            + "FROM Review r JOIN r.user u WHERE r.movie.id = :movieId "
+            + "ORDER BY r.likesCount DESC, r.createdAt DESC, r.id DESC")
+    List<ReviewListRow> findTopReviewsForMovie(@Param("movieId") Long movieId, Pageable pageable);
 
     /**
      * Delete all reviews by a user
@@ -0,0 +1,116 @@
+package com.isfa.dsi.filmexplorer.repos;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Set-based JDBC writes for many watchlist entries of one user: one statement per kind of
+ * change, each returning the movies it actually touched.
+ */
+@Repository
+@RequiredArgsConstructor
+public class WatchlistBulkRepo {
+
+    // First key of the two-key advisory locks taken on watchlist positions
+    private static final int POSITION_LOCK_SPACE = 0x57_4C_50;
+
+    private final JdbcTemplate jdbcTemplate;
+
+    /**
+     * Insert entries for the movies (movie id to status name); movies already in the watchlist are skipped
+     *
+     * @param positions custom order key of each entry, in the iteration order of {@code statuses}
+     * @return the movies inserted
+     */
+    public Set<Long> insert(Long userId, Map<Long, String> statuses, int[] positions, LocalDateTime addedAt) {
+        if (statuses.isEmpty()) {
+            return Set.of();
+        }
+        StringBuilder sql = new StringBuilder(
+                "INSERT INTO watchlist (user_id, movie_id, status, is_public, position, added_at) VALUES ");
+        List<Object> args = new ArrayList<>(statuses.size() * 5);
+        Timestamp at = Timestamp.valueOf(addedAt);
+        int i = 0;
+        for (Map.Entry<Long, String> entry : statuses.entrySet()) {
+            sql.append(i == 0 ? "" : ", ").append("(?, ?, ?, false, ?, ?)");
+            args.add(userId);
+            args.add(entry.getKey());
+            args.add(entry.getValue());
+            args.add(positions[i++]);
+            args.add(at);
+        }
+        sql.append(" ON CONFLICT (user_id, movie_id) DO NOTHING RETURNING movie_id");
+        return new HashSet<>(jdbcTemplate.queryForList(sql.toString(), Long.class, args.toArray()));
+    }
+
+    /**
+     * Set the status of the user's entries for the movies (movie id to status name)
+     *
+     * @return the movies whose entry exists
+     */
+    public Set<Long> updateStatus(Long userId, Map<Long, String> statuses, LocalDateTime updatedAt) {
+        if (statuses.isEmpty()) {
+            return Set.of();
+        }
+        StringBuilder sql = new StringBuilder("UPDATE watchlist w SET status = v.status, updated_at = ? FROM (VALUES ");
+        List<Object> args = new ArrayList<>(statuses.size() * 2 + 2);
+        args.add(Timestamp.valueOf(updatedAt));
+        int i = 0;
+        for (Map.Entry<Long, String> entry : statuses.entrySet()) {
+            sql.append(i++ == 0 ? "" : ", ").append("(CAST(? AS BIGINT), CAST(? AS VARCHAR))");
+            args.add(entry.getKey());
+            args.add(entry.getValue());
+        }
+        sql.append(") v (movie_id, status) WHERE w.user_id = ? AND w.movie_id = v.movie_id RETURNING w.movie_id");
+        args.add(userId);
+        return new HashSet<>(jdbcTemplate.queryForList(sql.toString(), Long.class, args.toArray()));
+    }
+
+    /**
+     * Serialize position changes of one user's watchlist until the transaction ends
+     */
+    public void lockPositions(Long userId) {
+        jdbcTemplate.query("SELECT pg_advisory_xact_lock(?, CAST(? AS INTEGER))", rs -> null,
+                POSITION_LOCK_SPACE, Math.floorMod(userId, Integer.MAX_VALUE));
+    }
+
+    /**
+     * Renumber the user's entries {@code gap} apart, keeping their custom order
+     *
+     * @return the number of entries that moved
+     */
+    public int renumberPositions(Long userId, int gap) {
+        return jdbcTemplate.update("UPDATE watchlist w SET position = r.rn * ? FROM ("
+                + "SELECT id, ROW_NUMBER() OVER (ORDER BY position ASC, id DESC) AS rn FROM watchlist WHERE user_id = ?"
+                + ") r WHERE w.id = r.id AND w.position IS DISTINCT FROM r.rn * ?", gap, userId, gap);
+    }
+
+    /**
+     * Delete the user's entries for the movies
+     *
+     * @return the movies whose entry existed
+     */
+    public Set<Long> delete(Long userId, Collection<Long> movieIds) {
+        if (movieIds.isEmpty()) {
+            return Set.of();
+        }
+        String placeholders = String.join(", ", Collections.nCopies(movieIds.size(), "?"));
+        List<Object> args = new ArrayList<>(movieIds.size() + 1);
+        args.add(userId);
+        args.addAll(movieIds);
+        return new HashSet<>(jdbcTemplate.queryForList(
+                "DELETE FROM watchlist WHERE user_id = ? AND movie_id IN (" + placeholders + ") RETURNING movie_id",
+                Long.class, args.toArray()));
+    }
+}
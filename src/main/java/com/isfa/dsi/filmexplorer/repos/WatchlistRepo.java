@@ -8,6 +8,8 @@ import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
@@ -30,6 +32,23 @@ public interface WatchlistRepo extends JpaRepository<Watchlist, Long> {
 
     long countByUserIdAndStatus(Long userId, Watchlist.WatchlistStatus status);
 
+    /**
+     * (movie id, status name) of every entry of the user by movie id, capped at {@code limit} rows
+     */
+    @Query(value = "SELECT movie_id, status FROM watchlist WHERE user_id = :userId ORDER BY movie_id LIMIT :limit",
+            nativeQuery = true)
+    List<Object[]> findAllMovieStatuses(@Param("userId") Long userId, @Param("limit") int limit);
+
+    /**
+     * (movie id, status) of the given movies that are in the user's watchlist
+     */
+    @Query("SELECT w.movie.id, w.status FROM Watchlist w WHERE w.user.id = :userId AND w.movie.id IN :movieIds")
+    List<Object[]> findStatusesByMovieIdIn(@Param("userId") Long userId, @Param("movieIds") Collection<Long> movieIds);
+
+    // (status, count) pairs of the user's entries
+    @Query("SELECT w.status, COUNT(w) FROM Watchlist w WHERE w.user.id = :userId GROUP BY w.status")
+    List<Object[]> countByStatus(@Param("userId") Long userId);
+
     void deleteByUserId(Long userId);
 
     void deleteByMovieId(Long movieId);
@@ -46,6 +65,65 @@ public interface WatchlistRepo extends JpaRepository<Watchlist, Long> {
             "ORDER BY w.addedAt DESC")
     Page<Watchlist> findPublicWatchlist(@Param("userId") Long userId, Pageable pageable);
 
+    // ============================================
+    // KEYSET PAGES: entries after (at, id) in (addedAt DESC, id DESC) order.
+    // Pass a Pageable of size + 1 to learn whether more follow.
+    // ============================================
+
+    @Query("SELECT w FROM Watchlist w JOIN FETCH w.movie WHERE w.user.id = :userId " +
+            "AND w.addedAt <= :at AND (w.addedAt < :at OR w.id < :id) " +
+            "ORDER BY w.addedAt DESC, w.id DESC")
+    List<Watchlist> findByUserIdAfter(@Param("userId") Long userId, @Param("at") LocalDateTime at,
+                                      @Param("id") Long id, Pageable pageable);
+
+    @Query("SELECT w FROM Watchlist w JOIN FETCH w.movie WHERE w.user.id = :userId AND w.status = :status " +
+            "AND w.addedAt <= :at AND (w.addedAt < :at OR w.id < :id) " +
+            "ORDER BY w.addedAt DESC, w.id DESC")
+    List<Watchlist> findByUserIdAndStatusAfter(@Param("userId") Long userId,
+                                               @Param("status") Watchlist.WatchlistStatus status,
+                                               @Param("at") LocalDateTime at, @Param("id") Long id,
+                                               Pageable pageable);
+
+    @Query("SELECT w FROM Watchlist w JOIN FETCH w.movie WHERE w.user.id = :userId AND w.isPublic = true " +
+            "AND w.addedAt <= :at AND (w.addedAt < :at OR w.id < :id) " +
+            "ORDER BY w.addedAt DESC, w.id DESC")
+    List<Watchlist> findPublicWatchlistAfter(@Param("userId") Long userId, @Param("at") LocalDateTime at,
+                                             @Param("id") Long id, Pageable pageable);
+
+    // ============================================
+    // CUSTOM ORDER: position ASC, newest first among equal positions.
+    // Position reads are scalar so they never see stale managed entities.
+    // ============================================
+
+    @Query(value = "SELECT w FROM Watchlist w JOIN FETCH w.movie WHERE w.user.id = :userId " +
+            "ORDER BY w.position ASC, w.id DESC",
+            countQuery = "SELECT COUNT(w) FROM Watchlist w WHERE w.user.id = :userId")
+    Page<Watchlist> findByUserIdInCustomOrder(@Param("userId") Long userId, Pageable pageable);
+
+    @Query("SELECT w.position FROM Watchlist w WHERE w.id = :id")
+    Integer findPositionById(@Param("id") Long id);
+
+    @Query("SELECT MIN(w.position) FROM Watchlist w WHERE w.user.id = :userId")
+    Integer findMinPosition(@Param("userId") Long userId);
+
+    /**
+     * (id, position) of the user's entries in custom order, skipping {@code excludeId}
+     */
+    @Query("SELECT w.id, w.position FROM Watchlist w WHERE w.user.id = :userId AND w.id <> :excludeId " +
+            "ORDER BY w.position ASC, w.id DESC")
+    List<Object[]> findFirstPositions(@Param("userId") Long userId, @Param("excludeId") Long excludeId,
+                                      Pageable pageable);
+
+    /**
+     * (id, position) of the user's entries following (position, id) in custom order, skipping {@code excludeId}
+     */
+    @Query("SELECT w.id, w.position FROM Watchlist w WHERE w.user.id = :userId AND w.id <> :excludeId " +
+            "AND (w.position > :position OR (w.position = :position AND w.id < :id)) " +
+            "ORDER BY w.position ASC, w.id DESC")
+    List<Object[]> findPositionsAfter(@Param("userId") Long userId, @Param("excludeId") Long excludeId,
+                                      @Param("position") Integer position, @Param("id") Long id,
+                                      Pageable pageable);
+
     /**
      * Get friends watching a specific movie
      */
@@ -0,0 +1,107 @@
+package com.isfa.dsi.filmexplorer.search;
+
+/**
+ * Light English suffix stripper, roughly step 1 of the Porter algorithm plus a few common
+ * derivational suffixes. It only needs to map related forms to the same term ("movies",
+ * "movie"; "acting", "acted") the same way at index and query time, not to produce words.
+ */
+public final class EnglishStemmer {
+
+    // Stems shorter than this are left alone, so "news" or "sing" are not mangled
+    private static final int MIN_STEM = 3;
+
+    private static final String[][] DERIVATIONAL = {
+            {"ational", "ate"}, {"ization", "ize"}, {"fulness", "ful"}, {"ousness", "ous"},
+            {"iveness", "ive"}, {"ement", ""}, {"ment", ""}, {"ness", ""}, {"ful", ""},
+            {"ably", "able"}, {"ibly", "ible"}, {"ously", "ous"}, {"ly", ""}
+    };
+
+    private EnglishStemmer() {
+    }
+
+    public static String stem(String word) {
+        if (word.length() <= MIN_STEM || !isAlphabetic(word)) {
+            return word;
+        }
+        String stem = plural(word);
+        stem = pastAndProgressive(stem);
+        // Twice, so "beautifully" -> "beautiful" -> "beauti" meets "beautiful" and "beauty"
+        stem = derivational(derivational(stem));
+        if (stem.endsWith("y") && stem.length() > MIN_STEM && hasVowel(stem, stem.length() - 1)) {
+            stem = stem.substring(0, stem.length() - 1) + "i";
+        }
+        return stem;
+    }
+
+    private static String derivational(String word) {
+        for (String[] rule : DERIVATIONAL) {
+            if (word.endsWith(rule[0]) && word.length() - rule[0].length() >= MIN_STEM) {
+                return word.substring(0, word.length() - rule[0].length()) + rule[1];
+            }
+        }
+        return word;
+    }
+
+    private static String plural(String word) {
+        if (word.endsWith("sses")) {
+            return word.substring(0, word.length() - 2);
+        }
+        if (word.endsWith("ies")) {
+            return word.substring(0, word.length() - 2);
+        }
+        if (word.endsWith("s") && !word.endsWith("ss") && !word.endsWith("us") && !word.endsWith("is")) {
+            return word.substring(0, word.length() - 1);
+        }
+        return word;
+    }
+
+    private static String pastAndProgressive(String word) {
+        if (word.endsWith("eed")) {
+            return word.length() > 4 ? word.substring(0, word.length() - 1) : word;
+        }
+        String stem;
+        if (word.endsWith("ed")) {
+            stem = word.substring(0, word.length() - 2);
+        } else if (word.endsWith("ing")) {
+            stem = word.substring(0, word.length() - 3);
+        } else {
+            return word;
+        }
+        if (stem.length() < MIN_STEM || !hasVowel(stem, stem.length())) {
+            return word;
+        }
+        if (stem.endsWith("at") || stem.endsWith("bl") || stem.endsWith("iz")) {
+            return stem + "e";
+        }
+        // "stopped" -> "stop", but keep "ll", "ss" and "zz"
+        int n = stem.length();
+        char last = stem.charAt(n - 1);
+        if (last == stem.charAt(n - 2) && !isVowel(last) && last != 'l' && last != 's' && last != 'z') {
+            return stem.substring(0, n - 1);
+        }
+        return stem;
+    }
+
+    private static boolean hasVowel(String word, int end) {
+        for (int i = 0; i < end; i++) {
+            if (isVowel(word.charAt(i))) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static boolean isVowel(char c) {
+        return c == 'a' || c == 'e' || c == 'i' || c == 'o' || c == 'u';
+    }
+
+    private static boolean isAlphabetic(String word) {
+        for (int i = 0; i < word.length(); i++) {
+            char c = word.charAt(i);
+            if (c < 'a' || c > 'z') {
+                return false;
+            }
+        }
+        return true;
+    }
+}
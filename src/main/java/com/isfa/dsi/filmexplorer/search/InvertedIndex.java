@@ -0,0 +1,244 @@
+package com.isfa.dsi.filmexplorer.search;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * In-memory inverted index over short documents with two fields (title and body),
+ * ranked with BM25. Title occurrences count {@link #TITLE_WEIGHT} times, both towards
+ * term frequency and document length.
+ *
+ * Documents carry a group id (the movie) so searches can be restricted to one group.
+ * Each term's postings are parallel primitive arrays sorted by (group, document), about
+ * twenty bytes per posting, so a group-restricted search binary-searches to the group's
+ * range and touches only its documents. Postings are inserted in place, which is an
+ * append when documents arrive in (group, document) order as in a full build.
+ * Adding a document that is already indexed replaces it. Thread-safe: searches share a
+ * read lock, writes take the write lock.
+ */
+public final class InvertedIndex {
+
+    static final int TITLE_WEIGHT = 2;
+    private static final double K1 = 1.2;
+    private static final double B = 0.75;
+
+    private final Map<String, PostingList> postings = new HashMap<>();
+    private final Map<Long, Document> documents = new HashMap<>();
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    private long totalLength;
+
+    public record Hit(long id, long groupId, double score) {
+    }
+
+    // lists: the postings holding the document, for removal
+    private record Document(long groupId, int length, PostingList[] lists) {
+    }
+
+    public void put(long id, long groupId, String title, String body) {
+        Map<String, Integer> frequencies = new HashMap<>();
+        int length = 0;
+        for (TextAnalyzer.Token token : TextAnalyzer.analyze(title)) {
+            frequencies.merge(token.term(), TITLE_WEIGHT, Integer::sum);
+            length += TITLE_WEIGHT;
+        }
+        for (TextAnalyzer.Token token : TextAnalyzer.analyze(body)) {
+            frequencies.merge(token.term(), 1, Integer::sum);
+            length++;
+        }
+
+        lock.writeLock().lock();
+        try {
+            removeLocked(id);
+            PostingList[] lists = new PostingList[frequencies.size()];
+            int i = 0;
+            for (Map.Entry<String, Integer> entry : frequencies.entrySet()) {
+                PostingList list = postings.computeIfAbsent(entry.getKey(), PostingList::new);
+                list.put(groupId, id, entry.getValue());
+                lists[i++] = list;
+            }
+            documents.put(id, new Document(groupId, length, lists));
+            totalLength += length;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public void remove(long id) {
+        lock.writeLock().lock();
+        try {
+            removeLocked(id);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public void clear() {
+        lock.writeLock().lock();
+        try {
+            postings.clear();
+            documents.clear();
+            totalLength = 0;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return documents.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Best {@code limit} documents for the query terms, highest score first
+     *
+     * @param groupId only documents of this group, or null for all
+     */
+    public List<Hit> search(List<String> terms, Long groupId, int limit) {
+        if (terms.isEmpty() || limit <= 0) {
+            return List.of();
+        }
+        lock.readLock().lock();
+        try {
+            int documentCount = documents.size();
+            if (documentCount == 0) {
+                return List.of();
+            }
+            double averageLength = (double) totalLength / documentCount;
+
+            Map<Long, Double> scores = new HashMap<>();
+            for (String term : terms) {
+                PostingList list = postings.get(term);
+                if (list == null) {
+                    continue;
+                }
+                int df = list.size;
+                double idf = Math.log(1 + (documentCount - df + 0.5) / (df + 0.5));
+                int from = groupId != null ? list.lowerBound(groupId, Long.MIN_VALUE) : 0;
+                int to = groupId != null ? list.lowerBound(groupId + 1, Long.MIN_VALUE) : list.size;
+                for (int p = from; p < to; p++) {
+                    long id = list.ids[p];
+                    int tf = list.frequencies[p];
+                    double norm = K1 * (1 - B + B * documents.get(id).length() / averageLength);
+                    scores.merge(id, idf * tf * (K1 + 1) / (tf + norm), Double::sum);
+                }
+            }
+
+            // Keep the best `limit` in a min-heap; ties go to the newer (higher) id
+            Comparator<Hit> worstFirst = Comparator.comparingDouble(Hit::score).thenComparingLong(Hit::id);
+            PriorityQueue<Hit> best = new PriorityQueue<>(limit + 1, worstFirst);
+            for (Map.Entry<Long, Double> score : scores.entrySet()) {
+                best.add(new Hit(score.getKey(), documents.get(score.getKey()).groupId(), score.getValue()));
+                if (best.size() > limit) {
+                    best.poll();
+                }
+            }
+            List<Hit> hits = new ArrayList<>(best);
+            hits.sort(worstFirst.reversed());
+            return hits;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private void removeLocked(long id) {
+        Document previous = documents.remove(id);
+        if (previous == null) {
+            return;
+        }
+        for (PostingList list : previous.lists()) {
+            list.remove(previous.groupId(), id);
+            if (list.size == 0) {
+                postings.remove(list.term);
+            }
+        }
+        totalLength -= previous.length();
+    }
+
+
+    /**
+     * Documents holding one term with their term frequency, sorted by (group, document)
+     */
+    private static final class PostingList {
+
+        final String term;
+        long[] groups = new long[2];
+        long[] ids = new long[2];
+        int[] frequencies = new int[2];
+        int size;
+
+        PostingList(String term) {
+            this.term = term;
+        }
+
+        void put(long groupId, long id, int frequency) {
+            int index = size > 0 && compare(size - 1, groupId, id) < 0 ? size : lowerBound(groupId, id);
+            if (index < size && groups[index] == groupId && ids[index] == id) {
+                frequencies[index] = frequency;
+                return;
+            }
+            if (size == ids.length) {
+                int capacity = size + (size >> 1) + 1;
+                groups = Arrays.copyOf(groups, capacity);
+                ids = Arrays.copyOf(ids, capacity);
+                frequencies = Arrays.copyOf(frequencies, capacity);
+            }
+            int moved = size - index;
+            System.arraycopy(groups, index, groups, index + 1, moved);
+            System.arraycopy(ids, index, ids, index + 1, moved);
+            System.arraycopy(frequencies, index, frequencies, index + 1, moved);
+            groups[index] = groupId;
+            ids[index] = id;
+            frequencies[index] = frequency;
+            size++;
+        }
+
+        void remove(long groupId, long id) {
+            int index = lowerBound(groupId, id);
+            if (index == size || groups[index] != groupId || ids[index] != id) {
+                return;
+            }
+            int moved = size - index - 1;
+            System.arraycopy(groups, index + 1, groups, index, moved);
+            System.arraycopy(ids, index + 1, ids, index, moved);
+            System.arraycopy(frequencies, index + 1, frequencies, index, moved);
+            size--;
+            // Give memory back once mostly empty
+            if (size < ids.length / 4 && ids.length > 16) {
+                groups = Arrays.copyOf(groups, size * 2);
+                ids = Arrays.copyOf(ids, size * 2);
+                frequencies = Arrays.copyOf(frequencies, size * 2);
+            }
+        }
+
+        // First position whose (group, document) is not below the given one
+        int lowerBound(long groupId, long id) {
+            int low = 0;
+            int high = size;
+            while (low < high) {
+                int mid = (low + high) >>> 1;
+                if (compare(mid, groupId, id) < 0) {
+                    low = mid + 1;
+                } else {
+                    high = mid;
+                }
+            }
+            return low;
+        }
+
+        private int compare(int index, long groupId, long id) {
+            int byGroup = Long.compare(groups[index], groupId);
+            return byGroup != 0 ? byGroup : Long.compare(ids[index], id);
+        }
+    }
+}
@@ -0,0 +1,97 @@
+package com.isfa.dsi.filmexplorer.search;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Cuts the passage of a text that best matches a query, with the matched words located
+ */
+public final class Snippets {
+
+    // How far before the first match the snippet may start, for context
+    private static final int LEAD = 30;
+
+    private Snippets() {
+    }
+
+    /**
+     * @param highlights [start, end) character ranges of matched words within {@code text}
+     */
+    public record Snippet(String text, List<int[]> highlights) {
+    }
+
+    /**
+     * The window of at most {@code maxChars} characters holding the most distinct query
+     * terms, or the start of the text when nothing matches
+     */
+    public static Snippet best(String text, Collection<String> queryTerms, int maxChars) {
+        if (text == null || text.isEmpty()) {
+            return new Snippet("", List.of());
+        }
+        List<TextAnalyzer.Token> matches = new ArrayList<>();
+        for (TextAnalyzer.Token token : TextAnalyzer.analyze(text)) {
+            if (queryTerms.contains(token.term())) {
+                matches.add(token);
+            }
+        }
+        if (matches.isEmpty()) {
+            return new Snippet(cut(text, 0, cutEnd(text, 0, maxChars)), List.of());
+        }
+
+        int bestStart = matches.get(0).start();
+        int bestScore = -1;
+        for (int i = 0; i < matches.size(); i++) {
+            int windowStart = matches.get(i).start();
+            Set<String> distinct = new HashSet<>();
+            for (int j = i; j < matches.size() && matches.get(j).end() - windowStart <= maxChars - LEAD; j++) {
+                distinct.add(matches.get(j).term());
+            }
+            if (distinct.size() > bestScore) {
+                bestScore = distinct.size();
+                bestStart = windowStart;
+            }
+        }
+
+        int from = wordStart(text, Math.max(0, bestStart - LEAD));
+        while (from < bestStart && Character.isWhitespace(text.charAt(from))) {
+            from++;
+        }
+        int to = cutEnd(text, from, maxChars);
+        int prefix = from > 0 ? 1 : 0;
+
+        List<int[]> highlights = new ArrayList<>();
+        for (TextAnalyzer.Token match : matches) {
+            if (match.start() >= from && match.end() <= to) {
+                highlights.add(new int[]{match.start() - from + prefix, match.end() - from + prefix});
+            }
+        }
+        return new Snippet(cut(text, from, to), highlights);
+    }
+
+    // text[from, to) with an ellipsis on each side that was cut
+    private static String cut(String text, int from, int to) {
+        return (from > 0 ? "…" : "") + text.substring(from, to) + (to < text.length() ? "…" : "");
+    }
+
+    // End of a window of at most maxChars from `from`, moved back to a word boundary
+    private static int cutEnd(String text, int from, int maxChars) {
+        int to = Math.min(text.length(), from + maxChars);
+        if (to < text.length()) {
+            int space = text.lastIndexOf(' ', to);
+            if (space > from) {
+                to = space;
+            }
+        }
+        return to;
+    }
+
+    private static int wordStart(String text, int index) {
+        while (index > 0 && Character.isLetterOrDigit(text.charAt(index - 1))) {
+            index--;
+        }
+        return index;
+    }
+}
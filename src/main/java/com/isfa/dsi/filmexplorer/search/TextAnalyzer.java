@@ -0,0 +1,75 @@
+package com.isfa.dsi.filmexplorer.search;
+
+import java.text.Normalizer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+
+/**
+ * Turns review text into index terms: splits on anything that is not a letter or digit,
+ * lower-cases, strips accents, drops stop words and stems what is left.
+ *
+ * Tokens keep their character offsets in the original text so matches can be highlighted.
+ */
+public final class TextAnalyzer {
+
+    private static final int MAX_TOKEN_LENGTH = 40;
+
+    private static final Set<String> STOP_WORDS = Set.of(
+            "a", "an", "and", "are", "as", "at", "be", "but", "by", "for", "if", "in", "into", "is", "it",
+            "its", "of", "on", "or", "so", "such", "that", "the", "their", "then", "there", "these",
+            "they", "this", "to", "was", "were", "will", "with", "i", "me", "my", "we", "you", "he",
+            "she", "him", "her", "his", "has", "have", "had", "do", "does", "did", "not", "no");
+
+    private TextAnalyzer() {
+    }
+
+    /**
+     * A term and where it came from in the source text
+     */
+    public record Token(String term, int start, int end) {
+    }
+
+    public static List<Token> analyze(String text) {
+        List<Token> tokens = new ArrayList<>();
+        if (text == null) {
+            return tokens;
+        }
+        int length = text.length();
+        int i = 0;
+        while (i < length) {
+            while (i < length && !Character.isLetterOrDigit(text.codePointAt(i))) {
+                i += Character.charCount(text.codePointAt(i));
+            }
+            int start = i;
+            while (i < length && Character.isLetterOrDigit(text.codePointAt(i))) {
+                i += Character.charCount(text.codePointAt(i));
+            }
+            if (i > start && i - start <= MAX_TOKEN_LENGTH) {
+                String term = normalize(text.substring(start, i));
+                if (!STOP_WORDS.contains(term)) {
+                    tokens.add(new Token(EnglishStemmer.stem(term), start, i));
+                }
+            }
+        }
+        return tokens;
+    }
+
+    /**
+     * Distinct terms of a query, in first-seen order
+     */
+    public static List<String> terms(String text) {
+        return analyze(text).stream().map(Token::term).distinct().toList();
+    }
+
+    private static String normalize(String word) {
+        String lower = word.toLowerCase(Locale.ROOT);
+        for (int i = 0; i < lower.length(); i++) {
+            if (lower.charAt(i) > 0x7F) {
+                return Normalizer.normalize(lower, Normalizer.Form.NFD).replaceAll("\\p{M}+", "");
+            }
+        }
+        return lower;
+    }
+}
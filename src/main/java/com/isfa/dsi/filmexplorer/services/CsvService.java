@@ -1,27 +1,75 @@
 package com.isfa.dsi.filmexplorer.services;
 
+import com.isfa.dsi.filmexplorer.csv.Compression;
+import com.isfa.dsi.filmexplorer.csv.CsvImportPipeline;
+import com.isfa.dsi.filmexplorer.csv.CsvTokenizer;
+import com.isfa.dsi.filmexplorer.csv.CsvWriter;
 import com.isfa.dsi.filmexplorer.models.Movies;
-import com.isfa.dsi.filmexplorer.repos.MoviesRepo;
+import com.isfa.dsi.filmexplorer.repos.CatalogVersionRepo;
+import com.isfa.dsi.filmexplorer.repos.MovieBulkRepo;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
 import org.springframework.web.multipart.MultipartFile;
 
 import java.io.*;
 import java.math.BigDecimal;
-import java.nio.charset.StandardCharsets;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
 import java.time.LocalDate;
 import java.time.format.DateTimeFormatter;
-import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
 
 @Service
 @RequiredArgsConstructor
 @Slf4j
 public class CsvService {
 
-    private final MoviesRepo movieRepository;
+    private final MovieBulkRepo movieBulkRepo;
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final CatalogVersionRepo catalogVersionRepo;
+    private final ApplicationEventPublisher eventPublisher;
+    private final MovieRankService movieRankService;
+
+    @Value("${application.export.fetch-size:1000}")
+    private int exportFetchSize;
+
+    // Compress exports when the client accepts it (Accept-Encoding: zstd or gzip)
+    @Value("${application.export.compression.enabled:true}")
+    private boolean exportCompressionEnabled;
+
+    // 0 = codec default
+    @Value("${application.export.compression.level:0}")
+    private int exportCompressionLevel;
+
+    @Value("${application.import.batch-size:1000}")
+    private int importBatchSize;
+
+    // 0 = one worker per available core, minus the reader
+    @Value("${application.import.parse-workers:0}")
+    private int importParseWorkers;
+
+    @Value("${application.import.queue-capacity:8}")
+    private int importQueueCapacity;
+
+    // COPY and UPSERT are opt-in
+    @Value("${application.import.mode:insert}")
+    private String defaultImportMode;
+
+    @Value("${application.import.error-samples:100}")
+    private int importErrorSamples;
+
+    // Window size when importing a file through FileChannel.map
+    @Value("${application.import.map-window-mb:256}")
+    private int importMapWindowMb;
 
     // CSV Headers for export
     private static final String[] CSV_HEADERS = {
@@ -31,109 +79,160 @@ public class CsvService {
     };
 
 
-    @Transactional
     public ImportResult importMoviesFromCsv(MultipartFile file) throws IOException {
-        log.info("Starting CSV import from file: {}", file.getOriginalFilename());
+        return importMoviesFromCsv(file, ImportMode.from(defaultImportMode));
+    }
+
 
-        List<Movies> moviesToSave = new ArrayList<>();
-        List<String> errors = new ArrayList<>();
-        int lineNumber = 0;
-        int successCount = 0;
-        int errorCount = 0;
+    /**
+     * Import movies through the staged pipeline: reader, parse workers and a batched writer.
+     * Each batch is committed in its own transaction, written according to {@code mode}.
+     * The upload may be plain, gzip or zstd compressed.
+     */
+    public ImportResult importMoviesFromCsv(MultipartFile file, ImportMode mode) throws IOException {
+        ImportMode effectiveMode = prepareImport(mode);
+        log.info("Starting CSV import from file: {} (mode {})", file.getOriginalFilename(), effectiveMode);
 
-        try (BufferedReader reader = new BufferedReader(
-                new InputStreamReader(file.getInputStream(), StandardCharsets.UTF_8))) {
+        AtomicInteger updated = new AtomicInteger();
+        AtomicInteger unchanged = new AtomicInteger();
 
-            // Read header line
-            String headerLine = reader.readLine();
-            lineNumber++;
+        // Gzip and zstd uploads are inflated by the pipeline's reader thread, ahead of the parsers
+        try (InputStream in = Compression.decompressing(file.getInputStream())) {
 
-            if (headerLine == null) {
+            CsvImportPipeline<Movies> pipeline = newImportPipeline();
+            CsvImportPipeline.Stats stats = pipeline.run(in, record -> parseCsvRecord(record, effectiveMode),
+                    batch -> transactionTemplate.executeWithoutResult(status -> {
+                        MovieBulkRepo.UpsertCounts counts = writeBatch(effectiveMode, batch);
+                        updated.addAndGet(counts.updated());
+                        unchanged.addAndGet(counts.unchanged());
+                    }));
+
+            if (stats.header() == null) {
                 throw new IllegalArgumentException("CSV file is empty");
             }
 
-            log.info("CSV Headers: {}", headerLine);
+            log.info("CSV import completed: {} successful, {} errors, {} batches in {}ms ({} rows/s)",
+                    stats.rowsWritten(), stats.errorCount(), stats.batches(), stats.durationMs(),
+                    Math.round(stats.rowsPerSecond()));
+
+            return ImportResult.builder()
+                    .successCount((int) stats.rowsWritten())
+                    .errorCount((int) stats.errorCount())
+                    .totalLines(stats.totalLines())
+                    .errors(stats.errors())
+                    .batchCount(stats.batches())
+                    .durationMs(stats.durationMs())
+                    .rowsPerSecond(stats.rowsPerSecond())
+                    .mode(effectiveMode)
+                    .insertedCount((int) stats.rowsWritten() - updated.get() - unchanged.get())
+                    .updatedCount(updated.get())
+                    .unchangedCount(unchanged.get())
+                    .build();
 
-            // Read data lines
-            String line;
-            while ((line = reader.readLine()) != null) {
-                lineNumber++;
+        } catch (IOException e) {
+            log.error("Error reading CSV file: {}", e.getMessage());
+            throw e;
+        }
+    }
 
-                // Skip empty lines
-                if (line.trim().isEmpty()) {
-                    continue;
-                }
 
-                try {
-                    Movies movie = parseCsvLine(line, lineNumber);
-                    moviesToSave.add(movie);
-                    successCount++;
-
-                    // Batch save every 100 movies for performance
-                    if (moviesToSave.size() >= 100) {
-                        movieRepository.saveAll(moviesToSave);
-                        log.info("Saved batch of {} movies", moviesToSave.size());
-                        moviesToSave.clear();
-                    }
+    /**
+     * The mode actually used for an import: null means the configured default,
+     * and COPY falls back to INSERT off PostgreSQL
+     */
+    public ImportMode resolveImportMode(ImportMode requested) {
+        ImportMode mode = requested != null ? requested : ImportMode.from(defaultImportMode);
+        if (mode == null) {
+            mode = ImportMode.INSERT;
+        }
+        if (mode == ImportMode.COPY && !movieBulkRepo.isCopySupported()) {
+            log.warn("COPY import requested but the datasource is not PostgreSQL, falling back to INSERT");
+            return ImportMode.INSERT;
+        }
+        return mode;
+    }
 
-                } catch (Exception e) {
-                    errorCount++;
-                    String error = String.format("Line %d: %s - %s", lineNumber, line, e.getMessage());
-                    errors.add(error);
-                    log.error("Error parsing line {}: {}", lineNumber, e.getMessage());
-                }
-            }
 
-            // Save remaining movies
-            if (!moviesToSave.isEmpty()) {
-                movieRepository.saveAll(moviesToSave);
-                log.info("Saved final batch of {} movies", moviesToSave.size());
+    /**
+     * Resolve the import mode and, for upserts, key the rows loaded without a natural key
+     */
+    public ImportMode prepareImport(ImportMode requested) {
+        ImportMode mode = resolveImportMode(requested);
+        if (mode == ImportMode.UPSERT) {
+            Integer keyed = transactionTemplate.execute(status -> movieBulkRepo.backfillNaturalKeys());
+            if (keyed != null && keyed > 0) {
+                log.info("Assigned natural keys to {} existing movies", keyed);
             }
-
-        } catch (IOException e) {
-            log.error("Error reading CSV file: {}", e.getMessage());
-            throw e;
         }
+        return mode;
+    }
 
-        log.info("CSV import completed: {} successful, {} errors", successCount, errorCount);
 
-        return ImportResult.builder()
-                .successCount(successCount)
-                .errorCount(errorCount)
-                .totalLines(lineNumber)
-                .errors(errors)
-                .build();
+    /**
+     * A pipeline configured from the application.import.* settings
+     */
+    public CsvImportPipeline<Movies> newImportPipeline() {
+        return new CsvImportPipeline<Movies>(resolveParseWorkers(), importBatchSize, importQueueCapacity,
+                importErrorSamples).mapWindowBytes(importMapWindowMb * 1024L * 1024L);
     }
 
 
-    private Movies parseCsvLine(String line, int lineNumber) {
-        // Split by comma, but handle commas in quoted fields
-        String[] fields = line.split(",(?=(?:[^\"]*\"[^\"]*\")*[^\"]*$)", -1);
+    /**
+     * Write one parsed batch under a new change sequence; the caller provides the transaction
+     */
+    public MovieBulkRepo.UpsertCounts writeBatch(ImportMode mode, List<Movies> batch) {
+        long changeSeq = catalogVersionRepo.nextChangeSeq();
+        for (Movies movie : batch) {
+            movie.setChangeSeq(changeSeq);
+        }
+
+        MovieBulkRepo.UpsertCounts counts = switch (mode) {
+            case COPY -> new MovieBulkRepo.UpsertCounts(movieBulkRepo.copyBatch(batch), 0, 0);
+            case INSERT -> new MovieBulkRepo.UpsertCounts(movieBulkRepo.insertBatch(batch), 0, 0);
+            case UPSERT -> movieBulkRepo.upsertBatch(batch);
+        };
+        if (counts.inserted() + counts.updated() > 0) {
+            movieRankService.recomputeBatch(changeSeq);
+            eventPublisher.publishEvent(MovieCatalogChangedEvent.bulk());
+        }
+        return counts;
+    }
 
-        if (fields.length < 6) {
+
+    private int resolveParseWorkers() {
+        return importParseWorkers > 0
+                ? importParseWorkers
+                : Math.max(1, Runtime.getRuntime().availableProcessors() - 1);
+    }
+
+
+    public Movies parseCsvRecord(CsvTokenizer record, ImportMode mode) {
+        if (record.fieldCount() < 6) {
             throw new IllegalArgumentException("Insufficient fields (minimum 6 required)");
         }
 
+        int fields = record.fieldCount();
         Movies movie = new Movies();
 
         try {
             // Required fields
-            movie.setTitle(cleanField(fields[0]));
-            movie.setReleaseYear(parseBigDecimal(fields[1]));
-            movie.setVoteAverage(parseBigDecimal(fields[2]));
-            movie.setVoteCount(parseLong(fields[3]));
-            movie.setRuntime(parseInteger(fields[4]));
-            movie.setDirector(cleanField(fields[5]));
+            movie.setTitle(record.field(0).asString());
+            movie.setReleaseYear(record.field(1).asDecimal());
+            movie.setVoteAverage(record.field(2).asDecimal());
+            movie.setVoteCount(record.field(3).asLong());
+            movie.setRuntime(record.field(4).asInteger());
+            movie.setDirector(record.field(5).asString());
 
             // Optional fields
-            if (fields.length > 6) movie.setGenresList(cleanField(fields[6]));
-            if (fields.length > 7) movie.setOverview(cleanField(fields[7]));
-            if (fields.length > 8) movie.setPosterPath(cleanField(fields[8]));
-            if (fields.length > 9) movie.setImdbRating(parseBigDecimal(fields[9]));
-            if (fields.length > 10) movie.setStar1(cleanField(fields[10]));
-            if (fields.length > 11) movie.setStar2(cleanField(fields[11]));
-            if (fields.length > 12) movie.setStar3(cleanField(fields[12]));
-            if (fields.length > 13) movie.setStar4(cleanField(fields[13]));
+            if (fields > 6) movie.setGenresList(record.field(6).asString());
+            if (fields > 7) movie.setOverview(record.field(7).asString());
+            if (fields > 8) movie.setPosterPath(record.field(8).asString());
+            if (fields > 9) movie.setImdbRating(record.field(9).asDecimal());
+            if (fields > 10) movie.setStar1(record.field(10).asString());
+            if (fields > 11) movie.setStar2(record.field(11).asString());
+            if (fields > 12) movie.setStar3(record.field(12).asString());
+            if (fields > 13) movie.setStar4(record.field(13).asString());
+            if (fields > 14) movie.setImdbId(record.field(14).asString());
 
             // Set defaults
             movie.setAdult(false);
@@ -144,116 +243,121 @@ public class CsvService {
             throw new IllegalArgumentException("Error parsing fields: " + e.getMessage());
         }
 
+        if (mode == ImportMode.UPSERT) {
+            MovieBulkRepo.assignImportKeys(movie);
+            if (movie.getNaturalKey() == null) {
+                throw new IllegalArgumentException("Upsert needs an imdb id or a title");
+            }
+        }
+
         return movie;
     }
 
 
-    public String exportMoviesToCsv(List<Movies> movies) {
-        log.info("Exporting {} movies to CSV", movies.size());
-
-        StringBuilder csv = new StringBuilder();
-
-        // Add header
-        csv.append(String.join(",", CSV_HEADERS)).append("\n");
-
-        // Add data rows
-        for (Movies movie : movies) {
-            csv.append(formatCsvRow(movie)).append("\n");
-        }
-
-        log.info("CSV export completed: {} movies", movies.size());
-        return csv.toString();
+    /**
+     * Encoding for an export response, from the client's Accept-Encoding
+     */
+    public Compression negotiateExportCompression(String acceptEncoding) {
+        return exportCompressionEnabled ? Compression.negotiate(acceptEncoding) : Compression.NONE;
     }
 
 
-    private String formatCsvRow(Movies movie) {
-        return String.join(",",
-                escape(movie.getId() != null ? movie.getId().toString() : ""),
-                escape(movie.getTitle()),
-                escape(movie.getReleaseYear() != null ? movie.getReleaseYear().toString() : ""),
-                escape(movie.getVoteAverage() != null ? movie.getVoteAverage().toString() : ""),
-                escape(movie.getVoteCount() != null ? movie.getVoteCount().toString() : ""),
-                escape(movie.getRuntime() != null ? movie.getRuntime().toString() : ""),
-                escape(movie.getDirector()),
-                escape(movie.getGenresList()),
-                escape(movie.getOverview()),
-                escape(movie.getPosterPath()),
-                escape(movie.getImdbRating() != null ? movie.getImdbRating().toString() : ""),
-                escape(movie.getPopularity() != null ? movie.getPopularity().toString() : ""),
-                escape(movie.getStar1()),
-                escape(movie.getStar2()),
-                escape(movie.getStar3()),
-                escape(movie.getStar4())
-        );
+    /**
+     * Compress an export on the fly; closing the result finishes the stream but leaves {@code out} open
+     */
+    public OutputStream compressExport(OutputStream out, Compression compression) throws IOException {
+        return compression.compress(out, exportCompressionLevel);
     }
 
 
-    private String escape(String field) {
-        if (field == null) {
-            return "";
-        }
+    /**
+     * Stream the whole catalogue as CSV through a read-only JDBC cursor.
+     * Rows never become entities and only one fetch window is held in memory.
+     */
+    @Transactional(readOnly = true)
+    public long exportAllMoviesToCsv(OutputStream out) throws IOException {
+        long startTime = System.currentTimeMillis();
+        CsvWriter csv = new CsvWriter(out);
+        writeCsvHeader(csv);
 
-        // If field contains comma, quote, or newline, wrap in quotes
-        if (field.contains(",") || field.contains("\"") || field.contains("\n")) {
-            // Escape quotes by doubling them
-            field = field.replace("\"", "\"\"");
-            return "\"" + field + "\"";
+        String sql = "SELECT " + String.join(", ", CSV_HEADERS) + " FROM movies ORDER BY id";
+        try {
+            jdbcTemplate.query(con -> {
+                PreparedStatement statement = con.prepareStatement(sql,
+                        ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY);
+                statement.setFetchSize(exportFetchSize);
+                return statement;
+            }, (RowCallbackHandler) rs -> {
+                try {
+                    for (int column = 1; column <= CSV_HEADERS.length; column++) {
+                        csv.field(rs.getString(column));
+                    }
+                    csv.endRecord();
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            });
+        } catch (UncheckedIOException e) {
+            // Client went away, stop reading from the cursor
+            throw e.getCause();
         }
+        csv.flush();
 
-        return field;
+        log.info("CSV export completed: {} movies in {}ms",
+                csv.getRecords() - 1, System.currentTimeMillis() - startTime);
+        return csv.getRecords() - 1;
     }
 
 
-    private String cleanField(String field) {
-        if (field == null || field.trim().isEmpty()) {
-            return null;
-        }
-        // Remove surrounding quotes if present
-        field = field.trim();
-        if (field.startsWith("\"") && field.endsWith("\"")) {
-            field = field.substring(1, field.length() - 1);
-        }
-        // Unescape doubled quotes
-        field = field.replace("\"\"", "\"");
-        return field.isEmpty() ? null : field;
-    }
-
-
-    private BigDecimal parseBigDecimal(String value) {
-        String cleaned = cleanField(value);
-        if (cleaned == null || cleaned.isEmpty()) {
-            return null;
-        }
-        try {
-            return new BigDecimal(cleaned);
-        } catch (NumberFormatException e) {
-            return null;
-        }
+    public void writeCsvHeader(CsvWriter csv) throws IOException {
+        csv.fields(CSV_HEADERS).endRecord();
     }
 
 
-    private Long parseLong(String value) {
-        String cleaned = cleanField(value);
-        if (cleaned == null || cleaned.isEmpty()) {
-            return null;
-        }
-        try {
-            return Long.parseLong(cleaned);
-        } catch (NumberFormatException e) {
-            return null;
-        }
+    public void writeCsvRow(CsvWriter csv, Movies movie) throws IOException {
+        csv.field(movie.getId())
+                .field(movie.getTitle())
+                .field(movie.getReleaseYear())
+                .field(movie.getVoteAverage())
+                .field(movie.getVoteCount())
+                .field(movie.getRuntime())
+                .field(movie.getDirector())
+                .field(movie.getGenresList())
+                .field(movie.getOverview())
+                .field(movie.getPosterPath())
+                .field(movie.getImdbRating())
+                .field(movie.getPopularity())
+                .field(movie.getStar1())
+                .field(movie.getStar2())
+                .field(movie.getStar3())
+                .field(movie.getStar4())
+                .endRecord();
     }
 
 
-    private Integer parseInteger(String value) {
-        String cleaned = cleanField(value);
-        if (cleaned == null || cleaned.isEmpty()) {
-            return null;
-        }
-        try {
-            return Integer.parseInt(cleaned);
-        } catch (NumberFormatException e) {
-            return null;
+    /**
+     * How parsed batches reach the movies table
+     */
+    public enum ImportMode {
+        /** Multi-row INSERT statements, works on any datasource */
+        INSERT,
+        /** COPY FROM STDIN into a staging table, then one INSERT ... SELECT (PostgreSQL only) */
+        COPY,
+        /** Match on imdb id (or title + year) and only write new or changed rows */
+        UPSERT;
+
+        /**
+         * @return null for a blank value, meaning the configured default
+         */
+        public static ImportMode from(String value) {
+            if (value == null || value.isBlank()) {
+                return null;
+            }
+            try {
+                return valueOf(value.trim().toUpperCase());
+            } catch (IllegalArgumentException e) {
+                throw new IllegalArgumentException("Unknown import mode: " + value);
+            }
         }
     }
 
@@ -266,6 +370,15 @@ public class CsvService {
         private int totalLines;
         private List<String> errors;
 
+        // Throughput metrics
+        private long batchCount;
+        private long durationMs;
+        private double rowsPerSecond;
+        private ImportMode mode;
+        private int insertedCount;
+        private int updatedCount;
+        private int unchangedCount;
+
         public String getSummary() {
             return String.format("Imported %d movies successfully, %d errors out of %d lines",
                     successCount, errorCount, totalLines);
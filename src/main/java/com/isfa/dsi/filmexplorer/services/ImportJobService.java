@@ -0,0 +1,457 @@
+package com.isfa.dsi.filmexplorer.services;
+
+import com.isfa.dsi.filmexplorer.DTOs.ImportJobResponse;
+import com.isfa.dsi.filmexplorer.csv.Compression;
+import com.isfa.dsi.filmexplorer.csv.CsvImportPipeline;
+import com.isfa.dsi.filmexplorer.models.ImportJob;
+import com.isfa.dsi.filmexplorer.models.Movies;
+import com.isfa.dsi.filmexplorer.repos.ImportJobRepo;
+import com.isfa.dsi.filmexplorer.repos.MovieBulkRepo;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.web.multipart.MultipartFile;
+
+import java.io.BufferedInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Runs CSV imports in the background.
+ *
+ * The upload is copied to {@code application.import.storage-dir} (or, for server-side imports,
+ * the file under {@code application.import.server-dir} is used in place) and the job is persisted
+ * before the request returns. Jobs read their file through {@code FileChannel.map}, so parse
+ * workers tokenize slices of the page cache directly; gzip and zstd files are streamed through
+ * a decompressor instead. Every committed batch advances the job's checkpoint in the same
+ * transaction, so a job interrupted by a restart is picked up again at startup from the last
+ * committed batch; a failed job can be resumed the same way.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class ImportJobService {
+
+    private static final List<ImportJob.Status> UNFINISHED = List.of(ImportJob.Status.QUEUED, ImportJob.Status.RUNNING);
+
+    private final ImportJobRepo importJobRepo;
+    private final CsvService csvService;
+    private final TransactionTemplate transactionTemplate;
+
+    @Value("${application.import.storage-dir:${java.io.tmpdir}/film-explorer-imports}")
+    private String storageDir;
+
+    // Root for server-side imports; empty disables them
+    @Value("${application.import.server-dir:}")
+    private String serverDir;
+
+    @Value("${application.import.job-workers:1}")
+    private int jobWorkers;
+
+    // Parse errors kept on the job, the rest are only counted
+    @Value("${application.import.job-error-samples:50}")
+    private int jobErrorSamples;
+
+    private final Map<Long, RunningJob> running = new ConcurrentHashMap<>();
+    private ExecutorService executor;
+    private volatile boolean shuttingDown;
+
+    @PostConstruct
+    void startWorkers() {
+        AtomicInteger counter = new AtomicInteger();
+        executor = Executors.newFixedThreadPool(Math.max(1, jobWorkers), runnable -> {
+            Thread thread = new Thread(runnable, "import-job-" + counter.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    @PreDestroy
+    void stopWorkers() {
+        // Running jobs stay RUNNING and are resumed from their checkpoint on the next start
+        shuttingDown = true;
+        executor.shutdownNow();
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void resumeUnfinishedJobs() {
+        for (ImportJob job : importJobRepo.findByStatusInOrderByIdAsc(UNFINISHED)) {
+            log.info("Resuming import job {} from byte {} (line {})", job.getId(), job.getCheckpointOffset(),
+                    job.getCheckpointLine());
+            executor.submit(() -> run(job.getId()));
+        }
+    }
+
+
+    /**
+     * Store the upload and queue it for import
+     */
+    public ImportJobResponse submit(MultipartFile file, CsvService.ImportMode mode) throws IOException {
+        CsvService.ImportMode effectiveMode = csvService.resolveImportMode(mode);
+
+        Compression compression;
+        try (InputStream in = new BufferedInputStream(file.getInputStream())) {
+            compression = Compression.sniff(in);
+        }
+
+        // Compressed uploads are stored as they are, which also keeps the spool small
+        Path directory = Files.createDirectories(Path.of(storageDir));
+        Path target = directory.resolve("import-" + UUID.randomUUID() + ".csv" + compression.fileSuffix());
+        file.transferTo(target);
+
+        ImportJob job = importJobRepo.save(ImportJob.builder()
+                .fileName(file.getOriginalFilename())
+                .storedPath(target.toString())
+                .compression(compression)
+                .mode(effectiveMode.name())
+                .status(ImportJob.Status.QUEUED)
+                .totalBytes(Files.size(target))
+                .build());
+
+        log.info("Queued import job {} for {} ({} bytes, mode {})", job.getId(), job.getFileName(),
+                job.getTotalBytes(), effectiveMode);
+        executor.submit(() -> run(job.getId()));
+        return toResponse(job);
+    }
+
+
+    /**
+     * Queue the import of a CSV that is already on the server's disk.
+     *
+     * @param relativePath path below {@code application.import.server-dir}
+     */
+    public ImportJobResponse submitServerFile(String relativePath, CsvService.ImportMode mode) throws IOException {
+        if (serverDir == null || serverDir.isBlank()) {
+            throw new IllegalStateException("Server-side imports are disabled (application.import.server-dir is not set)");
+        }
+        if (relativePath == null || relativePath.isBlank()) {
+            throw new IllegalArgumentException("Path is required");
+        }
+
+        Path root = Path.of(serverDir).toRealPath();
+        Path file = root.resolve(relativePath).normalize();
+        if (!file.startsWith(root)) {
+            throw new IllegalArgumentException("Path must stay inside the import directory");
+        }
+        if (!Files.isRegularFile(file) || !Files.isReadable(file)) {
+            throw new IllegalArgumentException("File not found: " + relativePath);
+        }
+        // Resolve links only now, so a link cannot point outside the root either
+        file = file.toRealPath();
+        if (!file.startsWith(root)) {
+            throw new IllegalArgumentException("Path must stay inside the import directory");
+        }
+        if (!Compression.isCsvFileName(file.getFileName().toString())) {
+            throw new IllegalArgumentException("File must be a CSV (.csv, .csv.gz or .csv.zst)");
+        }
+
+        CsvService.ImportMode effectiveMode = csvService.resolveImportMode(mode);
+        ImportJob job = importJobRepo.save(ImportJob.builder()
+                .fileName(root.relativize(file).toString())
+                .storedPath(file.toString())
+                .source(ImportJob.Source.SERVER)
+                .compression(sniff(file))
+                .mode(effectiveMode.name())
+                .status(ImportJob.Status.QUEUED)
+                .totalBytes(Files.size(file))
+                .build());
+
+        log.info("Queued server-side import job {} for {} ({} bytes, mode {})", job.getId(), file,
+                job.getTotalBytes(), effectiveMode);
+        executor.submit(() -> run(job.getId()));
+        return toResponse(job);
+    }
+
+
+    /**
+     * Restart a failed job from its last checkpoint
+     */
+    public ImportJobResponse resume(Long jobId) {
+        ImportJob job = importJobRepo.findById(jobId)
+                .orElseThrow(() -> new RuntimeException("Import job not found with id: " + jobId));
+
+        if (job.getStatus() != ImportJob.Status.FAILED) {
+            throw new IllegalStateException("Only failed jobs can be resumed, job " + jobId + " is " + job.getStatus());
+        }
+
+        job.setStatus(ImportJob.Status.QUEUED);
+        job.setFailureMessage(null);
+        job.setFinishedAt(null);
+        importJobRepo.save(job);
+
+        executor.submit(() -> run(jobId));
+        return toResponse(job);
+    }
+
+
+    public ImportJobResponse getJob(Long jobId) {
+        return importJobRepo.findById(jobId)
+                .map(this::toResponse)
+                .orElseThrow(() -> new RuntimeException("Import job not found with id: " + jobId));
+    }
+
+
+    public List<ImportJobResponse> getRecentJobs() {
+        return importJobRepo.findTop20ByOrderByIdDesc().stream()
+                .map(this::toResponse)
+                .toList();
+    }
+
+
+    private void run(Long jobId) {
+        ImportJob job = importJobRepo.findById(jobId).orElse(null);
+        if (job == null || !UNFINISHED.contains(job.getStatus())) {
+            return;
+        }
+
+        Path path = Path.of(job.getStoredPath());
+        if (!Files.exists(path)) {
+            markFailed(jobId, "Uploaded file is no longer available: " + path);
+            return;
+        }
+
+        job.setStatus(ImportJob.Status.RUNNING);
+        if (job.getStartedAt() == null) {
+            job.setStartedAt(LocalDateTime.now());
+        }
+        job.setUpdatedAt(LocalDateTime.now());
+        importJobRepo.save(job);
+
+        boolean resuming = job.getCheckpointOffset() > 0;
+        CsvImportPipeline.Position resumeFrom = resuming
+                ? new CsvImportPipeline.Position(job.getCheckpointOffset(), job.getCheckpointLine())
+                : null;
+
+        Compression compression = job.getCompression() != null ? job.getCompression() : Compression.NONE;
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            CsvService.ImportMode mode = csvService.prepareImport(CsvService.ImportMode.from(job.getMode()));
+            CsvImportPipeline<Movies> pipeline = csvService.newImportPipeline();
+            CsvImportPipeline.RecordParser<Movies> parser = record -> csvService.parseCsvRecord(record, mode);
+            RunningJob state = new RunningJob(pipeline, job, countSamples(job.getErrorSample()), channel);
+            running.put(jobId, state);
+
+            CsvImportPipeline.ChunkSink<Movies> sink = (records, chunk) ->
+                    transactionTemplate.executeWithoutResult(status -> {
+                        MovieBulkRepo.UpsertCounts counts = records.isEmpty()
+                                ? new MovieBulkRepo.UpsertCounts(0, 0, 0)
+                                : csvService.writeBatch(mode, records);
+                        importJobRepo.recordCheckpoint(jobId, chunk.end().offset(), chunk.end().line(),
+                                chunk.rowsRead(), records.size(), counts.updated(), counts.unchanged(),
+                                chunk.errorCount(), state.takeSamples(chunk.errors()), LocalDateTime.now());
+                    });
+
+            CsvImportPipeline.Stats stats;
+            if (compression == Compression.NONE) {
+                stats = pipeline.run(channel, resumeFrom, parser, sink);
+            } else {
+                // Compressed files cannot be mapped: inflate on the reader thread and skip
+                // to the checkpoint, which is an offset into the decompressed stream
+                InputStream in = compression.decompress(
+                        new BufferedInputStream(Channels.newInputStream(channel), 64 * 1024));
+                if (resumeFrom != null) {
+                    in.skipNBytes(resumeFrom.offset());
+                }
+                stats = pipeline.run(in, resumeFrom, parser, sink);
+            }
+
+            if (!resuming && stats.header() == null) {
+                throw new IllegalArgumentException("CSV file is empty");
+            }
+
+            finish(jobId);
+            if (job.getSource() != ImportJob.Source.SERVER) {
+                Files.deleteIfExists(path);
+            }
+            log.info("Import job {} completed: {} rows written, {} errors in {}ms", jobId, stats.rowsWritten(),
+                    stats.errorCount(), stats.durationMs());
+
+        } catch (Exception e) {
+            if (shuttingDown) {
+                log.info("Import job {} interrupted by shutdown, will resume from its checkpoint", jobId);
+            } else {
+                log.error("Import job {} failed: {}", jobId, e.getMessage());
+                markFailed(jobId, e.getMessage());
+            }
+        } finally {
+            running.remove(jobId);
+        }
+    }
+
+
+    private void finish(Long jobId) {
+        importJobRepo.findById(jobId).ifPresent(job -> {
+            job.setStatus(ImportJob.Status.COMPLETED);
+            job.setFinishedAt(LocalDateTime.now());
+            job.setUpdatedAt(LocalDateTime.now());
+            importJobRepo.save(job);
+        });
+    }
+
+
+    private void markFailed(Long jobId, String message) {
+        importJobRepo.findById(jobId).ifPresent(job -> {
+            job.setStatus(ImportJob.Status.FAILED);
+            job.setFailureMessage(message != null ? message : "Unknown error");
+            job.setFinishedAt(LocalDateTime.now());
+            job.setUpdatedAt(LocalDateTime.now());
+            importJobRepo.save(job);
+        });
+    }
+
+
+    private ImportJobResponse toResponse(ImportJob job) {
+        long rowsRead = job.getRowsRead();
+        long rowsParsed = job.getRowsWritten();
+        double rowsPerSecond = 0;
+        Long etaSeconds = null;
+
+        boolean compressed = job.getCompression() != null && job.getCompression() != Compression.NONE;
+        RunningJob live = running.get(job.getId());
+        if (live != null) {
+            // The pipeline runs ahead of the last committed batch
+            rowsRead = Math.max(rowsRead, live.baseRowsRead + live.pipeline.getRowsRead());
+            rowsParsed = Math.max(rowsParsed, live.baseRowsWritten + live.pipeline.getRowsParsed());
+
+            double seconds = (System.nanoTime() - live.startNanos) / 1e9;
+            if (seconds > 0) {
+                rowsPerSecond = (job.getRowsWritten() - live.baseRowsWritten) / seconds;
+                // Compressed jobs are measured in file bytes read, plain ones in committed bytes
+                long done = compressed ? live.fileBytesRead() : job.getCheckpointOffset() - live.baseOffset;
+                long position = compressed ? live.fileBytesRead() : job.getCheckpointOffset();
+                double bytesPerSecond = done / seconds;
+                if (bytesPerSecond > 0) {
+                    etaSeconds = Math.round((job.getTotalBytes() - position) / bytesPerSecond);
+                }
+            }
+        } else if (job.getStartedAt() != null && job.getFinishedAt() != null) {
+            long millis = Duration.between(job.getStartedAt(), job.getFinishedAt()).toMillis();
+            rowsPerSecond = millis > 0 ? job.getRowsWritten() * 1000.0 / millis : 0;
+        }
+
+        long bytesProcessed = job.getStatus() == ImportJob.Status.COMPLETED
+                ? job.getTotalBytes()
+                : !compressed ? job.getCheckpointOffset()
+                : live != null ? Math.min(live.fileBytesRead(), job.getTotalBytes())
+                : 0;
+
+        return ImportJobResponse.builder()
+                .id(job.getId())
+                .fileName(job.getFileName())
+                .source(job.getSource() != null ? job.getSource().name() : ImportJob.Source.UPLOAD.name())
+                .mode(job.getMode())
+                .status(job.getStatus().name())
+                .compression((job.getCompression() != null ? job.getCompression() : Compression.NONE).name())
+                .totalBytes(job.getTotalBytes())
+                .bytesProcessed(bytesProcessed)
+                .percentComplete(job.getTotalBytes() > 0 ? bytesProcessed * 100.0 / job.getTotalBytes() : 0)
+                .rowsRead(rowsRead)
+                .rowsParsed(rowsParsed)
+                .rowsWritten(job.getRowsWritten())
+                .rowsInserted(job.getRowsWritten() - job.getRowsUpdated() - job.getRowsUnchanged())
+                .rowsUpdated(job.getRowsUpdated())
+                .rowsUnchanged(job.getRowsUnchanged())
+                .errorCount(job.getErrorCount())
+                .errorSample(splitSamples(job.getErrorSample()))
+                .rowsPerSecond(rowsPerSecond)
+                .etaSeconds(etaSeconds)
+                .failureMessage(job.getFailureMessage())
+                .createdAt(job.getCreatedAt())
+                .startedAt(job.getStartedAt())
+                .finishedAt(job.getFinishedAt())
+                .build();
+    }
+
+
+    private static Compression sniff(Path file) throws IOException {
+        try (InputStream in = new BufferedInputStream(Files.newInputStream(file))) {
+            return Compression.sniff(in);
+        }
+    }
+
+
+    private static int countSamples(String errorSample) {
+        return splitSamples(errorSample).size();
+    }
+
+
+    private static List<String> splitSamples(String errorSample) {
+        if (errorSample == null || errorSample.isEmpty()) {
+            return List.of();
+        }
+        return Arrays.stream(errorSample.split("\n"))
+                .filter(line -> !line.isBlank())
+                .toList();
+    }
+
+
+    /**
+     * In-memory state of a job running in this instance
+     */
+    private class RunningJob {
+
+        private final CsvImportPipeline<Movies> pipeline;
+        private final long baseRowsRead;
+        private final long baseRowsWritten;
+        private final long baseOffset;
+        private final long startNanos = System.nanoTime();
+        private final FileChannel channel;
+        private int samples;
+
+        RunningJob(CsvImportPipeline<Movies> pipeline, ImportJob job, int samples, FileChannel channel) {
+            this.pipeline = pipeline;
+            this.channel = channel;
+            this.baseRowsRead = job.getRowsRead();
+            this.baseRowsWritten = job.getRowsWritten();
+            this.baseOffset = job.getCheckpointOffset();
+            this.samples = samples;
+        }
+
+        /**
+         * Position of the reader in the stored file
+         */
+        long fileBytesRead() {
+            try {
+                return channel.position();
+            } catch (IOException e) {
+                return 0;
+            }
+        }
+
+        /**
+         * Errors to append to the job's sample, one per line (writer thread only)
+         */
+        String takeSamples(List<String> errors) {
+            StringBuilder sb = new StringBuilder();
+            for (String error : errors) {
+                if (samples >= jobErrorSamples) {
+                    break;
+                }
+                // Record text may span lines, keep one error per line
+                sb.append(error.replace("\r", "\\r").replace("\n", "\\n")).append('\n');
+                samples++;
+            }
+            return sb.toString();
+        }
+    }
+}
@@ -0,0 +1,129 @@
+package com.isfa.dsi.filmexplorer.services;
+
+import com.isfa.dsi.filmexplorer.repos.ReviewLikeRepo;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Answers "which of these reviews did I like" without a query per review.
+ *
+ * The ids a user liked are loaded once into an in-memory set and kept up to date by
+ * this instance's likes and unlikes. Entries expire after a TTL, which bounds how stale
+ * they can get when other instances write, and only the most recently used users are
+ * kept. Users with more likes than fit in a set are remembered as such for the TTL and
+ * answered by one batched IN query. A load whose query overlapped a like or unlike of
+ * the user is used once but not cached.
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class LikedReviewsCache {
+
+    private final ReviewLikeRepo reviewLikeRepository;
+
+    @Value("${application.reviews.liked-cache.max-users:10000}")
+    private int maxUsers;
+
+    @Value("${application.reviews.liked-cache.max-likes-per-user:5000}")
+    private int maxLikesPerUser;
+
+    @Value("${application.reviews.liked-cache.ttl-seconds:600}")
+    private long ttlSeconds;
+
+    private final Map<Long, Entry> users = new LinkedHashMap<>(256, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<Long, Entry> eldest) {
+            return size() > maxUsers;
+        }
+    };
+
+    // Guarded by users
+    private final WriteGenerations generations = new WriteGenerations();
+
+    /**
+     * The subset of {@code reviewIds} liked by the user
+     */
+    public Set<Long> likedAmong(Long userId, Collection<Long> reviewIds) {
+        if (userId == null || reviewIds.isEmpty()) {
+            return Set.of();
+        }
+
+        Entry entry = entry(userId);
+        if (entry.reviewIds == null) {
+            return new HashSet<>(reviewLikeRepository.findLikedReviewIds(userId, reviewIds));
+        }
+        Set<Long> liked = new HashSet<>();
+        for (Long reviewId : reviewIds) {
+            if (entry.reviewIds.contains(reviewId)) {
+                liked.add(reviewId);
+            }
+        }
+        return liked;
+    }
+
+    public boolean isLiked(Long userId, Long reviewId) {
+        return likedAmong(userId, List.of(reviewId)).contains(reviewId);
+    }
+
+    /**
+     * Apply a committed like or unlike to the user's cached set, if any
+     */
+    public void record(Long userId, Long reviewId, boolean liked) {
+        synchronized (users) {
+            generations.bump(userId);
+            Entry entry = users.get(userId);
+            if (entry == null || entry.reviewIds == null) {
+                return;
+            }
+            if (liked) {
+                entry.reviewIds.add(reviewId);
+            } else {
+                entry.reviewIds.remove(reviewId);
+            }
+        }
+    }
+
+    // Cached set for the user, loading it if needed
+    private Entry entry(Long userId) {
+        long now = System.currentTimeMillis();
+        long generation;
+        synchronized (users) {
+            Entry entry = users.get(userId);
+            if (entry != null && now - entry.loadedAt < ttlSeconds * 1000) {
+                return entry;
+            }
+            generation = generations.current(userId);
+        }
+
+        List<Long> ids = reviewLikeRepository.findAllLikedReviewIds(userId, maxLikesPerUser + 1);
+        Entry entry;
+        if (ids.size() > maxLikesPerUser) {
+            log.debug("User {} has more than {} likes, not caching them", userId, maxLikesPerUser);
+            entry = new Entry(null, now);
+        } else {
+            Set<Long> reviewIds = ConcurrentHashMap.newKeySet(Math.max(16, ids.size() * 2));
+            reviewIds.addAll(ids);
+            entry = new Entry(reviewIds, now);
+        }
+        synchronized (users) {
+            if (generations.current(userId) == generation) {
+                users.put(userId, entry);
+            }
+        }
+        return entry;
+    }
+
+    // reviewIds: null when the user has too many likes to cache
+    private record Entry(Set<Long> reviewIds, long loadedAt) {
+    }
+}
@@ -0,0 +1,26 @@
+package com.isfa.dsi.filmexplorer.services;
+
+/**
+ * Published inside the transaction of a write to the movies table
+ *
+ * @param movieId the movie written, or null for bulk writes such as an import batch
+ * @param deleted whether the movie was removed
+ */
+public record MovieCatalogChangedEvent(Long movieId, boolean deleted) {
+
+    public static MovieCatalogChangedEvent updated(Long movieId) {
+        return new MovieCatalogChangedEvent(movieId, false);
+    }
+
+    public static MovieCatalogChangedEvent deleted(Long movieId) {
+        return new MovieCatalogChangedEvent(movieId, true);
+    }
+
+    public static MovieCatalogChangedEvent bulk() {
+        return new MovieCatalogChangedEvent(null, false);
+    }
+
+    public boolean isBulk() {
+        return movieId == null;
+    }
+}
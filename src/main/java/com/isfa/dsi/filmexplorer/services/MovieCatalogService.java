@@ -0,0 +1,410 @@
+package com.isfa.dsi.filmexplorer.services;
+
+import com.isfa.dsi.filmexplorer.DTOs.MovieCard;
+import com.isfa.dsi.filmexplorer.codec.MovieCatalogSnapshot;
+import com.isfa.dsi.filmexplorer.models.CatalogVersion;
+import com.isfa.dsi.filmexplorer.repos.CatalogVersionRepo;
+import com.isfa.dsi.filmexplorer.repos.MoviesRepo;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * In-memory catalogue of movie cards, with per-genre counts, warmed from a binary snapshot.
+ *
+ * On startup the snapshot at {@code application.catalog.snapshot-path} is memory-mapped and
+ * compared with the database stamp (row count, max id and the {@link CatalogVersion} counter).
+ * A matching snapshot is served straight away; otherwise the catalogue is rebuilt from the
+ * database in the background and a fresh snapshot is written. Until the catalogue is known
+ * to be current, lookups miss and callers fall back to the database.
+ *
+ * Cards are kept without their overview, the bulk of a card, so the catalogue stays small;
+ * callers that show it read it by id. A rebuild reconciles the catalogue in place while
+ * streaming the movies, so it never holds a second copy.
+ *
+ * Single-movie writes are applied after their transaction commits. Bulk writes (imports)
+ * take the catalogue offline and trigger a rebuild once they go quiet.
+ *
+ * Rank scores move with every review without bumping the catalogue version, so the stamp
+ * cannot tell whether a snapshot's scores are current. They are read from the database
+ * over the snapshot's on every load.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class MovieCatalogService {
+
+    private static final String STAMP_SQL = "SELECT COUNT(*), COALESCE(MAX(id), 0) FROM movies";
+    private static final String RANK_SCORES_SQL = "SELECT id, rank_score FROM movies";
+
+    private final MovieService movieService;
+    private final MovieStreamingService movieStreamingService;
+    private final MoviesRepo movieRepository;
+    private final CatalogVersionRepo catalogVersionRepo;
+    private final JdbcTemplate jdbcTemplate;
+
+    @Value("${application.catalog.enabled:true}")
+    private boolean enabled;
+
+    @Value("${application.catalog.snapshot-path:${java.io.tmpdir}/film-explorer/movie-catalog.snapshot}")
+    private String snapshotPath;
+
+    // Bulk writes must be quiet for this long before the catalogue is rebuilt
+    @Value("${application.catalog.rebuild-delay-ms:2000}")
+    private long rebuildDelayMs;
+
+    private final Map<Long, MovieCard> cards = new ConcurrentHashMap<>();
+    private final Map<String, Long> genreCounts = new ConcurrentHashMap<>();
+
+    // Ids written while a rebuild is scanning; the scan must not overwrite them
+    private final Set<Long> touchedDuringRebuild = ConcurrentHashMap.newKeySet();
+    private final AtomicBoolean rebuildScheduled = new AtomicBoolean();
+
+    private volatile boolean ready;
+    private volatile boolean rebuilding;
+    private volatile boolean snapshotDirty;
+    private volatile long lastBulkWriteNanos;
+
+    private ScheduledExecutorService executor;
+
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void warmUp() {
+        if (!enabled) {
+            return;
+        }
+        executor = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "movie-catalog");
+            thread.setDaemon(true);
+            return thread;
+        });
+        executor.execute(this::loadOrRebuild);
+    }
+
+
+    @PreDestroy
+    public void shutdown() {
+        if (executor == null) {
+            return;
+        }
+        executor.shutdownNow();
+        if (ready && snapshotDirty && !rebuilding) {
+            try {
+                writeSnapshot(currentStamp());
+            } catch (Exception e) {
+                log.warn("Could not write the movie catalogue snapshot on shutdown: {}", e.getMessage());
+            }
+        }
+    }
+
+
+    /**
+     * The card of a movie, without its overview, or empty when it is not cached or the
+     * catalogue is not current
+     */
+    public Optional<MovieCard> findCard(Long id) {
+        if (!ready || id == null) {
+            return Optional.empty();
+        }
+        return Optional.ofNullable(cards.get(id));
+    }
+
+
+    /**
+     * Movies per genre, or empty when the catalogue is not current
+     */
+    public Optional<Map<String, Long>> getGenreCounts() {
+        if (!ready) {
+            return Optional.empty();
+        }
+        return Optional.of(new TreeMap<>(genreCounts));
+    }
+
+
+    public boolean isReady() {
+        return ready;
+    }
+
+
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+    public void onCatalogChanged(MovieCatalogChangedEvent event) {
+        if (!enabled) {
+            return;
+        }
+        if (event.isBulk()) {
+            ready = false;
+            lastBulkWriteNanos = System.nanoTime();
+            scheduleRebuild();
+            return;
+        }
+
+        if (rebuilding) {
+            touchedDuringRebuild.add(event.movieId());
+        }
+        if (event.deleted()) {
+            removeCard(event.movieId());
+        } else {
+            movieRepository.findById(event.movieId())
+                    .map(movieService::convertToMovieCard)
+                    .map(MovieCatalogService::resident)
+                    .ifPresentOrElse(this::putCard, () -> removeCard(event.movieId()));
+        }
+        snapshotDirty = true;
+    }
+
+
+    /**
+     * A review moved the movie's rank score; nothing else on its card changed
+     */
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+    public void onRankScoreChanged(MovieRankScoreChangedEvent event) {
+        if (!enabled) {
+            return;
+        }
+        if (rebuilding) {
+            // The scan may have read the row before the commit; reload it as for any other write
+            onCatalogChanged(MovieCatalogChangedEvent.updated(event.movieId()));
+            return;
+        }
+        // Snapshot scores are overlaid from the database on load, so the snapshot stays clean
+        cards.computeIfPresent(event.movieId(), (id, card) -> {
+            card.setRankScore(MovieService.displayRankScore(event.rankScore()));
+            return card;
+        });
+    }
+
+
+    private void loadOrRebuild() {
+        try {
+            Path path = Path.of(snapshotPath);
+            MovieCatalogSnapshot.Stamp stamp = currentStamp();
+
+            if (Files.exists(path)) {
+                long start = System.currentTimeMillis();
+                MovieCatalogSnapshot.Contents snapshot = MovieCatalogSnapshot.read(path);
+                if (snapshot.stamp().equals(stamp)) {
+                    snapshot.cards().forEach(card -> cards.put(card.getId(), resident(card)));
+                    genreCounts.putAll(snapshot.genreCounts());
+                    overlayRankScores();
+                    ready = true;
+                    log.info("Movie catalogue loaded from snapshot: {} movies in {}ms",
+                            cards.size(), System.currentTimeMillis() - start);
+                    return;
+                }
+                log.info("Movie catalogue snapshot is stale ({} vs database {}), rebuilding", snapshot.stamp(), stamp);
+            } else {
+                log.info("No movie catalogue snapshot at {}, building one", path);
+            }
+        } catch (IOException e) {
+            log.warn("Ignoring unreadable movie catalogue snapshot: {}", e.getMessage());
+        } catch (Exception e) {
+            log.error("Movie catalogue warm-up failed: {}", e.getMessage());
+            return;
+        }
+        rebuild();
+    }
+
+
+    // Not yet ready, so nobody reads the cards being updated
+    private void overlayRankScores() {
+        jdbcTemplate.query(RANK_SCORES_SQL, rs -> {
+            MovieCard card = cards.get(rs.getLong(1));
+            if (card != null) {
+                double score = rs.getDouble(2);
+                card.setRankScore(MovieService.displayRankScore(rs.wasNull() ? null : score));
+            }
+        });
+    }
+
+
+    private void scheduleRebuild() {
+        if (executor != null && rebuildScheduled.compareAndSet(false, true)) {
+            executor.schedule(this::rebuildWhenQuiet, rebuildDelayMs, TimeUnit.MILLISECONDS);
+        }
+    }
+
+
+    private void rebuildWhenQuiet() {
+        long quietMs = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - lastBulkWriteNanos);
+        if (quietMs < rebuildDelayMs) {
+            executor.schedule(this::rebuildWhenQuiet, rebuildDelayMs - quietMs, TimeUnit.MILLISECONDS);
+            return;
+        }
+        rebuildScheduled.set(false);
+        rebuild();
+    }
+
+
+    /**
+     * Reload every card from the database and write a new snapshot. The stamp is taken
+     * before the scan, so writes racing with it leave the snapshot stale rather than wrong.
+     * Cards are reconciled one row at a time; only the ids seen are kept on the side.
+     */
+    private void rebuild() {
+        long start = System.currentTimeMillis();
+        rebuilding = true;
+        touchedDuringRebuild.clear();
+        try {
+            MovieCatalogSnapshot.Stamp stamp = currentStamp();
+            SeenIds seen = new SeenIds((int) Math.min(stamp.movieCount() + 16, Integer.MAX_VALUE - 8));
+            int[] addedChanged = new int[2];
+            movieStreamingService.streamAll(movie -> {
+                seen.add(movie.getId());
+                if (touchedDuringRebuild.contains(movie.getId())) {
+                    return;
+                }
+                MovieCard card = resident(movieService.convertToMovieCard(movie));
+                MovieCard previous = cards.get(card.getId());
+                if (previous == null) {
+                    putCard(card);
+                    addedChanged[0]++;
+                } else if (!previous.equals(card)) {
+                    putCard(card);
+                    addedChanged[1]++;
+                }
+            });
+            seen.seal();
+
+            int removed = 0;
+            for (Iterator<Long> ids = cards.keySet().iterator(); ids.hasNext(); ) {
+                Long id = ids.next();
+                if (!seen.contains(id) && !touchedDuringRebuild.contains(id)) {
+                    removeCard(id);
+                    removed++;
+                }
+            }
+            int added = addedChanged[0];
+            int changed = addedChanged[1];
+
+            // Another bulk write may have arrived during the scan; its rebuild will mark us ready
+            if (!rebuildScheduled.get()) {
+                ready = true;
+            }
+            log.info("Movie catalogue rebuilt: {} movies ({} added, {} changed, {} removed) in {}ms",
+                    cards.size(), added, changed, removed, System.currentTimeMillis() - start);
+
+            writeSnapshot(stamp);
+            snapshotDirty = !touchedDuringRebuild.isEmpty();
+        } catch (Exception e) {
+            log.error("Movie catalogue rebuild failed: {}", e.getMessage());
+        } finally {
+            rebuilding = false;
+        }
+    }
+
+
+    private void writeSnapshot(MovieCatalogSnapshot.Stamp stamp) throws IOException {
+        long start = System.currentTimeMillis();
+        // References only, so the card count written up front matches the cards that follow
+        List<MovieCard> snapshotCards = new ArrayList<>(cards.values());
+        MovieCatalogSnapshot.write(Path.of(snapshotPath), new MovieCatalogSnapshot.Contents(
+                stamp, System.currentTimeMillis(), snapshotCards, new HashMap<>(genreCounts)));
+        log.info("Movie catalogue snapshot written: {} movies in {}ms", snapshotCards.size(),
+                System.currentTimeMillis() - start);
+    }
+
+
+    private MovieCatalogSnapshot.Stamp currentStamp() {
+        Long version = catalogVersionRepo.currentVersion();
+        return jdbcTemplate.queryForObject(STAMP_SQL, (rs, rowNum) ->
+                new MovieCatalogSnapshot.Stamp(rs.getLong(1), rs.getLong(2), version != null ? version : 0L));
+    }
+
+
+    // Cards are stored without their overview
+    private static MovieCard resident(MovieCard card) {
+        card.setOverview(null);
+        return card;
+    }
+
+
+    private MovieCard putCard(MovieCard card) {
+        MovieCard previous = cards.put(card.getId(), card);
+        if (previous != null) {
+            countGenres(previous, -1);
+        }
+        countGenres(card, 1);
+        return previous;
+    }
+
+
+    private void removeCard(Long id) {
+        MovieCard previous = cards.remove(id);
+        if (previous != null) {
+            countGenres(previous, -1);
+        }
+    }
+
+
+    private void countGenres(MovieCard card, long delta) {
+        if (card.getGenres() == null) {
+            return;
+        }
+        for (String genre : card.getGenres()) {
+            genreCounts.compute(genre, (key, count) -> {
+                long next = (count != null ? count : 0L) + delta;
+                return next > 0 ? next : null;
+            });
+        }
+    }
+
+
+    /**
+     * Growable sorted set of primitive ids, for the ids a rebuild streams (in id order)
+     */
+    private static final class SeenIds {
+        private long[] ids;
+        private int size;
+        private boolean sorted = true;
+
+        SeenIds(int capacity) {
+            ids = new long[Math.max(16, capacity)];
+        }
+
+        void add(long id) {
+            if (size == ids.length) {
+                ids = Arrays.copyOf(ids, ids.length + (ids.length >> 1));
+            }
+            if (size > 0 && ids[size - 1] > id) {
+                sorted = false;
+            }
+            ids[size++] = id;
+        }
+
+        void seal() {
+            if (!sorted) {
+                Arrays.sort(ids, 0, size);
+                sorted = true;
+            }
+        }
+
+        boolean contains(long id) {
+            return Arrays.binarySearch(ids, 0, size, id) >= 0;
+        }
+    }
+}
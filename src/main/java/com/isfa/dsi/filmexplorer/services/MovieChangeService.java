@@ -0,0 +1,166 @@
+package com.isfa.dsi.filmexplorer.services;
+
+import com.isfa.dsi.filmexplorer.DTOs.MovieChange;
+import com.isfa.dsi.filmexplorer.models.MovieTombstone;
+import com.isfa.dsi.filmexplorer.models.Movies;
+import com.isfa.dsi.filmexplorer.repos.CatalogVersionRepo;
+import com.isfa.dsi.filmexplorer.repos.MovieTombstoneRepo;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Isolation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.IOException;
+import java.util.List;
+
+/**
+ * Change feed over the movies table.
+ *
+ * Every write stamps the rows it touches with a change sequence taken from the catalogue
+ * version counter, and deletions leave a tombstone. Sequence numbers are handed out in
+ * commit order, so a client that remembers the last sequence it saw never misses a write.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class MovieChangeService {
+
+    private final MovieService movieService;
+    private final MovieStreamingService movieStreamingService;
+    private final MovieTombstoneRepo movieTombstoneRepo;
+    private final CatalogVersionRepo catalogVersionRepo;
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+
+    /**
+     * Rows written before change tracking existed, or outside the application, have no
+     * sequence yet; give them one so clients starting from 0 receive them
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void backfillChangeSequence() {
+        try {
+            Integer stamped = transactionTemplate.execute(status -> {
+                Boolean pending = jdbcTemplate.queryForObject(
+                        "SELECT EXISTS (SELECT 1 FROM movies WHERE change_seq IS NULL)", Boolean.class);
+                if (!Boolean.TRUE.equals(pending)) {
+                    return 0;
+                }
+                long changeSeq = catalogVersionRepo.nextChangeSeq();
+                return jdbcTemplate.update("UPDATE movies SET change_seq = ? WHERE change_seq IS NULL", changeSeq);
+            });
+            if (stamped != null && stamped > 0) {
+                log.info("Assigned a change sequence to {} movies", stamped);
+            }
+        } catch (Exception e) {
+            log.error("Change sequence backfill failed: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * Stream the upserts and deletions after {@code since} in sequence order, then a
+     * {@link MovieChange.Type#CHECKPOINT} line holding the value to pass as {@code since} next time.
+     * Runs on one repeatable-read snapshot so movies and tombstones agree with the checkpoint.
+     *
+     * @param limit approximate cap on the number of changes (null = no cap); a sequence
+     *              number is never split across responses, so slightly more may be sent
+     * @return number of changes sent, not counting the checkpoint
+     */
+    @Transactional(readOnly = true, isolation = Isolation.REPEATABLE_READ)
+    public long streamChanges(long since, Integer limit, ChangeSink sink) throws IOException {
+        long startTime = System.currentTimeMillis();
+        Long current = catalogVersionRepo.currentVersion();
+        List<MovieTombstone> tombstones = movieTombstoneRepo.findByChangeSeqGreaterThanOrderByChangeSeqAscMovieIdAsc(since);
+
+        FeedState state = new FeedState(limit, tombstones, sink);
+        try {
+            movieStreamingService.streamChangedSince(since, state::acceptMovie);
+            state.drainTombstones(Long.MAX_VALUE, Long.MAX_VALUE);
+        } catch (LimitReached e) {
+            // The rest is left for the next request
+        }
+
+        long checkpoint = state.truncated
+                ? state.lastSeq
+                : Math.max(state.lastSeq, Math.max(since, current != null ? current : 0L));
+        sink.accept(MovieChange.builder().seq(checkpoint).type(MovieChange.Type.CHECKPOINT).build());
+
+        log.info("Streamed {} movie changes since {} in {}ms (checkpoint {})", state.count, since,
+                System.currentTimeMillis() - startTime, checkpoint);
+        return state.count;
+    }
+
+
+    /**
+     * Merges the movie cursor with the tombstones, both ordered by (seq, id)
+     */
+    private class FeedState {
+
+        private final Integer limit;
+        private final List<MovieTombstone> tombstones;
+        private final ChangeSink sink;
+        private int nextTombstone;
+        private long count;
+        private long lastSeq;
+        private boolean truncated;
+
+        FeedState(Integer limit, List<MovieTombstone> tombstones, ChangeSink sink) {
+            this.limit = limit;
+            this.tombstones = tombstones;
+            this.sink = sink;
+        }
+
+        void acceptMovie(Movies movie) throws IOException {
+            drainTombstones(movie.getChangeSeq(), movie.getId());
+            emit(MovieChange.builder()
+                    .seq(movie.getChangeSeq())
+                    .type(MovieChange.Type.UPSERT)
+                    .id(movie.getId())
+                    .movie(movieService.convertToMovieCard(movie))
+                    .build());
+        }
+
+        // Send the tombstones ordered before (seq, id)
+        void drainTombstones(long seq, long id) throws IOException {
+            while (nextTombstone < tombstones.size()) {
+                MovieTombstone tombstone = tombstones.get(nextTombstone);
+                if (tombstone.getChangeSeq() > seq
+                        || (tombstone.getChangeSeq() == seq && tombstone.getMovieId() > id)) {
+                    return;
+                }
+                nextTombstone++;
+                emit(MovieChange.builder()
+                        .seq(tombstone.getChangeSeq())
+                        .type(MovieChange.Type.DELETE)
+                        .id(tombstone.getMovieId())
+                        .build());
+            }
+        }
+
+        private void emit(MovieChange change) throws IOException {
+            if (limit != null && limit > 0 && count >= limit && change.getSeq() != lastSeq) {
+                truncated = true;
+                throw new LimitReached();
+            }
+            sink.accept(change);
+            lastSeq = change.getSeq();
+            count++;
+        }
+    }
+
+    // Checked, so unwinding the cursor does not mark the transaction rollback-only
+    private static class LimitReached extends IOException {
+    }
+
+    /**
+     * Receives changes while the cursor is still open
+     */
+    @FunctionalInterface
+    public interface ChangeSink {
+        void accept(MovieChange change) throws IOException;
+    }
+}
@@ -0,0 +1,10 @@
+package com.isfa.dsi.filmexplorer.services;
+
+/**
+ * Published inside the transaction of a review write that moved a movie's rank score.
+ * Nothing else about the movie changed, so listeners patch the score instead of reloading.
+ *
+ * @param rankScore the new {@code movies.rank_score}
+ */
+public record MovieRankScoreChangedEvent(Long movieId, Double rankScore) {
+}
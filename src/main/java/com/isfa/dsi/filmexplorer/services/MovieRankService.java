@@ -0,0 +1,161 @@
+package com.isfa.dsi.filmexplorer.services;
+
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.List;
+
+/**
+ * Maintains {@code movies.rank_score}, the Bayesian-weighted rating movies are sorted and
+ * filtered by.
+ *
+ * The score blends every rating source as weighted votes, shrunk toward a prior:
+ * <pre>
+ *   score = (C·m + v·tmdb + W·imdb + R·Σreviews) / (C + v + W + R·n)
+ * </pre>
+ * with {@code v} the TMDb vote count, {@code W} the weight of an IMDB rating, {@code n}
+ * our own reviews weighted {@code R} each, and {@code C} votes of the prior mean {@code m}.
+ * Missing sources drop out, so a movie with no ratings at all scores {@code m}.
+ *
+ * Scores are recomputed in the transaction of whatever changed their inputs: a review
+ * (from the {@link MovieRatingStatsService} aggregate), an edit of the movie or an import
+ * batch. Review-driven changes don't take a change sequence, which would serialize every
+ * review on the catalogue counter; the change feed carries the score as of the movie's
+ * last catalogue write. They publish only the new score, which the in-memory catalogue
+ * patches onto the movie's card.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class MovieRankService {
+
+    // Review count and rating sum of each movie, read from the reviews themselves
+    private static final String LIVE_REVIEWS = "CROSS JOIN LATERAL (SELECT COUNT(*) AS review_count, "
+            + "SUM(rating) AS rating_sum FROM reviews r WHERE r.movie_id = mv.id) st";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final ApplicationEventPublisher eventPublisher;
+
+    @Value("${application.ranking.prior-mean:6.5}")
+    private double priorMean;
+
+    @Value("${application.ranking.prior-votes:500}")
+    private double priorVotes;
+
+    // An IMDB rating counts as this many TMDb votes (the dataset has no IMDB vote counts)
+    @Value("${application.ranking.imdb-weight:1000}")
+    private double imdbWeight;
+
+    @Value("${application.ranking.review-weight:10}")
+    private double reviewWeight;
+
+    @Value("${application.ranking.refresh-on-startup:true}")
+    private boolean refreshOnStartup;
+
+    private String fromStatsSql;
+    private String byIdSql;
+    private String byChangeSeqSql;
+    private String refreshAllSql;
+
+
+    @PostConstruct
+    void prepareStatements() {
+        if (priorVotes <= 0 || imdbWeight < 0 || reviewWeight < 0) {
+            throw new IllegalStateException("application.ranking: prior-votes must be positive and weights non-negative");
+        }
+        // Stats rows are seeded before any review write reaches recomputeFromStats
+        fromStatsSql = updateSql("JOIN movie_rating_stats st ON st.movie_id = mv.id", "mv.id = ?")
+                + " RETURNING m.rank_score";
+        byIdSql = updateSql(LIVE_REVIEWS, "mv.id = ?");
+        byChangeSeqSql = updateSql(LIVE_REVIEWS, "mv.change_seq = ?");
+        refreshAllSql = updateSql("LEFT JOIN (SELECT movie_id, COUNT(*) AS review_count, SUM(rating) AS rating_sum "
+                + "FROM reviews GROUP BY movie_id) st ON st.movie_id = mv.id", "TRUE");
+    }
+
+
+    /**
+     * Score every movie once on startup: fills rows written before the column existed or
+     * outside the application, and applies changed weights
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void refreshAll() {
+        if (!refreshOnStartup) {
+            return;
+        }
+        try {
+            long startTime = System.currentTimeMillis();
+            Integer updated = transactionTemplate.execute(status -> jdbcTemplate.update(refreshAllSql));
+            if (updated != null && updated > 0) {
+                eventPublisher.publishEvent(MovieCatalogChangedEvent.bulk());
+            }
+            log.info("Rank scores refreshed: {} movies changed in {}ms", updated,
+                    System.currentTimeMillis() - startTime);
+        } catch (Exception e) {
+            log.error("Rank score refresh failed: {}", e.getMessage());
+        }
+    }
+
+
+    /**
+     * After a review delta was applied to the movie's rating aggregate
+     */
+    public void recomputeFromStats(Long movieId) {
+        List<Double> scores = jdbcTemplate.query(fromStatsSql, (rs, row) -> {
+            double score = rs.getDouble(1);
+            return rs.wasNull() ? null : score;
+        }, movieId);
+        if (!scores.isEmpty()) {
+            eventPublisher.publishEvent(new MovieRankScoreChangedEvent(movieId, scores.get(0)));
+        }
+    }
+
+
+    /**
+     * After an edit of the movie's own rating columns, flushed to the database
+     */
+    public void recompute(Long movieId) {
+        jdbcTemplate.update(byIdSql, movieId);
+    }
+
+
+    /**
+     * After an import batch, whose rows all carry {@code changeSeq}
+     */
+    public int recomputeBatch(long changeSeq) {
+        return jdbcTemplate.update(byChangeSeqSql, changeSeq);
+    }
+
+
+    // Only rows whose score actually moves are written
+    private String updateSql(String reviewSource, String filter) {
+        return "WITH scored AS (" + scoreSql(reviewSource, filter) + ") "
+                + "UPDATE movies m SET rank_score = s.score FROM scored s "
+                + "WHERE m.id = s.id AND m.rank_score IS DISTINCT FROM s.score";
+    }
+
+
+    /**
+     * (id, score) of the movies matching {@code filter}, reviews read from {@code reviewSource}
+     * joined as {@code st}
+     */
+    String scoreSql(String reviewSource, String filter) {
+        String tmdbVotes = "(CASE WHEN mv.vote_average > 0 THEN COALESCE(mv.vote_count, 0) ELSE 0 END)";
+        String imdbVotes = "(CASE WHEN mv.imdb_rating > 0 THEN " + imdbWeight + " ELSE 0 END)";
+        String score = "CAST((" + priorVotes * priorMean
+                + " + " + tmdbVotes + " * COALESCE(mv.vote_average, 0)"
+                + " + " + imdbVotes + " * COALESCE(mv.imdb_rating, 0)"
+                + " + " + reviewWeight + " * COALESCE(st.rating_sum, 0))"
+                + " / (" + priorVotes + " + " + tmdbVotes + " + " + imdbVotes
+                + " + " + reviewWeight + " * COALESCE(st.review_count, 0)) AS DOUBLE PRECISION)";
+        return "SELECT mv.id, " + score + " AS score FROM movies mv " + reviewSource + " WHERE " + filter;
+    }
+}
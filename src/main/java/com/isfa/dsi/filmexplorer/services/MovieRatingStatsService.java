@@ -0,0 +1,169 @@
+package com.isfa.dsi.filmexplorer.services;
+
+import com.isfa.dsi.filmexplorer.DTOs.RatingStats;
+import com.isfa.dsi.filmexplorer.models.MovieRatingStats;
+import com.isfa.dsi.filmexplorer.repos.MovieRatingStatsRepo;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+/**
+ * Per-movie review rating aggregates (count, sum, sum of squares and a 1-10 histogram).
+ *
+ * Review writes apply their delta to the {@link MovieRatingStats} row in the same
+ * transaction, so the aggregate commits or rolls back with the review. Rows are seeded
+ * lazily from the reviews table the first time a movie is touched; seeding happens before
+ * the review itself is written, so the scan only sees committed reviews and the delta
+ * accounts for the current one. Concurrent seeders serialize on the primary key.
+ * Every delta also moves the movie's {@link MovieRankService rank score}.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class MovieRatingStatsService {
+
+    static final int MIN_RATING = 1;
+    static final int MAX_RATING = 10;
+
+    private static final String SEED_SQL = "INSERT INTO movie_rating_stats "
+            + "(movie_id, review_count, rating_sum, rating_sum_sq, r1, r2, r3, r4, r5, r6, r7, r8, r9, r10) "
+            + "SELECT ?, COUNT(*), COALESCE(SUM(rating), 0), COALESCE(SUM(CAST(rating AS BIGINT) * rating), 0), "
+            + "COUNT(*) FILTER (WHERE rating = 1), "
+            + "COUNT(*) FILTER (WHERE rating = 2), "
+            + "COUNT(*) FILTER (WHERE rating = 3), "
+            + "COUNT(*) FILTER (WHERE rating = 4), "
+            + "COUNT(*) FILTER (WHERE rating = 5), "
+            + "COUNT(*) FILTER (WHERE rating = 6), "
+            + "COUNT(*) FILTER (WHERE rating = 7), "
+            + "COUNT(*) FILTER (WHERE rating = 8), "
+            + "COUNT(*) FILTER (WHERE rating = 9), "
+            + "COUNT(*) FILTER (WHERE rating = 10) "
+            + "FROM reviews WHERE movie_id = ? "
+            + "AND NOT EXISTS (SELECT 1 FROM movie_rating_stats WHERE movie_id = ?) "
+            + "ON CONFLICT (movie_id) DO NOTHING";
+
+    private static final String DELTA_SQL = "UPDATE movie_rating_stats SET "
+            + "review_count = review_count + ?, rating_sum = rating_sum + ?, rating_sum_sq = rating_sum_sq + ?, "
+            + "r1 = r1 + ?, "
+            + "r2 = r2 + ?, "
+            + "r3 = r3 + ?, "
+            + "r4 = r4 + ?, "
+            + "r5 = r5 + ?, "
+            + "r6 = r6 + ?, "
+            + "r7 = r7 + ?, "
+            + "r8 = r8 + ?, "
+            + "r9 = r9 + ?, "
+            + "r10 = r10 + ? "
+            + "WHERE movie_id = ?";
+
+    private final MovieRatingStatsRepo movieRatingStatsRepository;
+    private final JdbcTemplate jdbcTemplate;
+    private final MovieRankService movieRankService;
+
+
+    /**
+     * Make sure the movie has an aggregate row. Call before writing the review.
+     */
+    public void ensureSeeded(Long movieId) {
+        if (jdbcTemplate.update(SEED_SQL, movieId, movieId, movieId) > 0) {
+            log.debug("Seeded rating aggregate for movie {}", movieId);
+        }
+    }
+
+
+    public void reviewAdded(Long movieId, int rating) {
+        applyDelta(movieId, null, rating);
+    }
+
+
+    public void reviewRemoved(Long movieId, int rating) {
+        applyDelta(movieId, rating, null);
+    }
+
+
+    public void ratingChanged(Long movieId, int oldRating, int newRating) {
+        if (oldRating != newRating) {
+            applyDelta(movieId, oldRating, newRating);
+        }
+    }
+
+
+    /**
+     * Rating summary of a movie, seeding its aggregate on first use
+     */
+    @Transactional
+    public RatingStats getStats(Long movieId) {
+        MovieRatingStats stats = movieRatingStatsRepository.findById(movieId).orElse(null);
+        if (stats == null) {
+            ensureSeeded(movieId);
+            stats = movieRatingStatsRepository.findById(movieId)
+                    .orElseThrow(() -> new RuntimeException("Rating stats not found"));
+        }
+        return toRatingStats(stats);
+    }
+
+
+    static RatingStats toRatingStats(MovieRatingStats stats) {
+        long count = stats.getReviewCount();
+        Double average = null;
+        Double stdDev = null;
+        if (count > 0) {
+            double mean = (double) stats.getRatingSum() / count;
+            average = Math.round(mean * 100) / 100.0;
+            double variance = Math.max(0, (double) stats.getRatingSumSq() / count - mean * mean);
+            stdDev = Math.round(Math.sqrt(variance) * 100) / 100.0;
+        }
+        return RatingStats.builder()
+                .reviewCount(count)
+                .averageRating(average)
+                .ratingStdDev(stdDev)
+                .histogram(stats.histogram())
+                .build();
+    }
+
+
+    // One statement moves the count, the moments and both buckets together
+    private void applyDelta(Long movieId, Integer removed, Integer added) {
+        long[] buckets = new long[MAX_RATING];
+        long count = 0;
+        long sum = 0;
+        long sumSq = 0;
+        if (removed != null) {
+            checkRating(removed);
+            buckets[removed - MIN_RATING]--;
+            count--;
+            sum -= removed;
+            sumSq -= (long) removed * removed;
+        }
+        if (added != null) {
+            checkRating(added);
+            buckets[added - MIN_RATING]++;
+            count++;
+            sum += added;
+            sumSq += (long) added * added;
+        }
+
+        Object[] args = new Object[4 + MAX_RATING];
+        args[0] = count;
+        args[1] = sum;
+        args[2] = sumSq;
+        for (int i = 0; i < MAX_RATING; i++) {
+            args[3 + i] = buckets[i];
+        }
+        args[3 + MAX_RATING] = movieId;
+
+        if (jdbcTemplate.update(DELTA_SQL, args) == 0) {
+            throw new RuntimeException("Rating stats not found");
+        }
+        movieRankService.recomputeFromStats(movieId);
+    }
+
+
+    private static void checkRating(int rating) {
+        if (rating < MIN_RATING || rating > MAX_RATING) {
+            throw new IllegalArgumentException("Rating must be between 1 and 10");
+        }
+    }
+}
@@ -3,20 +3,27 @@ package com.isfa.dsi.filmexplorer.services;
 import com.isfa.dsi.filmexplorer.DTOs.MovieCard;
 import com.isfa.dsi.filmexplorer.DTOs.MovieSearchRequest;
 import com.isfa.dsi.filmexplorer.DTOs.MovieSearchResponse;
+import com.isfa.dsi.filmexplorer.models.MovieTombstone;
 import com.isfa.dsi.filmexplorer.models.Movies;
+import com.isfa.dsi.filmexplorer.repos.CatalogVersionRepo;
+import com.isfa.dsi.filmexplorer.repos.MovieTombstoneRepo;
 import com.isfa.dsi.filmexplorer.repos.MoviesRepo;
 import jakarta.persistence.criteria.Predicate;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.domain.Sort;
 import org.springframework.data.jpa.domain.Specification;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 import org.springframework.util.StringUtils;
 
 import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.time.LocalDateTime;
 import java.time.Year;
 import java.util.*;
 import java.util.stream.Collectors;
@@ -27,6 +34,10 @@ import java.util.stream.Collectors;
 public class MovieService {
 
     private final MoviesRepo movieRepository;
+    private final CatalogVersionRepo catalogVersionRepo;
+    private final MovieTombstoneRepo movieTombstoneRepo;
+    private final ApplicationEventPublisher eventPublisher;
+    private final MovieRankService movieRankService;
 
     // Genre normalization map
     private static final Map<String, String> GENRE_ALIASES = Map.ofEntries(
@@ -51,21 +62,9 @@ public class MovieService {
      */
     public Page<Movies> searchMovies(MovieSearchRequest request) {
         log.info("=== SEARCH STARTED ===");
-        log.info("Raw request received:");
-        logRequestDetails(request);
-
-        // Apply quick filter defaults
-        applyQuickFilterDefaults(request);
-        log.info("After quick filters applied:");
-        logRequestDetails(request);
-
-        // Normalize genre names for better matching
-        normalizeGenreNames(request);
-        log.info("After genre normalization:");
-        logRequestDetails(request);
 
         // Build specification with data quality considerations
-        Specification<Movies> spec = buildRefinedSpecification(request);
+        Specification<Movies> spec = buildSearchSpecification(request);
 
         // Build pagination and sorting
         Pageable pageable = buildPageable(request);
@@ -85,6 +84,27 @@ public class MovieService {
         return results;
     }
 
+    /**
+     * Apply quick filters and genre normalization, then build the search specification.
+     * Shared by the paged search and the streaming endpoints.
+     */
+    public Specification<Movies> buildSearchSpecification(MovieSearchRequest request) {
+        log.info("Raw request received:");
+        logRequestDetails(request);
+
+        // Apply quick filter defaults
+        applyQuickFilterDefaults(request);
+        log.info("After quick filters applied:");
+        logRequestDetails(request);
+
+        // Normalize genre names for better matching
+        normalizeGenreNames(request);
+        log.info("After genre normalization:");
+        logRequestDetails(request);
+
+        return buildRefinedSpecification(request);
+    }
+
     /**
      * DEBUG: Log all request details
      */
@@ -94,6 +114,7 @@ public class MovieService {
         log.info("Genres: {}", request.getGenres());
         log.info("Rating: min={}, max={}", request.getMinRating(), request.getMaxRating());
         log.info("IMDB Rating: min={}, max={}", request.getMinImdbRating(), request.getMaxImdbRating());
+        log.info("Score: min={}", request.getMinScore());
         log.info("Year: min={}, max={}", request.getMinYear(), request.getMaxYear());
         log.info("Runtime: min={}, max={}", request.getMinRuntime(), request.getMaxRuntime());
         log.info("  - minRuntime class: {}", request.getMinRuntime() != null ? request.getMinRuntime().getClass().getName() : "NULL");
@@ -112,9 +133,9 @@ public class MovieService {
      * Apply defaults for quick filters
      */
     private void applyQuickFilterDefaults(MovieSearchRequest request) {
-        if (Boolean.TRUE.equals(request.getHighlyRated()) && request.getMinRating() == null) {
-            request.setMinRating(7.0);
-            log.debug("Applied highlyRated filter: minRating=7.0");
+        if (Boolean.TRUE.equals(request.getHighlyRated()) && request.getMinScore() == null) {
+            request.setMinScore(7.0);
+            log.debug("Applied highlyRated filter: minScore=7.0");
         }
 
         if (Boolean.TRUE.equals(request.getPopular()) && request.getMinVoteCount() == null) {
@@ -224,6 +245,12 @@ public class MovieService {
                 log.debug("Added: voteAverage <= {}", request.getMaxRating());
             }
 
+            // Weighted rank score filter (indexed: rank_score)
+            if (request.getMinScore() != null) {
+                predicates.add(cb.greaterThanOrEqualTo(root.get("rankScore"), request.getMinScore()));
+                log.debug("Added: rankScore >= {}", request.getMinScore());
+            }
+
             // IMDB rating filters (indexed: imdb_rating)
             if (request.getMinImdbRating() != null) {
                 predicates.add(cb.greaterThanOrEqualTo(root.get("imdbRating"),
@@ -328,13 +355,19 @@ public class MovieService {
      * Build pageable with sorting
      */
     private Pageable buildPageable(MovieSearchRequest request) {
+        return PageRequest.of(request.getPage(), request.getSize(), buildSort(request));
+    }
+
+    /**
+     * Build sorting from the request
+     */
+    public Sort buildSort(MovieSearchRequest request) {
         String sortProperty = getSortProperty(request.getSortBy());
         Sort.Direction direction = "asc".equalsIgnoreCase(request.getSortDirection())
                 ? Sort.Direction.ASC
                 : Sort.Direction.DESC;
 
-        Sort sort = Sort.by(direction, sortProperty);
-        return PageRequest.of(request.getPage(), request.getSize(), sort);
+        return Sort.by(direction, sortProperty);
     }
 
     /**
@@ -351,6 +384,7 @@ public class MovieService {
             case "title" -> "title";
             case "runtime" -> "runtime";
             case "popularity" -> "popularity";
+            case "score" -> "rankScore";
             default -> "popularity";
         };
     }
@@ -406,6 +440,7 @@ public class MovieService {
         card.setOverview(movie.getOverview());
         card.setOriginalTitle(movie.getOriginalTitle());
         card.setIsImdbRated(usingImdb);
+        card.setRankScore(displayRankScore(movie.getRankScore()));
         card.setVoteCount(movie.getVoteCount() != null ? movie.getVoteCount() : 0L);
         card.setPosterPath(movie.getPosterPath());
 
@@ -449,6 +484,15 @@ public class MovieService {
 
         return card;
     }
+
+    /**
+     * {@code movies.rank_score} as shown on cards
+     */
+    public static BigDecimal displayRankScore(Double rankScore) {
+        return rankScore != null ? BigDecimal.valueOf(rankScore).setScale(2, RoundingMode.HALF_UP) : null;
+    }
+
+    @Transactional
     public Movies updateMovie(Long movieId, Movies movieDetails) {
         log.info("Updating movie with id: {}", movieId);
 
@@ -481,7 +525,11 @@ public class MovieService {
             movie.setPosterPath(movieDetails.getPosterPath());
         }
 
-        Movies updatedMovie = movieRepository.save(movie);
+        movie.setChangeSeq(catalogVersionRepo.nextChangeSeq());
+        // Flushed first: the rank score is recomputed in SQL from the stored columns
+        Movies updatedMovie = movieRepository.saveAndFlush(movie);
+        movieRankService.recompute(movieId);
+        eventPublisher.publishEvent(MovieCatalogChangedEvent.updated(movieId));
         log.info("Movie updated successfully");
 
         return updatedMovie;
@@ -489,8 +537,10 @@ public class MovieService {
 
     /**
      * Delete a movie (ADMIN only)
-     * This will cascade delete all reviews and watchlist entries
+     * This will cascade delete all reviews and watchlist entries.
+     * A tombstone records the deletion for the change feed.
      */
+    @Transactional
     public void deleteMovie(Long movieId) {
         log.info("Deleting movie with id: {}", movieId);
 
@@ -500,6 +550,8 @@ public class MovieService {
 
         // Cascade deletes will be handled by database constraints
         movieRepository.deleteById(movieId);
+        movieTombstoneRepo.save(new MovieTombstone(movieId, catalogVersionRepo.nextChangeSeq(), LocalDateTime.now()));
+        eventPublisher.publishEvent(MovieCatalogChangedEvent.deleted(movieId));
 
         log.info("Movie deleted successfully");
     }
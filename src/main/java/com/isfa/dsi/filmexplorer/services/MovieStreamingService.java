@@ -0,0 +1,129 @@
+package com.isfa.dsi.filmexplorer.services;
+
+import com.isfa.dsi.filmexplorer.DTOs.MovieSearchRequest;
+import com.isfa.dsi.filmexplorer.models.Movies;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.TypedQuery;
+import jakarta.persistence.criteria.CriteriaBuilder;
+import jakarta.persistence.criteria.CriteriaQuery;
+import jakarta.persistence.criteria.Root;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.domain.Specification;
+import org.springframework.data.jpa.repository.query.QueryUtils;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.io.IOException;
+import java.util.Iterator;
+import java.util.stream.Stream;
+
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class MovieStreamingService {
+
+    private final MovieService movieService;
+    private final EntityManager entityManager;
+
+    @Value("${application.streaming.fetch-size:500}")
+    private int fetchSize;
+
+    /**
+     * Stream every movie matching the search criteria through a server-side cursor.
+     * Paging parameters of the request are ignored; {@code limit} caps the row count (null = no cap).
+     * Rows are detached as soon as the sink returns, so memory stays flat whatever the result size.
+     */
+    @Transactional(readOnly = true)
+    public long streamSearch(MovieSearchRequest request, Integer limit, MovieSink sink) throws IOException {
+        long startTime = System.currentTimeMillis();
+
+        Specification<Movies> spec = movieService.buildSearchSpecification(request);
+        // Tie-break on id so the cursor order is stable
+        Sort sort = movieService.buildSort(request).and(Sort.by(Sort.Direction.ASC, "id"));
+
+        CriteriaBuilder cb = entityManager.getCriteriaBuilder();
+        CriteriaQuery<Movies> criteria = cb.createQuery(Movies.class);
+        Root<Movies> root = criteria.from(Movies.class);
+        criteria.where(spec.toPredicate(root, criteria, cb));
+        criteria.orderBy(QueryUtils.toOrders(sort, root, cb));
+
+        TypedQuery<Movies> query = entityManager.createQuery(criteria)
+                .setHint(HibernateHints.HINT_FETCH_SIZE, fetchSize)
+                .setHint(HibernateHints.HINT_READ_ONLY, true);
+        if (limit != null && limit > 0) {
+            query.setMaxResults(limit);
+        }
+
+        long count = 0;
+        try (Stream<Movies> rows = query.getResultStream()) {
+            Iterator<Movies> iterator = rows.iterator();
+            while (iterator.hasNext()) {
+                Movies movie = iterator.next();
+                sink.accept(movie);
+                entityManager.detach(movie);
+                count++;
+            }
+        }
+
+        log.info("Streamed {} movies in {}ms", count, System.currentTimeMillis() - startTime);
+        return count;
+    }
+
+    /**
+     * Stream the whole movies table in id order through a server-side cursor
+     */
+    @Transactional(readOnly = true)
+    public long streamAll(MovieSink sink) throws IOException {
+        TypedQuery<Movies> query = entityManager.createQuery("SELECT m FROM Movies m ORDER BY m.id", Movies.class)
+                .setHint(HibernateHints.HINT_FETCH_SIZE, fetchSize)
+                .setHint(HibernateHints.HINT_READ_ONLY, true);
+
+        long count = 0;
+        try (Stream<Movies> rows = query.getResultStream()) {
+            Iterator<Movies> iterator = rows.iterator();
+            while (iterator.hasNext()) {
+                Movies movie = iterator.next();
+                sink.accept(movie);
+                entityManager.detach(movie);
+                count++;
+            }
+        }
+        return count;
+    }
+
+    /**
+     * Stream the movies written after change sequence {@code since}, ordered by (changeSeq, id)
+     */
+    @Transactional(readOnly = true)
+    public long streamChangedSince(long since, MovieSink sink) throws IOException {
+        TypedQuery<Movies> query = entityManager.createQuery(
+                        "SELECT m FROM Movies m WHERE m.changeSeq > :since ORDER BY m.changeSeq, m.id", Movies.class)
+                .setParameter("since", since)
+                .setHint(HibernateHints.HINT_FETCH_SIZE, fetchSize)
+                .setHint(HibernateHints.HINT_READ_ONLY, true);
+
+        long count = 0;
+        try (Stream<Movies> rows = query.getResultStream()) {
+            Iterator<Movies> iterator = rows.iterator();
+            while (iterator.hasNext()) {
+                Movies movie = iterator.next();
+                sink.accept(movie);
+                entityManager.detach(movie);
+                count++;
+            }
+        }
+        return count;
+    }
+
+    /**
+     * Receives rows while the cursor is still open
+     */
+    @FunctionalInterface
+    public interface MovieSink {
+        void accept(Movies movie) throws IOException;
+    }
+}
@@ -0,0 +1,114 @@
+package com.isfa.dsi.filmexplorer.services;
+
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Pending like deltas per review, flushed to {@code reviews.likes_count} in batches.
+ *
+ * Likes only bump a striped {@link LongAdder}, so concurrent likes on a popular review
+ * neither lose updates nor queue on its row lock. The flush applies each delta with
+ * {@code likes_count = likes_count + delta}, one batched statement for all reviews.
+ * Deltas not yet flushed are lost if the process dies; likes counts are not money.
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class ReviewLikeCounter {
+
+    private static final String FLUSH_SQL =
+            "UPDATE reviews SET likes_count = GREATEST(likes_count + ?, 0) WHERE id = ?";
+
+    private final JdbcTemplate jdbcTemplate;
+
+    private final Map<Long, LongAdder> pending = new ConcurrentHashMap<>();
+
+    public void add(Long reviewId, long delta) {
+        LongAdder adder = pending.get(reviewId);
+        if (adder == null) {
+            adder = pending.computeIfAbsent(reviewId, id -> new LongAdder());
+        }
+        adder.add(delta);
+
+        // The flush may have dropped this adder in the meantime: move what we added to the live one
+        if (pending.get(reviewId) != adder) {
+            long moved = adder.sumThenReset();
+            if (moved != 0) {
+                add(reviewId, moved);
+            }
+        }
+    }
+
+    /**
+     * Likes counted but not yet written to the database
+     */
+    public long pendingDelta(Long reviewId) {
+        LongAdder adder = pending.get(reviewId);
+        return adder != null ? adder.sum() : 0;
+    }
+
+    /**
+     * Persisted count plus the pending delta
+     */
+    public long currentCount(Long reviewId, Long persisted) {
+        return Math.max(0, (persisted != null ? persisted : 0L) + pendingDelta(reviewId));
+    }
+
+    /**
+     * Drop pending likes of a deleted review
+     */
+    public void discard(Long reviewId) {
+        LongAdder adder = pending.remove(reviewId);
+        if (adder != null) {
+            adder.reset();
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${application.reviews.like-flush-ms:1000}")
+    public void flush() {
+        List<Object[]> batch = new ArrayList<>();
+        for (Map.Entry<Long, LongAdder> entry : pending.entrySet()) {
+            long delta = entry.getValue().sumThenReset();
+            if (delta != 0) {
+                batch.add(new Object[]{delta, entry.getKey()});
+                continue;
+            }
+            // Idle review: drop its adder, rescuing anything added while we looked
+            if (pending.remove(entry.getKey(), entry.getValue())) {
+                long late = entry.getValue().sumThenReset();
+                if (late != 0) {
+                    add(entry.getKey(), late);
+                }
+            }
+        }
+        if (batch.isEmpty()) {
+            return;
+        }
+
+        try {
+            jdbcTemplate.batchUpdate(FLUSH_SQL, batch);
+            log.debug("Flushed like counts of {} reviews", batch.size());
+        } catch (RuntimeException e) {
+            // Put the deltas back for the next attempt
+            for (Object[] row : batch) {
+                add((Long) row[1], (Long) row[0]);
+            }
+            log.warn("Like count flush failed, will retry: {}", e.getMessage());
+        }
+    }
+
+    @PreDestroy
+    public void flushOnShutdown() {
+        flush();
+    }
+}
@@ -0,0 +1,197 @@
+package com.isfa.dsi.filmexplorer.services;
+
+import com.isfa.dsi.filmexplorer.DTOs.ReviewListRow;
+import com.isfa.dsi.filmexplorer.DTOs.ReviewSearchHit;
+import com.isfa.dsi.filmexplorer.repos.ReviewRepo;
+import com.isfa.dsi.filmexplorer.search.InvertedIndex;
+import com.isfa.dsi.filmexplorer.search.Snippets;
+import com.isfa.dsi.filmexplorer.search.TextAnalyzer;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.PreparedStatement;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * Full-text search over review titles and content.
+ *
+ * An {@link InvertedIndex} is built from the reviews table in the background on startup
+ * and kept current by this instance's review writes, applied after they commit. Searches
+ * rank ids in memory, then load only the returned reviews to cut their snippets.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class ReviewSearchService {
+
+    // In the index's posting order, so the build only ever appends
+    private static final String SCAN_SQL = "SELECT id, movie_id, title, content FROM reviews ORDER BY movie_id, id";
+    private static final int MAX_LIMIT = 100;
+
+    private final ReviewRepo reviewRepository;
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+
+    @Value("${application.reviews.search.enabled:true}")
+    private boolean enabled;
+
+    @Value("${application.reviews.search.snippet-length:200}")
+    private int snippetLength;
+
+    @Value("${application.streaming.fetch-size:500}")
+    private int fetchSize;
+
+    private final InvertedIndex index = new InvertedIndex();
+
+    // Reviews written while the index is being built; the scan must not overwrite them.
+    // Also the lock that orders those writes against the scan.
+    private final Set<Long> touchedDuringBuild = new HashSet<>();
+
+    private volatile boolean ready;
+    private volatile boolean building;
+
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void buildIndex() {
+        if (!enabled) {
+            return;
+        }
+        Thread thread = new Thread(this::build, "review-search-index");
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+
+    public boolean isReady() {
+        return ready;
+    }
+
+
+    /**
+     * Reviews matching the query, best first
+     *
+     * @param movieId only reviews of this movie, or null for all
+     * @throws IllegalStateException while the index is still being built
+     */
+    public List<ReviewSearchHit> search(String query, Long movieId, int limit) {
+        if (!ready) {
+            throw new IllegalStateException("Review search index is not ready");
+        }
+        long startTime = System.currentTimeMillis();
+        List<String> terms = TextAnalyzer.terms(query);
+        List<InvertedIndex.Hit> hits = index.search(terms, movieId, Math.max(1, Math.min(limit, MAX_LIMIT)));
+        if (hits.isEmpty()) {
+            return List.of();
+        }
+
+        Map<Long, ReviewListRow> rows = reviewRepository.findRowsByIdIn(hits.stream().map(InvertedIndex.Hit::id).toList())
+                .stream()
+                .collect(Collectors.toMap(ReviewListRow::id, Function.identity()));
+
+        Set<String> termSet = Set.copyOf(terms);
+        List<ReviewSearchHit> results = new ArrayList<>(hits.size());
+        for (InvertedIndex.Hit hit : hits) {
+            ReviewListRow row = rows.get(hit.id());
+            if (row == null) {
+                // Deleted by another instance since it was indexed
+                continue;
+            }
+            Snippets.Snippet snippet = Snippets.best(row.content(), termSet, snippetLength);
+            results.add(ReviewSearchHit.builder()
+                    .reviewId(row.id())
+                    .movieId(hit.groupId())
+                    .userId(row.userId())
+                    .userDisplayName(ReviewService.displayName(row.userFirstName(), row.userLastName(), row.userEmail()))
+                    .rating(row.rating())
+                    .title(row.title())
+                    .snippet(snippet.text())
+                    .highlights(snippet.highlights())
+                    .score(Math.round(hit.score() * 1000) / 1000.0)
+                    .build());
+        }
+
+        log.info("Review search '{}' returned {} hits in {}ms", query, results.size(),
+                System.currentTimeMillis() - startTime);
+        return results;
+    }
+
+
+    /**
+     * Index a committed review, replacing any previous version
+     */
+    public void index(Long reviewId, Long movieId, String title, String content) {
+        if (!enabled) {
+            return;
+        }
+        synchronized (touchedDuringBuild) {
+            if (building) {
+                touchedDuringBuild.add(reviewId);
+            }
+            index.put(reviewId, movieId, title, content);
+        }
+    }
+
+
+    /**
+     * Drop a committed review deletion from the index
+     */
+    public void remove(Long reviewId) {
+        if (!enabled) {
+            return;
+        }
+        synchronized (touchedDuringBuild) {
+            if (building) {
+                touchedDuringBuild.add(reviewId);
+            }
+            index.remove(reviewId);
+        }
+    }
+
+
+    private void build() {
+        long startTime = System.currentTimeMillis();
+        synchronized (touchedDuringBuild) {
+            building = true;
+        }
+        try {
+            // Inside a transaction so the driver streams with a cursor instead of buffering every row
+            transactionTemplate.executeWithoutResult(status -> jdbcTemplate.query(connection -> {
+                PreparedStatement statement = connection.prepareStatement(SCAN_SQL);
+                statement.setFetchSize(fetchSize);
+                return statement;
+            }, resultSet -> {
+                long id = resultSet.getLong(1);
+                long movieId = resultSet.getLong(2);
+                String title = resultSet.getString(3);
+                String content = resultSet.getString(4);
+                synchronized (touchedDuringBuild) {
+                    if (!touchedDuringBuild.contains(id)) {
+                        index.put(id, movieId, title, content);
+                    }
+                }
+            }));
+            ready = true;
+            log.info("Review search index built: {} reviews in {}ms", index.size(),
+                    System.currentTimeMillis() - startTime);
+        } catch (Exception e) {
+            log.error("Review search index build failed: {}", e.getMessage());
+        } finally {
+            synchronized (touchedDuringBuild) {
+                building = false;
+                touchedDuringBuild.clear();
+            }
+        }
+    }
+}
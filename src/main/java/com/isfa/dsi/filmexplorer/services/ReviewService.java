@@ -1,21 +1,32 @@
 package com.isfa.dsi.filmexplorer.services;
 
+import com.isfa.dsi.filmexplorer.DTOs.CursorPage;
+import com.isfa.dsi.filmexplorer.DTOs.ReviewListRow;
 import com.isfa.dsi.filmexplorer.DTOs.ReviewRequest;
 import com.isfa.dsi.filmexplorer.DTOs.ReviewResponse;
 import com.isfa.dsi.filmexplorer.models.Review;
 import com.isfa.dsi.filmexplorer.models.Movies;
+import com.isfa.dsi.filmexplorer.repos.ReviewLikeRepo;
 import com.isfa.dsi.filmexplorer.repos.ReviewRepo;
 import com.isfa.dsi.filmexplorer.repos.MoviesRepo;
 import com.isfa.dsi.filmexplorer.user.User;
+import com.isfa.dsi.filmexplorer.writebehind.PendingWrite;
 import com.isfa.dsi.filmexplorer.user.UserRepo;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
 
 import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
 
 @Service
 @RequiredArgsConstructor
@@ -25,6 +36,14 @@ public class ReviewService {
     private final ReviewRepo reviewRepository;
     private final MoviesRepo moviesRepository;
     private final UserRepo userRepository;
+    private final ReviewLikeRepo reviewLikeRepository;
+    private final ReviewLikeCounter reviewLikeCounter;
+    private final LikedReviewsCache likedReviewsCache;
+    private final MovieRatingStatsService movieRatingStatsService;
+    private final TopReviewsCache topReviewsCache;
+    private final ReviewSearchService reviewSearchService;
+    private final WriteBehindService writeBehindService;
+    private final MovieCatalogService movieCatalogService;
 
     /**
      * Get all reviews for a specific movie
@@ -32,9 +51,90 @@ public class ReviewService {
     public Page<ReviewResponse> getMovieReviews(Long movieId, Long userId, Pageable pageable) {
         log.info("Fetching reviews for movie: {} by user: {}", movieId, userId);
 
-        Page<Review> reviews = reviewRepository.findByMovieId(movieId, pageable);
+        Page<ReviewListRow> rows = reviewRepository.findRowsByMovieId(movieId, pageable);
 
-        return reviews.map(review -> convertToResponse(review, userId));
+        // One lookup for the whole page
+        Set<Long> liked = likedReviewsCache.likedAmong(userId,
+                rows.getContent().stream().map(ReviewListRow::id).toList());
+
+        Page<ReviewResponse> page = rows.map(row -> convertToResponse(row, movieId, userId, liked.contains(row.id()),
+                reviewLikeCounter.currentCount(row.id(), row.likesCount())));
+        return withPendingReviews(page, movieId, userId);
+    }
+
+    /**
+     * Keyset page of a movie's reviews, newest first, without a count query
+     *
+     * @param cursor {@link CursorPage#getNextCursor()} of the previous page, null or empty for the first
+     */
+    public CursorPage<ReviewResponse> getMovieReviewsAfter(Long movieId, Long userId, String cursor, int size) {
+        log.info("Fetching reviews for movie: {} by user: {} after cursor {}", movieId, userId, cursor);
+
+        KeysetCursor after = KeysetCursor.decode(cursor);
+        int pageSize = KeysetCursor.pageSize(size);
+        List<ReviewListRow> rows = reviewRepository.findRowsByMovieIdAfter(movieId, after.at(), after.id(),
+                PageRequest.of(0, pageSize + 1));
+        boolean hasMore = rows.size() > pageSize;
+        if (hasMore) {
+            rows = rows.subList(0, pageSize);
+        }
+
+        Set<Long> liked = likedReviewsCache.likedAmong(userId, rows.stream().map(ReviewListRow::id).toList());
+        List<ReviewResponse> items = new ArrayList<>(rows.size());
+        for (ReviewListRow row : rows) {
+            items.add(convertToResponse(row, movieId, userId, liked.contains(row.id()),
+                    reviewLikeCounter.currentCount(row.id(), row.likesCount())));
+        }
+        if (after.isStart()) {
+            items.addAll(0, pendingReviews(movieId, userId, items));
+        }
+
+        ReviewListRow last = hasMore ? rows.get(rows.size() - 1) : null;
+        return new CursorPage<>(items, last != null ? new KeysetCursor(last.createdAt(), last.id()).encode() : null,
+                hasMore);
+    }
+
+    /**
+     * Read-your-writes in write-behind mode: the author's unflushed reviews head the first page
+     */
+    private Page<ReviewResponse> withPendingReviews(Page<ReviewResponse> page, Long movieId, Long userId) {
+        if (page.getNumber() != 0) {
+            return page;
+        }
+        List<ReviewResponse> pending = pendingReviews(movieId, userId, page.getContent());
+        if (pending.isEmpty()) {
+            return page;
+        }
+        List<ReviewResponse> content = new ArrayList<>(pending);
+        content.addAll(page.getContent());
+        return new PageImpl<>(content, page.getPageable(), page.getTotalElements() + pending.size());
+    }
+
+    private List<ReviewResponse> pendingReviews(Long movieId, Long userId, List<ReviewResponse> shown) {
+        if (!writeBehindService.isEnabled()) {
+            return List.of();
+        }
+        return writeBehindService.pendingReviews(userId, movieId).stream()
+                // Skip any the flusher has committed but not yet retired
+                .filter(review -> shown.stream().noneMatch(response ->
+                        response.getUserId().equals(review.userId()) && response.getCreatedAt().equals(review.createdAt())))
+                .map(this::convertPendingToResponse)
+                .toList();
+    }
+
+    /**
+     * Most liked reviews of a movie, served from {@link TopReviewsCache}
+     */
+    public List<ReviewResponse> getTopReviews(Long movieId, Long userId, int limit) {
+        List<TopReviewsCache.TopReview> top = topReviewsCache.top(movieId, limit);
+
+        Set<Long> liked = likedReviewsCache.likedAmong(userId,
+                top.stream().map(review -> review.row().id()).toList());
+
+        return top.stream()
+                .map(review -> convertToResponse(review.row(), movieId, userId,
+                        liked.contains(review.row().id()), review.likes()))
+                .toList();
     }
 
     /**
@@ -62,15 +162,57 @@ public class ReviewService {
         review.setContent(request.getContent());
         review.setLikesCount(0L);
 
+        movieRatingStatsService.ensureSeeded(movie.getId());
+
         // ✅ FIXED: Set timestamps
         review.setCreatedAt(LocalDateTime.now());
         review.setUpdatedAt(LocalDateTime.now());
 
         // Save review
         Review savedReview = reviewRepository.save(review);
+        movieRatingStatsService.reviewAdded(movie.getId(), savedReview.getRating());
+        ReviewListRow row = toRow(savedReview);
+        afterCommit(() -> {
+            topReviewsCache.update(movie.getId(), row, 0);
+            reviewSearchService.index(row.id(), movie.getId(), row.title(), row.content());
+        });
         log.info("Review created successfully with ID: {}", savedReview.getId());
 
-        return convertToResponse(savedReview, userId);
+        return convertToResponse(savedReview, userId, false, 0);
+    }
+
+    /**
+     * Create a review in write-behind mode: validate it, log it durably and acknowledge it
+     * without a database transaction. It is inserted later by {@link WriteBehindService};
+     * until then the response (and the author's listings) mark it as pending, without an id.
+     */
+    public ReviewResponse createReviewWriteBehind(ReviewRequest request, Long userId) {
+        log.info("Queueing review for movie: {} by user: {}", request.getMovieId(), userId);
+
+        if (request.getRating() == null || request.getRating() < 1 || request.getRating() > 10) {
+            throw new RuntimeException("Rating must be between 1 and 10");
+        }
+        if (request.getTitle() == null || request.getTitle().isBlank()
+                || request.getContent() == null || request.getContent().isBlank()) {
+            throw new RuntimeException("Review title and content are required");
+        }
+
+        // Verify movie exists, from the catalogue when it is loaded
+        if (request.getMovieId() == null || (movieCatalogService.findCard(request.getMovieId()).isEmpty()
+                && !moviesRepository.existsById(request.getMovieId()))) {
+            throw new RuntimeException("Movie not found");
+        }
+
+        User user = userRepository.findById(userId)
+                .orElseThrow(() -> new RuntimeException("User not found"));
+
+        PendingWrite.Review pending = new PendingWrite.Review(user.getId(), user.getEmail(), user.getFirstName(),
+                user.getLastName(), request.getMovieId(), request.getRating(), request.getTitle(),
+                request.getContent(), WriteBehindService.now());
+        writeBehindService.submit(pending);
+        log.info("Review queued for movie: {}", request.getMovieId());
+
+        return convertPendingToResponse(pending);
     }
 
     /**
@@ -89,6 +231,10 @@ public class ReviewService {
             throw new RuntimeException("Unauthorized: You can only edit your own reviews");
         }
 
+        Long movieId = review.getMovie().getId();
+        int oldRating = review.getRating();
+        movieRatingStatsService.ensureSeeded(movieId);
+
         // Update fields
         review.setRating(request.getRating());
         review.setTitle(request.getTitle());
@@ -98,6 +244,12 @@ public class ReviewService {
         review.setUpdatedAt(LocalDateTime.now());
 
         Review updatedReview = reviewRepository.save(review);
+        movieRatingStatsService.ratingChanged(movieId, oldRating, updatedReview.getRating());
+        ReviewListRow row = toRow(updatedReview);
+        afterCommit(() -> {
+            topReviewsCache.update(movieId, row, reviewLikeCounter.currentCount(reviewId, row.likesCount()));
+            reviewSearchService.index(reviewId, movieId, row.title(), row.content());
+        });
         log.info("Review updated successfully: {}", reviewId);
 
         return convertToResponse(updatedReview, userId);
@@ -119,12 +271,23 @@ public class ReviewService {
             throw new RuntimeException("Unauthorized: You can only delete your own reviews");
         }
 
+        Long movieId = review.getMovie().getId();
+        movieRatingStatsService.ensureSeeded(movieId);
+
+        reviewLikeRepository.deleteAllForReview(reviewId);
         reviewRepository.delete(review);
+        movieRatingStatsService.reviewRemoved(movieId, review.getRating());
+        reviewLikeCounter.discard(reviewId);
+        afterCommit(() -> {
+            topReviewsCache.remove(movieId, reviewId);
+            reviewSearchService.remove(reviewId);
+        });
         log.info("Review deleted successfully: {}", reviewId);
     }
 
     /**
-     * Like a review
+     * Like a review. Liking twice is a no-op: the (user, review) row is inserted with
+     * ON CONFLICT DO NOTHING and only a new row bumps the count, in memory (see {@link ReviewLikeCounter}).
      */
     @Transactional
     public ReviewResponse likeReview(Long reviewId, Long userId) {
@@ -133,17 +296,23 @@ public class ReviewService {
         Review review = reviewRepository.findById(reviewId)
                 .orElseThrow(() -> new RuntimeException("Review not found"));
 
-        // Increment likes count
-        review.setLikesCount((review.getLikesCount() != null ? review.getLikesCount() : 0L) + 1);
-
-        Review updatedReview = reviewRepository.save(review);
-        log.info("Review liked successfully: {}", reviewId);
-
-        return convertToResponse(updatedReview, userId);
+        boolean added = reviewLikeRepository.insertIfAbsent(userId, reviewId) > 0;
+        Long movieId = review.getMovie().getId();
+        ReviewListRow row = toRow(review);
+        afterCommit(() -> {
+            if (added) {
+                reviewLikeCounter.add(reviewId, 1);
+                topReviewsCache.update(movieId, row, reviewLikeCounter.currentCount(reviewId, row.likesCount()));
+            }
+            likedReviewsCache.record(userId, reviewId, true);
+        });
+        log.info(added ? "Review liked successfully: {}" : "Review already liked: {}", reviewId);
+
+        return convertToResponse(review, userId, true, added ? 1 : 0);
     }
 
     /**
-     * Unlike a review
+     * Unlike a review; a no-op when the user had not liked it
      */
     @Transactional
     public ReviewResponse unlikeReview(Long reviewId, Long userId) {
@@ -152,20 +321,46 @@ public class ReviewService {
         Review review = reviewRepository.findById(reviewId)
                 .orElseThrow(() -> new RuntimeException("Review not found"));
 
-        // Decrement likes count
-        Long currentLikes = review.getLikesCount() != null ? review.getLikesCount() : 0L;
-        review.setLikesCount(Math.max(0L, currentLikes - 1));
-
-        Review updatedReview = reviewRepository.save(review);
-        log.info("Review unliked successfully: {}", reviewId);
+        boolean removed = reviewLikeRepository.deleteLike(userId, reviewId) > 0;
+        Long movieId = review.getMovie().getId();
+        ReviewListRow row = toRow(review);
+        afterCommit(() -> {
+            if (removed) {
+                reviewLikeCounter.add(reviewId, -1);
+                topReviewsCache.update(movieId, row, reviewLikeCounter.currentCount(reviewId, row.likesCount()));
+            }
+            likedReviewsCache.record(userId, reviewId, false);
+        });
+        log.info(removed ? "Review unliked successfully: {}" : "Review was not liked: {}", reviewId);
+
+        return convertToResponse(review, userId, false, removed ? -1 : 0);
+    }
 
-        return convertToResponse(updatedReview, userId);
+    // Counters and caches only see likes that made it to the database
+    private static void afterCommit(Runnable action) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            action.run();
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                action.run();
+            }
+        });
     }
 
     /**
      * Convert Review entity to ReviewResponse DTO
      */
     private ReviewResponse convertToResponse(Review review, Long currentUserId) {
+        return convertToResponse(review, currentUserId, likedReviewsCache.isLiked(currentUserId, review.getId()), 0);
+    }
+
+    /**
+     * @param uncommittedLikes like delta of the current transaction, not yet in the counter
+     */
+    private ReviewResponse convertToResponse(Review review, Long currentUserId, boolean liked, long uncommittedLikes) {
         ReviewResponse response = new ReviewResponse();
         response.setId(review.getId());
         response.setUserId(review.getUser().getId());
@@ -173,13 +368,71 @@ public class ReviewService {
         response.setRating(review.getRating());
         response.setTitle(review.getTitle());
         response.setContent(review.getContent());
-        response.setLikesCount(review.getLikesCount() != null ? review.getLikesCount() : 0L);
+        response.setLikesCount(Math.max(0,
+                reviewLikeCounter.currentCount(review.getId(), review.getLikesCount()) + uncommittedLikes));
         response.setCreatedAt(review.getCreatedAt());
         response.setUpdatedAt(review.getUpdatedAt());
         response.setUserEmail(review.getUser().getEmail());
+        response.setUserDisplayName(displayName(review.getUser().getFirstName(), review.getUser().getLastName(),
+                review.getUser().getEmail()));
         response.setIsAuthor(review.getUser().getId().equals(currentUserId));
-        // response.setIsLiked could be set if you track likes separately
+        response.setIsLiked(liked);
+
+        return response;
+    }
+
+
+    /**
+     * @param likes current like count, including likes not yet flushed
+     */
+    private ReviewResponse convertToResponse(ReviewListRow row, Long movieId, Long currentUserId, boolean liked,
+                                             long likes) {
+        ReviewResponse response = new ReviewResponse();
+        response.setId(row.id());
+        response.setUserId(row.userId());
+        response.setMovieId(movieId);
+        response.setRating(row.rating());
+        response.setTitle(row.title());
+        response.setContent(row.content());
+        response.setLikesCount(Math.max(0, likes));
+        response.setCreatedAt(row.createdAt());
+        response.setUpdatedAt(row.updatedAt());
+        response.setUserEmail(row.userEmail());
+        response.setUserDisplayName(displayName(row.userFirstName(), row.userLastName(), row.userEmail()));
+        response.setIsAuthor(row.userId().equals(currentUserId));
+        response.setIsLiked(liked);
 
         return response;
     }
-}
\ No newline at end of file
+
+    private ReviewResponse convertPendingToResponse(PendingWrite.Review review) {
+        ReviewResponse response = new ReviewResponse();
+        response.setUserId(review.userId());
+        response.setMovieId(review.movieId());
+        response.setRating(review.rating());
+        response.setTitle(review.title());
+        response.setContent(review.content());
+        response.setLikesCount(0L);
+        response.setCreatedAt(review.createdAt());
+        response.setUpdatedAt(review.createdAt());
+        response.setUserEmail(review.userEmail());
+        response.setUserDisplayName(displayName(review.userFirstName(), review.userLastName(), review.userEmail()));
+        response.setIsAuthor(true);
+        response.setIsLiked(false);
+        response.setPending(true);
+
+        return response;
+    }
+
+    private static ReviewListRow toRow(Review review) {
+        User user = review.getUser();
+        return new ReviewListRow(review.getId(), user.getId(), user.getEmail(), user.getFirstName(),
+                user.getLastName(), review.getRating(), review.getTitle(), review.getContent(),
+                review.getLikesCount(), review.getCreatedAt(), review.getUpdatedAt());
+    }
+
+    static String displayName(String firstName, String lastName, String email) {
+        String name = ((firstName != null ? firstName : "") + " " + (lastName != null ? lastName : "")).trim();
+        return name.isEmpty() ? email : name;
+    }
+}
@@ -0,0 +1,219 @@
+package com.isfa.dsi.filmexplorer.services;
+
+import com.isfa.dsi.filmexplorer.DTOs.ReviewListRow;
+import com.isfa.dsi.filmexplorer.repos.ReviewRepo;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeSet;
+
+/**
+ * Most liked reviews of recently viewed movies, so hot titles do not sort all their
+ * reviews on every request.
+ *
+ * Each movie keeps its best reviews (twice the served size, to absorb reorders) in a
+ * sorted set ordered by likes, then newest first. Creates, edits and like changes move
+ * entries in place. Reviews outside the set are only known by an upper bound on their
+ * rank (the floor); as long as the requested entries all rank above it the answer is
+ * exact, otherwise the movie is reloaded from the database. Entries expire after a TTL
+ * to pick up writes made by other instances, and only the most recently used movies are kept.
+ * A load whose query overlapped a write to the movie's reviews is used once but not cached.
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class TopReviewsCache {
+
+    static final Comparator<Rank> RANK_ORDER = Comparator.comparingLong(Rank::likes).reversed()
+            .thenComparing(Rank::createdAt, Comparator.nullsLast(Comparator.reverseOrder()))
+            .thenComparing(Rank::id, Comparator.reverseOrder());
+
+    private final ReviewRepo reviewRepository;
+    private final ReviewLikeCounter reviewLikeCounter;
+
+    @Value("${application.reviews.top-cache.size:10}")
+    private int size;
+
+    @Value("${application.reviews.top-cache.max-movies:1000}")
+    private int maxMovies;
+
+    @Value("${application.reviews.top-cache.ttl-seconds:300}")
+    private long ttlSeconds;
+
+    private final Map<Long, Entry> movies = new LinkedHashMap<>(256, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<Long, Entry> eldest) {
+            return size() > maxMovies;
+        }
+    };
+
+    // Guarded by movies
+    private final WriteGenerations generations = new WriteGenerations();
+
+    /**
+     * Review with the like count it is ranked by
+     */
+    public record TopReview(ReviewListRow row, long likes) {
+    }
+
+    record Rank(long likes, LocalDateTime createdAt, Long id) {
+    }
+
+    /**
+     * The {@code limit} most liked reviews of a movie (at most the configured size)
+     */
+    public List<TopReview> top(Long movieId, int limit) {
+        int wanted = Math.max(0, Math.min(limit, size));
+        Entry entry = entry(movieId);
+        List<TopReview> top = entry.top(wanted);
+        if (top == null) {
+            log.debug("Top reviews of movie {} fell below the cached range, reloading", movieId);
+            entry = load(movieId);
+            top = entry.top(wanted);
+        }
+        return top;
+    }
+
+    /**
+     * Apply a committed create, edit or like change of a review
+     *
+     * @param likes its current like count
+     */
+    public void update(Long movieId, ReviewListRow row, long likes) {
+        Entry entry = writing(movieId);
+        if (entry != null) {
+            entry.update(new TopReview(row, likes));
+        }
+    }
+
+    /**
+     * Apply a committed review deletion
+     */
+    public void remove(Long movieId, Long reviewId) {
+        Entry entry = writing(movieId);
+        if (entry != null) {
+            entry.remove(reviewId);
+        }
+    }
+
+    // Cached entry to apply a committed write to; loads in flight will not be cached
+    private Entry writing(Long movieId) {
+        synchronized (movies) {
+            generations.bump(movieId);
+            return movies.get(movieId);
+        }
+    }
+
+    private Entry cached(Long movieId) {
+        synchronized (movies) {
+            return movies.get(movieId);
+        }
+    }
+
+    private Entry entry(Long movieId) {
+        Entry entry = cached(movieId);
+        if (entry != null && System.currentTimeMillis() - entry.loadedAt < ttlSeconds * 1000) {
+            return entry;
+        }
+        return load(movieId);
+    }
+
+    private Entry load(Long movieId) {
+        long generation;
+        synchronized (movies) {
+            generation = generations.current(movieId);
+        }
+        int capacity = size * 2;
+        List<ReviewListRow> rows = reviewRepository.findTopReviewsForMovie(movieId, PageRequest.of(0, capacity + 1));
+        Entry entry = new Entry(capacity, System.currentTimeMillis());
+        for (ReviewListRow row : rows) {
+            entry.update(new TopReview(row, reviewLikeCounter.currentCount(row.id(), row.likesCount())));
+        }
+        synchronized (movies) {
+            if (generations.current(movieId) == generation) {
+                movies.put(movieId, entry);
+            }
+        }
+        return entry;
+    }
+
+    static Rank rank(TopReview review) {
+        return new Rank(review.likes(), review.row().createdAt(), review.row().id());
+    }
+
+
+    /**
+     * Sorted best reviews of one movie. The floor is the best rank any review outside the
+     * set may have; null when the set holds every review of the movie.
+     */
+    static final class Entry {
+
+        private final int capacity;
+        private final long loadedAt;
+        private final TreeSet<Rank> order = new TreeSet<>(RANK_ORDER);
+        private final Map<Long, TopReview> byId = new HashMap<>();
+        private Rank floor;
+
+        Entry(int capacity, long loadedAt) {
+            this.capacity = capacity;
+            this.loadedAt = loadedAt;
+        }
+
+        /**
+         * The first {@code limit} reviews, or null when they cannot be known exactly
+         */
+        synchronized List<TopReview> top(int limit) {
+            List<TopReview> top = new ArrayList<>(Math.min(limit, order.size()));
+            for (Rank rank : order) {
+                if (top.size() == limit) {
+                    break;
+                }
+                if (floor != null && RANK_ORDER.compare(rank, floor) >= 0) {
+                    return null;
+                }
+                top.add(byId.get(rank.id()));
+            }
+            if (top.size() < limit && floor != null) {
+                return null;
+            }
+            return top;
+        }
+
+        synchronized void update(TopReview review) {
+            TopReview previous = byId.get(review.row().id());
+            if (previous != null) {
+                order.remove(rank(previous));
+            } else if (floor != null && RANK_ORDER.compare(rank(review), floor) >= 0) {
+                // Still ranked below the cached range; its exact place does not matter
+                return;
+            }
+            byId.put(review.row().id(), review);
+            order.add(rank(review));
+
+            if (order.size() > capacity) {
+                Rank dropped = order.pollLast();
+                byId.remove(dropped.id());
+                if (floor == null || RANK_ORDER.compare(dropped, floor) < 0) {
+                    floor = dropped;
+                }
+            }
+        }
+
+        synchronized void remove(Long reviewId) {
+            TopReview previous = byId.remove(reviewId);
+            if (previous != null) {
+                order.remove(rank(previous));
+            }
+        }
+    }
+}
@@ -0,0 +1,146 @@
+package com.isfa.dsi.filmexplorer.services;
+
+import com.isfa.dsi.filmexplorer.models.Watchlist;
+import com.isfa.dsi.filmexplorer.repos.WatchlistRepo;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Per-user watchlist entry counts by status, so statistics need no query.
+ *
+ * A user's counts are seeded by one GROUP BY query on first use and then moved by this
+ * instance's committed watchlist writes. Entries expire after a TTL, which bounds how
+ * stale they can get when other instances write, and only the most recently used users
+ * are kept. Writes that touch many users at once (a movie deleted) drop every entry.
+ * A seed whose query overlapped a write to the user is returned but not cached, and a
+ * committed write only moves counts seeded before it started; newer ones may already
+ * include it and are dropped instead.
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class WatchlistCounters {
+
+    private static final Watchlist.WatchlistStatus[] STATUSES = Watchlist.WatchlistStatus.values();
+
+    private final WatchlistRepo watchlistRepository;
+
+    @Value("${application.watchlist.counters.max-users:50000}")
+    private int maxUsers;
+
+    @Value("${application.watchlist.counters.ttl-seconds:600}")
+    private long ttlSeconds;
+
+    private final Map<Long, Entry> users = new LinkedHashMap<>(256, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<Long, Entry> eldest) {
+            return size() > maxUsers;
+        }
+    };
+
+    // Guarded by users
+    private final WriteGenerations generations = new WriteGenerations();
+
+    /**
+     * The user's entry count per status, indexed by {@link Watchlist.WatchlistStatus#ordinal()}
+     */
+    public long[] counts(Long userId) {
+        long now = System.currentTimeMillis();
+        long generation;
+        synchronized (users) {
+            Entry entry = users.get(userId);
+            if (entry != null && now - entry.loadedAt < ttlSeconds * 1000) {
+                return entry.counts.clone();
+            }
+            generation = generations.current(userId);
+        }
+
+        long[] counts = new long[STATUSES.length];
+        for (Object[] row : watchlistRepository.countByStatus(userId)) {
+            counts[((Watchlist.WatchlistStatus) row[0]).ordinal()] = (Long) row[1];
+        }
+        synchronized (users) {
+            if (generations.current(userId) == generation) {
+                users.put(userId, new Entry(counts.clone(), now, generation));
+            }
+        }
+        return counts;
+    }
+
+    /**
+     * A write to the user's watchlist is about to commit; call it inside the writing
+     * transaction and pass the token to {@link #record} after the commit
+     */
+    public long writing(Long userId) {
+        synchronized (users) {
+            generations.bump(userId);
+            return generations.current(userId);
+        }
+    }
+
+    /**
+     * Apply a committed write to the user's cached counts, if any
+     *
+     * @param token what {@link #writing} returned for this write
+     * @param removed status of the entry before the write, or null for an addition
+     * @param added status after the write, or null for a removal
+     */
+    public void record(Long userId, long token, Watchlist.WatchlistStatus removed, Watchlist.WatchlistStatus added) {
+        synchronized (users) {
+            generations.bump(userId);
+            Entry entry = users.get(userId);
+            if (entry == null) {
+                return;
+            }
+            // Seeded after the write started: its query may have run after the commit
+            if (entry.generation >= token) {
+                users.remove(userId);
+                return;
+            }
+            if (removed != null) {
+                entry.counts[removed.ordinal()]--;
+            }
+            if (added != null) {
+                entry.counts[added.ordinal()]++;
+            }
+        }
+    }
+
+    /**
+     * Forget the user's counts; the next read seeds them again
+     */
+    public void invalidate(Long userId) {
+        synchronized (users) {
+            generations.bump(userId);
+            users.remove(userId);
+        }
+    }
+
+    /**
+     * Deleting a movie cascades to every watchlist holding it
+     */
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+    public void onCatalogChanged(MovieCatalogChangedEvent event) {
+        if (event.deleted()) {
+            invalidateAll();
+        }
+    }
+
+    public void invalidateAll() {
+        synchronized (users) {
+            generations.bumpAll();
+            users.clear();
+        }
+    }
+
+    // generation: the user's write generation before the seed query
+    private record Entry(long[] counts, long loadedAt, long generation) {
+    }
+}
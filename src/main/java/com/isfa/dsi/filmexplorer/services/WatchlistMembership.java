@@ -0,0 +1,223 @@
+package com.isfa.dsi.filmexplorer.services;
+
+import com.isfa.dsi.filmexplorer.models.Watchlist;
+import com.isfa.dsi.filmexplorer.repos.WatchlistRepo;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Answers "which of these movies are in my watchlist, and how" without a query per movie.
+ *
+ * A user's watchlist is loaded once into one sorted array of movie ids per status, about
+ * eight bytes per entry, so checking a page of cards is a binary search per card. Arrays are
+ * replaced rather than modified by this instance's committed writes, so readers never lock
+ * while searching. As with {@link LikedReviewsCache}, entries expire after a TTL, only the
+ * most recently used users are kept, and users with watchlists too large to cache are
+ * remembered as such and answered by one batched IN query. Deleting a movie drops every entry. A load whose query
+ * overlapped a write to the user is used once but not cached.
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class WatchlistMembership {
+
+    private static final Watchlist.WatchlistStatus[] STATUSES = Watchlist.WatchlistStatus.values();
+
+    private final WatchlistRepo watchlistRepository;
+
+    @Value("${application.watchlist.membership.max-users:10000}")
+    private int maxUsers;
+
+    @Value("${application.watchlist.membership.max-entries-per-user:20000}")
+    private int maxEntriesPerUser;
+
+    @Value("${application.watchlist.membership.ttl-seconds:600}")
+    private long ttlSeconds;
+
+    private final Map<Long, Entry> users = new LinkedHashMap<>(256, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<Long, Entry> eldest) {
+            return size() > maxUsers;
+        }
+    };
+
+    // Guarded by users
+    private final WriteGenerations generations = new WriteGenerations();
+
+    /**
+     * Status of each of {@code movieIds} in the user's watchlist; movies not in it are absent
+     */
+    public Map<Long, Watchlist.WatchlistStatus> statusesOf(Long userId, Collection<Long> movieIds) {
+        if (userId == null || movieIds.isEmpty()) {
+            return Map.of();
+        }
+
+        Entry entry = entry(userId);
+        Map<Long, Watchlist.WatchlistStatus> statuses = new HashMap<>();
+        if (entry.movieIds == null) {
+            for (Object[] row : watchlistRepository.findStatusesByMovieIdIn(userId, movieIds)) {
+                statuses.put((Long) row[0], (Watchlist.WatchlistStatus) row[1]);
+            }
+            return statuses;
+        }
+        long[][] byStatus = entry.movieIds;
+        for (Long movieId : movieIds) {
+            for (int s = 0; s < byStatus.length; s++) {
+                if (Arrays.binarySearch(byStatus[s], movieId) >= 0) {
+                    statuses.put(movieId, STATUSES[s]);
+                    break;
+                }
+            }
+        }
+        return statuses;
+    }
+
+    public boolean contains(Long userId, Long movieId) {
+        return statusesOf(userId, List.of(movieId)).containsKey(movieId);
+    }
+
+    /**
+     * A write to the user's watchlist is about to commit; call it inside the writing
+     * transaction, before {@link #record} runs after the commit
+     */
+    public void writing(Long userId) {
+        synchronized (users) {
+            generations.bump(userId);
+        }
+    }
+
+    /**
+     * Apply a committed write to the user's cached arrays, if any
+     *
+     * @param removed status of the entry before the write, or null for an addition
+     * @param added status after the write, or null for a removal
+     */
+    public void record(Long userId, Long movieId, Watchlist.WatchlistStatus removed, Watchlist.WatchlistStatus added) {
+        synchronized (users) {
+            generations.bump(userId);
+            Entry entry = users.get(userId);
+            if (entry == null || entry.movieIds == null) {
+                return;
+            }
+            long[][] movieIds = entry.movieIds.clone();
+            if (removed != null) {
+                movieIds[removed.ordinal()] = without(movieIds[removed.ordinal()], movieId);
+            }
+            if (added != null) {
+                movieIds[added.ordinal()] = with(movieIds[added.ordinal()], movieId);
+            }
+            users.put(userId, new Entry(movieIds, entry.loadedAt));
+        }
+    }
+
+    /**
+     * Forget the user's watchlist; the next read loads it again
+     */
+    public void invalidate(Long userId) {
+        synchronized (users) {
+            generations.bump(userId);
+            users.remove(userId);
+        }
+    }
+
+    /**
+     * Deleting a movie cascades to every watchlist holding it
+     */
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+    public void onCatalogChanged(MovieCatalogChangedEvent event) {
+        if (event.deleted()) {
+            invalidateAll();
+        }
+    }
+
+    public void invalidateAll() {
+        synchronized (users) {
+            generations.bumpAll();
+            users.clear();
+        }
+    }
+
+    // Cached arrays for the user, loading them if needed
+    private Entry entry(Long userId) {
+        long now = System.currentTimeMillis();
+        long generation;
+        synchronized (users) {
+            Entry entry = users.get(userId);
+            if (entry != null && now - entry.loadedAt < ttlSeconds * 1000) {
+                return entry;
+            }
+            generation = generations.current(userId);
+        }
+
+        List<Object[]> rows = watchlistRepository.findAllMovieStatuses(userId, maxEntriesPerUser + 1);
+        if (rows.size() > maxEntriesPerUser) {
+            log.debug("User {} has more than {} watchlist entries, not caching them", userId, maxEntriesPerUser);
+            return install(userId, generation, new Entry(null, now));
+        }
+        int[] sizes = new int[STATUSES.length];
+        for (Object[] row : rows) {
+            sizes[Watchlist.WatchlistStatus.valueOf((String) row[1]).ordinal()]++;
+        }
+        long[][] movieIds = new long[STATUSES.length][];
+        for (int s = 0; s < movieIds.length; s++) {
+            movieIds[s] = new long[sizes[s]];
+        }
+        int[] filled = new int[STATUSES.length];
+        // Rows come ordered by movie id, so every array is sorted
+        for (Object[] row : rows) {
+            int s = Watchlist.WatchlistStatus.valueOf((String) row[1]).ordinal();
+            movieIds[s][filled[s]++] = ((Number) row[0]).longValue();
+        }
+
+        return install(userId, generation, new Entry(movieIds, now));
+    }
+
+    // Cache a load unless a write to the user happened since its generation was read
+    private Entry install(Long userId, long generation, Entry entry) {
+        synchronized (users) {
+            if (generations.current(userId) == generation) {
+                users.put(userId, entry);
+            }
+        }
+        return entry;
+    }
+
+    private static long[] with(long[] sorted, long movieId) {
+        int index = Arrays.binarySearch(sorted, movieId);
+        if (index >= 0) {
+            return sorted;
+        }
+        int insertAt = -index - 1;
+        long[] copy = new long[sorted.length + 1];
+        System.arraycopy(sorted, 0, copy, 0, insertAt);
+        copy[insertAt] = movieId;
+        System.arraycopy(sorted, insertAt, copy, insertAt + 1, sorted.length - insertAt);
+        return copy;
+    }
+
+    private static long[] without(long[] sorted, long movieId) {
+        int index = Arrays.binarySearch(sorted, movieId);
+        if (index < 0) {
+            return sorted;
+        }
+        long[] copy = new long[sorted.length - 1];
+        System.arraycopy(sorted, 0, copy, 0, index);
+        System.arraycopy(sorted, index + 1, copy, index, copy.length - index);
+        return copy;
+    }
+
+    // The arrays are never modified once published; null when the watchlist is too large to cache
+    private record Entry(long[][] movieIds, long loadedAt) {
+    }
+}
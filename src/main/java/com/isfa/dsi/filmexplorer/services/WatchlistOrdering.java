@@ -0,0 +1,206 @@
+package com.isfa.dsi.filmexplorer.services;
+
+import com.isfa.dsi.filmexplorer.repos.WatchlistBulkRepo;
+import com.isfa.dsi.filmexplorer.repos.WatchlistRepo;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Custom (drag and drop) order of a user's watchlist, kept in {@code watchlist.position}.
+ *
+ * Entries are listed by position ascending, newest first among equal positions. New
+ * entries take a fresh key one gap above the current top, so they show up first without
+ * touching the others and never tie. Positions are sparse: a moved entry takes the
+ * midpoint between its new neighbours, which writes exactly one row. When two neighbours
+ * have no integer left between them the user's entries are renumbered evenly in the same
+ * transaction before placing the entry; when a move leaves
+ * a thin gap, the renumbering is done on a background thread instead so later moves stay
+ * single-row. Moves and renumberings of one user are serialized by an advisory lock.
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class WatchlistOrdering {
+
+    // Spacing between entries after a renumbering, unless the watchlist is too large for it
+    static final int GAP = 1 << 16;
+
+    // Gaps narrower than this schedule a background renumbering
+    static final int MIN_GAP = 16;
+
+    // Keep clear of integer overflow when stepping past the first or last entry
+    static final long MIN_POSITION = Integer.MIN_VALUE / 2;
+    static final long MAX_POSITION = Integer.MAX_VALUE / 2;
+
+    private static final PageRequest FIRST = PageRequest.of(0, 1);
+
+    private final WatchlistRepo watchlistRepository;
+    private final WatchlistBulkRepo watchlistBulkRepository;
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+
+    private final Set<Long> pendingRebalances = ConcurrentHashMap.newKeySet();
+
+    private final ExecutorService executor = Executors.newSingleThreadExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "watchlist-rebalance");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+
+    /**
+     * Give rows written before positions were maintained the default position
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void backfillPositions() {
+        try {
+            Integer updated = transactionTemplate.execute(status ->
+                    jdbcTemplate.update("UPDATE watchlist SET position = 0 WHERE position IS NULL"));
+            if (updated != null && updated > 0) {
+                log.info("Assigned a default position to {} watchlist entries", updated);
+            }
+        } catch (Exception e) {
+            log.error("Watchlist position backfill failed: {}", e.getMessage());
+        }
+    }
+
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+
+
+    /**
+     * Positions for {@code count} new entries of the user, on top of the existing ones and
+     * each above the previous, so entries inserted in this order list newest first.
+     * Must run in the caller's transaction, which then inserts the entries.
+     */
+    public int[] topPositions(Long userId, int count) {
+        watchlistBulkRepository.lockPositions(userId);
+
+        long top = topPosition(userId);
+        if (top - (long) count * GAP < MIN_POSITION) {
+            rebalance(userId);
+            top = topPosition(userId);
+        }
+        // Only a watchlist of millions of entries runs out of room even after renumbering
+        long step = Math.max(1, Math.min(GAP, (top - MIN_POSITION) / Math.max(1, count)));
+        int[] positions = new int[count];
+        for (int i = 0; i < count; i++) {
+            positions[i] = (int) Math.max(MIN_POSITION, top - (i + 1) * step);
+        }
+        return positions;
+    }
+
+
+    /**
+     * Position placing the entry right after {@code afterId}, or first when it is null.
+     * Must run in the caller's transaction, which then writes the returned position.
+     */
+    public int positionAfter(Long userId, Long entryId, Long afterId) {
+        watchlistBulkRepository.lockPositions(userId);
+
+        for (int attempt = 0; ; attempt++) {
+            Long before = null;
+            Long after;
+            if (afterId == null) {
+                after = firstPosition(watchlistRepository.findFirstPositions(userId, entryId, FIRST));
+            } else {
+                Integer anchor = watchlistRepository.findPositionById(afterId);
+                before = anchor == null ? 0L : anchor.longValue();
+                after = firstPosition(watchlistRepository.findPositionsAfter(
+                        userId, entryId, before.intValue(), afterId, FIRST));
+            }
+
+            Long position = between(before, after);
+            if (position != null) {
+                if (before != null && after != null && after - before < MIN_GAP) {
+                    scheduleRebalance(userId);
+                }
+                return position.intValue();
+            }
+            if (attempt > 0) {
+                throw new IllegalStateException("No room to place watchlist entry " + entryId);
+            }
+            rebalance(userId);
+        }
+    }
+
+
+    /**
+     * Spread the user's entries evenly, keeping their order. Must run in a transaction.
+     *
+     * @return the number of entries that moved
+     */
+    public int rebalance(Long userId) {
+        watchlistBulkRepository.lockPositions(userId);
+        long entries = watchlistRepository.countByUserId(userId);
+        int gap = (int) Math.max(1, Math.min(GAP, MAX_POSITION / (entries + 1)));
+        int moved = watchlistBulkRepository.renumberPositions(userId, gap);
+        log.debug("Renumbered {} of {} watchlist entries of user {}", moved, entries, userId);
+        return moved;
+    }
+
+
+    /**
+     * Rebalance the user's entries on the background thread, once however often asked
+     */
+    public void scheduleRebalance(Long userId) {
+        if (!pendingRebalances.add(userId)) {
+            return;
+        }
+        executor.execute(() -> {
+            pendingRebalances.remove(userId);
+            try {
+                transactionTemplate.executeWithoutResult(status -> rebalance(userId));
+            } catch (Exception e) {
+                log.warn("Watchlist rebalance failed for user {}: {}", userId, e.getMessage());
+            }
+        });
+    }
+
+
+    /**
+     * A position strictly between two neighbours (null for none), or null if there is no room
+     */
+    static Long between(Long before, Long after) {
+        if (before == null && after == null) {
+            return 0L;
+        }
+        if (before == null) {
+            return after - GAP >= MIN_POSITION ? after - GAP : null;
+        }
+        if (after == null) {
+            return before + GAP <= MAX_POSITION ? before + GAP : null;
+        }
+        return after - before >= 2 ? before + (after - before) / 2 : null;
+    }
+
+    private long topPosition(Long userId) {
+        Integer min = watchlistRepository.findMinPosition(userId);
+        return min != null ? min : 0L;
+    }
+
+    // Position column of the first (id, position) row, if any
+    private static Long firstPosition(List<Object[]> rows) {
+        if (rows.isEmpty()) {
+            return null;
+        }
+        Number position = (Number) rows.get(0)[1];
+        return position == null ? 0L : position.longValue();
+    }
+}
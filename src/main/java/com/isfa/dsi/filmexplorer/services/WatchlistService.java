@@ -1,22 +1,41 @@
 package com.isfa.dsi.filmexplorer.services;
 
+import com.isfa.dsi.filmexplorer.DTOs.CursorPage;
+import com.isfa.dsi.filmexplorer.DTOs.MovieCard;
+import com.isfa.dsi.filmexplorer.DTOs.WatchlistBulkRequest;
+import com.isfa.dsi.filmexplorer.DTOs.WatchlistBulkResult;
 import com.isfa.dsi.filmexplorer.DTOs.WatchlistResponse;
 import com.isfa.dsi.filmexplorer.models.Watchlist;
 import com.isfa.dsi.filmexplorer.models.Movies;
+import com.isfa.dsi.filmexplorer.repos.WatchlistBulkRepo;
 import com.isfa.dsi.filmexplorer.repos.WatchlistRepo;
 import com.isfa.dsi.filmexplorer.repos.MoviesRepo;
 import com.isfa.dsi.filmexplorer.user.User;
 import com.isfa.dsi.filmexplorer.user.UserRepo;
+import com.isfa.dsi.filmexplorer.writebehind.PendingWrite;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
 
+import java.time.LocalDateTime;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
 import java.util.stream.Collectors;
 
 @Service
@@ -29,6 +48,15 @@ public class WatchlistService {
     private final MoviesRepo moviesRepository;
     private final UserRepo userRepository;
     private final FriendshipService friendshipService;
+    private final WriteBehindService writeBehindService;
+    private final MovieCatalogService movieCatalogService;
+    private final WatchlistCounters watchlistCounters;
+    private final WatchlistMembership watchlistMembership;
+    private final WatchlistBulkRepo watchlistBulkRepository;
+    private final WatchlistOrdering watchlistOrdering;
+
+    @Value("${application.watchlist.bulk.max-items:500}")
+    private int bulkMaxItems;
 
     /**
      * Add a movie to user's watchlist
@@ -54,14 +82,161 @@ public class WatchlistService {
                 .user(user)
                 .movie(movie)
                 .status(status != null ? status : Watchlist.WatchlistStatus.WANT_TO_WATCH)
+                .position(watchlistOrdering.topPositions(userId, 1)[0])
                 .build();
 
         Watchlist savedWatchlist = watchlistRepository.save(watchlist);
+        long token = writingWatchlistOf(userId);
+        afterCommit(() -> {
+            watchlistCounters.record(userId, token, null, savedWatchlist.getStatus());
+            watchlistMembership.record(userId, movieId, null, savedWatchlist.getStatus());
+        });
         log.info("Movie added to watchlist successfully");
 
         return mapToWatchlistResponse(savedWatchlist);
     }
 
+    /**
+     * Add a movie to user's watchlist in write-behind mode: validated and logged durably,
+     * then inserted by {@link WriteBehindService}. Runs outside a transaction so no
+     * connection is held while the log syncs. The response has no id until the entry is stored.
+     */
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    public WatchlistResponse addToWatchlistWriteBehind(Long userId, Long movieId, Watchlist.WatchlistStatus status) {
+        log.info("Queueing movie {} for watchlist of user {}", movieId, userId);
+
+        // Movie fields for the response, from the catalogue when it is loaded
+        MovieCard card = movieCatalogService.findCard(movieId)
+                .or(() -> moviesRepository.findById(movieId).map(movie -> {
+                    MovieCard fromDb = new MovieCard();
+                    fromDb.setTitle(movie.getTitle());
+                    fromDb.setReleaseYear(movie.getReleaseYear() != null ? movie.getReleaseYear().intValue() : null);
+                    fromDb.setPosterPath(movie.getPosterPath());
+                    return fromDb;
+                }))
+                .orElseThrow(() -> new RuntimeException("Movie not found"));
+
+        // Check if already in watchlist, queued or stored
+        if (writeBehindService.pendingWatchlistEntry(userId, movieId).isPresent()
+                || watchlistRepository.existsByUserIdAndMovieId(userId, movieId)) {
+            throw new RuntimeException("Movie already in watchlist");
+        }
+
+        PendingWrite.WatchlistAdd pending = new PendingWrite.WatchlistAdd(userId, movieId,
+                (status != null ? status : Watchlist.WatchlistStatus.WANT_TO_WATCH).name(),
+                card.getTitle(), card.getReleaseYear(), card.getPosterPath(), WriteBehindService.now());
+        writeBehindService.submit(pending);
+        log.info("Movie queued for watchlist");
+
+        return mapPendingToWatchlistResponse(pending);
+    }
+
+    /**
+     * Apply many additions, status changes and removals in one transaction: movie ids are
+     * checked with one IN query, then each kind of change is one statement
+     *
+     * @return one result per item, in request order
+     * @throws IllegalArgumentException when the request has no items or too many
+     */
+    public List<WatchlistBulkResult> applyBulk(Long userId, List<WatchlistBulkRequest.Item> items) {
+        if (items == null || items.isEmpty()) {
+            throw new IllegalArgumentException("No items");
+        }
+        if (items.size() > bulkMaxItems) {
+            throw new IllegalArgumentException("At most " + bulkMaxItems + " items per request");
+        }
+        log.info("Applying {} bulk watchlist changes for user {}", items.size(), userId);
+
+        WatchlistBulkResult[] results = new WatchlistBulkResult[items.size()];
+        Map<Long, Integer> indexByMovie = new HashMap<>();
+        Map<Long, String> adds = new LinkedHashMap<>();
+        Map<Long, String> statusChanges = new LinkedHashMap<>();
+        List<Long> removals = new ArrayList<>();
+
+        for (int i = 0; i < items.size(); i++) {
+            WatchlistBulkRequest.Item item = items.get(i);
+            String op = item.getOp() != null ? item.getOp().toUpperCase() : null;
+            if (item.getMovieId() == null) {
+                results[i] = bulkResult(i, item, WatchlistBulkResult.Outcome.INVALID, "Movie ID is required");
+                continue;
+            }
+            if (indexByMovie.putIfAbsent(item.getMovieId(), i) != null) {
+                results[i] = bulkResult(i, item, WatchlistBulkResult.Outcome.INVALID, "Movie appears more than once");
+                continue;
+            }
+            Watchlist.WatchlistStatus status;
+            try {
+                status = item.getStatus() != null ? Watchlist.WatchlistStatus.valueOf(item.getStatus().toUpperCase()) : null;
+            } catch (IllegalArgumentException e) {
+                results[i] = bulkResult(i, item, WatchlistBulkResult.Outcome.INVALID, "Unknown status: " + item.getStatus());
+                continue;
+            }
+            if ("ADD".equals(op)) {
+                adds.put(item.getMovieId(), (status != null ? status : Watchlist.WatchlistStatus.WANT_TO_WATCH).name());
+            } else if ("STATUS".equals(op) && status != null) {
+                statusChanges.put(item.getMovieId(), status.name());
+            } else if ("REMOVE".equals(op)) {
+                removals.add(item.getMovieId());
+            } else {
+                results[i] = bulkResult(i, item, WatchlistBulkResult.Outcome.INVALID,
+                        "STATUS".equals(op) ? "Status is required" : "Unknown op: " + item.getOp());
+            }
+        }
+
+        // Only additions need the movie to exist; other changes simply find no entry
+        if (!adds.isEmpty()) {
+            Set<Long> existing = new HashSet<>(moviesRepository.findExistingIds(adds.keySet()));
+            adds.keySet().removeIf(movieId -> {
+                if (existing.contains(movieId)) {
+                    return false;
+                }
+                int i = indexByMovie.get(movieId);
+                results[i] = bulkResult(i, items.get(i), WatchlistBulkResult.Outcome.MOVIE_NOT_FOUND, "Movie not found");
+                return true;
+            });
+            // Queued in write-behind mode counts as already there
+            writeBehindService.pendingWatchlist(userId).forEach(entry -> adds.remove(entry.movieId()));
+        }
+
+        LocalDateTime now = LocalDateTime.now();
+        int[] positions = adds.isEmpty() ? new int[0] : watchlistOrdering.topPositions(userId, adds.size());
+        Set<Long> added = watchlistBulkRepository.insert(userId, adds, positions, now);
+        Set<Long> updated = watchlistBulkRepository.updateStatus(userId, statusChanges, now);
+        Set<Long> removed = watchlistBulkRepository.delete(userId, removals);
+        if (!added.isEmpty() || !updated.isEmpty() || !removed.isEmpty()) {
+            afterCommit(() -> {
+                watchlistCounters.invalidate(userId);
+                watchlistMembership.invalidate(userId);
+            });
+        }
+
+        for (int i = 0; i < items.size(); i++) {
+            if (results[i] != null) {
+                continue;
+            }
+            WatchlistBulkRequest.Item item = items.get(i);
+            Long movieId = item.getMovieId();
+            WatchlistBulkResult.Outcome outcome;
+            if (added.contains(movieId)) {
+                outcome = WatchlistBulkResult.Outcome.ADDED;
+            } else if (updated.contains(movieId)) {
+                outcome = WatchlistBulkResult.Outcome.UPDATED;
+            } else if (removed.contains(movieId)) {
+                outcome = WatchlistBulkResult.Outcome.REMOVED;
+            } else {
+                outcome = WatchlistBulkResult.Outcome.UNCHANGED;
+            }
+            String message = null;
+            if (outcome == WatchlistBulkResult.Outcome.UNCHANGED) {
+                message = "ADD".equalsIgnoreCase(item.getOp()) ? "Movie already in watchlist" : "Movie not in watchlist";
+            }
+            results[i] = bulkResult(i, item, outcome, message);
+        }
+        log.info("Bulk watchlist changes applied: {} added, {} updated, {} removed", added.size(), updated.size(),
+                removed.size());
+        return Arrays.asList(results);
+    }
+
     /**
      * Remove a movie from user's watchlist
      */
@@ -77,6 +252,11 @@ public class WatchlistService {
         }
 
         watchlistRepository.deleteById(watchlistId);
+        long token = writingWatchlistOf(userId);
+        afterCommit(() -> {
+            watchlistCounters.record(userId, token, watchlist.getStatus(), null);
+            watchlistMembership.record(userId, watchlist.getMovie().getId(), watchlist.getStatus(), null);
+        });
         log.info("Watchlist entry removed successfully");
     }
 
@@ -94,8 +274,17 @@ public class WatchlistService {
             throw new RuntimeException("User can only update their own watchlist entries");
         }
 
+        Watchlist.WatchlistStatus oldStatus = watchlist.getStatus();
         watchlist.setStatus(newStatus);
         Watchlist updatedWatchlist = watchlistRepository.save(watchlist);
+        if (oldStatus != newStatus) {
+            Long movieId = watchlist.getMovie().getId();
+            long token = writingWatchlistOf(userId);
+            afterCommit(() -> {
+                watchlistCounters.record(userId, token, oldStatus, newStatus);
+                watchlistMembership.record(userId, movieId, oldStatus, newStatus);
+            });
+        }
 
         log.info("Watchlist status updated successfully");
         return mapToWatchlistResponse(updatedWatchlist);
@@ -107,13 +296,107 @@ public class WatchlistService {
     public Page<WatchlistResponse> getUserWatchlist(Long userId, Pageable pageable) {
         log.info("Fetching watchlist for user {}", userId);
 
-        Page<Watchlist> watchlists = watchlistRepository.findByUserId(userId, pageable);
+        return withPending(userId, watchlistRepository.findByUserId(userId, pageable), pageable);
+    }
+
+    /**
+     * Get user's watchlist in their custom (drag and drop) order
+     */
+    public Page<WatchlistResponse> getUserWatchlistInCustomOrder(Long userId, Pageable pageable) {
+        log.info("Fetching watchlist for user {} in custom order", userId);
+
+        // Pending additions will be placed on top when flushed, so they head the list like new entries do
+        return withPending(userId, watchlistRepository.findByUserIdInCustomOrder(userId,
+                PageRequest.of(pageable.getPageNumber(), pageable.getPageSize())), pageable);
+    }
+
+    /**
+     * Move an entry right after another of the user's entries, or to the top when {@code afterId} is null.
+     * Writes only the moved entry.
+     */
+    public WatchlistResponse moveWatchlistEntry(Long watchlistId, Long afterId, Long userId) {
+        log.info("Moving watchlist entry {} after {}", watchlistId, afterId);
 
+        Watchlist watchlist = watchlistRepository.findById(watchlistId)
+                .orElseThrow(() -> new RuntimeException("Watchlist entry not found"));
+
+        // Check if user owns this watchlist entry
+        if (!watchlist.getUser().getId().equals(userId)) {
+            throw new RuntimeException("User can only update their own watchlist entries");
+        }
+
+        if (afterId != null) {
+            if (afterId.equals(watchlistId)) {
+                throw new IllegalArgumentException("Cannot move a watchlist entry after itself");
+            }
+            Watchlist after = watchlistRepository.findById(afterId)
+                    .orElseThrow(() -> new RuntimeException("Watchlist entry not found"));
+            if (!after.getUser().getId().equals(userId)) {
+                throw new RuntimeException("User can only update their own watchlist entries");
+            }
+        }
+
+        watchlist.setPosition(watchlistOrdering.positionAfter(userId, watchlistId, afterId));
+        Watchlist updatedWatchlist = watchlistRepository.save(watchlist);
+
+        log.info("Watchlist entry moved to position {}", updatedWatchlist.getPosition());
+        return mapToWatchlistResponse(updatedWatchlist);
+    }
+
+    // Read-your-writes in write-behind mode: unflushed additions head the first page
+    private Page<WatchlistResponse> withPending(Long userId, Page<Watchlist> watchlists, Pageable pageable) {
         List<WatchlistResponse> responses = watchlists.getContent().stream()
                 .map(this::mapToWatchlistResponse)
                 .collect(Collectors.toList());
 
-        return new PageImpl<>(responses, pageable, watchlists.getTotalElements());
+        long total = watchlists.getTotalElements();
+        if (pageable.getPageNumber() == 0) {
+            List<WatchlistResponse> pending = writeBehindService.pendingWatchlist(userId).stream()
+                    .filter(entry -> responses.stream().noneMatch(response -> response.getMovieId().equals(entry.movieId())))
+                    .map(this::mapPendingToWatchlistResponse)
+                    .toList();
+            responses.addAll(0, pending);
+            total += pending.size();
+        }
+
+        return new PageImpl<>(responses, pageable, total);
+    }
+
+    /**
+     * Keyset page of the user's watchlist, most recently added first, without a count query
+     *
+     * @param cursor {@link CursorPage#getNextCursor()} of the previous page, null or empty for the first
+     */
+    public CursorPage<WatchlistResponse> getUserWatchlistAfter(Long userId, String cursor, int size) {
+        log.info("Fetching watchlist for user {} after cursor {}", userId, cursor);
+
+        KeysetCursor after = KeysetCursor.decode(cursor);
+        int pageSize = KeysetCursor.pageSize(size);
+        CursorPage<WatchlistResponse> page = toCursorPage(watchlistRepository.findByUserIdAfter(
+                userId, after.at(), after.id(), PageRequest.of(0, pageSize + 1)), pageSize);
+
+        // Read-your-writes in write-behind mode: unflushed additions head the first page
+        if (after.isStart()) {
+            List<WatchlistResponse> items = page.getItems();
+            items.addAll(0, writeBehindService.pendingWatchlist(userId).stream()
+                    .filter(entry -> items.stream().noneMatch(response -> response.getMovieId().equals(entry.movieId())))
+                    .map(this::mapPendingToWatchlistResponse)
+                    .toList());
+        }
+        return page;
+    }
+
+    /**
+     * Keyset page of the user's entries in one status, most recently added first
+     */
+    public CursorPage<WatchlistResponse> getWatchlistByStatusAfter(Long userId, Watchlist.WatchlistStatus status,
+                                                                   String cursor, int size) {
+        log.info("Fetching watchlist for user {} with status {} after cursor {}", userId, status, cursor);
+
+        KeysetCursor after = KeysetCursor.decode(cursor);
+        int pageSize = KeysetCursor.pageSize(size);
+        return toCursorPage(watchlistRepository.findByUserIdAndStatusAfter(
+                userId, status, after.at(), after.id(), PageRequest.of(0, pageSize + 1)), pageSize);
     }
 
     /**
@@ -135,7 +418,37 @@ public class WatchlistService {
      * Check if movie is in user's watchlist
      */
     public boolean isInWatchlist(Long userId, Long movieId) {
-        return watchlistRepository.existsByUserIdAndMovieId(userId, movieId);
+        return writeBehindService.pendingWatchlistEntry(userId, movieId).isPresent()
+                || watchlistMembership.contains(userId, movieId);
+    }
+
+    /**
+     * Watchlist status of each of the movies that the user has in their watchlist, queued or stored
+     */
+    @Transactional(readOnly = true)
+    public Map<Long, String> getStatusesOf(Long userId, Collection<Long> movieIds) {
+        Map<Long, String> statuses = new HashMap<>();
+        watchlistMembership.statusesOf(userId, movieIds).forEach((movieId, status) -> statuses.put(movieId, status.name()));
+        for (PendingWrite.WatchlistAdd entry : writeBehindService.pendingWatchlist(userId)) {
+            if (movieIds.contains(entry.movieId())) {
+                statuses.putIfAbsent(entry.movieId(), entry.status());
+            }
+        }
+        return statuses;
+    }
+
+    /**
+     * Set {@link MovieCard#getWatchlistStatus()} on the cards of movies in the user's watchlist
+     */
+    @Transactional(readOnly = true)
+    public void annotate(Long userId, List<MovieCard> cards) {
+        if (cards == null || cards.isEmpty()) {
+            return;
+        }
+        Map<Long, String> statuses = getStatusesOf(userId, cards.stream().map(MovieCard::getId).toList());
+        for (MovieCard card : cards) {
+            card.setWatchlistStatus(statuses.get(card.getId()));
+        }
     }
 
     /**
@@ -144,24 +457,41 @@ public class WatchlistService {
     public WatchlistResponse getWatchlistEntry(Long userId, Long movieId) {
         log.info("Fetching watchlist entry for user {} and movie {}", userId, movieId);
 
-        Watchlist watchlist = watchlistRepository.findByUserIdAndMovieId(userId, movieId)
+        return watchlistRepository.findByUserIdAndMovieId(userId, movieId)
+                .map(this::mapToWatchlistResponse)
+                .or(() -> writeBehindService.pendingWatchlistEntry(userId, movieId).map(this::mapPendingToWatchlistResponse))
                 .orElseThrow(() -> new RuntimeException("Movie not in watchlist"));
-
-        return mapToWatchlistResponse(watchlist);
     }
 
     /**
      * Get count of movies in user's watchlist
      */
     public long getWatchlistCount(Long userId) {
-        return watchlistRepository.countByUserId(userId);
+        long total = 0;
+        for (long count : getStatusCounts(userId)) {
+            total += count;
+        }
+        return total;
     }
 
     /**
      * Get count of movies in specific status
      */
     public long getWatchlistCountByStatus(Long userId, Watchlist.WatchlistStatus status) {
-        return watchlistRepository.countByUserIdAndStatus(userId, status);
+        return getStatusCounts(userId)[status.ordinal()];
+    }
+
+    /**
+     * Count of the user's entries per status, indexed by {@link Watchlist.WatchlistStatus#ordinal()};
+     * served from {@link WatchlistCounters}, plus unflushed write-behind additions
+     */
+    @Transactional(readOnly = true)
+    public long[] getStatusCounts(Long userId) {
+        long[] counts = watchlistCounters.counts(userId);
+        for (PendingWrite.WatchlistAdd entry : writeBehindService.pendingWatchlist(userId)) {
+            counts[Watchlist.WatchlistStatus.valueOf(entry.status()).ordinal()]++;
+        }
+        return counts;
     }
 
     /**
@@ -170,6 +500,10 @@ public class WatchlistService {
     public void clearWatchlist(Long userId) {
         log.warn("Clearing entire watchlist for user {}", userId);
         watchlistRepository.deleteByUserId(userId);
+        afterCommit(() -> {
+            watchlistCounters.invalidate(userId);
+            watchlistMembership.invalidate(userId);
+        });
     }
 
     /**
@@ -178,6 +512,10 @@ public class WatchlistService {
     public void removeMovieFromAllWatchlists(Long movieId) {
         log.info("Removing movie {} from all watchlists", movieId);
         watchlistRepository.deleteByMovieId(movieId);
+        afterCommit(() -> {
+            watchlistCounters.invalidateAll();
+            watchlistMembership.invalidateAll();
+        });
     }
 
     /**
@@ -201,6 +539,37 @@ public class WatchlistService {
         return new PageImpl<>(responses, pageable, watchlists.getTotalElements());
     }
 
+    /**
+     * Keyset page of a friend's public watchlist, most recently added first
+     */
+    public CursorPage<WatchlistResponse> getFriendWatchlistAfter(Long currentUserId, Long friendId, String cursor,
+                                                                 int size) {
+        log.info("Fetching public watchlist for friend {} by user {} after cursor {}", friendId, currentUserId, cursor);
+
+        // Check if they are friends
+        if (!friendshipService.areFriends(currentUserId, friendId)) {
+            throw new RuntimeException("Not friends with this user");
+        }
+
+        KeysetCursor after = KeysetCursor.decode(cursor);
+        int pageSize = KeysetCursor.pageSize(size);
+        return toCursorPage(watchlistRepository.findPublicWatchlistAfter(
+                friendId, after.at(), after.id(), PageRequest.of(0, pageSize + 1)), pageSize);
+    }
+
+    // rows holds up to pageSize + 1 entries; the extra one only tells that more follow
+    private CursorPage<WatchlistResponse> toCursorPage(List<Watchlist> rows, int pageSize) {
+        boolean hasMore = rows.size() > pageSize;
+        List<Watchlist> page = hasMore ? rows.subList(0, pageSize) : rows;
+        List<WatchlistResponse> items = page.stream()
+                .map(this::mapToWatchlistResponse)
+                .collect(Collectors.toList());
+
+        Watchlist last = hasMore ? page.get(page.size() - 1) : null;
+        return new CursorPage<>(items, last != null ? new KeysetCursor(last.getAddedAt(), last.getId()).encode() : null,
+                hasMore);
+    }
+
     /**
      * Get friends watching a specific movie
      */
@@ -249,6 +618,38 @@ public class WatchlistService {
         return mapToWatchlistResponse(updated);
     }
 
+    private static WatchlistBulkResult bulkResult(int index, WatchlistBulkRequest.Item item,
+                                                  WatchlistBulkResult.Outcome outcome, String message) {
+        return WatchlistBulkResult.builder()
+                .index(index)
+                .op(item.getOp())
+                .movieId(item.getMovieId())
+                .outcome(outcome)
+                .message(message)
+                .build();
+    }
+
+    // Caches only follow committed writes
+    private static void afterCommit(Runnable action) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            action.run();
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                action.run();
+            }
+        });
+    }
+
+    // Cache seeds racing with this transaction must not be kept; record() follows after the commit
+    // with the returned counters token
+    private long writingWatchlistOf(Long userId) {
+        watchlistMembership.writing(userId);
+        return watchlistCounters.writing(userId);
+    }
+
     /**
      * Map Watchlist entity to WatchlistResponse DTO
      */
@@ -262,8 +663,22 @@ public class WatchlistService {
                         ? watchlist.getMovie().getReleaseYear().intValue() : null)
                 .moviePosterPath(watchlist.getMovie().getPosterPath())
                 .status(watchlist.getStatus().toString())
+                .position(watchlist.getPosition())
                 .addedAt(watchlist.getAddedAt())
                 .updatedAt(watchlist.getUpdatedAt())
                 .build();
     }
-}
\ No newline at end of file
+
+    private WatchlistResponse mapPendingToWatchlistResponse(PendingWrite.WatchlistAdd entry) {
+        return WatchlistResponse.builder()
+                .userId(entry.userId())
+                .movieId(entry.movieId())
+                .movieTitle(entry.movieTitle())
+                .movieReleaseYear(entry.movieReleaseYear())
+                .moviePosterPath(entry.moviePosterPath())
+                .status(entry.status())
+                .addedAt(entry.createdAt())
+                .pending(true)
+                .build();
+    }
+}
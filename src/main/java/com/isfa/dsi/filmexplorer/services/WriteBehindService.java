@@ -0,0 +1,464 @@
+package com.isfa.dsi.filmexplorer.services;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.isfa.dsi.filmexplorer.DTOs.ReviewListRow;
+import com.isfa.dsi.filmexplorer.writebehind.AppendLog;
+import com.isfa.dsi.filmexplorer.writebehind.PendingWrite;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Path;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Optional write-behind mode for review creation and watchlist additions, for bursts that
+ * would otherwise exhaust the connection pool.
+ *
+ * A validated write is appended to a local {@link AppendLog} and acknowledged once it is
+ * on disk. A background flusher applies queued writes to PostgreSQL in grouped multi-row
+ * transactions, then advances the log checkpoint. Until then the write is kept in a
+ * per-user overlay that the read paths merge in, so authors see their own writes
+ * immediately (other users see them once flushed). The log is local: with several
+ * instances, an author's requests must reach the instance that acknowledged the write.
+ *
+ * Replay after a crash may re-apply writes, so inserts skip rows that already exist:
+ * watchlist entries by their (user, movie) key, reviews by (user, movie, created_at).
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class WriteBehindService {
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final ObjectMapper objectMapper;
+    private final MovieRatingStatsService movieRatingStatsService;
+    private final TopReviewsCache topReviewsCache;
+    private final ReviewSearchService reviewSearchService;
+    private final WatchlistCounters watchlistCounters;
+    private final WatchlistMembership watchlistMembership;
+    private final WatchlistOrdering watchlistOrdering;
+
+    @Value("${application.write-behind.enabled:false}")
+    private boolean enabled;
+
+    @Value("${application.write-behind.log-path:${java.io.tmpdir}/film-explorer/write-behind.log}")
+    private String logPath;
+
+    @Value("${application.write-behind.batch-size:500}")
+    private int batchSize;
+
+    // How long the flusher waits for more writes to group with the first one
+    @Value("${application.write-behind.max-delay-ms:50}")
+    private long maxDelayMs;
+
+    private final BlockingQueue<Queued> queue = new LinkedBlockingQueue<>();
+    private final Map<Long, Set<PendingWrite>> pendingByUser = new ConcurrentHashMap<>();
+
+    private AppendLog appendLog;
+    private Thread flusher;
+    private volatile boolean running;
+
+    // write is null for log records that could not be read back; they only advance the checkpoint
+    private record Queued(PendingWrite write, long end) {
+    }
+
+
+    @PostConstruct
+    public void open() throws IOException {
+        if (!enabled) {
+            return;
+        }
+        List<AppendLog.Entry> unapplied = new ArrayList<>();
+        appendLog = AppendLog.open(Path.of(logPath), unapplied);
+        for (AppendLog.Entry entry : unapplied) {
+            PendingWrite write = null;
+            try {
+                write = objectMapper.readValue(entry.payload(), PendingWrite.class);
+                addPending(write);
+            } catch (IOException e) {
+                log.error("Skipping unreadable write-behind record: {}", e.getMessage());
+            }
+            queue.add(new Queued(write, entry.end()));
+        }
+        if (!unapplied.isEmpty()) {
+            log.info("Replaying {} write-behind records from {}", unapplied.size(), logPath);
+        }
+    }
+
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void startFlusher() {
+        if (!enabled) {
+            return;
+        }
+        running = true;
+        flusher = new Thread(this::flushLoop, "write-behind-flusher");
+        flusher.setDaemon(true);
+        flusher.start();
+    }
+
+
+    @PreDestroy
+    public void shutdown() throws IOException, InterruptedException {
+        if (!enabled) {
+            return;
+        }
+        running = false;
+        if (flusher != null) {
+            // Give queued writes a chance to reach the database; the log keeps whatever does not
+            flusher.join(TimeUnit.SECONDS.toMillis(10));
+        }
+        appendLog.close();
+    }
+
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+
+    /**
+     * Acknowledge a validated write: returns once it is durable in the local log
+     */
+    public void submit(PendingWrite write) {
+        if (!enabled) {
+            throw new IllegalStateException("Write-behind mode is disabled");
+        }
+        try {
+            long end = appendLog.append(objectMapper.writeValueAsBytes(write));
+            // Visible to the author before the flusher can apply and retire it
+            addPending(write);
+            queue.add(new Queued(write, end));
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not log write: " + e.getMessage(), e);
+        }
+    }
+
+
+    /**
+     * Timestamp for a new write, at the precision PostgreSQL stores
+     */
+    public static LocalDateTime now() {
+        return LocalDateTime.now().truncatedTo(ChronoUnit.MICROS);
+    }
+
+
+    /**
+     * The user's unflushed reviews of a movie, newest first
+     */
+    public List<PendingWrite.Review> pendingReviews(Long userId, Long movieId) {
+        return pending(userId, PendingWrite.Review.class).stream()
+                .filter(review -> review.movieId().equals(movieId))
+                .toList();
+    }
+
+
+    /**
+     * The user's unflushed watchlist additions, newest first
+     */
+    public List<PendingWrite.WatchlistAdd> pendingWatchlist(Long userId) {
+        return pending(userId, PendingWrite.WatchlistAdd.class);
+    }
+
+
+    public Optional<PendingWrite.WatchlistAdd> pendingWatchlistEntry(Long userId, Long movieId) {
+        return pendingWatchlist(userId).stream()
+                .filter(entry -> entry.movieId().equals(movieId))
+                .findFirst();
+    }
+
+
+    private <T extends PendingWrite> List<T> pending(Long userId, Class<T> type) {
+        if (userId == null) {
+            return List.of();
+        }
+        Set<PendingWrite> writes = pendingByUser.get(userId);
+        if (writes == null) {
+            return List.of();
+        }
+        List<T> matching = new ArrayList<>();
+        synchronized (writes) {
+            for (PendingWrite write : writes) {
+                if (type.isInstance(write)) {
+                    matching.add(type.cast(write));
+                }
+            }
+        }
+        matching.sort(Comparator.comparing(PendingWrite::createdAt).reversed());
+        return matching;
+    }
+
+
+    private void addPending(PendingWrite write) {
+        // Inside compute, so a concurrent removal cannot drop the set we add to
+        pendingByUser.compute(write.userId(), (id, writes) -> {
+            Set<PendingWrite> set = writes != null ? writes : new LinkedHashSet<>();
+            synchronized (set) {
+                set.add(write);
+            }
+            return set;
+        });
+    }
+
+
+    private void removePending(PendingWrite write) {
+        pendingByUser.computeIfPresent(write.userId(), (id, writes) -> {
+            synchronized (writes) {
+                writes.remove(write);
+                return writes.isEmpty() ? null : writes;
+            }
+        });
+    }
+
+
+    private void flushLoop() {
+        // A batch that failed unexpectedly is retried before anything newer, so checkpoints never skip it
+        List<Queued> failed = null;
+        while (running || !queue.isEmpty() || failed != null) {
+            List<Queued> batch = failed;
+            try {
+                if (batch != null) {
+                    Thread.sleep(1000);
+                    if (!flush(batch)) {
+                        return;
+                    }
+                    failed = null;
+                    continue;
+                }
+                Queued first = queue.poll(200, TimeUnit.MILLISECONDS);
+                if (first == null) {
+                    continue;
+                }
+                batch = new ArrayList<>(Math.min(batchSize, queue.size() + 1));
+                batch.add(first);
+                long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(maxDelayMs);
+                while (batch.size() < batchSize) {
+                    queue.drainTo(batch, batchSize - batch.size());
+                    long remaining = deadline - System.nanoTime();
+                    if (batch.size() >= batchSize || remaining <= 0) {
+                        break;
+                    }
+                    Queued next = queue.poll(remaining, TimeUnit.NANOSECONDS);
+                    if (next == null) {
+                        break;
+                    }
+                    batch.add(next);
+                }
+                if (!flush(batch)) {
+                    return;
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            } catch (Exception e) {
+                if (!running) {
+                    log.warn("Leaving write-behind records in the log for the next start: {}", e.getMessage());
+                    return;
+                }
+                log.error("Write-behind flush failed unexpectedly, retrying: {}", e.getMessage(), e);
+                failed = batch;
+            }
+        }
+    }
+
+
+    /**
+     * Apply a batch, retrying while the database is unreachable
+     *
+     * @return false when shutting down with the batch still unapplied (it stays in the log)
+     */
+    private boolean flush(List<Queued> batch) throws InterruptedException {
+        List<PendingWrite> writes = batch.stream().map(Queued::write).filter(write -> write != null).toList();
+        // Records not applied yet; the one-by-one fallback takes them off as it goes, so a retry never repeats one
+        List<PendingWrite> remaining = new ArrayList<>(writes);
+        long backoffMs = 100;
+        while (true) {
+            try {
+                long start = System.currentTimeMillis();
+                try {
+                    apply(remaining);
+                    remaining.clear();
+                } catch (DataIntegrityViolationException e) {
+                    // Some write no longer applies (e.g. its movie was deleted): apply one by one, dropping the bad ones
+                    log.warn("Write-behind batch rejected ({}), applying records one by one", e.getMostSpecificCause().getMessage());
+                    applyOneByOne(remaining);
+                }
+                log.debug("Flushed {} write-behind records in {}ms", writes.size(), System.currentTimeMillis() - start);
+                break;
+            } catch (Exception e) {
+                if (!running) {
+                    log.warn("Leaving {} write-behind records in the log for the next start: {}", batch.size(), e.getMessage());
+                    return false;
+                }
+                log.error("Write-behind flush failed, retrying in {}ms: {}", backoffMs, e.getMessage());
+                Thread.sleep(backoffMs);
+                backoffMs = Math.min(backoffMs * 2, 10_000);
+            }
+        }
+
+        writes.forEach(this::removePending);
+        try {
+            appendLog.checkpoint(batch.get(batch.size() - 1).end());
+        } catch (IOException e) {
+            // Harmless beyond replaying these records after a restart
+            log.warn("Could not checkpoint the write-behind log: {}", e.getMessage());
+        }
+        return true;
+    }
+
+
+    /**
+     * Apply and take off the records one at a time, dropping those the database rejects.
+     * Any other failure propagates with the unapplied records left in the list.
+     */
+    private void applyOneByOne(List<PendingWrite> remaining) {
+        while (!remaining.isEmpty()) {
+            PendingWrite write = remaining.get(0);
+            try {
+                apply(List.of(write));
+            } catch (DataIntegrityViolationException rejected) {
+                log.error("Dropping write-behind record {}: {}", write, rejected.getMostSpecificCause().getMessage());
+            }
+            remaining.remove(0);
+        }
+    }
+
+
+    private void apply(List<PendingWrite> writes) {
+        List<PendingWrite.Review> reviews = new ArrayList<>();
+        List<PendingWrite.WatchlistAdd> watchlistAdds = new ArrayList<>();
+        for (PendingWrite write : writes) {
+            if (write instanceof PendingWrite.Review review) {
+                reviews.add(review);
+            } else if (write instanceof PendingWrite.WatchlistAdd add) {
+                watchlistAdds.add(add);
+            }
+        }
+
+        List<InsertedReview> inserted = transactionTemplate.execute(status -> {
+            insertWatchlistEntries(watchlistAdds);
+            return insertReviews(reviews);
+        });
+
+        // Some additions may have lost to a concurrent insert, so reseed rather than count them
+        watchlistAdds.stream().map(PendingWrite.WatchlistAdd::userId).distinct().forEach(userId -> {
+            watchlistCounters.invalidate(userId);
+            watchlistMembership.invalidate(userId);
+        });
+
+        // Same post-commit work as ReviewService.createReview
+        for (InsertedReview review : inserted) {
+            topReviewsCache.update(review.row().movieId(), review.listRow(), 0);
+            reviewSearchService.index(review.id(), review.row().movieId(), review.row().title(), review.row().content());
+        }
+    }
+
+
+    private void insertWatchlistEntries(List<PendingWrite.WatchlistAdd> adds) {
+        if (adds.isEmpty()) {
+            return;
+        }
+        // Top positions per user, taken in user id order so two flushes never wait on each other's locks
+        Map<Long, Integer> addsByUser = new TreeMap<>();
+        adds.forEach(add -> addsByUser.merge(add.userId(), 1, Integer::sum));
+        Map<Long, int[]> positions = new HashMap<>();
+        addsByUser.forEach((userId, count) -> positions.put(userId, watchlistOrdering.topPositions(userId, count)));
+        Map<Long, Integer> taken = new HashMap<>();
+
+        StringBuilder sql = new StringBuilder(
+                "INSERT INTO watchlist (user_id, movie_id, status, is_public, position, added_at) VALUES ");
+        List<Object> args = new ArrayList<>(adds.size() * 5);
+        for (int i = 0; i < adds.size(); i++) {
+            PendingWrite.WatchlistAdd add = adds.get(i);
+            sql.append(i == 0 ? "" : ", ").append("(?, ?, ?, false, ?, ?)");
+            args.add(add.userId());
+            args.add(add.movieId());
+            args.add(add.status());
+            args.add(positions.get(add.userId())[taken.merge(add.userId(), 1, Integer::sum) - 1]);
+            args.add(Timestamp.valueOf(add.createdAt()));
+        }
+        sql.append(" ON CONFLICT (user_id, movie_id) DO NOTHING");
+        jdbcTemplate.update(sql.toString(), args.toArray());
+    }
+
+
+    private record InsertedReview(long id, PendingWrite.Review row) {
+        ReviewListRow listRow() {
+            return new ReviewListRow(id, row.userId(), row.userEmail(), row.userFirstName(), row.userLastName(),
+                    row.rating(), row.title(), row.content(), 0L, row.createdAt(), row.createdAt());
+        }
+    }
+
+    private List<InsertedReview> insertReviews(List<PendingWrite.Review> reviews) {
+        if (reviews.isEmpty()) {
+            return List.of();
+        }
+        // Seed rating aggregates before the rows exist, as ReviewService does
+        reviews.stream().map(PendingWrite.Review::movieId).distinct().forEach(movieRatingStatsService::ensureSeeded);
+
+        StringBuilder sql = new StringBuilder(
+                "INSERT INTO reviews (user_id, movie_id, rating, title, content, likes_count, created_at, updated_at) "
+                        + "SELECT v.user_id, v.movie_id, v.rating, v.title, v.content, 0, v.created_at, v.created_at "
+                        + "FROM (VALUES ");
+        List<Object> args = new ArrayList<>(reviews.size() * 6);
+        for (int i = 0; i < reviews.size(); i++) {
+            PendingWrite.Review review = reviews.get(i);
+            sql.append(i == 0 ? "" : ", ").append(
+                    "(CAST(? AS BIGINT), CAST(? AS BIGINT), CAST(? AS INTEGER), CAST(? AS TEXT), CAST(? AS TEXT), CAST(? AS TIMESTAMP))");
+            args.add(review.userId());
+            args.add(review.movieId());
+            args.add(review.rating());
+            args.add(review.title());
+            args.add(review.content());
+            args.add(Timestamp.valueOf(review.createdAt()));
+        }
+        sql.append(") AS v(user_id, movie_id, rating, title, content, created_at) "
+                + "WHERE NOT EXISTS (SELECT 1 FROM reviews r WHERE r.user_id = v.user_id "
+                + "AND r.movie_id = v.movie_id AND r.created_at = v.created_at) "
+                + "RETURNING id, user_id, movie_id, created_at");
+
+        Map<String, PendingWrite.Review> byKey = new HashMap<>();
+        reviews.forEach(review -> byKey.put(key(review.userId(), review.movieId(), review.createdAt()), review));
+
+        List<InsertedReview> inserted = jdbcTemplate.query(sql.toString(), (rs, rowNum) -> new InsertedReview(
+                rs.getLong("id"),
+                byKey.get(key(rs.getLong("user_id"), rs.getLong("movie_id"),
+                        rs.getTimestamp("created_at").toLocalDateTime()))), args.toArray());
+
+        for (InsertedReview review : inserted) {
+            movieRatingStatsService.reviewAdded(review.row().movieId(), review.row().rating());
+        }
+        return inserted;
+    }
+
+    private static String key(Long userId, Long movieId, LocalDateTime createdAt) {
+        return userId + ":" + movieId + ":" + createdAt;
+    }
+}
@@ -0,0 +1,36 @@
+package com.isfa.dsi.filmexplorer.services;
+
+/**
+ * Write generations of users (or movies), for caches seeded from the database outside
+ * their lock.
+ *
+ * A seed remembers the key's generation before its query and is only installed if it is
+ * unchanged afterwards: any write that may be missing from the query, or that found no
+ * entry to apply itself to, bumps it. Keys share a fixed number of stripes, so a write
+ * can occasionally discard another key's seed, which is then simply reloaded later.
+ * Not thread-safe: callers hold their cache lock.
+ */
+final class WriteGenerations {
+
+    private static final int STRIPES = 1024;
+
+    private final long[] generations = new long[STRIPES];
+
+    long current(Long id) {
+        return generations[stripe(id)];
+    }
+
+    void bump(Long id) {
+        generations[stripe(id)]++;
+    }
+
+    void bumpAll() {
+        for (int i = 0; i < STRIPES; i++) {
+            generations[i]++;
+        }
+    }
+
+    private static int stripe(Long id) {
+        return (int) Math.floorMod(id, (long) STRIPES);
+    }
+}
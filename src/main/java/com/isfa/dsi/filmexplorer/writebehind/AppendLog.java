@@ -0,0 +1,272 @@
+package com.isfa.dsi.filmexplorer.writebehind;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.zip.CRC32C;
+
+/**
+ * Durable local append-only log of opaque records.
+ *
+ * The log starts with a header, magic(4) generation(8), followed by records laid out as
+ * length(4) CRC32C(4) payload. {@link #append} returns once the record is on disk;
+ * appenders arriving while a sync is running share the next one (group commit). The
+ * consumer reports how far it has applied the log with {@link #checkpoint}, kept in a side
+ * file as (generation, offset), and the log is emptied whenever everything in it has been
+ * applied.
+ *
+ * Emptying starts a new generation, and its checkpoint is made durable before the log is
+ * truncated, so an offset into an older log can never skip records of a newer one. On
+ * open, records after the checkpoint are returned for replay (all of them when the
+ * checkpoint belongs to an older generation), and a torn or corrupt tail left by a crash
+ * is cut off. Checkpoints that don't empty the log are written without a sync, so a crash
+ * may replay records that were already applied: consumers must apply records idempotently.
+ */
+public final class AppendLog implements Closeable {
+
+    private static final int MAGIC = 0x57424C31;  // "WBL1"
+    static final int LOG_HEADER_BYTES = 12;
+    private static final int HEADER_BYTES = 8;
+    private static final int MAX_RECORD_BYTES = 16 << 20;
+
+    private final FileChannel channel;
+    private final Path checkpointPath;
+    private final Object syncLock = new Object();
+
+    // Guarded by this
+    private long generation;
+    private long writePosition;
+    private volatile long syncedPosition;
+
+    /**
+     * A record and the log offset just past it, to pass to {@link #checkpoint}
+     */
+    public record Entry(long end, byte[] payload) {
+    }
+
+    private AppendLog(FileChannel channel, Path checkpointPath, long generation, long writePosition) {
+        this.channel = channel;
+        this.checkpointPath = checkpointPath;
+        this.generation = generation;
+        this.writePosition = writePosition;
+        this.syncedPosition = writePosition;
+    }
+
+    /**
+     * Open (or create) the log at {@code path}
+     *
+     * @param unapplied receives the records written after the last checkpoint, in order
+     */
+    public static AppendLog open(Path path, List<Entry> unapplied) throws IOException {
+        Files.createDirectories(path.toAbsolutePath().getParent());
+        Path checkpointPath = path.resolveSibling(path.getFileName() + ".checkpoint");
+        FileChannel channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.READ,
+                StandardOpenOption.WRITE);
+        try {
+            long[] checkpoint = readCheckpoint(checkpointPath);
+            long size = channel.size();
+            if (size < LOG_HEADER_BYTES) {
+                // New log, or a crash while emptying it: start the checkpoint's generation
+                resetLog(channel, checkpoint[0]);
+                return new AppendLog(channel, checkpointPath, checkpoint[0], LOG_HEADER_BYTES);
+            }
+
+            ByteBuffer logHeader = ByteBuffer.allocate(LOG_HEADER_BYTES);
+            readFully(channel, logHeader, 0);
+            if (logHeader.getInt(0) != MAGIC) {
+                throw new IOException("Not a write-behind log: " + path);
+            }
+            long generation = logHeader.getLong(4);
+            long position;
+            if (checkpoint[0] > generation) {
+                // Emptied after everything was applied, but the truncation did not happen
+                resetLog(channel, checkpoint[0]);
+                return new AppendLog(channel, checkpointPath, checkpoint[0], LOG_HEADER_BYTES);
+            } else if (checkpoint[0] == generation && checkpoint[1] >= LOG_HEADER_BYTES && checkpoint[1] <= size) {
+                position = checkpoint[1];
+            } else {
+                // No usable checkpoint for this log: replay all of it
+                position = LOG_HEADER_BYTES;
+            }
+
+            List<Entry> entries = new ArrayList<>();
+            ByteBuffer header = ByteBuffer.allocate(HEADER_BYTES);
+            while (position + HEADER_BYTES <= size) {
+                header.clear();
+                readFully(channel, header, position);
+                int length = header.getInt(0);
+                int crc = header.getInt(4);
+                if (length < 0 || length > MAX_RECORD_BYTES || position + HEADER_BYTES + length > size) {
+                    break;
+                }
+                ByteBuffer payload = ByteBuffer.allocate(length);
+                readFully(channel, payload, position + HEADER_BYTES);
+                if (crc(payload.array()) != crc) {
+                    break;
+                }
+                position += HEADER_BYTES + length;
+                entries.add(new Entry(position, payload.array()));
+            }
+            if (position < size) {
+                // Torn or corrupt tail from a crash mid-append; nothing after it was acknowledged
+                channel.truncate(position);
+                channel.force(true);
+            }
+            unapplied.addAll(entries);
+            return new AppendLog(channel, checkpointPath, generation, position);
+        } catch (IOException | RuntimeException e) {
+            channel.close();
+            throw e;
+        }
+    }
+
+    /**
+     * Append a record and wait until it is durable
+     *
+     * @return the offset just past the record
+     */
+    public long append(byte[] payload) throws IOException {
+        if (payload.length > MAX_RECORD_BYTES) {
+            throw new IOException("Record too large: " + payload.length + " bytes");
+        }
+        ByteBuffer record = ByteBuffer.allocate(HEADER_BYTES + payload.length);
+        record.putInt(payload.length).putInt(crc(payload)).put(payload).flip();
+
+        long end;
+        synchronized (this) {
+            long position = writePosition;
+            while (record.hasRemaining()) {
+                position += channel.write(record, position);
+            }
+            writePosition = position;
+            end = position;
+        }
+        sync(end);
+        return end;
+    }
+
+    /**
+     * Record that everything up to {@code end} has been applied, and empty the log when
+     * nothing was appended after it
+     */
+    public void checkpoint(long end) throws IOException {
+        long checkpointGeneration;
+        synchronized (this) {
+            if (end == writePosition) {
+                // The new generation's checkpoint must be durable before the old log is gone
+                long next = generation + 1;
+                writeCheckpoint(checkpointPath, next, LOG_HEADER_BYTES, true);
+                resetLog(channel, next);
+                generation = next;
+                writePosition = LOG_HEADER_BYTES;
+                syncedPosition = LOG_HEADER_BYTES;
+                return;
+            }
+            checkpointGeneration = generation;
+        }
+        writeCheckpoint(checkpointPath, checkpointGeneration, end, false);
+    }
+
+    /**
+     * Bytes of records appended and not yet emptied
+     */
+    public synchronized long size() {
+        return writePosition - LOG_HEADER_BYTES;
+    }
+
+    @Override
+    public void close() throws IOException {
+        channel.close();
+    }
+
+    private void sync(long end) throws IOException {
+        if (syncedPosition >= end) {
+            return;
+        }
+        synchronized (syncLock) {
+            if (syncedPosition >= end) {
+                return;
+            }
+            long target;
+            synchronized (this) {
+                target = writePosition;
+            }
+            channel.force(false);
+            syncedPosition = target;
+        }
+    }
+
+    // Empty the log and start generation {@code generation}, durably
+    private static void resetLog(FileChannel channel, long generation) throws IOException {
+        channel.truncate(0);
+        ByteBuffer header = ByteBuffer.allocate(LOG_HEADER_BYTES).putInt(MAGIC).putLong(generation).flip();
+        long position = 0;
+        while (header.hasRemaining()) {
+            position += channel.write(header, position);
+        }
+        channel.force(true);
+    }
+
+    private static void writeCheckpoint(Path checkpointPath, long generation, long end, boolean durable)
+            throws IOException {
+        Path temp = checkpointPath.resolveSibling(checkpointPath.getFileName() + ".tmp");
+        try (FileChannel out = FileChannel.open(temp, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING)) {
+            ByteBuffer buffer = ByteBuffer.allocate(16).putLong(generation).putLong(end).flip();
+            while (buffer.hasRemaining()) {
+                out.write(buffer);
+            }
+            if (durable) {
+                out.force(true);
+            }
+        }
+        Files.move(temp, checkpointPath, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+        if (durable) {
+            syncDirectory(checkpointPath.toAbsolutePath().getParent());
+        }
+    }
+
+    // Makes the rename durable; not every platform can open a directory, which is then best effort
+    private static void syncDirectory(Path directory) {
+        try (FileChannel dir = FileChannel.open(directory, StandardOpenOption.READ)) {
+            dir.force(true);
+        } catch (IOException e) {
+            // Nothing more can be done portably
+        }
+    }
+
+    // (generation, offset); generation 0 and no offset when there is none
+    private static long[] readCheckpoint(Path checkpointPath) throws IOException {
+        if (!Files.exists(checkpointPath)) {
+            return new long[]{0, 0};
+        }
+        byte[] bytes = Files.readAllBytes(checkpointPath);
+        if (bytes.length != 16) {
+            return new long[]{0, 0};
+        }
+        ByteBuffer buffer = ByteBuffer.wrap(bytes);
+        return new long[]{Math.max(0, buffer.getLong()), Math.max(0, buffer.getLong())};
+    }
+
+    private static void readFully(FileChannel channel, ByteBuffer buffer, long position) throws IOException {
+        while (buffer.hasRemaining()) {
+            int read = channel.read(buffer, position + buffer.position());
+            if (read < 0) {
+                throw new IOException("Unexpected end of log");
+            }
+        }
+    }
+
+    private static int crc(byte[] payload) {
+        CRC32C crc = new CRC32C();
+        crc.update(payload);
+        return (int) crc.getValue();
+    }
+}
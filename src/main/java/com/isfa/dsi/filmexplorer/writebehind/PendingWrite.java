@@ -0,0 +1,42 @@
+package com.isfa.dsi.filmexplorer.writebehind;
+
+import com.fasterxml.jackson.annotation.JsonSubTypes;
+import com.fasterxml.jackson.annotation.JsonTypeInfo;
+
+import java.time.LocalDateTime;
+
+/**
+ * A validated write that has been acknowledged but not yet applied to the database.
+ * Serialized as JSON into the {@link AppendLog}.
+ *
+ * Each write carries the timestamp it was acknowledged at (microsecond precision, as
+ * stored by PostgreSQL), which together with the user and movie identifies the row when
+ * a write is replayed.
+ */
+@JsonTypeInfo(use = JsonTypeInfo.Id.NAME, property = "type")
+@JsonSubTypes({
+        @JsonSubTypes.Type(value = PendingWrite.Review.class, name = "review"),
+        @JsonSubTypes.Type(value = PendingWrite.WatchlistAdd.class, name = "watchlist")
+})
+public sealed interface PendingWrite {
+
+    Long userId();
+
+    Long movieId();
+
+    LocalDateTime createdAt();
+
+    /**
+     * A new review; the author's email and name are kept for responses and caches
+     */
+    record Review(Long userId, String userEmail, String userFirstName, String userLastName, Long movieId,
+                  Integer rating, String title, String content, LocalDateTime createdAt) implements PendingWrite {
+    }
+
+    /**
+     * A movie added to a watchlist, with the movie fields shown in watchlist responses
+     */
+    record WatchlistAdd(Long userId, Long movieId, String status, String movieTitle, Integer movieReleaseYear,
+                        String moviePosterPath, LocalDateTime createdAt) implements PendingWrite {
+    }
+}
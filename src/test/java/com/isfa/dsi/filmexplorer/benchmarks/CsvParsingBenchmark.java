@@ -0,0 +1,148 @@
+package com.isfa.dsi.filmexplorer.benchmarks;
+
+import com.isfa.dsi.filmexplorer.csv.CsvTokenizer;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.io.BufferedReader;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.math.BigDecimal;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Regex line splitting (the former CsvService.parseCsvLine path) against CsvTokenizer
+ * on the same catalogue-shaped data. The regex path reads line by line, so the sample
+ * keeps overviews on one line to give it a fair run.
+ *
+ * Run with: mvn test-compile exec:java -Dexec.classpathScope=test
+ *           -Dexec.mainClass=com.isfa.dsi.filmexplorer.benchmarks.CsvParsingBenchmark
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class CsvParsingBenchmark {
+
+    private static final String SPLIT_REGEX = ",(?=(?:[^\"]*\"[^\"]*\")*[^\"]*$)";
+
+    @Param({"10000"})
+    private int rows;
+
+    private byte[] csv;
+    private final CsvTokenizer tokenizer = new CsvTokenizer();
+
+    @Setup
+    public void setup() {
+        StringBuilder sb = new StringBuilder();
+        for (int i = 0; i < rows; i++) {
+            sb.append("\"Movie, part ").append(i).append("\",")
+                    .append(1950 + i % 70).append(',')
+                    .append(5 + i % 5).append('.').append(i % 10).append(',')
+                    .append(i * 13L).append(',')
+                    .append(80 + i % 60).append(',')
+                    .append("Director ").append(i % 97).append(',')
+                    .append("\"Drama, Comedy\",")
+                    .append("\"A \"\"quoted\"\" overview, with commas, about movie ").append(i).append(".\",")
+                    .append("/poster/").append(i).append(".jpg,")
+                    .append("7.").append(i % 10).append(',')
+                    .append("Star A,Star B,Star C,Star D\n");
+        }
+        csv = sb.toString().getBytes(StandardCharsets.UTF_8);
+    }
+
+    @Benchmark
+    public void regexSplit(Blackhole bh) throws IOException {
+        try (BufferedReader reader = new BufferedReader(
+                new InputStreamReader(new ByteArrayInputStream(csv), StandardCharsets.UTF_8))) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                String[] fields = line.split(SPLIT_REGEX, -1);
+                bh.consume(cleanField(fields[0]));
+                bh.consume(parseBigDecimal(fields[1]));
+                bh.consume(parseBigDecimal(fields[2]));
+                bh.consume(parseLong(fields[3]));
+                bh.consume(parseInteger(fields[4]));
+                for (int i = 5; i < fields.length; i++) {
+                    bh.consume(i == 9 ? parseBigDecimal(fields[i]) : cleanField(fields[i]));
+                }
+            }
+        }
+    }
+
+    @Benchmark
+    public void tokenizer(Blackhole bh) {
+        tokenizer.reset(ByteBuffer.wrap(csv), 1);
+        while (tokenizer.nextRecord()) {
+            bh.consume(tokenizer.field(0).asString());
+            bh.consume(tokenizer.field(1).asDecimal());
+            bh.consume(tokenizer.field(2).asDecimal());
+            bh.consume(tokenizer.field(3).asLong());
+            bh.consume(tokenizer.field(4).asInteger());
+            for (int i = 5; i < tokenizer.fieldCount(); i++) {
+                bh.consume(i == 9 ? tokenizer.field(i).asDecimal() : tokenizer.field(i).asString());
+            }
+        }
+    }
+
+    private static String cleanField(String field) {
+        if (field == null || field.trim().isEmpty()) {
+            return null;
+        }
+        field = field.trim();
+        if (field.startsWith("\"") && field.endsWith("\"")) {
+            field = field.substring(1, field.length() - 1);
+        }
+        field = field.replace("\"\"", "\"");
+        return field.isEmpty() ? null : field;
+    }
+
+    private static BigDecimal parseBigDecimal(String value) {
+        String cleaned = cleanField(value);
+        if (cleaned == null) {
+            return null;
+        }
+        try {
+            return new BigDecimal(cleaned);
+        } catch (NumberFormatException e) {
+            return null;
+        }
+    }
+
+    private static Long parseLong(String value) {
+        String cleaned = cleanField(value);
+        if (cleaned == null) {
+            return null;
+        }
+        try {
+            return Long.parseLong(cleaned);
+        } catch (NumberFormatException e) {
+            return null;
+        }
+    }
+
+    private static Integer parseInteger(String value) {
+        String cleaned = cleanField(value);
+        if (cleaned == null) {
+            return null;
+        }
+        try {
+            return Integer.parseInt(cleaned);
+        } catch (NumberFormatException e) {
+            return null;
+        }
+    }
+
+    public static void main(String[] args) throws Exception {
+        new Runner(new OptionsBuilder()
+                .include(CsvParsingBenchmark.class.getSimpleName())
+                .build()).run();
+    }
+}
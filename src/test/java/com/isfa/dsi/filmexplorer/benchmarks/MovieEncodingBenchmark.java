@@ -0,0 +1,138 @@
+package com.isfa.dsi.filmexplorer.benchmarks;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.cbor.CBORFactory;
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
+import com.isfa.dsi.filmexplorer.DTOs.MovieCard;
+import com.isfa.dsi.filmexplorer.DTOs.MovieSearchResponse;
+import com.isfa.dsi.filmexplorer.codec.MovieCardCodec;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Encode/decode cost of one search page in every supported encoding.
+ * Payload sizes are printed once during setup.
+ *
+ * Run with: mvn test-compile exec:java -Dexec.classpathScope=test
+ *           -Dexec.mainClass=com.isfa.dsi.filmexplorer.benchmarks.MovieEncodingBenchmark
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class MovieEncodingBenchmark {
+
+    @Param({"20", "100"})
+    private int pageSize;
+
+    private final ObjectMapper json = new ObjectMapper();
+    private final ObjectMapper cbor = new ObjectMapper(new CBORFactory());
+    private final ObjectMapper smile = new ObjectMapper(new SmileFactory());
+
+    private MovieSearchResponse response;
+    private byte[] jsonBytes;
+    private byte[] cborBytes;
+    private byte[] smileBytes;
+    private byte[] cardBytes;
+
+    @Setup
+    public void setup() throws Exception {
+        response = samplePage(pageSize);
+        jsonBytes = json.writeValueAsBytes(response);
+        cborBytes = cbor.writeValueAsBytes(response);
+        smileBytes = smile.writeValueAsBytes(response);
+        cardBytes = MovieCardCodec.encode(response);
+
+        System.out.printf("%n[page=%d] json=%d B, cbor=%d B, smile=%d B, movie-cards=%d B%n",
+                pageSize, jsonBytes.length, cborBytes.length, smileBytes.length, cardBytes.length);
+    }
+
+    @Benchmark
+    public byte[] encodeJson() throws Exception {
+        return json.writeValueAsBytes(response);
+    }
+
+    @Benchmark
+    public byte[] encodeCbor() throws Exception {
+        return cbor.writeValueAsBytes(response);
+    }
+
+    @Benchmark
+    public byte[] encodeSmile() throws Exception {
+        return smile.writeValueAsBytes(response);
+    }
+
+    @Benchmark
+    public byte[] encodeMovieCards() {
+        return MovieCardCodec.encode(response);
+    }
+
+    @Benchmark
+    public Object decodeJson() throws Exception {
+        return json.readTree(jsonBytes);
+    }
+
+    @Benchmark
+    public Object decodeCbor() throws Exception {
+        return cbor.readTree(cborBytes);
+    }
+
+    @Benchmark
+    public Object decodeSmile() throws Exception {
+        return smile.readTree(smileBytes);
+    }
+
+    @Benchmark
+    public MovieSearchResponse decodeMovieCards() {
+        return MovieCardCodec.decodeSearchResponse(cardBytes);
+    }
+
+    private static MovieSearchResponse samplePage(int size) {
+        String[] genres = {"Drama", "Comedy", "Action", "Thriller", "Horror", "Romance"};
+        List<MovieCard> cards = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            MovieCard card = new MovieCard();
+            card.setId(10_000L + i);
+            card.setTitle("Sample movie title " + i);
+            card.setReleaseYear(1980 + i % 45);
+            card.setRating(BigDecimal.valueOf(50 + i % 50, 1));
+            card.setVoteCount(100L * i);
+            card.setPosterPath("/t/p/w500/poster" + i + ".jpg");
+            card.setGenres(List.of(genres[i % genres.length], genres[(i + 1) % genres.length]));
+            card.setDirector(i % 4 == 0 ? "Unknown" : "Director " + i % 7);
+            card.setMainStars(new String[]{"Actor " + i % 11, "Actor " + i % 13, "Actor " + i % 17});
+            card.setRuntime(80 + i % 90);
+            card.setImdbRating(BigDecimal.valueOf(60 + i % 40, 1));
+            card.setPopularity(BigDecimal.valueOf(1_234_567L + i, 6));
+            card.setOverview("When an unlikely hero discovers a secret that could change everything, "
+                    + "they must race against time to stop a looming catastrophe. Episode " + i + '.');
+            card.setOriginalTitle("Sample movie title " + i);
+            card.setIsImdbRated(i % 3 == 0);
+            cards.add(card);
+        }
+
+        MovieSearchResponse response = new MovieSearchResponse();
+        response.setMovies(cards);
+        response.setTotalPages(50);
+        response.setTotalResults(50L * size);
+        response.setSearchQuery("sample");
+        response.setAppliedFilters("No filters");
+        response.setSortedBy("popularity");
+        response.setHasMoreResults(true);
+        return response;
+    }
+
+    public static void main(String[] args) throws Exception {
+        new Runner(new OptionsBuilder()
+                .include(MovieEncodingBenchmark.class.getSimpleName())
+                .build()).run();
+    }
+}
@@ -0,0 +1,85 @@
+package com.isfa.dsi.filmexplorer.codec;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.isfa.dsi.filmexplorer.DTOs.MovieCard;
+import com.isfa.dsi.filmexplorer.DTOs.MovieSearchResponse;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class MovieCardCodecTest {
+
+    @Test
+    void searchResponseRoundTrips() {
+        MovieSearchResponse response = sampleResponse(20);
+
+        MovieSearchResponse decoded = MovieCardCodec.decodeSearchResponse(MovieCardCodec.encode(response));
+
+        assertThat(decoded).usingRecursiveComparison().isEqualTo(response);
+    }
+
+    @Test
+    void cardWithNullsRoundTrips() {
+        MovieCard card = new MovieCard();
+        card.setId(42L);
+        card.setTitle("Untitled");
+        card.setRating(new BigDecimal("123456789012345678901234.5"));
+
+        MovieCard decoded = MovieCardCodec.decodeCard(MovieCardCodec.encode(card));
+
+        assertThat(decoded).usingRecursiveComparison().isEqualTo(card);
+    }
+
+    @Test
+    void binaryPageIsSmallerThanJson() throws Exception {
+        MovieSearchResponse response = sampleResponse(20);
+
+        byte[] json = new ObjectMapper().writeValueAsBytes(response);
+        byte[] binary = MovieCardCodec.encode(response);
+
+        assertThat(binary.length).isLessThan(json.length / 2);
+    }
+
+    static MovieSearchResponse sampleResponse(int size) {
+        List<MovieCard> cards = new ArrayList<>();
+        for (int i = 0; i < size; i++) {
+            MovieCard card = new MovieCard();
+            card.setId(1000L + i);
+            card.setTitle("Movie number " + i);
+            card.setReleaseYear(1990 + i % 30);
+            card.setRating(new BigDecimal("7.25"));
+            card.setVoteCount(1500L * i);
+            card.setPosterPath("/posters/" + i + ".jpg");
+            card.setGenres(List.of("Drama", i % 2 == 0 ? "Comedy" : "Thriller"));
+            card.setDirector(i % 3 == 0 ? "Unknown" : "Jane Director");
+            card.setMainStars(new String[]{"Star A", "Star B", "Star " + i});
+            card.setRuntime(90 + i);
+            card.setImdbRating(new BigDecimal("7.1"));
+            card.setPopularity(new BigDecimal("12.345678"));
+            card.setOverview("A long overview about movie " + i + " that goes on for a while, "
+                    + "with \"quotes\", commas and unicode – like café.");
+            card.setOriginalTitle("Original " + i);
+            card.setIsImdbRated(i % 2 == 0);
+            card.setRankScore(new BigDecimal("6.87"));
+            cards.add(card);
+        }
+
+        MovieSearchResponse response = new MovieSearchResponse();
+        response.setMovies(cards);
+        response.setCurrentPage(0);
+        response.setTotalPages(5);
+        response.setTotalResults(100);
+        response.setFacetCounts(Map.of("Drama", 60L));
+        response.setSearchQuery("movie");
+        response.setAppliedFilters("No filters");
+        response.setSearchTimeMs(12);
+        response.setSortedBy("popularity");
+        response.setHasMoreResults(true);
+        return response;
+    }
+}
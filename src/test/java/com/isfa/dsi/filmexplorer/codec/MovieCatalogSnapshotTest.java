@@ -0,0 +1,57 @@
+package com.isfa.dsi.filmexplorer.codec;
+
+import com.isfa.dsi.filmexplorer.DTOs.MovieCard;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class MovieCatalogSnapshotTest {
+
+    @TempDir
+    Path dir;
+
+    @Test
+    void snapshotRoundTripsAcrossBlocks() throws IOException {
+        // More cards than one block holds
+        List<MovieCard> cards = new ArrayList<>();
+        for (int i = 0; i < 5; i++) {
+            cards.addAll(MovieCardCodecTest.sampleResponse(2000).getMovies());
+        }
+        MovieCatalogSnapshot.Stamp stamp = new MovieCatalogSnapshot.Stamp(cards.size(), 2999L, 17L);
+        Path path = dir.resolve("catalog.snapshot");
+
+        MovieCatalogSnapshot.write(path, new MovieCatalogSnapshot.Contents(
+                stamp, 1234L, cards, Map.of("Drama", 10000L, "Comédie", 5000L)));
+        MovieCatalogSnapshot.Contents read = MovieCatalogSnapshot.read(path);
+
+        assertThat(MovieCatalogSnapshot.readStamp(path)).isEqualTo(stamp);
+        assertThat(read.stamp()).isEqualTo(stamp);
+        assertThat(read.createdAtMillis()).isEqualTo(1234L);
+        assertThat(read.cards()).usingRecursiveFieldByFieldElementComparator().isEqualTo(cards);
+        assertThat(read.genreCounts()).containsOnly(Map.entry("Drama", 10000L), Map.entry("Comédie", 5000L));
+    }
+
+    @Test
+    void corruptSnapshotIsRejected() throws IOException {
+        Path path = dir.resolve("catalog.snapshot");
+        MovieCatalogSnapshot.write(path, new MovieCatalogSnapshot.Contents(new MovieCatalogSnapshot.Stamp(20, 1019, 1),
+                0L, MovieCardCodecTest.sampleResponse(20).getMovies(), Map.of()));
+
+        byte[] bytes = Files.readAllBytes(path);
+        bytes[bytes.length / 2] ^= 0x5A;
+        Files.write(path, bytes);
+
+        assertThatThrownBy(() -> MovieCatalogSnapshot.read(path))
+                .isInstanceOf(IOException.class)
+                .hasMessageContaining("checksum");
+    }
+}
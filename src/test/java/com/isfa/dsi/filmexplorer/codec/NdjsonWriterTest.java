@@ -0,0 +1,40 @@
+package com.isfa.dsi.filmexplorer.codec;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class NdjsonWriterTest {
+
+    @Test
+    void writesExactLinesAndFlushesInBatches() throws Exception {
+        CountingStream out = new CountingStream();
+        NdjsonWriter writer = new NdjsonWriter(new ObjectMapper(), out, 3);
+
+        for (int i = 1; i <= 7; i++) {
+            writer.write(Map.of("n", i));
+        }
+        // Records 1, 3 and 6
+        assertThat(out.flushes).isEqualTo(3);
+
+        writer.flush();
+        assertThat(out.flushes).isEqualTo(4);
+        assertThat(writer.getWritten()).isEqualTo(7);
+        assertThat(out.toString(StandardCharsets.UTF_8)).isEqualTo(
+                "{\"n\":1}\n{\"n\":2}\n{\"n\":3}\n{\"n\":4}\n{\"n\":5}\n{\"n\":6}\n{\"n\":7}\n");
+    }
+
+    private static class CountingStream extends ByteArrayOutputStream {
+        int flushes;
+
+        @Override
+        public void flush() {
+            flushes++;
+        }
+    }
+}
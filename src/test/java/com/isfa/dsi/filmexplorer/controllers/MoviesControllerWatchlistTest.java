@@ -0,0 +1,157 @@
+package com.isfa.dsi.filmexplorer.controllers;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.isfa.dsi.filmexplorer.DTOs.MovieCard;
+import com.isfa.dsi.filmexplorer.DTOs.MovieSearchRequest;
+import com.isfa.dsi.filmexplorer.DTOs.MovieSearchResponse;
+import com.isfa.dsi.filmexplorer.config.JwtAuthenticationFilter;
+import com.isfa.dsi.filmexplorer.config.JwtService;
+import com.isfa.dsi.filmexplorer.models.Watchlist.WatchlistStatus;
+import com.isfa.dsi.filmexplorer.repos.MoviesRepo;
+import com.isfa.dsi.filmexplorer.repos.WatchlistBulkRepo;
+import com.isfa.dsi.filmexplorer.repos.WatchlistRepo;
+import com.isfa.dsi.filmexplorer.services.CsvService;
+import com.isfa.dsi.filmexplorer.services.FriendshipService;
+import com.isfa.dsi.filmexplorer.services.ImportJobService;
+import com.isfa.dsi.filmexplorer.services.MovieCatalogService;
+import com.isfa.dsi.filmexplorer.services.MovieChangeService;
+import com.isfa.dsi.filmexplorer.services.MovieRatingStatsService;
+import com.isfa.dsi.filmexplorer.services.MovieService;
+import com.isfa.dsi.filmexplorer.services.MovieStreamingService;
+import com.isfa.dsi.filmexplorer.services.WatchlistCounters;
+import com.isfa.dsi.filmexplorer.services.WatchlistMembership;
+import com.isfa.dsi.filmexplorer.services.WatchlistOrdering;
+import com.isfa.dsi.filmexplorer.services.WatchlistService;
+import com.isfa.dsi.filmexplorer.services.WriteBehindService;
+import com.isfa.dsi.filmexplorer.user.Role;
+import com.isfa.dsi.filmexplorer.user.User;
+import com.isfa.dsi.filmexplorer.user.UserRepo;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.http.ResponseEntity;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.security.authorization.method.PreAuthorizeAuthorizationManager;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.security.core.userdetails.UserDetailsService;
+import org.springframework.security.util.SimpleMethodInvocation;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.lang.reflect.Method;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class MoviesControllerWatchlistTest {
+
+    private final MovieService movieService = mock(MovieService.class);
+    private final WatchlistMembership watchlistMembership = mock(WatchlistMembership.class);
+    private final UserDetailsService userDetailsService = mock(UserDetailsService.class);
+    private final JwtService jwtService = new JwtService();
+
+    private final MoviesController controller = new MoviesController(movieService, mock(MoviesRepo.class),
+            mock(CsvService.class), mock(MovieStreamingService.class), mock(ImportJobService.class),
+            mock(MovieCatalogService.class), mock(MovieChangeService.class), mock(MovieRatingStatsService.class),
+            new WatchlistService(mock(WatchlistRepo.class), mock(MoviesRepo.class), mock(UserRepo.class),
+                    mock(FriendshipService.class), mock(WriteBehindService.class), mock(MovieCatalogService.class),
+                    mock(WatchlistCounters.class), watchlistMembership, mock(WatchlistBulkRepo.class),
+                    mock(WatchlistOrdering.class)),
+            new ObjectMapper());
+
+    MoviesControllerWatchlistTest() {
+        ReflectionTestUtils.setField(jwtService, "secretKey", "test-secret-key-that-is-at-least-32-bytes-long");
+        ReflectionTestUtils.setField(jwtService, "jwtExpiration", 60_000L);
+        when(movieService.searchMovies(any())).thenReturn(new PageImpl<>(List.of()));
+        when(movieService.convertToSearchResponse(any())).thenAnswer(invocation -> {
+            MovieSearchResponse response = new MovieSearchResponse();
+            response.setMovies(new ArrayList<>(List.of(card(1L), card(2L))));
+            return response;
+        });
+    }
+
+    @AfterEach
+    void clearContext() {
+        SecurityContextHolder.clearContext();
+    }
+
+    @Test
+    void signedInSearchCarriesWatchlistStatusesWithoutLoadingTheUser() throws Exception {
+        when(watchlistMembership.statusesOf(eq(7L), any())).thenReturn(Map.of(2L, WatchlistStatus.WATCHED));
+        String token = jwtService.generateToken(User.builder().id(7L).email("ada@example.com").role(Role.USER).build());
+
+        MockHttpServletRequest request = new MockHttpServletRequest("POST", "/api/movies/search");
+        request.addHeader("Authorization", "Bearer " + token);
+        MovieSearchResponse response = search(request);
+
+        assertThat(response.getMovies()).extracting(MovieCard::getWatchlistStatus).containsExactly(null, "WATCHED");
+        verify(userDetailsService, never()).loadUserByUsername(anyString());
+    }
+
+    @Test
+    void anonymousAndInvalidTokensSearchWithoutStatuses() throws Exception {
+        MovieSearchResponse anonymous = search(new MockHttpServletRequest("POST", "/api/movies/search"));
+
+        MockHttpServletRequest forged = new MockHttpServletRequest("POST", "/api/movies/search");
+        forged.addHeader("Authorization", "Bearer aaa.bbb.ccc");
+        MovieSearchResponse invalid = search(forged);
+
+        assertThat(anonymous.getMovies()).extracting(MovieCard::getWatchlistStatus).containsOnlyNulls();
+        assertThat(invalid.getMovies()).extracting(MovieCard::getWatchlistStatus).containsOnlyNulls();
+        verify(watchlistMembership, never()).statusesOf(any(), any());
+    }
+
+    @Test
+    void adminTokenReachesTheAdminExportWithoutLoadingTheUser() throws Exception {
+        String admin = jwtService.generateToken(User.builder().id(1L).email("root@example.com").role(Role.ADMIN).build());
+        String user = jwtService.generateToken(User.builder().id(7L).email("ada@example.com").role(Role.USER).build());
+
+        assertThat(exportAllAllowed(admin)).isTrue();
+        assertThat(exportAllAllowed(user)).isFalse();
+        verify(userDetailsService, never()).loadUserByUsername(anyString());
+    }
+
+    // Evaluate the @PreAuthorize of GET /export/all against what the JWT filter authenticated
+    private boolean exportAllAllowed(String token) throws Exception {
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/api/movies/export/all");
+        request.addHeader("Authorization", "Bearer " + token);
+        JwtAuthenticationFilter filter = new JwtAuthenticationFilter(jwtService, userDetailsService);
+        Method exportAll = MoviesController.class.getMethod("exportAllMovies", String.class);
+        AtomicReference<Boolean> allowed = new AtomicReference<>();
+        filter.doFilter(request, new MockHttpServletResponse(), (req, res) -> {
+            Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+            allowed.set(new PreAuthorizeAuthorizationManager()
+                    .check(() -> authentication, new SimpleMethodInvocation(controller, exportAll, (Object) null))
+                    .isGranted());
+        });
+        SecurityContextHolder.clearContext();
+        return allowed.get();
+    }
+
+    // Run the request through the JWT filter into the controller, as the servlet chain would
+    private MovieSearchResponse search(MockHttpServletRequest request) throws Exception {
+        JwtAuthenticationFilter filter = new JwtAuthenticationFilter(jwtService, userDetailsService);
+        AtomicReference<ResponseEntity<MovieSearchResponse>> result = new AtomicReference<>();
+        filter.doFilter(request, new MockHttpServletResponse(),
+                (req, res) -> result.set(controller.searchMovies(new MovieSearchRequest())));
+        SecurityContextHolder.clearContext();
+        return result.get().getBody();
+    }
+
+    private static MovieCard card(Long id) {
+        MovieCard card = new MovieCard();
+        card.setId(id);
+        return card;
+    }
+}
@@ -0,0 +1,44 @@
+package com.isfa.dsi.filmexplorer.csv;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class CompressionTest {
+
+    private static final String CSV = "title,release_year,vote_average,vote_count,runtime,director\n"
+            + "\"Movie, with comma\",1999,7.5,1200,120,Unknown\n".repeat(500);
+
+    @Test
+    void compressedStreamsRoundTripAndAreDetected() throws IOException {
+        for (Compression compression : Compression.values()) {
+            ByteArrayOutputStream target = new ByteArrayOutputStream();
+            try (OutputStream out = compression.compress(target, 0)) {
+                out.write(CSV.getBytes(StandardCharsets.UTF_8));
+            }
+            byte[] bytes = target.toByteArray();
+
+            try (InputStream in = Compression.decompressing(new ByteArrayInputStream(bytes))) {
+                assertThat(new String(in.readAllBytes(), StandardCharsets.UTF_8)).isEqualTo(CSV);
+            }
+            if (compression != Compression.NONE) {
+                assertThat(bytes.length).as(compression.name()).isLessThan(CSV.length() / 10);
+            }
+        }
+    }
+
+    @Test
+    void negotiatePrefersZstdAndHonoursRefusals() {
+        assertThat(Compression.negotiate("gzip, deflate, br, zstd")).isEqualTo(Compression.ZSTD);
+        assertThat(Compression.negotiate("gzip;q=0.8, zstd;q=0")).isEqualTo(Compression.GZIP);
+        assertThat(Compression.negotiate("identity")).isEqualTo(Compression.NONE);
+        assertThat(Compression.negotiate(null)).isEqualTo(Compression.NONE);
+    }
+}
@@ -0,0 +1,183 @@
+package com.isfa.dsi.filmexplorer.csv;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.ByteArrayInputStream;
+import java.io.InputStream;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class CsvImportPipelineTest {
+
+    @Test
+    void writesBatchesInFileOrderAndCollectsErrors() throws Exception {
+        StringBuilder csv = new StringBuilder("id,overview\n");
+        for (int i = 1; i <= 1000; i++) {
+            csv.append(i % 100 == 0 ? "bad" : String.valueOf(i)).append(",\"multi\nline, \"\"quoted\"\"\"\n");
+            if (i % 250 == 0) {
+                csv.append('\n');
+            }
+        }
+
+        List<Long> written = new ArrayList<>();
+        List<Integer> batchSizes = new ArrayList<>();
+        CsvImportPipeline<Long> pipeline = new CsvImportPipeline<>(4, 64, 2);
+
+        CsvImportPipeline.Stats stats = pipeline.run(stream(csv.toString()),
+                record -> {
+                    assertThat(record.field(1).asString()).isEqualTo("multi\nline, \"quoted\"");
+                    Long id = record.field(0).asLong();
+                    if (id == null) {
+                        throw new IllegalArgumentException("not a number");
+                    }
+                    return id;
+                },
+                batch -> {
+                    batchSizes.add(batch.size());
+                    written.addAll(batch);
+                });
+
+        assertThat(stats.header()).isEqualTo("id,overview");
+        assertThat(written).hasSize(990).isSorted();
+        assertThat(stats.rowsRead()).isEqualTo(1000);
+        assertThat(stats.rowsWritten()).isEqualTo(990);
+        assertThat(stats.errorCount()).isEqualTo(10);
+        assertThat(stats.errors()).hasSize(10).first().asString().startsWith("Line 200: bad,");
+        assertThat(stats.totalLines()).isEqualTo(2005);
+        assertThat(batchSizes).allMatch(size -> size <= 64);
+    }
+
+    @Test
+    void lastRecordWithoutNewlineIsImported() throws Exception {
+        List<Long> written = new ArrayList<>();
+
+        CsvImportPipeline.Stats stats = new CsvImportPipeline<Long>(2, 10, 2).run(stream("id\n1\n2\n3"),
+                record -> record.field(0).asLong(), written::addAll);
+
+        assertThat(written).containsExactly(1L, 2L, 3L);
+        assertThat(stats.totalLines()).isEqualTo(4);
+    }
+
+    @Test
+    void writerFailureAbortsImport() {
+        CsvImportPipeline<Long> pipeline = new CsvImportPipeline<>(2, 1, 1);
+
+        assertThatThrownBy(() -> pipeline.run(stream("id\n1\n2\n3\n4\n"),
+                record -> record.field(0).asLong(),
+                batch -> {
+                    throw new IllegalStateException("database down");
+                }))
+                .isInstanceOf(IllegalStateException.class)
+                .hasMessage("database down");
+    }
+
+    @Test
+    void resumesFromCommittedChunkPosition() throws Exception {
+        StringBuilder csv = new StringBuilder("id,note\n");
+        for (int i = 1; i <= 100; i++) {
+            csv.append(i).append(i % 10 == 0 ? ",\"two\nlines\"\n" : ",x\n");
+        }
+        byte[] bytes = csv.toString().getBytes(StandardCharsets.UTF_8);
+
+        List<CsvImportPipeline.Chunk> chunks = new ArrayList<>();
+        new CsvImportPipeline<Long>(3, 16, 2).run(new ByteArrayInputStream(bytes), null,
+                record -> record.field(0).asLong(), (records, chunk) -> chunks.add(chunk));
+
+        // Pretend the import died after the third chunk was committed
+        CsvImportPipeline.Position checkpoint = chunks.get(2).end();
+        InputStream rest = new ByteArrayInputStream(bytes);
+        rest.skipNBytes(checkpoint.offset());
+
+        List<Long> written = new ArrayList<>();
+        CsvImportPipeline.Stats stats = new CsvImportPipeline<Long>(3, 16, 2).run(rest, checkpoint,
+                record -> {
+                    if (record.field(0).asLong() == 60) {
+                        throw new IllegalArgumentException("rejected");
+                    }
+                    return record.field(0).asLong();
+                },
+                (records, chunk) -> written.addAll(records));
+
+        assertThat(stats.header()).isNull();
+        assertThat(written).hasSize(51).first().isEqualTo(49L);
+        assertThat(written).last().isEqualTo(100L);
+        // Line numbers stay absolute: record 60 starts after the header and five two-line records
+        assertThat(stats.errors()).containsExactly("Line 66: 60,\"two\nlines\" - rejected");
+        assertThat(stats.totalLines()).isEqualTo(111);
+    }
+
+    @Test
+    void mappedFileMatchesStreamedInput(@TempDir Path dir) throws Exception {
+        StringBuilder csv = new StringBuilder("id,note\n");
+        for (int i = 1; i <= 300; i++) {
+            csv.append(i).append(',');
+            // Some records are longer than the mapped window, forcing it to grow
+            csv.append(i % 50 == 0 ? "\"" + "long\n".repeat(40) + "\"" : "short");
+            csv.append(i % 75 == 0 ? "\n\n" : "\n");
+        }
+        csv.append("301,last");
+        Path file = Files.writeString(dir.resolve("movies.csv"), csv);
+
+        List<Long> streamed = new ArrayList<>();
+        CsvImportPipeline.Stats expected = new CsvImportPipeline<Long>(2, 32, 2).run(stream(csv.toString()),
+                record -> record.field(0).asLong(), streamed::addAll);
+
+        List<Long> mapped = new ArrayList<>();
+        List<CsvImportPipeline.Position> ends = new ArrayList<>();
+        CsvImportPipeline.Stats actual;
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            actual = new CsvImportPipeline<Long>(3, 32, 2).mapWindowBytes(100).run(channel, null,
+                    record -> record.field(0).asLong(),
+                    (records, chunk) -> {
+                        mapped.addAll(records);
+                        ends.add(chunk.end());
+                    });
+        }
+
+        assertThat(mapped).isEqualTo(streamed).hasSize(301);
+        assertThat(actual.header()).isEqualTo(expected.header());
+        assertThat(actual.rowsRead()).isEqualTo(expected.rowsRead());
+        assertThat(actual.totalLines()).isEqualTo(expected.totalLines());
+        assertThat(ends).last().extracting(CsvImportPipeline.Position::offset).isEqualTo(Files.size(file));
+
+        // Resume the mapped reader from a window-boundary checkpoint
+        CsvImportPipeline.Position checkpoint = ends.get(ends.size() / 2);
+        List<Long> resumed = new ArrayList<>();
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            new CsvImportPipeline<Long>(2, 32, 2).mapWindowBytes(100).run(channel, checkpoint,
+                    record -> record.field(0).asLong(), (records, chunk) -> resumed.addAll(records));
+        }
+        assertThat(resumed).isEqualTo(streamed.subList(streamed.size() - resumed.size(), streamed.size()));
+        assertThat(resumed.get(0)).isEqualTo(mapped.get(mapped.size() - resumed.size()));
+    }
+
+    @Test
+    void errorSamplesAreBounded() throws Exception {
+        StringBuilder csv = new StringBuilder("id\n");
+        for (int i = 0; i < 500; i++) {
+            csv.append("bad-").append("x".repeat(300)).append('\n');
+        }
+
+        CsvImportPipeline.Stats stats = new CsvImportPipeline<Long>(2, 50, 2, 5).run(stream(csv.toString()),
+                record -> {
+                    throw new IllegalArgumentException("not a number");
+                }, batch -> {
+                });
+
+        assertThat(stats.errorCount()).isEqualTo(500);
+        assertThat(stats.errors()).hasSize(5).allMatch(error -> error.length() < 260);
+    }
+
+    private static InputStream stream(String csv) {
+        return new ByteArrayInputStream(csv.getBytes(StandardCharsets.UTF_8));
+    }
+}
@@ -0,0 +1,81 @@
+package com.isfa.dsi.filmexplorer.csv;
+
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class CsvTokenizerTest {
+
+    @Test
+    void handlesRfc4180Quoting() {
+        CsvTokenizer tokenizer = tokenize("\"Heat, the \"\"movie\"\"\",1995,\"line one\r\nline two\"\r\nnext,,\n");
+
+        assertThat(tokenizer.nextRecord()).isTrue();
+        assertThat(tokenizer.fieldCount()).isEqualTo(3);
+        assertThat(tokenizer.field(0).asString()).isEqualTo("Heat, the \"movie\"");
+        assertThat(tokenizer.field(1).asLong()).isEqualTo(1995L);
+        assertThat(tokenizer.field(2).asString()).isEqualTo("line one\r\nline two");
+        assertThat(tokenizer.recordLine()).isEqualTo(1);
+
+        assertThat(tokenizer.nextRecord()).isTrue();
+        assertThat(tokenizer.recordLine()).isEqualTo(3);
+        assertThat(tokenizer.fieldCount()).isEqualTo(3);
+        assertThat(tokenizer.field(0).asString()).isEqualTo("next");
+        assertThat(tokenizer.field(1).asString()).isNull();
+        assertThat(tokenizer.field(2).asString()).isNull();
+
+        assertThat(tokenizer.nextRecord()).isFalse();
+    }
+
+    @Test
+    void trimsUnquotedFieldsAndDetectsBlankLines() {
+        CsvTokenizer tokenizer = tokenize("  Drama , \" padded \" \n\nUnicode café,x");
+
+        assertThat(tokenizer.nextRecord()).isTrue();
+        assertThat(tokenizer.field(0).asString()).isEqualTo("Drama");
+        assertThat(tokenizer.field(1).asString()).isEqualTo(" padded ");
+
+        assertThat(tokenizer.nextRecord()).isTrue();
+        assertThat(tokenizer.isBlankRecord()).isTrue();
+
+        assertThat(tokenizer.nextRecord()).isTrue();
+        assertThat(tokenizer.field(0).asString()).isEqualTo("Unicode café");
+        assertThat(tokenizer.recordText()).isEqualTo("Unicode café,x");
+    }
+
+    @Test
+    void parsesNumbersFromBytes() {
+        CsvTokenizer tokenizer = tokenize("7.25,-12,\"8.0\",1E+3,abc,,99999999999999999999,12.5\n");
+        assertThat(tokenizer.nextRecord()).isTrue();
+
+        assertThat(tokenizer.field(0).asDecimal()).isEqualTo(new BigDecimal("7.25"));
+        assertThat(tokenizer.field(1).asLong()).isEqualTo(-12L);
+        assertThat(tokenizer.field(2).asDecimal()).isEqualTo(new BigDecimal("8.0"));
+        assertThat(tokenizer.field(3).asDecimal()).isEqualTo(new BigDecimal("1E+3"));
+        assertThat(tokenizer.field(4).asDecimal()).isNull();
+        assertThat(tokenizer.field(4).asLong()).isNull();
+        assertThat(tokenizer.field(5).asInteger()).isNull();
+        assertThat(tokenizer.field(6).asLong()).isNull();
+        assertThat(tokenizer.field(6).asDecimal()).isEqualTo(new BigDecimal("99999999999999999999"));
+        assertThat(tokenizer.field(7).asInteger()).isNull();
+    }
+
+    @Test
+    void worksOnDirectBuffers() {
+        byte[] bytes = "a,\"b\"\"c\"\n".getBytes(StandardCharsets.UTF_8);
+        ByteBuffer direct = ByteBuffer.allocateDirect(bytes.length).put(bytes).flip();
+
+        CsvTokenizer tokenizer = new CsvTokenizer().reset(direct, 1);
+
+        assertThat(tokenizer.nextRecord()).isTrue();
+        assertThat(tokenizer.field(1).asString()).isEqualTo("b\"c");
+    }
+
+    private static CsvTokenizer tokenize(String csv) {
+        return new CsvTokenizer().reset(ByteBuffer.wrap(csv.getBytes(StandardCharsets.UTF_8)), 1);
+    }
+}
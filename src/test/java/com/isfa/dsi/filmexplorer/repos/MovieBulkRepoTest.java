@@ -0,0 +1,40 @@
+package com.isfa.dsi.filmexplorer.repos;
+
+import com.isfa.dsi.filmexplorer.models.Movies;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.util.List;
+import java.util.stream.IntStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class MovieBulkRepoTest {
+
+    @Test
+    void largeBatchesAreSplitUnderTheBindParameterLimit() {
+        JdbcTemplate jdbcTemplate = mock(JdbcTemplate.class);
+        when(jdbcTemplate.update(anyString(), any(Object[].class), any(int[].class)))
+                .thenAnswer(invocation -> invocation.<Object[]>getArgument(1).length / 19);
+        List<Movies> movies = IntStream.range(0, 5000).mapToObj(i -> {
+            Movies movie = new Movies();
+            movie.setTitle("Movie " + i);
+            return movie;
+        }).toList();
+
+        int written = new MovieBulkRepo(jdbcTemplate).insertBatch(movies);
+
+        ArgumentCaptor<Object[]> args = ArgumentCaptor.forClass(Object[].class);
+        verify(jdbcTemplate, times(3)).update(anyString(), args.capture(), any(int[].class));
+        assertThat(args.getAllValues()).allSatisfy(statementArgs ->
+                assertThat(statementArgs.length).isLessThanOrEqualTo(MovieBulkRepo.MAX_BIND_PARAMETERS));
+        assertThat(written).isEqualTo(5000);
+    }
+}
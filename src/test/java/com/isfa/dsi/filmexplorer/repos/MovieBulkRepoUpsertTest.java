@@ -0,0 +1,81 @@
+package com.isfa.dsi.filmexplorer.repos;
+
+import com.isfa.dsi.filmexplorer.models.Movies;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.math.BigDecimal;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Upsert imports against an in-memory database, which takes the lookup-then-write path
+ */
+@DataJpaTest
+@Import(MovieBulkRepo.class)
+class MovieBulkRepoUpsertTest {
+
+    @Autowired
+    private MovieBulkRepo movieBulkRepo;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Test
+    void unchangedRowsAreSkippedAndChangedRowsRewritten() {
+        movieBulkRepo.upsertBatch(List.of(movie("Alien", 1979, null, 117), movie("Heat", 1995, null, 170)));
+
+        MovieBulkRepo.UpsertCounts counts = movieBulkRepo.upsertBatch(List.of(
+                movie("Alien", 1979, null, 117), movie("Heat", 1995, null, 171), movie("Ronin", 1998, null, 122)));
+
+        assertThat(counts).isEqualTo(new MovieBulkRepo.UpsertCounts(1, 1, 1));
+        assertThat(runtimes()).containsExactly(117, 171, 122);
+    }
+
+    @Test
+    void rowsImportedWithoutImdbIdAreRekeyedRatherThanDuplicated() {
+        movieBulkRepo.upsertBatch(List.of(movie("Alien", 1979, null, 117), movie("Heat", 1995, null, 170)));
+
+        // The next refresh carries the imdb id column
+        MovieBulkRepo.UpsertCounts counts = movieBulkRepo.upsertBatch(List.of(
+                movie("Alien", 1979, "tt0078748", 117), movie("Heat", 1995, "tt0113277", 170)));
+        MovieBulkRepo.UpsertCounts again = movieBulkRepo.upsertBatch(List.of(
+                movie("Alien", 1979, "tt0078748", 117), movie("Heat", 1995, "tt0113277", 170)));
+
+        assertThat(counts).isEqualTo(new MovieBulkRepo.UpsertCounts(0, 2, 0));
+        assertThat(again).isEqualTo(new MovieBulkRepo.UpsertCounts(0, 0, 2));
+        assertThat(jdbcTemplate.queryForList("SELECT natural_key FROM movies ORDER BY id", String.class))
+                .containsExactly("tt0078748", "tt0113277");
+    }
+
+    @Test
+    void titleKeyClaimedByAnotherRowIsNotTakenOver() {
+        movieBulkRepo.upsertBatch(List.of(movie("Heat", 1995, null, 170)));
+
+        // A row still keyed by title in the same batch keeps the old row; the imdb keyed one is new
+        MovieBulkRepo.UpsertCounts counts = movieBulkRepo.upsertBatch(List.of(
+                movie("Heat", 1995, null, 170), movie("Heat", 1995, "tt0113277", 170)));
+
+        assertThat(counts).isEqualTo(new MovieBulkRepo.UpsertCounts(1, 0, 1));
+        assertThat(jdbcTemplate.queryForList("SELECT natural_key FROM movies ORDER BY id", String.class))
+                .containsExactly("t:heat|1995", "tt0113277");
+    }
+
+    private List<Integer> runtimes() {
+        return jdbcTemplate.queryForList("SELECT runtime FROM movies ORDER BY id", Integer.class);
+    }
+
+    private static Movies movie(String title, int year, String imdbId, int runtime) {
+        Movies movie = new Movies();
+        movie.setTitle(title);
+        movie.setReleaseYear(BigDecimal.valueOf(year));
+        movie.setImdbId(imdbId);
+        movie.setRuntime(runtime);
+        MovieBulkRepo.assignImportKeys(movie);
+        return movie;
+    }
+}
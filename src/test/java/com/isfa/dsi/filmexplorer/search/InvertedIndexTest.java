@@ -0,0 +1,72 @@
+package com.isfa.dsi.filmexplorer.search;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Set;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class InvertedIndexTest {
+
+    @Test
+    void ranksStemmedMatchesAndFollowsUpdates() {
+        InvertedIndex index = new InvertedIndex();
+        index.put(1, 10, "Great acting", "The actors carried a thin story.");
+        index.put(2, 10, "Boring", "Two hours of nothing; the acting was fine though.");
+        index.put(3, 20, "A masterpiece", "Stunning visuals and the best soundtrack of the year.");
+        index.put(4, 20, "Acted well", "Well acted, beautifully shot.");
+
+        // "acts" meets "acting" and "acted"; title matches weigh double ("actors" is another stem)
+        assertThat(ids(index.search(TextAnalyzer.terms("acts"), null, 10))).containsExactly(4L, 1L, 2L);
+        assertThat(ids(index.search(TextAnalyzer.terms("acting"), 20L, 10))).containsExactly(4L);
+        assertThat(ids(index.search(TextAnalyzer.terms("beautiful Visuals"), null, 10))).containsExactlyInAnyOrder(3L, 4L);
+
+        index.put(3, 20, "A masterpiece", "Great acting throughout.");
+        index.remove(1);
+
+        assertThat(index.search(TextAnalyzer.terms("soundtrack"), null, 10)).isEmpty();
+        assertThat(ids(index.search(TextAnalyzer.terms("acting"), null, 2))).hasSize(2).doesNotContain(1L);
+        assertThat(index.size()).isEqualTo(3);
+    }
+
+    @Test
+    void groupSearchesSeeOnlyTheirGroupWhateverTheInsertOrder() {
+        InvertedIndex index = new InvertedIndex();
+        for (long id = 40; id >= 1; id--) {
+            index.put(id, id % 4, "Review " + id, id % 2 == 0 ? "A haunting score." : "Flat and scoreless.");
+        }
+        // Moving a document to another group takes it out of the old one
+        index.put(8, 1, "Review 8", "A haunting score.");
+
+        assertThat(ids(index.search(TextAnalyzer.terms("haunting"), 0L, 100)))
+                .hasSize(9).allMatch(id -> id % 4 == 0).doesNotContain(8L);
+        assertThat(ids(index.search(TextAnalyzer.terms("haunting"), 1L, 100))).containsExactly(8L);
+        assertThat(index.search(TextAnalyzer.terms("haunting"), 3L, 100)).isEmpty();
+        assertThat(index.search(TextAnalyzer.terms("haunting"), null, 100)).hasSize(20);
+
+        for (long id = 1; id <= 40; id++) {
+            index.remove(id);
+        }
+        assertThat(index.search(TextAnalyzer.terms("haunting"), null, 100)).isEmpty();
+        assertThat(index.size()).isZero();
+    }
+
+    @Test
+    void snippetCentresOnTheDensestMatchAndLocatesIt() {
+        String text = "It starts slowly. ".repeat(20) + "Then the final duel is spectacular and the duel music soars. "
+                + "The end.";
+        Snippets.Snippet snippet = Snippets.best(text, Set.copyOf(TextAnalyzer.terms("duel music")), 80);
+
+        assertThat(snippet.text()).startsWith("…").contains("final duel").endsWith("…");
+        assertThat(snippet.highlights()).isNotEmpty();
+        for (int[] range : snippet.highlights()) {
+            String word = snippet.text().substring(range[0], range[1]).toLowerCase();
+            assertThat(word).isIn("duel", "music");
+        }
+    }
+
+    private static List<Long> ids(List<InvertedIndex.Hit> hits) {
+        return hits.stream().map(InvertedIndex.Hit::id).toList();
+    }
+}
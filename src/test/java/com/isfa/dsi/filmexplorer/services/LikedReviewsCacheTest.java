@@ -0,0 +1,56 @@
+package com.isfa.dsi.filmexplorer.services;
+
+import com.isfa.dsi.filmexplorer.repos.ReviewLikeRepo;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class LikedReviewsCacheTest {
+
+    private final ReviewLikeRepo reviewLikeRepo = mock(ReviewLikeRepo.class);
+
+    @Test
+    void doesNotCacheALoadThatRacedWithALike() {
+        LikedReviewsCache cache = cache(100);
+        // The like commits while the load reads, and its record() finds nothing to update
+        when(reviewLikeRepo.findAllLikedReviewIds(eq(1L), anyInt())).thenAnswer(invocation -> {
+            cache.record(1L, 7L, true);
+            return List.of(3L);
+        }).thenReturn(List.of(3L, 7L));
+
+        assertThat(cache.isLiked(1L, 7L)).isFalse();
+        assertThat(cache.isLiked(1L, 7L)).isTrue();
+        assertThat(cache.isLiked(1L, 7L)).isTrue();
+        verify(reviewLikeRepo, times(2)).findAllLikedReviewIds(eq(1L), anyInt());
+    }
+
+    @Test
+    void remembersUsersWithTooManyLikesToCache() {
+        when(reviewLikeRepo.findAllLikedReviewIds(eq(1L), anyInt())).thenReturn(List.of(3L, 7L, 9L));
+        when(reviewLikeRepo.findLikedReviewIds(eq(1L), any())).thenReturn(List.of(7L));
+        LikedReviewsCache cache = cache(2);
+
+        assertThat(cache.likedAmong(1L, List.of(5L, 7L))).containsExactly(7L);
+        assertThat(cache.likedAmong(1L, List.of(5L, 7L))).containsExactly(7L);
+        verify(reviewLikeRepo, times(1)).findAllLikedReviewIds(eq(1L), anyInt());
+        verify(reviewLikeRepo, times(2)).findLikedReviewIds(eq(1L), any());
+    }
+
+    private LikedReviewsCache cache(int maxLikesPerUser) {
+        LikedReviewsCache cache = new LikedReviewsCache(reviewLikeRepo);
+        ReflectionTestUtils.setField(cache, "maxUsers", 10);
+        ReflectionTestUtils.setField(cache, "maxLikesPerUser", maxLikesPerUser);
+        ReflectionTestUtils.setField(cache, "ttlSeconds", 600L);
+        return cache;
+    }
+}
@@ -0,0 +1,117 @@
+package com.isfa.dsi.filmexplorer.services;
+
+import com.isfa.dsi.filmexplorer.DTOs.MovieSearchRequest;
+import com.isfa.dsi.filmexplorer.models.Movies;
+import com.isfa.dsi.filmexplorer.repos.CatalogVersionRepo;
+import com.isfa.dsi.filmexplorer.repos.MovieTombstoneRepo;
+import com.isfa.dsi.filmexplorer.repos.MoviesRepo;
+import jakarta.persistence.EntityManager;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.util.HashMap;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.within;
+import static org.mockito.Mockito.mock;
+
+/**
+ * The rank score formula against an in-memory database, and searches sorted and filtered by it.
+ * The UPDATE around the formula is PostgreSQL-only, so scores are read with its SELECT and
+ * written back with plain updates.
+ */
+@DataJpaTest
+class MovieRankServiceTest {
+
+    private static final String STATS_SOURCE = "JOIN movie_rating_stats st ON st.movie_id = mv.id";
+
+    @Autowired
+    private EntityManager entityManager;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private MoviesRepo moviesRepo;
+
+    private MovieRankService movieRankService;
+    private final Map<String, Long> ids = new HashMap<>();
+
+    @BeforeEach
+    void setUp() {
+        movieRankService = new MovieRankService(jdbcTemplate, mock(TransactionTemplate.class),
+                mock(ApplicationEventPublisher.class));
+        ReflectionTestUtils.setField(movieRankService, "priorMean", 6.5);
+        ReflectionTestUtils.setField(movieRankService, "priorVotes", 500.0);
+        ReflectionTestUtils.setField(movieRankService, "imdbWeight", 1000.0);
+        ReflectionTestUtils.setField(movieRankService, "reviewWeight", 10.0);
+        movieRankService.prepareStatements();
+
+        movie("Unrated", null, 0L, null, 0, 0);
+        movie("Well voted", "8.0", 1500L, null, 0, 0);
+        movie("Imdb only", "0", 0L, "9.0", 0, 0);
+        movie("Panned", "5.0", 500L, null, 10, 30);
+        entityManager.flush();
+    }
+
+    @Test
+    void blendsEverySourceShrunkTowardThePrior() {
+        Map<Long, Double> scores = scores();
+
+        assertThat(scores.get(ids.get("Unrated"))).isCloseTo(6.5, within(1e-9));
+        // (500·6.5 + 1500·8) / (500 + 1500)
+        assertThat(scores.get(ids.get("Well voted"))).isCloseTo(7.625, within(1e-9));
+        // A zero TMDb average is no rating at all: (500·6.5 + 1000·9) / (500 + 1000)
+        assertThat(scores.get(ids.get("Imdb only"))).isCloseTo(12250.0 / 1500, within(1e-9));
+        // (500·6.5 + 500·5 + 10·30) / (500 + 500 + 10·10)
+        assertThat(scores.get(ids.get("Panned"))).isCloseTo(5.5, within(1e-9));
+    }
+
+    @Test
+    void searchesSortAndFilterByTheScore() {
+        scores().forEach((id, score) -> jdbcTemplate.update("UPDATE movies SET rank_score = ? WHERE id = ?", score, id));
+        entityManager.clear();
+        MovieService movieService = new MovieService(moviesRepo, mock(CatalogVersionRepo.class),
+                mock(MovieTombstoneRepo.class), mock(ApplicationEventPublisher.class), movieRankService);
+
+        MovieSearchRequest byScore = new MovieSearchRequest();
+        byScore.setSortBy("score");
+        assertThat(movieService.searchMovies(byScore).getContent()).extracting(Movies::getTitle)
+                .containsExactly("Imdb only", "Well voted", "Unrated", "Panned");
+
+        MovieSearchRequest highlyRated = new MovieSearchRequest();
+        highlyRated.setHighlyRated(true);
+        assertThat(movieService.searchMovies(highlyRated).getContent()).extracting(Movies::getTitle)
+                .containsExactlyInAnyOrder("Imdb only", "Well voted");
+    }
+
+    private Map<Long, Double> scores() {
+        Map<Long, Double> scores = new HashMap<>();
+        jdbcTemplate.query(movieRankService.scoreSql(STATS_SOURCE, "TRUE"),
+                rs -> {
+                    scores.put(rs.getLong(1), rs.getDouble(2));
+                });
+        return scores;
+    }
+
+    private void movie(String title, String voteAverage, Long voteCount, String imdbRating, long reviews, long ratingSum) {
+        Movies movie = new Movies();
+        movie.setTitle(title);
+        movie.setVoteAverage(voteAverage != null ? new BigDecimal(voteAverage) : null);
+        movie.setVoteCount(voteCount);
+        movie.setImdbRating(imdbRating != null ? new BigDecimal(imdbRating) : null);
+        entityManager.persist(movie);
+        ids.put(title, movie.getId());
+        jdbcTemplate.update("INSERT INTO movie_rating_stats (movie_id, review_count, rating_sum, rating_sum_sq, "
+                + "r1, r2, r3, r4, r5, r6, r7, r8, r9, r10) VALUES (?, ?, ?, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0)",
+                movie.getId(), reviews, ratingSum);
+    }
+}
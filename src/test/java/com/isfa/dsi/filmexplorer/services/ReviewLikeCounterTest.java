@@ -0,0 +1,65 @@
+package com.isfa.dsi.filmexplorer.services;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class ReviewLikeCounterTest {
+
+    @Test
+    void concurrentLikesAreFlushedExactlyOnce() throws Exception {
+        AtomicLong flushed = new AtomicLong();
+        JdbcTemplate jdbcTemplate = mock(JdbcTemplate.class);
+        when(jdbcTemplate.batchUpdate(anyString(), anyList())).thenAnswer(invocation -> {
+            List<Object[]> rows = invocation.getArgument(1);
+            rows.forEach(row -> flushed.addAndGet((Long) row[0]));
+            return new int[rows.size()];
+        });
+        ReviewLikeCounter counter = new ReviewLikeCounter(jdbcTemplate);
+
+        int threads = 8;
+        int likesPerThread = 20_000;
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        for (int t = 0; t < threads; t++) {
+            executor.submit(() -> {
+                for (int i = 0; i < likesPerThread; i++) {
+                    counter.add((long) (i % 3), 1);
+                }
+            });
+        }
+        // Flush (and evict idle adders) while the likes are coming in
+        while (!executor.isTerminated()) {
+            counter.flush();
+            executor.shutdown();
+            executor.awaitTermination(1, TimeUnit.MILLISECONDS);
+        }
+        counter.flush();
+        counter.flush();
+
+        assertThat(flushed.get()).isEqualTo((long) threads * likesPerThread);
+        assertThat(counter.pendingDelta(0L) + counter.pendingDelta(1L) + counter.pendingDelta(2L)).isZero();
+    }
+
+    @Test
+    void failedFlushKeepsDeltas() {
+        JdbcTemplate jdbcTemplate = mock(JdbcTemplate.class);
+        when(jdbcTemplate.batchUpdate(anyString(), anyList())).thenThrow(new IllegalStateException("down"));
+        ReviewLikeCounter counter = new ReviewLikeCounter(jdbcTemplate);
+
+        counter.add(7L, 3);
+        counter.flush();
+
+        assertThat(counter.currentCount(7L, 10L)).isEqualTo(13);
+    }
+}
@@ -0,0 +1,122 @@
+package com.isfa.dsi.filmexplorer.services;
+
+import com.isfa.dsi.filmexplorer.DTOs.ReviewResponse;
+import com.isfa.dsi.filmexplorer.models.Movies;
+import com.isfa.dsi.filmexplorer.models.Review;
+import com.isfa.dsi.filmexplorer.repos.MoviesRepo;
+import com.isfa.dsi.filmexplorer.repos.ReviewLikeRepo;
+import com.isfa.dsi.filmexplorer.repos.ReviewRepo;
+import com.isfa.dsi.filmexplorer.user.Role;
+import com.isfa.dsi.filmexplorer.user.User;
+import com.isfa.dsi.filmexplorer.user.UserRepo;
+import jakarta.persistence.EntityManager;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Set;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * A review page must cost the same number of statements whatever its size: the row
+ * query and its count, never a load of the author or movie per review. Runs the real
+ * queries against an in-memory database and counts what Hibernate prepares.
+ */
+@DataJpaTest(properties = "spring.jpa.properties.hibernate.generate_statistics=true")
+class ReviewListingQueryTest {
+
+    @Autowired
+    private EntityManager entityManager;
+
+    @Autowired
+    private ReviewRepo reviewRepo;
+
+    private final LikedReviewsCache likedReviewsCache = mock(LikedReviewsCache.class);
+
+    private ReviewService reviewService;
+    private Statistics statistics;
+    private Long movieId;
+    private Long readerId;
+
+    @BeforeEach
+    void setUp() {
+        reviewService = new ReviewService(reviewRepo, mock(MoviesRepo.class), mock(UserRepo.class),
+                mock(ReviewLikeRepo.class), new ReviewLikeCounter(mock(JdbcTemplate.class)), likedReviewsCache,
+                mock(MovieRatingStatsService.class), mock(TopReviewsCache.class), mock(ReviewSearchService.class),
+                mock(WriteBehindService.class), mock(MovieCatalogService.class));
+        statistics = entityManager.getEntityManagerFactory().unwrap(SessionFactory.class).getStatistics();
+
+        Movies movie = new Movies();
+        movie.setTitle("Metropolis");
+        entityManager.persist(movie);
+        movieId = movie.getId();
+        for (int i = 1; i <= 60; i++) {
+            // Every review by a different author, so lazy loading would show up as one query each
+            User author = user("author" + i + "@example.com", i % 2 == 0 ? "Ada" : null);
+            entityManager.persist(author);
+            if (i == 2) {
+                readerId = author.getId();
+            }
+            entityManager.persist(Review.builder()
+                    .user(author).movie(movie).rating(i % 10 + 1)
+                    .title("Title " + i).content("Content " + i).likesCount(0L)
+                    .createdAt(LocalDateTime.now().minusMinutes(i))
+                    .build());
+        }
+        entityManager.flush();
+        entityManager.clear();
+    }
+
+    @Test
+    void pageOfReviewsIssuesAConstantNumberOfStatements() {
+        when(likedReviewsCache.likedAmong(eq(readerId), anyCollection())).thenReturn(Set.of());
+
+        for (int size : new int[]{1, 10, 50}) {
+            entityManager.clear();
+            statistics.clear();
+
+            Page<ReviewResponse> page = reviewService.getMovieReviews(movieId, readerId, PageRequest.of(0, size));
+            page.getContent().forEach(review -> assertThat(review.getUserDisplayName()).isNotBlank());
+
+            assertThat(page.getContent()).hasSize(size);
+            assertThat(page.getTotalElements()).isEqualTo(60);
+            // The row query and its count
+            assertThat(statistics.getPrepareStatementCount()).as("statements for a page of %d", size).isEqualTo(2);
+            assertThat(statistics.getEntityLoadCount()).isZero();
+        }
+    }
+
+    @Test
+    void rowsCarryAuthorAndLikeState() {
+        List<ReviewResponse> newest = reviewService.getMovieReviews(movieId, readerId, PageRequest.of(0, 2)).getContent();
+        when(likedReviewsCache.likedAmong(eq(readerId), anyCollection())).thenReturn(Set.of(newest.get(1).getId()));
+
+        List<ReviewResponse> reviews = reviewService.getMovieReviews(movieId, readerId, PageRequest.of(0, 2)).getContent();
+
+        assertThat(reviews).extracting(ReviewResponse::getMovieId).containsOnly(movieId);
+        assertThat(reviews).extracting(ReviewResponse::getIsLiked).containsExactly(false, true);
+        assertThat(reviews).extracting(ReviewResponse::getIsAuthor).containsExactly(false, true);
+        assertThat(reviews.get(0).getUserDisplayName()).isEqualTo("author1@example.com");
+        assertThat(reviews.get(1).getUserDisplayName()).isEqualTo("Ada Lovelace");
+    }
+
+    private static User user(String email, String firstName) {
+        return User.builder()
+                .email(email).firstName(firstName).lastName(firstName != null ? "Lovelace" : null)
+                .password("secret").role(Role.USER).createdAt(LocalDateTime.now())
+                .build();
+    }
+}
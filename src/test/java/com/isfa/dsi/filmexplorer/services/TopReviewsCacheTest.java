@@ -0,0 +1,93 @@
+package com.isfa.dsi.filmexplorer.services;
+
+import com.isfa.dsi.filmexplorer.DTOs.ReviewListRow;
+import com.isfa.dsi.filmexplorer.repos.ReviewRepo;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class TopReviewsCacheTest {
+
+    private static final LocalDateTime T0 = LocalDateTime.of(2024, 1, 1, 12, 0);
+
+    private final ReviewRepo reviewRepo = mock(ReviewRepo.class);
+
+    @Test
+    void likesReorderCachedReviewsInPlace() {
+        when(reviewRepo.findTopReviewsForMovie(eq(1L), any()))
+                .thenReturn(List.of(row(10, 9), row(11, 5), row(12, 1)));
+        TopReviewsCache cache = cache(5);
+
+        assertThat(ids(cache.top(1L, 3))).containsExactly(10L, 11L, 12L);
+
+        cache.update(1L, row(12, 1), 6);
+        cache.update(1L, row(13, 0), 0);
+        cache.remove(1L, 10L);
+
+        assertThat(ids(cache.top(1L, 5))).containsExactly(12L, 11L, 13L);
+        verify(reviewRepo, times(1)).findTopReviewsForMovie(eq(1L), any());
+    }
+
+    @Test
+    void reloadsWhenCachedReviewsDropBelowUncachedOnes() {
+        // Size 1 keeps two reviews; the third only sets the floor
+        when(reviewRepo.findTopReviewsForMovie(eq(1L), any()))
+                .thenReturn(List.of(row(10, 9), row(11, 5), row(12, 3)));
+        TopReviewsCache cache = cache(1);
+
+        assertThat(ids(cache.top(1L, 1))).containsExactly(10L);
+
+        cache.update(1L, row(10, 9), 2);
+        cache.update(1L, row(11, 5), 1);
+        // A review below the floor is not admitted; its rank is unknown relative to others there
+        cache.update(1L, row(14, 0), 2);
+
+        when(reviewRepo.findTopReviewsForMovie(eq(1L), any()))
+                .thenReturn(List.of(row(12, 3), row(10, 2), row(14, 2)));
+        assertThat(ids(cache.top(1L, 1))).containsExactly(12L);
+        verify(reviewRepo, times(2)).findTopReviewsForMovie(eq(1L), any());
+    }
+
+    @Test
+    void doesNotCacheALoadThatRacedWithALike() {
+        TopReviewsCache cache = cache(5);
+        // A like commits while the load reads, and its update finds nothing to apply to
+        when(reviewRepo.findTopReviewsForMovie(eq(1L), any())).thenAnswer(invocation -> {
+            cache.update(1L, row(11, 5), 10);
+            return List.of(row(10, 9), row(11, 5));
+        }).thenReturn(List.of(row(11, 10), row(10, 9)));
+
+        assertThat(ids(cache.top(1L, 2))).containsExactly(10L, 11L);
+        assertThat(ids(cache.top(1L, 2))).containsExactly(11L, 10L);
+        assertThat(ids(cache.top(1L, 2))).containsExactly(11L, 10L);
+        verify(reviewRepo, times(2)).findTopReviewsForMovie(eq(1L), any());
+    }
+
+    private TopReviewsCache cache(int size) {
+        TopReviewsCache cache = new TopReviewsCache(reviewRepo, new ReviewLikeCounter(mock(JdbcTemplate.class)));
+        ReflectionTestUtils.setField(cache, "size", size);
+        ReflectionTestUtils.setField(cache, "maxMovies", 10);
+        ReflectionTestUtils.setField(cache, "ttlSeconds", 60L);
+        return cache;
+    }
+
+    private static ReviewListRow row(long id, long likes) {
+        return new ReviewListRow(id, 100 + id, "u" + id + "@example.com", null, null, 7, "t", "c", likes,
+                T0.plusMinutes(id), T0.plusMinutes(id));
+    }
+
+    private static List<Long> ids(List<TopReviewsCache.TopReview> top) {
+        return top.stream().map(review -> review.row().id()).toList();
+    }
+}
@@ -0,0 +1,63 @@
+package com.isfa.dsi.filmexplorer.services;
+
+import com.isfa.dsi.filmexplorer.models.Watchlist.WatchlistStatus;
+import com.isfa.dsi.filmexplorer.repos.WatchlistRepo;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class WatchlistCountersTest {
+
+    private final WatchlistRepo watchlistRepo = mock(WatchlistRepo.class);
+
+    private final WatchlistCounters counters = new WatchlistCounters(watchlistRepo);
+    private final int watched = WatchlistStatus.WATCHED.ordinal();
+
+    WatchlistCountersTest() {
+        ReflectionTestUtils.setField(counters, "maxUsers", 10);
+        ReflectionTestUtils.setField(counters, "ttlSeconds", 600L);
+    }
+
+    @Test
+    void seedsOverlappingAWriteAreNotCached() {
+        // The seed reads after the write commits but before its record(): applying both would count it twice
+        long[] token = new long[1];
+        when(watchlistRepo.countByStatus(1L)).thenAnswer(invocation -> {
+            token[0] = counters.writing(1L);
+            return watched(3L);
+        }).thenReturn(watched(3L));
+
+        assertThat(counters.counts(1L)[watched]).isEqualTo(3);
+        counters.record(1L, token[0], null, WatchlistStatus.WATCHED);
+        assertThat(counters.counts(1L)[watched]).isEqualTo(3);
+
+        // Once seeded cleanly, committed writes move the cached counts
+        counters.record(1L, counters.writing(1L), null, WatchlistStatus.WATCHED);
+        assertThat(counters.counts(1L)[watched]).isEqualTo(4);
+        verify(watchlistRepo, times(2)).countByStatus(1L);
+    }
+
+    @Test
+    void seedsTakenAfterAWriteStartedAreNotMovedByIt() {
+        // writing() inside the transaction, then a whole seed whose query runs after the commit
+        long token = counters.writing(1L);
+        when(watchlistRepo.countByStatus(1L)).thenReturn(watched(4L), watched(4L));
+        assertThat(counters.counts(1L)[watched]).isEqualTo(4);
+
+        // The seed already counts the write, so its record() must not add it again
+        counters.record(1L, token, null, WatchlistStatus.WATCHED);
+        assertThat(counters.counts(1L)[watched]).isEqualTo(4);
+        verify(watchlistRepo, times(2)).countByStatus(1L);
+    }
+
+    private static List<Object[]> watched(long count) {
+        return List.<Object[]>of(new Object[]{WatchlistStatus.WATCHED, count});
+    }
+}
@@ -0,0 +1,85 @@
+package com.isfa.dsi.filmexplorer.services;
+
+import com.isfa.dsi.filmexplorer.models.Watchlist.WatchlistStatus;
+import com.isfa.dsi.filmexplorer.repos.WatchlistRepo;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class WatchlistMembershipTest {
+
+    private final WatchlistRepo watchlistRepo = mock(WatchlistRepo.class);
+
+    @Test
+    void answersAPageFromOneLoadAndFollowsWrites() {
+        when(watchlistRepo.findAllMovieStatuses(eq(1L), anyInt())).thenReturn(List.of(
+                new Object[]{3L, "WATCHED"}, new Object[]{7L, "WANT_TO_WATCH"}, new Object[]{9L, "WATCHED"}));
+        WatchlistMembership membership = membership(100);
+
+        assertThat(membership.statusesOf(1L, List.of(1L, 3L, 7L, 8L, 9L)))
+                .containsOnlyKeys(3L, 7L, 9L)
+                .containsEntry(3L, WatchlistStatus.WATCHED)
+                .containsEntry(7L, WatchlistStatus.WANT_TO_WATCH);
+
+        membership.record(1L, 8L, null, WatchlistStatus.WATCHING);
+        membership.record(1L, 7L, WatchlistStatus.WANT_TO_WATCH, WatchlistStatus.WATCHED);
+        membership.record(1L, 3L, WatchlistStatus.WATCHED, null);
+
+        assertThat(membership.statusesOf(1L, List.of(3L, 7L, 8L, 9L)))
+                .containsOnlyKeys(7L, 8L, 9L)
+                .containsEntry(7L, WatchlistStatus.WATCHED)
+                .containsEntry(8L, WatchlistStatus.WATCHING);
+        verify(watchlistRepo, times(1)).findAllMovieStatuses(eq(1L), anyInt());
+        verify(watchlistRepo, never()).findStatusesByMovieIdIn(any(), any());
+    }
+
+    @Test
+    void queriesUsersTooLargeToCache() {
+        when(watchlistRepo.findAllMovieStatuses(eq(1L), anyInt())).thenReturn(List.of(
+                new Object[]{3L, "WATCHED"}, new Object[]{7L, "WANT_TO_WATCH"}, new Object[]{9L, "WATCHED"}));
+        when(watchlistRepo.findStatusesByMovieIdIn(eq(1L), any()))
+                .thenReturn(List.<Object[]>of(new Object[]{7L, WatchlistStatus.WANT_TO_WATCH}));
+        WatchlistMembership membership = membership(2);
+
+        assertThat(membership.contains(1L, 7L)).isTrue();
+        assertThat(membership.contains(1L, 7L)).isTrue();
+        // Known to be too large until the TTL runs out, so the full load is not repeated
+        verify(watchlistRepo, times(1)).findAllMovieStatuses(eq(1L), anyInt());
+        verify(watchlistRepo, times(2)).findStatusesByMovieIdIn(eq(1L), any());
+    }
+
+    @Test
+    void doesNotCacheALoadThatRacedWithAWrite() {
+        WatchlistMembership membership = membership(100);
+        // The add commits while the load reads, and its record() finds nothing to update
+        when(watchlistRepo.findAllMovieStatuses(eq(1L), anyInt())).thenAnswer(invocation -> {
+            membership.writing(1L);
+            membership.record(1L, 7L, null, WatchlistStatus.WATCHED);
+            return List.<Object[]>of(new Object[]{3L, "WATCHED"});
+        }).thenReturn(List.of(new Object[]{3L, "WATCHED"}, new Object[]{7L, "WATCHED"}));
+
+        assertThat(membership.contains(1L, 7L)).isFalse();
+        assertThat(membership.contains(1L, 7L)).isTrue();
+        assertThat(membership.contains(1L, 7L)).isTrue();
+        verify(watchlistRepo, times(2)).findAllMovieStatuses(eq(1L), anyInt());
+    }
+
+    private WatchlistMembership membership(int maxEntriesPerUser) {
+        WatchlistMembership membership = new WatchlistMembership(watchlistRepo);
+        ReflectionTestUtils.setField(membership, "maxUsers", 10);
+        ReflectionTestUtils.setField(membership, "maxEntriesPerUser", maxEntriesPerUser);
+        ReflectionTestUtils.setField(membership, "ttlSeconds", 600L);
+        return membership;
+    }
+}
@@ -0,0 +1,105 @@
+package com.isfa.dsi.filmexplorer.services;
+
+import com.isfa.dsi.filmexplorer.repos.WatchlistBulkRepo;
+import com.isfa.dsi.filmexplorer.repos.WatchlistRepo;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class WatchlistOrderingTest {
+
+    private static final Long USER = 7L;
+
+    @Test
+    void placesBetweenNeighboursUntilTheGapRunsOut() {
+        assertThat(WatchlistOrdering.between(null, null)).isZero();
+        assertThat(WatchlistOrdering.between(null, 0L)).isEqualTo(-WatchlistOrdering.GAP);
+        assertThat(WatchlistOrdering.between(0L, null)).isEqualTo(WatchlistOrdering.GAP);
+        assertThat(WatchlistOrdering.between(0L, 10L)).isEqualTo(5L);
+        assertThat(WatchlistOrdering.between(4L, 6L)).isEqualTo(5L);
+
+        assertThat(WatchlistOrdering.between(5L, 6L)).isNull();
+        assertThat(WatchlistOrdering.between(3L, 3L)).isNull();
+        assertThat(WatchlistOrdering.between(WatchlistOrdering.MAX_POSITION, null)).isNull();
+        assertThat(WatchlistOrdering.between(null, WatchlistOrdering.MIN_POSITION)).isNull();
+    }
+
+    @Test
+    void movesAmongFreshlyAddedEntriesWriteOnlyTheMovedEntry() {
+        // Entry id to position, as the watchlist table would hold them
+        Map<Long, Integer> positions = new LinkedHashMap<>();
+        WatchlistRepo repo = inMemory(positions);
+        WatchlistBulkRepo bulkRepo = mock(WatchlistBulkRepo.class);
+        WatchlistOrdering ordering = new WatchlistOrdering(repo, bulkRepo, mock(JdbcTemplate.class),
+                mock(TransactionTemplate.class));
+
+        // Added one at a time, then three in one bulk request
+        for (long id = 1; id <= 3; id++) {
+            positions.put(id, ordering.topPositions(USER, 1)[0]);
+        }
+        int[] bulk = ordering.topPositions(USER, 3);
+        for (int i = 0; i < bulk.length; i++) {
+            positions.put(4L + i, bulk[i]);
+        }
+        assertThat(positions.values()).doesNotHaveDuplicates();
+        assertThat(order(positions)).containsExactly(6L, 5L, 4L, 3L, 2L, 1L);
+
+        // Oldest entry right after the newest, then the newest to the bottom, then back on top
+        positions.put(1L, ordering.positionAfter(USER, 1L, 6L));
+        assertThat(order(positions)).containsExactly(6L, 1L, 5L, 4L, 3L, 2L);
+        positions.put(6L, ordering.positionAfter(USER, 6L, 2L));
+        assertThat(order(positions)).containsExactly(1L, 5L, 4L, 3L, 2L, 6L);
+        positions.put(6L, ordering.positionAfter(USER, 6L, null));
+        assertThat(order(positions)).containsExactly(6L, 1L, 5L, 4L, 3L, 2L);
+
+        verify(bulkRepo, never()).renumberPositions(anyLong(), anyInt());
+    }
+
+    // Ids in custom order: position ascending, newest first among equal positions
+    private static List<Long> order(Map<Long, Integer> positions) {
+        return positions.entrySet().stream()
+                .sorted(Map.Entry.<Long, Integer>comparingByValue()
+                        .thenComparing(Map.Entry.comparingByKey(Comparator.reverseOrder())))
+                .map(Map.Entry::getKey)
+                .toList();
+    }
+
+    private static WatchlistRepo inMemory(Map<Long, Integer> positions) {
+        WatchlistRepo repo = mock(WatchlistRepo.class);
+        when(repo.findMinPosition(USER)).thenAnswer(invocation ->
+                positions.values().stream().min(Integer::compare).orElse(null));
+        when(repo.countByUserId(USER)).thenAnswer(invocation -> (long) positions.size());
+        when(repo.findPositionById(anyLong())).thenAnswer(invocation -> positions.get(invocation.<Long>getArgument(0)));
+        when(repo.findFirstPositions(eq(USER), anyLong(), any())).thenAnswer(invocation ->
+                rows(positions, invocation.getArgument(1), null, null));
+        when(repo.findPositionsAfter(eq(USER), anyLong(), anyInt(), anyLong(), any())).thenAnswer(invocation ->
+                rows(positions, invocation.getArgument(1), invocation.getArgument(2), invocation.getArgument(3)));
+        return repo;
+    }
+
+    // First (id, position) row in custom order, skipping excludeId and anything up to (position, id)
+    private static List<Object[]> rows(Map<Long, Integer> positions, Long excludeId, Integer position, Long id) {
+        return order(positions).stream()
+                .filter(entry -> !entry.equals(excludeId))
+                .filter(entry -> position == null || positions.get(entry) > position
+                        || (positions.get(entry).equals(position) && entry < id))
+                .limit(1)
+                .map(entry -> new Object[]{entry, positions.get(entry)})
+                .toList();
+    }
+}
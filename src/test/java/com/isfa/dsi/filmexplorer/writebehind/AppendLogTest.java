@@ -0,0 +1,130 @@
+package com.isfa.dsi.filmexplorer.writebehind;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class AppendLogTest {
+
+    @TempDir
+    Path dir;
+
+    @Test
+    void replaysRecordsAfterTheCheckpointAndDropsATornTail() throws Exception {
+        Path path = dir.resolve("writes.log");
+        long firstEnd;
+        try (AppendLog log = AppendLog.open(path, new ArrayList<>())) {
+            firstEnd = log.append(bytes("one"));
+            log.append(bytes("two"));
+            log.append(bytes("three"));
+            log.checkpoint(firstEnd);
+        }
+        // Simulate a crash in the middle of a fourth append
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.WRITE, StandardOpenOption.APPEND)) {
+            channel.write(ByteBuffer.wrap(new byte[]{0, 0, 0, 42, 1, 2}));
+        }
+
+        List<AppendLog.Entry> unapplied = new ArrayList<>();
+        try (AppendLog log = AppendLog.open(path, unapplied)) {
+            assertThat(unapplied).extracting(entry -> new String(entry.payload(), StandardCharsets.UTF_8))
+                    .containsExactly("two", "three");
+
+            // Applying everything empties the log
+            log.checkpoint(unapplied.get(1).end());
+            assertThat(log.size()).isZero();
+            assertThat(Files.size(path)).isEqualTo(AppendLog.LOG_HEADER_BYTES);
+        }
+
+        List<AppendLog.Entry> none = new ArrayList<>();
+        AppendLog.open(path, none).close();
+        assertThat(none).isEmpty();
+    }
+
+    @Test
+    void aStaleCheckpointNeverSkipsRecordsOfANewerLog() throws Exception {
+        Path path = dir.resolve("stale.log");
+        Path checkpoint = dir.resolve("stale.log.checkpoint");
+        Path staleCheckpoint = dir.resolve("stale-copy");
+        try (AppendLog log = AppendLog.open(path, new ArrayList<>())) {
+            long first = log.append(bytes("one"));
+            long second = log.append(bytes("two"));
+            log.checkpoint(first);
+            Files.copy(checkpoint, staleCheckpoint);
+
+            // Empties the log, then acknowledged appends grow it past the old offset
+            log.checkpoint(second);
+            log.append(bytes("three"));
+            log.append(bytes("four-and-then-some"));
+            assertThat(log.size() + AppendLog.LOG_HEADER_BYTES).isGreaterThan(first);
+        }
+        // A crash lost the checkpoint written when the log was emptied
+        Files.copy(staleCheckpoint, checkpoint, StandardCopyOption.REPLACE_EXISTING);
+
+        List<AppendLog.Entry> unapplied = new ArrayList<>();
+        AppendLog.open(path, unapplied).close();
+        assertThat(unapplied).extracting(entry -> new String(entry.payload(), StandardCharsets.UTF_8))
+                .containsExactly("three", "four-and-then-some");
+    }
+
+    @Test
+    void aCrashBeforeTruncationDoesNotReplayAnEmptiedLog() throws Exception {
+        Path path = dir.resolve("emptied.log");
+        Path beforeEmptying = dir.resolve("emptied-copy");
+        try (AppendLog log = AppendLog.open(path, new ArrayList<>())) {
+            long end = log.append(bytes("one"));
+            Files.copy(path, beforeEmptying);
+            log.checkpoint(end);
+        }
+        // The checkpoint of the new generation is durable, the truncation never happened
+        Files.copy(beforeEmptying, path, StandardCopyOption.REPLACE_EXISTING);
+
+        List<AppendLog.Entry> unapplied = new ArrayList<>();
+        try (AppendLog log = AppendLog.open(path, unapplied)) {
+            assertThat(unapplied).isEmpty();
+            assertThat(log.size()).isZero();
+        }
+    }
+
+    @Test
+    void concurrentAppendsAreAllDurable() throws Exception {
+        Path path = dir.resolve("concurrent.log");
+        int threads = 8;
+        int perThread = 200;
+        try (AppendLog log = AppendLog.open(path, new ArrayList<>())) {
+            ExecutorService executor = Executors.newFixedThreadPool(threads);
+            for (int t = 0; t < threads; t++) {
+                int thread = t;
+                executor.submit(() -> {
+                    for (int i = 0; i < perThread; i++) {
+                        log.append(bytes(thread + ":" + i));
+                    }
+                    return null;
+                });
+            }
+            executor.shutdown();
+            assertThat(executor.awaitTermination(30, TimeUnit.SECONDS)).isTrue();
+        }
+
+        List<AppendLog.Entry> unapplied = new ArrayList<>();
+        AppendLog.open(path, unapplied).close();
+        assertThat(unapplied).hasSize(threads * perThread);
+    }
+
+    private static byte[] bytes(String value) {
+        return value.getBytes(StandardCharsets.UTF_8);
+    }
+}